@@ -48,6 +48,9 @@ public abstract class AbstractCsvTool {
 
   protected static final String TIME_ZONE_ARGS = "tz";
   protected static final String TIME_ZONE_NAME = "timeZone";
+
+  protected static final String THREAD_NUM_ARGS = "tn";
+  protected static final String THREAD_NUM_NAME = "threadNumber";
   protected static final int MAX_HELP_CONSOLE_WIDTH = 92;
   protected static final String[] SUPPORT_TIME_FORMAT = new String[]{"default",
       "long",
@@ -104,6 +107,24 @@ public abstract class AbstractCsvTool {
     }
   }
 
+  protected static int parsePositiveInt(CommandLine commandLine, String arg, String name,
+      int defaultValue) throws ArgsErrorException {
+    String str = commandLine.getOptionValue(arg);
+    if (str == null) {
+      return defaultValue;
+    }
+    try {
+      int value = Integer.parseInt(str.trim());
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // fall through to the error below
+    }
+    throw new ArgsErrorException(String.format("Option '%s' should be a positive integer, but "
+        + "got %s", name, str));
+  }
+
   protected static boolean checkTimeFormat() {
     for (String format : SUPPORT_TIME_FORMAT) {
       if (timeFormat.equals(format)) {
@@ -35,7 +35,15 @@ import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import jline.console.ConsoleReader;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -48,6 +56,16 @@ import org.apache.iotdb.client.AbstractClient;
 import org.apache.iotdb.exception.ArgsErrorException;
 import org.apache.iotdb.jdbc.Config;
 import org.apache.iotdb.jdbc.IoTDBConnection;
+import org.apache.iotdb.rpc.IoTDBConnectionException;
+import org.apache.iotdb.rpc.StatementExecutionException;
+import org.apache.iotdb.session.Session;
+import org.apache.iotdb.session.SessionDataSet;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.thrift.TException;
 
 /**
@@ -66,6 +84,17 @@ public class ExportCsv extends AbstractCsvTool {
   private static final String SQL_FILE_ARGS = "s";
   private static final String SQL_FILE_NAME = "sqlfile";
 
+  private static final String DEVICE_PATH_ARGS = "dp";
+  private static final String DEVICE_PATH_NAME = "devicePath";
+
+  private static final String TIME_INTERVAL_ARGS = "ti";
+  private static final String TIME_INTERVAL_NAME = "timeInterval";
+
+  private static final String FILE_TYPE_ARGS = "ft";
+  private static final String FILE_TYPE_NAME = "fileType";
+  private static final String FILE_TYPE_CSV = "csv";
+  private static final String FILE_TYPE_TSFILE = "tsfile";
+
   private static final String TSFILEDB_CLI_PREFIX = "ExportCsv";
 
   private static final String DUMP_FILE_NAME_DEFAULT = "dump";
@@ -79,6 +108,11 @@ public class ExportCsv extends AbstractCsvTool {
 
   private static List<Integer> typeList = new ArrayList<>();
 
+  private static String devicePath;
+  private static long timeInterval;
+  private static String fileType = FILE_TYPE_CSV;
+  private static int threadNum = Runtime.getRuntime().availableProcessors();
+
   /**
    * main function of export csv tool.
    */
@@ -125,7 +159,9 @@ public class ExportCsv extends AbstractCsvTool {
           .getConnection(Config.IOTDB_URL_PREFIX + host + ":" + port + "/", username, password);
       setTimeZone();
 
-      if (sqlFile == null) {
+      if (devicePath != null) {
+        exportDevices(devicePath);
+      } else if (sqlFile == null) {
         sql = reader.readLine(TSFILEDB_CLI_PREFIX + "> please input query: ");
         String[] values = sql.trim().split(";");
         for (int i = 0; i < values.length; i++) {
@@ -145,6 +181,11 @@ public class ExportCsv extends AbstractCsvTool {
       System.out.println("Failed to operate on file, because " + e.getMessage());
     } catch (ArgsErrorException e) {
       System.out.println("Invalid args: " + e.getMessage());
+    } catch (IoTDBConnectionException | StatementExecutionException e) {
+      System.out.println("Encounter an error when exporting data, error is: " + e.getMessage());
+    } catch (InterruptedException e) {
+      System.out.println("Exporting data is interrupted");
+      Thread.currentThread().interrupt();
     } finally {
       reader.close();
       if (connection != null) {
@@ -165,6 +206,28 @@ public class ExportCsv extends AbstractCsvTool {
       timeFormat = "default";
     }
     timeZoneID = commandLine.getOptionValue(TIME_ZONE_ARGS);
+    devicePath = commandLine.getOptionValue(DEVICE_PATH_ARGS);
+    threadNum = parsePositiveInt(commandLine, THREAD_NUM_ARGS, THREAD_NUM_NAME, threadNum);
+    String interval = commandLine.getOptionValue(TIME_INTERVAL_ARGS);
+    if (interval != null) {
+      try {
+        timeInterval = Long.parseLong(interval.trim());
+      } catch (NumberFormatException e) {
+        timeInterval = -1;
+      }
+      if (timeInterval <= 0) {
+        throw new ArgsErrorException(String.format("Option '%s' should be a positive integer, "
+            + "but got %s", TIME_INTERVAL_NAME, interval));
+      }
+    }
+    fileType = commandLine.getOptionValue(FILE_TYPE_ARGS, FILE_TYPE_CSV).toLowerCase();
+    if (!FILE_TYPE_CSV.equals(fileType) && !FILE_TYPE_TSFILE.equals(fileType)) {
+      throw new ArgsErrorException("Unsupported file type " + fileType);
+    }
+    if (devicePath == null && (timeInterval > 0 || FILE_TYPE_TSFILE.equals(fileType))) {
+      throw new ArgsErrorException(String.format("Option '%s' and '%s' can only be used with "
+          + "'%s'", TIME_INTERVAL_NAME, FILE_TYPE_NAME, DEVICE_PATH_NAME));
+    }
     if (!targetDirectory.endsWith(File.separator)) {
       targetDirectory += File.separator;
     }
@@ -221,6 +284,25 @@ public class ExportCsv extends AbstractCsvTool {
         .desc("Time Zone eg. +08:00 or -01:00 (optional)").build();
     options.addOption(opTimeZone);
 
+    Option opDevicePath = Option.builder(DEVICE_PATH_ARGS).argName(DEVICE_PATH_NAME).hasArg()
+        .desc("Export all data of the devices under this path instead of the result of queries, "
+            + "each device into its own file (optional)").build();
+    options.addOption(opDevicePath);
+
+    Option opTimeInterval = Option.builder(TIME_INTERVAL_ARGS).argName(TIME_INTERVAL_NAME)
+        .hasArg().desc("Split the data of each device into files of this time interval, "
+            + "only with -dp (optional)").build();
+    options.addOption(opTimeInterval);
+
+    Option opFileType = Option.builder(FILE_TYPE_ARGS).argName(FILE_TYPE_NAME).hasArg()
+        .desc("Export into csv or tsfile, only with -dp, default csv (optional)").build();
+    options.addOption(opFileType);
+
+    Option opThreadNum = Option.builder(THREAD_NUM_ARGS).argName(THREAD_NUM_NAME).hasArg()
+        .desc("The number of threads and connections to export devices, "
+            + "the number of processors by default (optional)").build();
+    options.addOption(opThreadNum);
+
     Option opHelp = Option.builder(HELP_ARGS).longOpt(HELP_ARGS).hasArg(false)
         .desc("Display help information")
         .build();
@@ -229,6 +311,151 @@ public class ExportCsv extends AbstractCsvTool {
     return options;
   }
 
+  /**
+   * Export the devices under the path by threadNum threads, each with its own session. A device
+   * is exported into one file, or one file per timeInterval if it is set.
+   */
+  private static void exportDevices(String path)
+      throws IoTDBConnectionException, StatementExecutionException, InterruptedException {
+    long startTime = System.currentTimeMillis();
+    BlockingQueue<Session> sessions = new ArrayBlockingQueue<>(threadNum);
+    ExecutorService exportThreadPool = Executors.newFixedThreadPool(threadNum);
+    try {
+      for (int i = 0; i < threadNum; i++) {
+        Session session = new Session(host, Integer.parseInt(port), username, password);
+        session.open();
+        sessions.add(session);
+      }
+      Session session = sessions.peek();
+      List<String> deviceIds = new ArrayList<>();
+      for (RowRecord record : query(session, "show devices " + path)) {
+        deviceIds.add(record.getFields().get(0).getStringValue());
+      }
+      System.out.println(String.format("Start to export %d devices under %s", deviceIds.size(),
+          path));
+
+      List<ExportTask> tasks = new ArrayList<>();
+      List<String> taskNames = new ArrayList<>();
+      for (String deviceId : deviceIds) {
+        // the series are selected by name, as "select *" also gets the series of the devices
+        // under this device
+        Map<String, MeasurementSchema> schemas = querySchemas(session, deviceId);
+        if (schemas.isEmpty()) {
+          continue;
+        }
+        String sql = String.format("select %s from %s", String.join(",", schemas.keySet()),
+            deviceId);
+        String fileName = targetDirectory + targetFile + "_" + deviceId;
+        boolean toTsFile = FILE_TYPE_TSFILE.equals(fileType);
+        if (timeInterval <= 0) {
+          tasks.add(new ExportTask(deviceId, sql, new File(fileName + "." + fileType), schemas,
+              toTsFile, sessions));
+          taskNames.add(deviceId);
+          continue;
+        }
+        long[] timeRange = queryTimeRange(session, deviceId);
+        int index = 0;
+        for (long start = timeRange[0]; start <= timeRange[1]; start += timeInterval) {
+          long end = start + timeInterval;
+          tasks.add(new ExportTask(deviceId,
+              String.format("%s where time >= %d and time < %d", sql, start, end),
+              new File(fileName + "_" + index + "." + fileType), schemas, toTsFile, sessions));
+          taskNames.add(String.format("%s in [%d, %d)", deviceId, start, end));
+          index++;
+          if (end <= start) {
+            // overflow
+            break;
+          }
+        }
+      }
+
+      List<Future<Long>> futures = exportThreadPool.invokeAll(tasks);
+      long lines = 0;
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          lines += futures.get(i).get();
+        } catch (ExecutionException e) {
+          System.out.println(String.format("Cannot export %s because: %s", taskNames.get(i),
+              e.getCause().getMessage()));
+        }
+      }
+      System.out.println(String.format("%d devices under %s have been exported into %d files, it "
+              + "costs %dms to export %d lines.", deviceIds.size(), path, tasks.size(),
+          System.currentTimeMillis() - startTime, lines));
+    } finally {
+      exportThreadPool.shutdownNow();
+      for (Session session : sessions) {
+        session.close();
+      }
+    }
+  }
+
+  private static List<RowRecord> query(Session session, String sql)
+      throws IoTDBConnectionException, StatementExecutionException {
+    SessionDataSet dataSet = session.executeQueryStatement(sql);
+    List<RowRecord> records = new ArrayList<>();
+    try {
+      while (dataSet.hasNext()) {
+        records.add(dataSet.next());
+      }
+    } finally {
+      dataSet.closeOperationHandle();
+    }
+    return records;
+  }
+
+  /**
+   * @return measurement -> schema of the series of the device, the encoding and compression are
+   * kept in a TsFile.
+   */
+  private static Map<String, MeasurementSchema> querySchemas(Session session, String deviceId)
+      throws IoTDBConnectionException, StatementExecutionException {
+    Map<String, MeasurementSchema> schemas = new LinkedHashMap<>();
+    for (RowRecord record : query(session, "show timeseries " + deviceId)) {
+      // timeseries, alias, storage group, dataType, encoding, compression
+      List<Field> fields = record.getFields();
+      String timeseries = fields.get(0).getStringValue();
+      if (timeseries.lastIndexOf('.') != deviceId.length()) {
+        // a series of a descendant device
+        continue;
+      }
+      String measurement = timeseries.substring(deviceId.length() + 1);
+      schemas.put(measurement, new MeasurementSchema(measurement,
+          TSDataType.valueOf(fields.get(3).getStringValue()),
+          TSEncoding.valueOf(fields.get(4).getStringValue()),
+          CompressionType.valueOf(fields.get(5).getStringValue())));
+    }
+    return schemas;
+  }
+
+  /**
+   * @return the min and max time of the device, or an empty range if it has no data
+   */
+  private static long[] queryTimeRange(Session session, String deviceId)
+      throws IoTDBConnectionException, StatementExecutionException {
+    long[] timeRange = new long[]{Long.MAX_VALUE, Long.MIN_VALUE};
+    List<RowRecord> records = query(session,
+        String.format("select min_time(*), max_time(*) from %s", deviceId));
+    if (records.isEmpty()) {
+      return new long[]{0, -1};
+    }
+    List<Field> fields = records.get(0).getFields();
+    // the min times of all series come before their max times
+    int seriesNum = fields.size() / 2;
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      if (field == null || field.getDataType() == null) {
+        continue;
+      }
+      if (i < seriesNum) {
+        timeRange[0] = Math.min(timeRange[0], field.getLongV());
+      } else {
+        timeRange[1] = Math.max(timeRange[1], field.getLongV());
+      }
+    }
+    return timeRange[0] > timeRange[1] ? new long[]{0, -1} : timeRange;
+  }
+
   private static void dumpFromSqlFile(String filePath) throws IOException {
     try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
       String sql;
@@ -323,25 +550,23 @@ public class ExportCsv extends AbstractCsvTool {
   }
 
   private static void writeTime(ResultSet rs, BufferedWriter bw) throws SQLException, IOException {
-    ZonedDateTime dateTime;
+    bw.write(formatTime(rs.getLong(1)) + ",");
+  }
+
+  static String formatTime(long timestamp) {
     switch (timeFormat) {
       case "default":
-        long timestamp = rs.getLong(1);
-        String str = AbstractClient
+        return AbstractClient
             .parseLongToDateWithPrecision(DateTimeFormatter.ISO_OFFSET_DATE_TIME, timestamp, zoneId,
                 TIMESTAMP_PRECISION);
-        bw.write(str + ",");
-        break;
       case "timestamp":
       case "long":
+      case "number":
       case "nubmer":
-        bw.write(rs.getLong(1) + ",");
-        break;
+        return Long.toString(timestamp);
       default:
-        dateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(rs.getLong(1)),
-            zoneId);
-        bw.write(dateTime.format(DateTimeFormatter.ofPattern(timeFormat)) + ",");
-        break;
+        ZonedDateTime dateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(timestamp), zoneId);
+        return dateTime.format(DateTimeFormatter.ofPattern(timeFormat));
     }
   }
 
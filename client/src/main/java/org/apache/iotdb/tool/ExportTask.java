@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tool;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import org.apache.iotdb.rpc.IoTDBConnectionException;
+import org.apache.iotdb.rpc.StatementExecutionException;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.session.Session;
+import org.apache.iotdb.session.SessionDataSet;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.StringDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * Export the data of one device (in a time range) into a csv file or a TsFile. The result is
+ * streamed batch by batch in the columnar format it is transferred in, and each value is read
+ * from its column by its type, so no row or string is built for a TsFile.
+ */
+class ExportTask implements Callable<Long> {
+
+  private static final int FLAG = 0x80;
+
+  private final String deviceId;
+  private final String sql;
+  private final File file;
+  /**
+   * measurement -> schema of the device
+   */
+  private final Map<String, MeasurementSchema> schemas;
+  private final boolean toTsFile;
+  private final BlockingQueue<Session> sessions;
+
+  ExportTask(String deviceId, String sql, File file, Map<String, MeasurementSchema> schemas,
+      boolean toTsFile, BlockingQueue<Session> sessions) {
+    this.deviceId = deviceId;
+    this.sql = sql;
+    this.file = file;
+    this.schemas = schemas;
+    this.toTsFile = toTsFile;
+    this.sessions = sessions;
+  }
+
+  /**
+   * @return the number of exported lines
+   */
+  @Override
+  public Long call() throws Exception {
+    Session session = sessions.take();
+    try {
+      return export(session);
+    } finally {
+      sessions.put(session);
+    }
+  }
+
+  private long export(Session session)
+      throws IoTDBConnectionException, StatementExecutionException, IOException,
+      WriteProcessException {
+    SessionDataSet dataSet = session.executeQueryStatement(sql);
+    List<String> columns = dataSet.getColumnNamesDeduplicated();
+    TSDataType[] types = new TSDataType[columns.size()];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = TSDataType.valueOf(dataSet.getColumnTypesDeduplicated().get(i));
+    }
+
+    long lines = 0;
+    try (RowWriter writer = toTsFile ? new TsFileRowWriter(columns, types)
+        : new CsvRowWriter(columns, types)) {
+      byte[] bitmaps = new byte[columns.size()];
+      TSQueryDataSet batch;
+      while ((batch = dataSet.nextQueryDataSet()) != null) {
+        int rowCount = batch.time.remaining() / Long.BYTES;
+        for (int row = 0; row < rowCount; row++) {
+          writer.startRow(batch.time.getLong());
+          for (int i = 0; i < columns.size(); i++) {
+            // a byte of the bitmap marks the nulls of 8 rows
+            if (row % 8 == 0) {
+              bitmaps[i] = batch.bitmapList.get(i).get();
+            }
+            if (((FLAG >>> (row % 8)) & bitmaps[i]) == 0) {
+              writer.writeNull(i);
+            } else {
+              writer.writeValue(i, batch.valueList.get(i));
+            }
+          }
+          writer.endRow();
+        }
+        lines += rowCount;
+      }
+    } finally {
+      dataSet.closeOperationHandle();
+    }
+    return lines;
+  }
+
+  private interface RowWriter extends AutoCloseable {
+
+    void startRow(long time) throws IOException;
+
+    void writeNull(int column) throws IOException;
+
+    /**
+     * read the next value of the column from the buffer and write it.
+     */
+    void writeValue(int column, ByteBuffer buffer) throws IOException;
+
+    void endRow() throws IOException, WriteProcessException;
+
+    @Override
+    void close() throws IOException;
+  }
+
+  private class CsvRowWriter implements RowWriter {
+
+    private final TSDataType[] types;
+    private final BufferedWriter writer;
+
+    private CsvRowWriter(List<String> columns, TSDataType[] types) throws IOException {
+      this.types = types;
+      this.writer = new BufferedWriter(new FileWriter(file));
+      writer.write("Time");
+      for (String column : columns) {
+        writer.write(",");
+        writer.write(column);
+      }
+      writer.newLine();
+    }
+
+    @Override
+    public void startRow(long time) throws IOException {
+      writer.write(ExportCsv.formatTime(time));
+    }
+
+    @Override
+    public void writeNull(int column) throws IOException {
+      writer.write(',');
+    }
+
+    @Override
+    public void writeValue(int column, ByteBuffer buffer) throws IOException {
+      writer.write(',');
+      switch (types[column]) {
+        case BOOLEAN:
+          writer.write(Boolean.toString(BytesUtils.byteToBool(buffer.get())));
+          break;
+        case INT32:
+          writer.write(Integer.toString(buffer.getInt()));
+          break;
+        case INT64:
+          writer.write(Long.toString(buffer.getLong()));
+          break;
+        case FLOAT:
+          writer.write(Float.toString(buffer.getFloat()));
+          break;
+        case DOUBLE:
+          writer.write(Double.toString(buffer.getDouble()));
+          break;
+        case TEXT:
+          writer.write('\'');
+          writer.write(readBinary(buffer).getStringValue());
+          writer.write('\'');
+          break;
+        default:
+          throw new IOException("Unsupported data type " + types[column]);
+      }
+    }
+
+    @Override
+    public void endRow() throws IOException {
+      writer.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+  }
+
+  private class TsFileRowWriter implements RowWriter {
+
+    private final TSDataType[] types;
+    private final String[] measurements;
+    private final TsFileWriter writer;
+    private TSRecord record;
+
+    private TsFileRowWriter(List<String> columns, TSDataType[] types)
+        throws IOException, WriteProcessException {
+      this.types = types;
+      this.measurements = new String[columns.size()];
+      this.writer = new TsFileWriter(file);
+      for (int i = 0; i < measurements.length; i++) {
+        measurements[i] = columns.get(i).substring(deviceId.length() + 1);
+        MeasurementSchema schema = schemas.get(measurements[i]);
+        if (schema == null) {
+          schema = new MeasurementSchema(measurements[i], types[i]);
+        }
+        writer.registerTimeseries(new Path(deviceId, measurements[i]), schema);
+      }
+    }
+
+    @Override
+    public void startRow(long time) {
+      record = new TSRecord(time, deviceId);
+    }
+
+    @Override
+    public void writeNull(int column) {
+      // a null is simply absent in a TsFile
+    }
+
+    @Override
+    public void writeValue(int column, ByteBuffer buffer) throws IOException {
+      String measurement = measurements[column];
+      switch (types[column]) {
+        case BOOLEAN:
+          record.addTuple(new BooleanDataPoint(measurement, BytesUtils.byteToBool(buffer.get())));
+          break;
+        case INT32:
+          record.addTuple(new IntDataPoint(measurement, buffer.getInt()));
+          break;
+        case INT64:
+          record.addTuple(new LongDataPoint(measurement, buffer.getLong()));
+          break;
+        case FLOAT:
+          record.addTuple(new FloatDataPoint(measurement, buffer.getFloat()));
+          break;
+        case DOUBLE:
+          record.addTuple(new DoubleDataPoint(measurement, buffer.getDouble()));
+          break;
+        case TEXT:
+          record.addTuple(new StringDataPoint(measurement, readBinary(buffer)));
+          break;
+        default:
+          throw new IOException("Unsupported data type " + types[column]);
+      }
+    }
+
+    @Override
+    public void endRow() throws IOException, WriteProcessException {
+      writer.write(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+  }
+
+  private static Binary readBinary(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new Binary(bytes);
+  }
+}
@@ -26,16 +26,24 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.LineNumberReader;
-import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import jline.console.ConsoleReader;
 import me.tongfei.progressbar.ProgressBar;
 import org.apache.commons.cli.CommandLine;
@@ -48,31 +56,78 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.exception.ArgsErrorException;
 import org.apache.iotdb.jdbc.Config;
-import org.apache.iotdb.jdbc.Constant;
 import org.apache.iotdb.jdbc.IoTDBConnection;
+import org.apache.iotdb.rpc.BatchExecutionException;
+import org.apache.iotdb.rpc.IoTDBConnectionException;
+import org.apache.iotdb.session.pool.SessionPool;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.thrift.TException;
 
 /**
  * read a CSV formatted data File and insert all the data into IoTDB.
+ * <p>
+ * The lines of a file are read in chunks of batchSize lines, and each chunk is parsed and
+ * inserted by one of the import threads: the rows of each device are put into a typed RowBatch
+ * and sent by Session.insertBatch through a pool of connections, while the rows of a device
+ * which miss some of its values are sent as records by Session.insertInBatch.
  */
 public class ImportCsv extends AbstractCsvTool {
   private static final String FILE_ARGS = "f";
   private static final String FILE_NAME = "file or folder";
   private static final String FILE_SUFFIX = "csv";
 
+  private static final String BATCH_SIZE_ARGS = "bs";
+  private static final String BATCH_SIZE_NAME = "batchSize";
+
   private static final String TSFILEDB_CLI_PREFIX = "ImportCsv";
   private static final String ERROR_INFO_STR = "csvInsertError.error";
 
-  private static final String STRING_DATA_TYPE = "TEXT";
-  private static final int BATCH_EXECUTE_COUNT = 100;
+  private static final int DEFAULT_BATCH_SIZE = 10000;
 
   private static String errorInsertInfo = "";
-  private static boolean errorFlag;
+  private static volatile boolean errorFlag;
 
   private static String IOTDB_CLI_HOME = "IOTDB_CLI_HOME";
 
-  private static int count;
-  private static Statement statement;
+  private static int threadNum = Runtime.getRuntime().availableProcessors();
+  private static int batchSize = DEFAULT_BATCH_SIZE;
+
+  private static SessionPool sessionPool;
+  private static ExecutorService importThreadPool;
+
+  private static final List<DateTimeFormatter> TIME_FORMATTERS = new ArrayList<>();
+
+  static {
+    TIME_FORMATTERS.add(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    TIME_FORMATTERS.add(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    for (String format : SUPPORT_TIME_FORMAT) {
+      if (format.startsWith("yyyy")) {
+        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern(format));
+      }
+    }
+  }
+
+  /**
+   * the columns of one device in a csv file.
+   */
+  private static class DeviceColumns {
+
+    private String deviceId;
+    /**
+     * the index of each measurement in a line, the time is at 0
+     */
+    private List<Integer> columns = new ArrayList<>();
+    private List<String> measurements = new ArrayList<>();
+    private List<MeasurementSchema> schemas = new ArrayList<>();
+
+    private DeviceColumns(String deviceId) {
+      this.deviceId = deviceId;
+    }
+  }
 
   /**
    * create the commandline options.
@@ -114,6 +169,16 @@ public class ImportCsv extends AbstractCsvTool {
         .desc("Time Zone eg. +08:00 or -01:00 (optional)").build();
     options.addOption(opTimeZone);
 
+    Option opThreadNum = Option.builder(THREAD_NUM_ARGS).argName(THREAD_NUM_NAME).hasArg()
+        .desc("The number of threads and connections to import data, "
+            + "the number of processors by default (optional)").build();
+    options.addOption(opThreadNum);
+
+    Option opBatchSize = Option.builder(BATCH_SIZE_ARGS).argName(BATCH_SIZE_NAME).hasArg()
+        .desc(String.format("The number of lines in a batch, %d by default (optional)",
+            DEFAULT_BATCH_SIZE)).build();
+    options.addOption(opBatchSize);
+
     return options;
   }
 
@@ -121,7 +186,6 @@ public class ImportCsv extends AbstractCsvTool {
    * Data from csv To tsfile.
    */
   private static void loadDataFromCSV(File file, int index) {
-    statement = null;
     int fileLine;
     try {
       fileLine = getFileLineCount(file);
@@ -153,13 +217,6 @@ public class ImportCsv extends AbstractCsvTool {
       bw.newLine();
       bw.newLine();
 
-      // storage csv table head info
-      Map<String, ArrayList<Integer>> deviceToColumn = new HashMap<>();
-      // storage csv table head info
-      List<String> colInfo = new ArrayList<>();
-      // storage csv device sensor info, corresponding csv table head
-      List<String> headInfo = new ArrayList<>();
-
       String[] strHeadInfo = header.split(",");
       if (strHeadInfo.length <= 1) {
         System.out.println("The CSV file "+ file.getName() +" illegal, please check first line");
@@ -167,221 +224,308 @@ public class ImportCsv extends AbstractCsvTool {
       }
 
       long startTime = System.currentTimeMillis();
-      Map<String, String> timeseriesDataType = new HashMap<>();
-
-      boolean success = queryDatabaseMeta(strHeadInfo, file, bw, timeseriesDataType, headInfo,
-          deviceToColumn, colInfo);
+      List<DeviceColumns> devices = new ArrayList<>();
+      boolean success = queryDatabaseMeta(strHeadInfo, file, bw, devices);
       if (!success) {
         errorFlag = false;
         return;
       }
 
-      statement = connection.createStatement();
-
-
-      List<String> tmp = new ArrayList<>();
-      success = readAndGenSqls(br, timeseriesDataType, deviceToColumn, colInfo, headInfo,
-          bw, tmp, pb);
-      if (!success) {
-        return;
-      }
-
-      executeSqls(bw, tmp, startTime, file);
+      AtomicLong points = new AtomicLong();
+      long lines = readAndImport(br, strHeadInfo.length, devices, bw, pb, points);
       pb.stepTo(fileLine);
+
+      long costTime = Math.max(System.currentTimeMillis() - startTime, 1);
+      System.out.println(String.format("%d lines (%d points) have been imported from %s, "
+              + "it takes %dms (%d points/s)", lines, points.get(), file.getName(), costTime,
+          points.get() * 1000 / costTime));
     } catch (FileNotFoundException e) {
       System.out.println("Cannot find " + file.getName() + " because: "+e.getMessage());
     } catch (IOException e) {
       System.out.println("CSV file read exception because: " + e.getMessage());
     } catch (SQLException e) {
       System.out.println("Database connection exception because: " + e.getMessage());
+    } catch (InterruptedException e) {
+      System.out.println("Importing " + file.getName() + " is interrupted");
+      Thread.currentThread().interrupt();
     } finally {
       try {
-        if (statement != null) {
-          statement.close();
-        }
         if (errorFlag) {
           FileUtils.forceDelete(errorFile);
         } else {
           System.out.println("Format of some lines in "+ file.getAbsolutePath() + " error, please "
               + "check "+errorFile.getAbsolutePath()+" for more information");
         }
-      } catch (SQLException e) {
-        System.out.println("Sql statement can not be closed because: " + e.getMessage());
       } catch (IOException e) {
         System.out.println("Close file error because: " + e.getMessage());
       }
     }
   }
 
-  private static void executeSqls(BufferedWriter bw, List<String> tmp, long startTime, File file)
-      throws IOException {
+  /**
+   * Read the lines in chunks and hand each chunk to an import thread, at most two chunks per
+   * thread are pending so the reader does not run far ahead of the insertion.
+   *
+   * @return the number of lines read
+   */
+  private static long readAndImport(BufferedReader br, int columnNum, List<DeviceColumns> devices,
+      BufferedWriter bw, ProgressBar pb, AtomicLong points)
+      throws IOException, InterruptedException {
+    int maxPendingChunks = threadNum * 2;
+    Semaphore pendingChunks = new Semaphore(maxPendingChunks);
+    long lineNum = 0;
+    List<String> chunk = new ArrayList<>(batchSize);
+    String line;
     try {
-      int[] result = statement.executeBatch();
-      for (int i = 0; i < result.length; i++) {
-        if (result[i] != Statement.SUCCESS_NO_INFO && i < tmp.size()) {
-          bw.write(tmp.get(i));
-          bw.newLine();
-          errorFlag = false;
+      while ((line = br.readLine()) != null) {
+        lineNum++;
+        chunk.add(line);
+        if (chunk.size() == batchSize) {
+          submitChunk(chunk, columnNum, devices, bw, pb, points, pendingChunks);
+          chunk = new ArrayList<>(batchSize);
         }
       }
-      statement.clearBatch();
-      tmp.clear();
-    } catch (SQLException e) {
-      bw.write(e.getMessage());
-      bw.newLine();
-      errorFlag = false;
-      System.out.println("Cannot execute sql because: " + e.getMessage());
+      if (!chunk.isEmpty()) {
+        submitChunk(chunk, columnNum, devices, bw, pb, points, pendingChunks);
+      }
+    } finally {
+      // wait until all chunks of the file are imported
+      pendingChunks.acquire(maxPendingChunks);
+      pendingChunks.release(maxPendingChunks);
     }
+    return lineNum;
   }
 
-  private static boolean readAndGenSqls(BufferedReader br, Map<String, String> timeseriesDataType,
-      Map<String, ArrayList<Integer>> deviceToColumn, List<String> colInfo,
-      List<String> headInfo, BufferedWriter bw, List<String> tmp, ProgressBar pb) throws IOException {
-    String line;
-    count = 0;
-    while ((line = br.readLine()) != null) {
-      List<String> sqls;
+  private static void submitChunk(List<String> chunk, int columnNum, List<DeviceColumns> devices,
+      BufferedWriter bw, ProgressBar pb, AtomicLong points, Semaphore pendingChunks)
+      throws InterruptedException {
+    pendingChunks.acquire();
+    importThreadPool.submit(() -> {
       try {
-        sqls = createInsertSQL(line, timeseriesDataType, deviceToColumn, colInfo, headInfo);
-      } catch (Exception e) {
-        bw.write(String.format("error input line, maybe it is not complete: %s", line));
-        bw.newLine();
-        System.out.println("Cannot create sql for " + line + " because: " + e.getMessage());
-        errorFlag = false;
-        return false;
-      }
-      boolean success = addSqlsToBatch(sqls, tmp, bw);
-      pb.step();
-      if (!success) {
-        return false;
+        points.addAndGet(importChunk(chunk, columnNum, devices, bw));
+        pb.stepBy(chunk.size());
+      } catch (IOException e) {
+        System.out.println("Cannot write error file because: " + e.getMessage());
+      } finally {
+        pendingChunks.release();
       }
-    }
-    return true;
+    });
   }
 
-  private static boolean addSqlsToBatch(List<String> sqls, List<String> tmp, BufferedWriter bw)
-      throws IOException {
-    for (String str : sqls) {
+  /**
+   * Parse the lines and insert them.
+   *
+   * @return the number of points inserted
+   */
+  private static long importChunk(List<String> lines, int columnNum, List<DeviceColumns> devices,
+      BufferedWriter bw) throws IOException {
+    RowBatch[] rowBatches = new RowBatch[devices.size()];
+    // the rows missing some values of a device cannot be put in a RowBatch
+    List<String> deviceIds = new ArrayList<>();
+    List<Long> times = new ArrayList<>();
+    List<List<String>> measurementsList = new ArrayList<>();
+    List<List<String>> valuesList = new ArrayList<>();
+    List<String> errorLines = new ArrayList<>();
+
+    for (String line : lines) {
+      String[] data = line.split(",", columnNum);
+      long time;
       try {
-        count++;
-        statement.addBatch(str);
-        tmp.add(str);
-        checkBatchSize(bw, tmp);
-
-      } catch (SQLException e) {
-        bw.write(e.getMessage());
-        bw.newLine();
-        errorFlag = false;
-        System.out.println("Cannot execute sql because: " + e.getMessage());
-        return false;
+        if (data.length < columnNum) {
+          throw new IllegalArgumentException("the line is not complete");
+        }
+        time = parseTime(data[0]);
+      } catch (IllegalArgumentException | DateTimeException e) {
+        errorLines.add(String.format("error input line, %s: %s", e.getMessage(), line));
+        continue;
+      }
+      for (int i = 0; i < devices.size(); i++) {
+        DeviceColumns device = devices.get(i);
+        int present = 0;
+        for (int column : device.columns) {
+          if (!data[column].isEmpty()) {
+            present++;
+          }
+        }
+        if (present == 0) {
+          continue;
+        }
+        if (present < device.columns.size()) {
+          addRecord(device, time, data, deviceIds, times, measurementsList, valuesList);
+          continue;
+        }
+        if (rowBatches[i] == null) {
+          rowBatches[i] = new RowBatch(device.deviceId, device.schemas, lines.size());
+        }
+        try {
+          addRow(rowBatches[i], device, time, data);
+        } catch (IllegalArgumentException e) {
+          errorLines.add(String.format("error input value of %s, %s: %s", device.deviceId,
+              e.getMessage(), line));
+        }
       }
     }
-    return true;
-  }
 
+    long points = 0;
+    for (RowBatch rowBatch : rowBatches) {
+      if (rowBatch == null || rowBatch.batchSize == 0) {
+        continue;
+      }
+      try {
+        sessionPool.insertBatch(rowBatch);
+        points += (long) rowBatch.batchSize * rowBatch.getSchemas().size();
+      } catch (IoTDBConnectionException | BatchExecutionException e) {
+        errorLines.add(String.format("Cannot insert %d rows of %s because: %s",
+            rowBatch.batchSize, rowBatch.deviceId, e.getMessage()));
+      }
+    }
+    if (!deviceIds.isEmpty()) {
+      try {
+        sessionPool.insertInBatch(deviceIds, times, measurementsList, valuesList);
+        for (List<String> measurements : measurementsList) {
+          points += measurements.size();
+        }
+      } catch (IoTDBConnectionException | BatchExecutionException e) {
+        errorLines.add(String.format("Cannot insert %d rows because: %s", deviceIds.size(),
+            e.getMessage()));
+      }
+    }
 
-  private static void checkBatchSize(BufferedWriter bw, List<String> tmp)
-      throws SQLException, IOException {
-    if (count == BATCH_EXECUTE_COUNT) {
-      int[] result = statement.executeBatch();
-      for (int i = 0; i < result.length; i++) {
-        if (result[i] != Statement.SUCCESS_NO_INFO && i < tmp.size()) {
-          bw.write(tmp.get(i));
+    if (!errorLines.isEmpty()) {
+      errorFlag = false;
+      synchronized (bw) {
+        for (String errorLine : errorLines) {
+          bw.write(errorLine);
           bw.newLine();
-          errorFlag = false;
         }
       }
-      statement.clearBatch();
-      count = 0;
-      tmp.clear();
     }
+    return points;
   }
 
-  private static boolean queryDatabaseMeta(String[] strHeadInfo, File file, BufferedWriter bw,
-      Map<String, String> timeseriesDataType, List<String> headInfo,
-      Map<String, ArrayList<Integer>> deviceToColumn,
-      List<String> colInfo)
-      throws SQLException, IOException {
-    Statement statement = connection.createStatement();
-
-    for (int i = 1; i < strHeadInfo.length; i++) {
-      statement.execute("show timeseries "+ strHeadInfo[i]);
-      ResultSet resultSet= statement.getResultSet();
-      if (resultSet.next()) {
-        timeseriesDataType.put(strHeadInfo[i], resultSet.getString(2));
-      } else {
-        String errorInfo = String.format("Database cannot find %s in %s, stop import!",
-            strHeadInfo[i], file.getAbsolutePath());
-        System.out.println("Database cannot find "+strHeadInfo[i]+" in "+file.getAbsolutePath()+", "
-            + "stop import!");
-        bw.write(errorInfo);
-        return false;
+  private static void addRow(RowBatch rowBatch, DeviceColumns device, long time, String[] data) {
+    int row = rowBatch.batchSize;
+    for (int i = 0; i < device.columns.size(); i++) {
+      String value = data[device.columns.get(i)];
+      Object column = rowBatch.values[i];
+      switch (device.schemas.get(i).getType()) {
+        case BOOLEAN:
+          ((boolean[]) column)[row] = parseBoolean(value.trim());
+          break;
+        case INT32:
+          ((int[]) column)[row] = Integer.parseInt(value.trim());
+          break;
+        case INT64:
+          ((long[]) column)[row] = Long.parseLong(value.trim());
+          break;
+        case FLOAT:
+          ((float[]) column)[row] = Float.parseFloat(value);
+          break;
+        case DOUBLE:
+          ((double[]) column)[row] = Double.parseDouble(value);
+          break;
+        case TEXT:
+          ((Binary[]) column)[row] = Binary.valueOf(value);
+          break;
+        default:
+          throw new IllegalArgumentException("unsupported data type "
+              + device.schemas.get(i).getType());
       }
-      headInfo.add(strHeadInfo[i]);
-      String deviceInfo = strHeadInfo[i].substring(0, strHeadInfo[i].lastIndexOf('.'));
+    }
+    // the row is only counted when all its values are valid
+    rowBatch.timestamps[row] = time;
+    rowBatch.batchSize++;
+  }
 
-      if (!deviceToColumn.containsKey(deviceInfo)) {
-        deviceToColumn.put(deviceInfo, new ArrayList<>());
+  private static void addRecord(DeviceColumns device, long time, String[] data,
+      List<String> deviceIds, List<Long> times, List<List<String>> measurementsList,
+      List<List<String>> valuesList) {
+    List<String> measurements = new ArrayList<>();
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < device.columns.size(); i++) {
+      String value = data[device.columns.get(i)];
+      if (value.isEmpty()) {
+        continue;
       }
-      // storage every device's sensor index info
-      deviceToColumn.get(deviceInfo).add(i - 1);
-      colInfo.add(strHeadInfo[i].substring(strHeadInfo[i].lastIndexOf('.') + 1));
+      measurements.add(device.measurements.get(i));
+      values.add(device.schemas.get(i).getType() == TSDataType.TEXT ? "'" + value + "'" : value);
     }
-    return true;
+    deviceIds.add(device.deviceId);
+    times.add(time);
+    measurementsList.add(measurements);
+    valuesList.add(values);
   }
 
-  private static List<String> createInsertSQL(String line, Map<String, String> timeseriesToType,
-      Map<String, ArrayList<Integer>> deviceToColumn,
-      List<String> colInfo, List<String> headInfo) {
-    String[] data = line.split(",", headInfo.size() + 1);
-    List<String> sqls = new ArrayList<>();
-    Iterator<Map.Entry<String, ArrayList<Integer>>> it = deviceToColumn.entrySet().iterator();
-    while (it.hasNext()) {
-      Map.Entry<String, ArrayList<Integer>> entry = it.next();
-      String sql = createOneSql(entry, data, colInfo, timeseriesToType, headInfo);
-      if (sql != null) {
-        sqls.add(sql);
-      }
+  private static boolean parseBoolean(String value) {
+    if ("true".equalsIgnoreCase(value)) {
+      return true;
+    } else if ("false".equalsIgnoreCase(value)) {
+      return false;
     }
-    return sqls;
+    throw new IllegalArgumentException(value + " is not a boolean");
   }
 
-  private static String createOneSql(Map.Entry<String, ArrayList<Integer>> entry, String[] data,
-      List<String> colInfo, Map<String, String> timeseriesToType, List<String> headInfo) {
-    StringBuilder sbd = new StringBuilder();
-    ArrayList<Integer> colIndex = entry.getValue();
-    sbd.append("insert into ").append(entry.getKey()).append("(timestamp");
-    int skipCount = 0;
-    for (int j = 0; j < colIndex.size(); ++j) {
-      if ("".equals(data[entry.getValue().get(j) + 1])) {
-        skipCount++;
-        continue;
+  /**
+   * parse the time of a line, which is either a number or a datetime in one of the
+   * SUPPORT_TIME_FORMAT, a datetime without offset is in the time zone of the session.
+   */
+  private static long parseTime(String timeStr) {
+    String str = timeStr.trim();
+    if (str.isEmpty()) {
+      throw new IllegalArgumentException("no timestamp");
+    }
+    char first = str.charAt(0);
+    if (Character.isDigit(first) || first == '-') {
+      try {
+        return Long.parseLong(str);
+      } catch (NumberFormatException e) {
+        // try to parse it as a datetime
       }
-      sbd.append(", ").append(colInfo.get(colIndex.get(j)));
     }
-    // define every device null value' number, if the number equal the
-    // sensor number, the insert operation stop
-    if (skipCount == entry.getValue().size()) {
-      return null;
+    for (DateTimeFormatter formatter : TIME_FORMATTERS) {
+      try {
+        TemporalAccessor dateTime = formatter.parseBest(str, ZonedDateTime::from,
+            LocalDateTime::from);
+        if (dateTime instanceof ZonedDateTime) {
+          return ((ZonedDateTime) dateTime).toInstant().toEpochMilli();
+        }
+        return ((LocalDateTime) dateTime).atZone(zoneId).toInstant().toEpochMilli();
+      } catch (DateTimeException e) {
+        // try the next format
+      }
     }
+    throw new DateTimeException("unsupported time format " + str);
+  }
 
-    // TODO when timestampsStr is empty
-    String timestampsStr = data[0];
-    sbd.append(") values(").append(timestampsStr.trim().isEmpty()
-        ? "NO TIMESTAMP" : timestampsStr);
-
-    for (int j = 0; j < colIndex.size(); ++j) {
-      if ("".equals(data[entry.getValue().get(j) + 1])) {
-        continue;
-      }
-      if (timeseriesToType.get(headInfo.get(colIndex.get(j))).equals(STRING_DATA_TYPE)) {
-        sbd.append(", \'").append(data[colIndex.get(j) + 1]).append("\'");
-      } else {
-        sbd.append(",").append(data[colIndex.get(j) + 1]);
+  private static boolean queryDatabaseMeta(String[] strHeadInfo, File file, BufferedWriter bw,
+      List<DeviceColumns> devices) throws SQLException, IOException {
+    Map<String, DeviceColumns> deviceMap = new LinkedHashMap<>();
+    try (Statement statement = connection.createStatement()) {
+      for (int i = 1; i < strHeadInfo.length; i++) {
+        TSDataType dataType;
+        statement.execute("show timeseries " + strHeadInfo[i]);
+        try (ResultSet resultSet = statement.getResultSet()) {
+          if (resultSet.next()) {
+            dataType = TSDataType.valueOf(resultSet.getString("dataType"));
+          } else {
+            String errorInfo = String.format("Database cannot find %s in %s, stop import!",
+                strHeadInfo[i], file.getAbsolutePath());
+            System.out.println(errorInfo);
+            bw.write(errorInfo);
+            return false;
+          }
+        }
+        String deviceId = strHeadInfo[i].substring(0, strHeadInfo[i].lastIndexOf('.'));
+        String measurement = strHeadInfo[i].substring(strHeadInfo[i].lastIndexOf('.') + 1);
+        // storage every device's sensor index info
+        DeviceColumns device = deviceMap.computeIfAbsent(deviceId, DeviceColumns::new);
+        device.columns.add(i);
+        device.measurements.add(measurement);
+        device.schemas.add(new MeasurementSchema(measurement, dataType, TSEncoding.PLAIN));
       }
     }
-    sbd.append(")");
-    return sbd.toString();
+    devices.addAll(deviceMap.values());
+    return true;
   }
 
   public static void main(String[] args) throws IOException, SQLException {
@@ -429,8 +573,10 @@ public class ImportCsv extends AbstractCsvTool {
     }
   }
 
-  private static void parseSpecialParams(CommandLine commandLine) {
+  private static void parseSpecialParams(CommandLine commandLine) throws ArgsErrorException {
     timeZoneID = commandLine.getOptionValue(TIME_ZONE_ARGS);
+    threadNum = parsePositiveInt(commandLine, THREAD_NUM_ARGS, THREAD_NUM_NAME, threadNum);
+    batchSize = parsePositiveInt(commandLine, BATCH_SIZE_ARGS, BATCH_SIZE_NAME, batchSize);
   }
 
   public static void importCsvFromFile(String ip, String port, String username,
@@ -450,6 +596,9 @@ public class ImportCsv extends AbstractCsvTool {
       timeZoneID = timeZone;
       setTimeZone();
 
+      sessionPool = new SessionPool(ip, Integer.parseInt(port), username, password, threadNum);
+      importThreadPool = Executors.newFixedThreadPool(threadNum);
+
       File file = new File(filename);
       if (file.isFile()) {
         importFromSingleFile(file);
@@ -467,6 +616,19 @@ public class ImportCsv extends AbstractCsvTool {
     } catch (Exception e) {
       System.out.println("Encounter an error, because: " + e.getMessage());
     } finally {
+      if (importThreadPool != null) {
+        importThreadPool.shutdown();
+        try {
+          importThreadPool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        importThreadPool = null;
+      }
+      if (sessionPool != null) {
+        sessionPool.close();
+        sessionPool = null;
+      }
       if (connection != null) {
         connection.close();
       }
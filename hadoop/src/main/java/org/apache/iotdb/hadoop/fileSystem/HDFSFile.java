@@ -260,6 +260,17 @@ public class HDFSFile extends File {
     }
   }
 
+  public BufferedOutputStream getBufferedOutputStream(String filePath, boolean append) {
+    try {
+      Path path = new Path(filePath);
+      return new BufferedOutputStream(
+          append && fs.exists(path) ? fs.append(path) : fs.create(path));
+    } catch (IOException e) {
+      logger.error("Failed to get buffered output stream for {}. ", filePath, e);
+      return null;
+    }
+  }
+
   public File[] listFilesBySuffix(String fileFolder, String suffix) {
     PathFilter pathFilter = path -> path.toUri().toString().endsWith(suffix);
     List<HDFSFile> files = listFiles(fileFolder, pathFilter);
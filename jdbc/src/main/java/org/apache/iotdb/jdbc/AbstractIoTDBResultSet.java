@@ -61,6 +61,7 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
   protected long sessionId;
   protected long queryId;
   protected boolean ignoreTimeStamp;
+  protected boolean lastReadWasNull = false;
 
 
 
@@ -255,13 +256,14 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
 
   @Override
   public boolean getBoolean(String columnName) throws SQLException {
-    checkRecord();
-    int index = columnOrdinalMap.get(columnName) - START_INDEX;
-    if (values[index] != null) {
-      return BytesUtils.bytesToBool(values[index]);
-    }
-    else {
-      throw new SQLException(String.format(VALUE_IS_NULL, columnName));
+    int index = getNotNullValueIndex(columnName);
+    switch (columnTypeDeduplicatedList.get(index)) {
+      case BOOLEAN:
+        return readBoolean(index);
+      case TEXT:
+        return Boolean.parseBoolean(readText(index));
+      default:
+        return getLongValue(index) != 0;
     }
   }
 
@@ -342,13 +344,7 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
 
   @Override
   public double getDouble(String columnName) throws SQLException {
-    checkRecord();
-    int index = columnOrdinalMap.get(columnName) - START_INDEX;
-    if (values[index] != null) {
-      return BytesUtils.bytesToDouble(values[index]);
-    } else {
-      throw new SQLException(String.format(VALUE_IS_NULL, columnName));
-    }
+    return getDoubleValue(getNotNullValueIndex(columnName));
   }
 
   @Override
@@ -378,13 +374,11 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
 
   @Override
   public float getFloat(String columnName) throws SQLException {
-    checkRecord();
-    int index = columnOrdinalMap.get(columnName) - START_INDEX;
-    if (values[index] != null) {
-      return BytesUtils.bytesToFloat(values[index]);
-    } else {
-      throw new SQLException(String.format(VALUE_IS_NULL, columnName));
+    int index = getNotNullValueIndex(columnName);
+    if (columnTypeDeduplicatedList.get(index) == TSDataType.FLOAT) {
+      return readFloat(index);
     }
+    return (float) getDoubleValue(index);
   }
 
   @Override
@@ -399,13 +393,11 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
 
   @Override
   public int getInt(String columnName) throws SQLException {
-    checkRecord();
-    int index = columnOrdinalMap.get(columnName) - START_INDEX;
-    if (values[index] != null) {
-      return BytesUtils.bytesToInt(values[index]);
-    } else {
-      throw new SQLException(String.format(VALUE_IS_NULL, columnName));
+    int index = getNotNullValueIndex(columnName);
+    if (columnTypeDeduplicatedList.get(index) == TSDataType.INT32) {
+      return readInt(index);
     }
+    return (int) getLongValue(index);
   }
 
   @Override
@@ -413,8 +405,13 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
     return getLong(findColumnNameByIndex(columnIndex));
   }
 
+  /**
+   * Get the long value of a value column, the subclasses handle the time columns.
+   */
   @Override
-  public abstract long getLong(String columnName) throws SQLException;
+  public long getLong(String columnName) throws SQLException {
+    return getLongValue(getNotNullValueIndex(columnName));
+  }
 
   @Override
   public ResultSetMetaData getMetaData() {
@@ -458,7 +455,35 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
 
   @Override
   public Object getObject(String columnName) throws SQLException {
-    return getValueByName(columnName);
+    checkRecord();
+    Integer ordinal = columnOrdinalMap.get(columnName);
+    if (ordinal == null || ordinal < START_INDEX) {
+      // time columns
+      String time = getValueByName(columnName);
+      lastReadWasNull = time == null;
+      return time == null ? null : Long.valueOf(time);
+    }
+    int index = ordinal - START_INDEX;
+    lastReadWasNull = isNull(index);
+    if (lastReadWasNull) {
+      return null;
+    }
+    switch (columnTypeDeduplicatedList.get(index)) {
+      case BOOLEAN:
+        return readBoolean(index);
+      case INT32:
+        return readInt(index);
+      case INT64:
+        return readLong(index);
+      case FLOAT:
+        return readFloat(index);
+      case DOUBLE:
+        return readDouble(index);
+      case TEXT:
+        return readText(index);
+      default:
+        return null;
+    }
   }
 
   @Override
@@ -523,7 +548,7 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
 
   @Override
   public short getShort(String columnName) throws SQLException {
-    return Short.parseShort(Objects.requireNonNull(getValueByName(columnName)));
+    return (short) getLongValue(getNotNullValueIndex(columnName));
   }
 
   @Override
@@ -538,7 +563,9 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
 
   @Override
   public String getString(String columnName) throws SQLException {
-    return getValueByName(columnName);
+    String value = getValueByName(columnName);
+    lastReadWasNull = value == null;
+    return value;
   }
 
   @Override
@@ -1129,8 +1156,8 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
   }
 
   @Override
-  public boolean wasNull() throws SQLException {
-    throw new SQLException(Constant.METHOD_NOT_SUPPORTED);
+  public boolean wasNull() {
+    return lastReadWasNull;
   }
 
   abstract void checkRecord() throws SQLException;
@@ -1148,6 +1175,99 @@ public abstract class AbstractIoTDBResultSet implements ResultSet {
 
   abstract String getValueByName(String columnName) throws SQLException;
 
+  /**
+   * @return the deduplicated index of a value column whose value in the current row is not null
+   */
+  private int getNotNullValueIndex(String columnName) throws SQLException {
+    checkRecord();
+    Integer ordinal = columnOrdinalMap.get(columnName);
+    if (ordinal == null || ordinal < START_INDEX) {
+      throw new SQLException(String.format("Column %s is not a value column", columnName));
+    }
+    int index = ordinal - START_INDEX;
+    if (isNull(index)) {
+      lastReadWasNull = true;
+      throw new SQLException(String.format(VALUE_IS_NULL, columnName));
+    }
+    lastReadWasNull = false;
+    return index;
+  }
+
+  private long getLongValue(int index) throws SQLException {
+    switch (columnTypeDeduplicatedList.get(index)) {
+      case BOOLEAN:
+        return readBoolean(index) ? 1 : 0;
+      case INT32:
+        return readInt(index);
+      case INT64:
+        return readLong(index);
+      case FLOAT:
+        return (long) readFloat(index);
+      case DOUBLE:
+        return (long) readDouble(index);
+      case TEXT:
+        try {
+          return Long.parseLong(readText(index));
+        } catch (NumberFormatException e) {
+          throw new SQLException(e);
+        }
+      default:
+        throw new SQLException(
+            "Data type is not supported: " + columnTypeDeduplicatedList.get(index));
+    }
+  }
+
+  private double getDoubleValue(int index) throws SQLException {
+    switch (columnTypeDeduplicatedList.get(index)) {
+      case FLOAT:
+        return readFloat(index);
+      case DOUBLE:
+        return readDouble(index);
+      case TEXT:
+        try {
+          return Double.parseDouble(readText(index));
+        } catch (NumberFormatException e) {
+          throw new SQLException(e);
+        }
+      default:
+        return getLongValue(index);
+    }
+  }
+
+  /*
+   * The following methods read the value of the deduplicated column index in the current row,
+   * which is not null and of the right type. They read the values cached in {@code values} by
+   * default, so a subclass can read its buffers directly instead by overriding them.
+   */
+
+  protected boolean isNull(int index) {
+    return values[index] == null || values[index].length == 0;
+  }
+
+  protected boolean readBoolean(int index) {
+    return BytesUtils.bytesToBool(values[index]);
+  }
+
+  protected int readInt(int index) {
+    return BytesUtils.bytesToInt(values[index]);
+  }
+
+  protected long readLong(int index) {
+    return BytesUtils.bytesToLong(values[index]);
+  }
+
+  protected float readFloat(int index) {
+    return BytesUtils.bytesToFloat(values[index]);
+  }
+
+  protected double readDouble(int index) {
+    return BytesUtils.bytesToDouble(values[index]);
+  }
+
+  protected String readText(int index) {
+    return new String(values[index]);
+  }
+
   protected String getString(int index, TSDataType tsDataType, byte[][] values) {
     switch (tsDataType) {
       case BOOLEAN:
@@ -54,4 +54,10 @@ public class Config {
 
   public static boolean rpcThriftCompressionEnable = false;
 
+  /**
+   * Whether a query result set fetches the next batch in background while the current one is
+   * consumed.
+   */
+  public static boolean enableFetchAhead = true;
+
 }
@@ -86,12 +86,7 @@ public class IoTDBNonAlignQueryResultSet extends AbstractIoTDBResultSet {
       else
         throw new SQLException(String.format(VALUE_IS_NULL, columnName));
     }
-    int index = columnOrdinalMap.get(columnName) - START_INDEX;
-    if (values[index] != null) {
-      return BytesUtils.bytesToLong(values[index]);
-    } else {
-      throw new SQLException(String.format(VALUE_IS_NULL, columnName));
-    }
+    return super.getLong(columnName);
   }
 
   @Override
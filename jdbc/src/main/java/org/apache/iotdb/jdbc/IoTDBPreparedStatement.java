@@ -18,10 +18,13 @@
  */
 package org.apache.iotdb.jdbc;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -43,24 +46,112 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
+import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Iface;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSPrepareStatementResp;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedStatement {
 
   private String sql;
   private static final String METHOD_NOT_SUPPORTED_STRING = "Method not supported";
+  private static final Logger logger = LoggerFactory.getLogger(IoTDBPreparedStatement.class);
 
   /**
    * save the SQL parameters as (paramLoc,paramValue) pairs.
    */
   private final Map<Integer, String> parameters = new LinkedHashMap<>();
 
+  /**
+   * save the SQL parameters as (paramLoc,typedValue) pairs for the server-side prepared statement.
+   */
+  private final Map<Integer, Object> typedParameters = new HashMap<>();
+
+  /**
+   * the id of the statement prepared by the server, -1 if the server did not prepare it and the
+   * parameters are substituted locally.
+   */
+  private long preparedStatementId = -1;
+  private int parameterCount;
+
   IoTDBPreparedStatement(IoTDBConnection connection, Iface client,
       Long sessionId, String sql,
       ZoneId zoneId) throws SQLException {
     super(connection, client, sessionId, zoneId);
     this.sql = sql;
+    if (sql.indexOf('?') != -1) {
+      prepare();
+    }
+  }
+
+  private void prepare() {
+    try {
+      TSPrepareStatementResp resp = client
+          .prepareStatement(new TSPrepareStatementReq(getSessionId(), sql));
+      if (resp != null
+          && resp.getStatus().getCode() == TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        preparedStatementId = resp.getPreparedStatementId();
+        parameterCount = resp.getParameterCount();
+      } else if (resp != null) {
+        logger.debug("Server cannot prepare {}: {}, parameters are substituted locally", sql,
+            resp.getStatus().getMessage());
+      }
+    } catch (TException e) {
+      logger.debug("Server cannot prepare {}, parameters are substituted locally", sql, e);
+    }
+  }
+
+  private boolean executePrepared() throws SQLException {
+    List<Integer> types = new ArrayList<>(parameterCount);
+    ByteArrayOutputStream values = new ByteArrayOutputStream();
+    try {
+      for (int i = 1; i <= parameterCount; i++) {
+        Object value = typedParameters.get(i);
+        if (value == null) {
+          throw new SQLException("Parameter #" + i + " is unset");
+        }
+        types.add(serializeParameter(value, values).ordinal());
+      }
+    } catch (IOException e) {
+      throw new SQLException("Cannot serialize the parameters", e);
+    }
+
+    try {
+      return executePreparedSQL(preparedStatementId, types, ByteBuffer.wrap(values.toByteArray()),
+          sql);
+    } catch (TException e) {
+      // the prepared statement is lost with the connection, so substitute the parameters locally
+      preparedStatementId = -1;
+      return super.execute(createCompleteSql(sql, parameters));
+    }
+  }
+
+  private TSDataType serializeParameter(Object value, ByteArrayOutputStream out)
+      throws IOException {
+    if (value instanceof Boolean) {
+      ReadWriteIOUtils.write((Boolean) value, out);
+      return TSDataType.BOOLEAN;
+    } else if (value instanceof Integer) {
+      ReadWriteIOUtils.write((int) value, out);
+      return TSDataType.INT32;
+    } else if (value instanceof Long) {
+      ReadWriteIOUtils.write((long) value, out);
+      return TSDataType.INT64;
+    } else if (value instanceof Float) {
+      ReadWriteIOUtils.write((float) value, out);
+      return TSDataType.FLOAT;
+    } else if (value instanceof Double) {
+      ReadWriteIOUtils.write((double) value, out);
+      return TSDataType.DOUBLE;
+    } else {
+      ReadWriteIOUtils.write((String) value, out);
+      return TSDataType.TEXT;
+    }
   }
 
   @Override
@@ -71,23 +162,51 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
   @Override
   public void clearParameters() {
     this.parameters.clear();
+    this.typedParameters.clear();
   }
 
   @Override
   public boolean execute() throws SQLException {
+    if (preparedStatementId != -1) {
+      return executePrepared();
+    }
     return super.execute(createCompleteSql(sql, parameters));
   }
 
   @Override
   public ResultSet executeQuery() throws SQLException {
+    if (preparedStatementId != -1) {
+      if (!executePrepared()) {
+        throw new SQLException("Statement is not a query statement.");
+      }
+      return getResultSet();
+    }
     return super.executeQuery(createCompleteSql(sql, parameters));
   }
 
   @Override
   public int executeUpdate() throws SQLException {
+    if (preparedStatementId != -1) {
+      executePrepared();
+      return 0;
+    }
     return super.executeUpdate(createCompleteSql(sql, parameters));
   }
 
+  @Override
+  public void close() throws SQLException {
+    if (preparedStatementId != -1) {
+      try {
+        client.closePreparedStatement(getSessionId(), preparedStatementId);
+      } catch (TException e) {
+        // the server drops the prepared statements of a session when it is closed
+        logger.debug("Cannot close prepared statement {}", preparedStatementId, e);
+      }
+      preparedStatementId = -1;
+    }
+    super.close();
+  }
+
   @Override
   public ResultSetMetaData getMetaData() throws SQLException {
     throw new SQLException(METHOD_NOT_SUPPORTED_STRING);
@@ -233,6 +352,7 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
   @Override
   public void setBoolean(int parameterIndex, boolean x) {
     this.parameters.put(parameterIndex, Boolean.toString(x));
+    this.typedParameters.put(parameterIndex, x);
   }
 
   @Override
@@ -290,21 +410,25 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
   @Override
   public void setDouble(int parameterIndex, double x) {
     this.parameters.put(parameterIndex, Double.toString(x));
+    this.typedParameters.put(parameterIndex, x);
   }
 
   @Override
   public void setFloat(int parameterIndex, float x) {
     this.parameters.put(parameterIndex, Float.toString(x));
+    this.typedParameters.put(parameterIndex, x);
   }
 
   @Override
   public void setInt(int parameterIndex, int x) {
     this.parameters.put(parameterIndex, Integer.toString(x));
+    this.typedParameters.put(parameterIndex, x);
   }
 
   @Override
   public void setLong(int parameterIndex, long x) {
     this.parameters.put(parameterIndex, Long.toString(x));
+    this.typedParameters.put(parameterIndex, x);
   }
 
   @Override
@@ -407,6 +531,7 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
   @Override
   public void setString(int parameterIndex, String x) {
     this.parameters.put(parameterIndex, "'" + x.replace("'", "\\'") + "'");
+    this.typedParameters.put(parameterIndex, x);
   }
 
   @Override
@@ -425,6 +550,7 @@ public class IoTDBPreparedStatement extends IoTDBStatement implements PreparedSt
         super.zoneId);
     this.parameters.put(parameterIndex, zonedDateTime
         .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    this.typedParameters.put(parameterIndex, x.getTime());
   }
 
   @Override
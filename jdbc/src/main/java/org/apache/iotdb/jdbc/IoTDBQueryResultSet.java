@@ -27,8 +27,6 @@ import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
-import org.apache.iotdb.tsfile.utils.BytesUtils;
-import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.thrift.TException;
 
 import java.nio.ByteBuffer;
@@ -37,49 +35,85 @@ import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * The values of the current row are read directly from the column buffers of the TSQueryDataSet,
+ * so typed getters do not copy or stringify them. When a whole batch of fetchSize rows is
+ * received, the next batch is fetched in the background while the current one is consumed (see
+ * {@link Config#enableFetchAhead}).
+ */
 public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
 
   private static final int START_INDEX = 2;
-  private static final String VALUE_IS_NULL = "The value got by %s (column name) is NULL.";
   private int rowsIndex = 0; // used to record the row index in current TSQueryDataSet
   private boolean align = true;
 
   private TSQueryDataSet tsQueryDataSet = null;
-  private byte[] time; // used to cache the current time value
+  private long time; // used to cache the current time value
   private byte[] currentBitmap; // used to cache the current bitmap for every column
+  private ByteBuffer[] valueBuffers; // the value buffers of tsQueryDataSet
+  // the position of the current value in each value buffer, -1 if the value is null
+  private int[] valuePositions;
   private static final int FLAG = 0x80; // used to do `and` operation with bitmap to judge whether the value is null
 
+  // the fetch of the next batch running in background, null if there is none
+  private CompletableFuture<TSFetchResultsResp> nextFetch;
+
+  private static final ExecutorService FETCH_POOL = Executors.newCachedThreadPool(
+      new FetchThreadFactory());
+
   public IoTDBQueryResultSet(Statement statement, List<String> columnNameList,
                              List<String> columnTypeList, Map<String, Integer> columnNameIndex, boolean ignoreTimeStamp, TSIService.Iface client,
                              String sql, long queryId, long sessionId, TSQueryDataSet dataset)
           throws SQLException {
     super(statement, columnNameList, columnTypeList, columnNameIndex, ignoreTimeStamp, client, sql, queryId, sessionId);
-    time = new byte[Long.BYTES];
     currentBitmap = new byte[columnNameList.size()];
+    valuePositions = new int[columnNameList.size()];
+    setQueryDataSet(dataset);
+  }
+
+  private void setQueryDataSet(TSQueryDataSet dataset) {
     this.tsQueryDataSet = dataset;
+    if (dataset != null) {
+      valueBuffers = dataset.valueList.toArray(new ByteBuffer[0]);
+    }
+    fetchAhead();
   }
 
   @Override
   public long getLong(String columnName) throws SQLException {
     checkRecord();
     if (columnName.equals(TIMESTAMP_STR)) {
-      return BytesUtils.bytesToLong(time);
-    }
-    int index = columnOrdinalMap.get(columnName) - START_INDEX;
-    if (values[index] != null) {
-      return BytesUtils.bytesToLong(values[index]);
-    } else {
-      throw new SQLException(String.format(VALUE_IS_NULL, columnName));
+      return time;
     }
+    return super.getLong(columnName);
   }
 
   @Override
   protected boolean fetchResults() throws SQLException {
     rowsIndex = 0;
-    TSFetchResultsReq req = new TSFetchResultsReq(sessionId, sql, fetchSize, queryId, align);
     try {
-      TSFetchResultsResp resp = client.fetchResults(req);
+      TSFetchResultsResp resp;
+      if (nextFetch != null) {
+        try {
+          resp = nextFetch.join();
+        } catch (CompletionException e) {
+          if (e.getCause() instanceof TException) {
+            throw (TException) e.getCause();
+          }
+          throw new SQLException("Cannot fetch result from server", e.getCause());
+        } finally {
+          nextFetch = null;
+        }
+      } else {
+        resp = client.fetchResults(newFetchReq());
+      }
 
       try {
         RpcUtils.verifySuccess(resp.getStatus());
@@ -89,7 +123,7 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
       if (!resp.hasResultSet) {
         emptyResultSet = true;
       } else {
-        tsQueryDataSet = resp.getQueryDataSet();
+        setQueryDataSet(resp.getQueryDataSet());
       }
       return resp.hasResultSet;
     } catch (TException e) {
@@ -98,6 +132,44 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
     }
   }
 
+  private TSFetchResultsReq newFetchReq() {
+    return new TSFetchResultsReq(sessionId, sql, fetchSize, queryId, align);
+  }
+
+  /**
+   * Fetch the next batch in background if the current batch is full, as there may be more rows.
+   * A batch with fewer rows is the last one, so the next fetch only tells the end.
+   */
+  private void fetchAhead() {
+    if (!Config.enableFetchAhead || client == null || tsQueryDataSet == null
+        || tsQueryDataSet.time.remaining() < fetchSize * Long.BYTES) {
+      return;
+    }
+    TSIService.Iface fetchClient = client;
+    TSFetchResultsReq req = newFetchReq();
+    nextFetch = CompletableFuture.supplyAsync(() -> {
+      try {
+        return fetchClient.fetchResults(req);
+      } catch (TException e) {
+        throw new CompletionException(e);
+      }
+    }, FETCH_POOL);
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (nextFetch != null) {
+      // the query must not be released while it is being fetched
+      try {
+        nextFetch.join();
+      } catch (CompletionException e) {
+        // the batch is dropped anyway
+      }
+      nextFetch = null;
+    }
+    super.close();
+  }
+
   @Override
   protected boolean hasCachedResults() {
     return (tsQueryDataSet != null && tsQueryDataSet.time.hasRemaining());
@@ -105,51 +177,37 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
 
   @Override
   protected void constructOneRow() {
-    tsQueryDataSet.time.get(time);
+    time = tsQueryDataSet.time.getLong();
     for (int i = 0; i < tsQueryDataSet.bitmapList.size(); i++) {
       ByteBuffer bitmapBuffer = tsQueryDataSet.bitmapList.get(i);
       // another new 8 row, should move the bitmap buffer position to next byte
       if (rowsIndex % 8 == 0) {
         currentBitmap[i] = bitmapBuffer.get();
       }
-      values[i] = null;
+      valuePositions[i] = -1;
       if (!isNull(i, rowsIndex)) {
-        ByteBuffer valueBuffer = tsQueryDataSet.valueList.get(i);
+        ByteBuffer valueBuffer = valueBuffers[i];
+        int position = valueBuffer.position();
+        valuePositions[i] = position;
         TSDataType dataType = columnTypeDeduplicatedList.get(i);
         switch (dataType) {
           case BOOLEAN:
-            if (values[i] == null) {
-              values[i] = new byte[1];
-            }
-            valueBuffer.get(values[i]);
+            valueBuffer.position(position + 1);
             break;
           case INT32:
-            if (values[i] == null) {
-              values[i] = new byte[Integer.BYTES];
-            }
-            valueBuffer.get(values[i]);
+            valueBuffer.position(position + Integer.BYTES);
             break;
           case INT64:
-            if (values[i] == null) {
-              values[i] = new byte[Long.BYTES];
-            }
-            valueBuffer.get(values[i]);
+            valueBuffer.position(position + Long.BYTES);
             break;
           case FLOAT:
-            if (values[i] == null) {
-              values[i] = new byte[Float.BYTES];
-            }
-            valueBuffer.get(values[i]);
+            valueBuffer.position(position + Float.BYTES);
             break;
           case DOUBLE:
-            if (values[i] == null) {
-              values[i] = new byte[Double.BYTES];
-            }
-            valueBuffer.get(values[i]);
+            valueBuffer.position(position + Double.BYTES);
             break;
           case TEXT:
-            int length = valueBuffer.getInt();
-            values[i] = ReadWriteIOUtils.readBytes(valueBuffer, length);
+            valueBuffer.position(position + Integer.BYTES + valueBuffer.getInt(position));
             break;
           default:
             throw new UnSupportedDataTypeException(
@@ -172,6 +230,52 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
     return ((FLAG >>> shift) & bitmap) == 0;
   }
 
+  @Override
+  protected boolean isNull(int index) {
+    return valuePositions[index] == -1;
+  }
+
+  @Override
+  protected boolean readBoolean(int index) {
+    return valueBuffers[index].get(valuePositions[index]) != 0;
+  }
+
+  @Override
+  protected int readInt(int index) {
+    return valueBuffers[index].getInt(valuePositions[index]);
+  }
+
+  @Override
+  protected long readLong(int index) {
+    return valueBuffers[index].getLong(valuePositions[index]);
+  }
+
+  @Override
+  protected float readFloat(int index) {
+    return valueBuffers[index].getFloat(valuePositions[index]);
+  }
+
+  @Override
+  protected double readDouble(int index) {
+    return valueBuffers[index].getDouble(valuePositions[index]);
+  }
+
+  @Override
+  protected String readText(int index) {
+    ByteBuffer valueBuffer = valueBuffers[index];
+    int position = valuePositions[index];
+    int length = valueBuffer.getInt(position);
+    if (valueBuffer.hasArray()) {
+      return new String(valueBuffer.array(),
+          valueBuffer.arrayOffset() + position + Integer.BYTES, length);
+    }
+    byte[] bytes = new byte[length];
+    ByteBuffer duplicate = valueBuffer.duplicate();
+    duplicate.position(position + Integer.BYTES);
+    duplicate.get(bytes);
+    return new String(bytes);
+  }
+
   @Override
   protected void checkRecord() throws SQLException {
     if (Objects.isNull(tsQueryDataSet)) {
@@ -183,13 +287,28 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
   protected String getValueByName(String columnName) throws SQLException {
     checkRecord();
     if (columnName.equals(TIMESTAMP_STR)) {
-      return String.valueOf(BytesUtils.bytesToLong(time));
+      return String.valueOf(time);
     }
     int index = columnOrdinalMap.get(columnName) - START_INDEX;
-    if (index < 0 || index >= values.length || values[index] == null) {
+    if (index < 0 || index >= valuePositions.length || isNull(index)) {
       return null;
     }
-    return getString(index, columnTypeDeduplicatedList.get(index), values);
+    switch (columnTypeDeduplicatedList.get(index)) {
+      case BOOLEAN:
+        return String.valueOf(readBoolean(index));
+      case INT32:
+        return String.valueOf(readInt(index));
+      case INT64:
+        return String.valueOf(readLong(index));
+      case FLOAT:
+        return String.valueOf(readFloat(index));
+      case DOUBLE:
+        return String.valueOf(readDouble(index));
+      case TEXT:
+        return readText(index);
+      default:
+        return null;
+    }
   }
 
   public boolean isIgnoreTimeStamp() {
@@ -200,4 +319,16 @@ public class IoTDBQueryResultSet extends AbstractIoTDBResultSet {
   public boolean isAlign() {
     return align;
   }
+
+  private static class FetchThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "IoTDB-JDBC-Fetch-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 }
@@ -24,6 +24,7 @@ import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.*;
 import org.apache.thrift.TException;
+import java.nio.ByteBuffer;
 import java.sql.*;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -214,6 +215,27 @@ public class IoTDBStatement implements Statement {
     TSExecuteStatementReq execReq = new TSExecuteStatementReq(sessionId, sql, stmtId);
     execReq.setFetchSize(fetchSize);
     TSExecuteStatementResp execResp = client.executeStatement(execReq);
+    return processExecuteResp(execResp, sql);
+  }
+
+  /**
+   * Execute a statement prepared by the server with the serialized parameters, the result is
+   * handled like {@link #execute(String)}.
+   */
+  boolean executePreparedSQL(long preparedStatementId, List<Integer> types, ByteBuffer values,
+      String sql) throws TException, SQLException {
+    checkConnection("execute");
+    isClosed = false;
+    isCancelled = false;
+    TSExecutePreparedStatementReq execReq = new TSExecutePreparedStatementReq(sessionId, stmtId,
+        preparedStatementId, types, values);
+    execReq.setFetchSize(fetchSize);
+    TSExecuteStatementResp execResp = client.executePreparedStatement(execReq);
+    return processExecuteResp(execResp, sql);
+  }
+
+  private boolean processExecuteResp(TSExecuteStatementResp execResp, String sql)
+      throws SQLException {
     try {
       RpcUtils.verifySuccess(execResp.getStatus());
     } catch (StatementExecutionException e) {
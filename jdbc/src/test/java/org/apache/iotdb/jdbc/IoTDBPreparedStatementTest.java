@@ -19,17 +19,23 @@
 package org.apache.iotdb.jdbc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.ZoneId;
+import java.util.Arrays;
 
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.*;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Iface;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -306,4 +312,39 @@ public class IoTDBPreparedStatementTest {
         "INSERT INTO root.ln.wf01.wt01(timestamp,a,b,c,d,e,f) VALUES(2017-11-01T00:13:00,false,123,123234345,123.423,-1323.0,'abc')",
         argument.getValue().getStatement());
   }
+
+  @SuppressWarnings("resource")
+  @Test
+  public void testServerPreparedStatement() throws Exception {
+    String sql = "INSERT INTO root.ln.wf01.wt01(timestamp,a,b) VALUES(?,?,?)";
+    TSPrepareStatementResp prepareResp = new TSPrepareStatementResp(Status_SUCCESS);
+    prepareResp.setPreparedStatementId(7);
+    prepareResp.setParameterCount(3);
+    when(client.prepareStatement(any(TSPrepareStatementReq.class))).thenReturn(prepareResp);
+    when(client.executePreparedStatement(any(TSExecutePreparedStatementReq.class)))
+        .thenReturn(execStatementResp);
+    when(client.closeOperation(any(TSCloseOperationReq.class))).thenReturn(Status_SUCCESS);
+
+    IoTDBPreparedStatement ps = new IoTDBPreparedStatement(connection, client, sessionId, sql,
+        zoneId);
+    ps.setLong(1, 12324);
+    ps.setBoolean(2, false);
+    ps.setString(3, "abc");
+    ps.execute();
+
+    ArgumentCaptor<TSExecutePreparedStatementReq> argument = ArgumentCaptor
+        .forClass(TSExecutePreparedStatementReq.class);
+    verify(client).executePreparedStatement(argument.capture());
+    verify(client, never()).executeStatement(any(TSExecuteStatementReq.class));
+    assertEquals(7, argument.getValue().getPreparedStatementId());
+    assertEquals(Arrays.asList(TSDataType.INT64.ordinal(), TSDataType.BOOLEAN.ordinal(),
+        TSDataType.TEXT.ordinal()), argument.getValue().getTypes());
+    ByteBuffer values = argument.getValue().values;
+    assertEquals(12324, ReadWriteIOUtils.readLong(values));
+    assertFalse(ReadWriteIOUtils.readBool(values));
+    assertEquals("abc", ReadWriteIOUtils.readString(values));
+
+    ps.close();
+    verify(client).closePreparedStatement(sessionId, 7);
+  }
 }
@@ -239,6 +239,75 @@ public class IoTDBQueryResultSetTest {
     verify(fetchResultsResp, times(1)).getStatus();
   }
 
+  @SuppressWarnings("resource")
+  @Test
+  public void testTypedGetters() throws Exception {
+    mockQueryColumns();
+    fetchResultsResp.hasResultSet = false;
+    Assert.assertTrue(statement.execute("select s2,s1,s0 from root.vehicle.d0"));
+
+    try (ResultSet resultSet = statement.getResultSet()) {
+      Assert.assertTrue(resultSet.next());
+      Assert.assertEquals(2L, resultSet.getLong("Time"));
+      Assert.assertEquals(2L, resultSet.getObject("Time"));
+      Assert.assertEquals(2.22F, resultSet.getFloat("root.vehicle.d0.s2"), 0);
+      Assert.assertEquals(2.22F, resultSet.getObject("root.vehicle.d0.s2"));
+      Assert.assertEquals(40000L, resultSet.getLong("root.vehicle.d0.s1"));
+      Assert.assertEquals(40000, resultSet.getInt("root.vehicle.d0.s1"));
+      Assert.assertEquals(40000.0, resultSet.getDouble("root.vehicle.d0.s1"), 0);
+      Assert.assertEquals(40000L, resultSet.getObject("root.vehicle.d0.s1"));
+      Assert.assertFalse(resultSet.wasNull());
+      Assert.assertNull(resultSet.getObject("root.vehicle.d0.s0"));
+      Assert.assertTrue(resultSet.wasNull());
+
+      for (int i = 0; i < 8; i++) {
+        Assert.assertTrue(resultSet.next());
+      }
+      Assert.assertEquals(1000L, resultSet.getLong(1));
+      Assert.assertEquals(22222, resultSet.getInt(4));
+      Assert.assertEquals(22222L, resultSet.getLong(4));
+      Assert.assertEquals("22222", resultSet.getString(4));
+      Assert.assertEquals(1000, resultSet.getInt(2));
+      Assert.assertFalse(resultSet.next());
+    }
+  }
+
+  @SuppressWarnings("resource")
+  @Test
+  public void testFetchAhead() throws Exception {
+    mockQueryColumns();
+    fetchResultsResp.hasResultSet = false;
+    // the first batch is full, so the next one is fetched in background at once
+    statement.setFetchSize(9);
+    Assert.assertTrue(statement.execute("select s2,s1,s0 from root.vehicle.d0"));
+
+    try (ResultSet resultSet = statement.getResultSet()) {
+      int count = 0;
+      while (resultSet.next()) {
+        count++;
+      }
+      Assert.assertEquals(9, count);
+    }
+    verify(client, times(1)).fetchResults(any(TSFetchResultsReq.class));
+  }
+
+  private void mockQueryColumns() {
+    List<String> columns = new ArrayList<>();
+    columns.add("root.vehicle.d0.s2");
+    columns.add("root.vehicle.d0.s1");
+    columns.add("root.vehicle.d0.s0");
+
+    List<String> dataTypeList = new ArrayList<>();
+    dataTypeList.add("FLOAT");
+    dataTypeList.add("INT64");
+    dataTypeList.add("INT32");
+
+    when(execResp.isSetColumns()).thenReturn(true);
+    when(execResp.getColumns()).thenReturn(columns);
+    when(execResp.getDataTypeList()).thenReturn(dataTypeList);
+    when(execResp.getQueryId()).thenReturn(queryId);
+  }
+
   // fake the first-time fetched result of 'testSql' from an IoTDB server
   private TSQueryDataSet FakedFirstFetchResult() throws IOException {
     List<TSDataType> tsDataTypeList = new ArrayList<>();
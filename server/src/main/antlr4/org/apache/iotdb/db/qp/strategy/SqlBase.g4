@@ -75,6 +75,9 @@ statement
     | LOAD FILE autoCreateSchema? #loadFiles
     | REMOVE FILE #removeFile
     | MOVE FILE FILE #moveFile
+    | EXPLAIN ANALYZE statement #explainAnalyze
+    | SHOW QUERIES #showQueries
+    | KILL QUERY queryId=INT #killQuery
     | SELECT INDEX func=ID //not support yet
     LR_BRACKET
     p1=fullPath COMMA p2=fullPath COMMA n1=timeValue COMMA n2=timeValue COMMA
@@ -97,7 +100,7 @@ selectElements
     ;
 
 functionCall
-    : functionName LR_BRACKET suffixPath RR_BRACKET
+    : functionName LR_BRACKET suffixPath (COMMA (INT | realLiteral))? RR_BRACKET
     ;
 
 functionName
@@ -110,6 +113,8 @@ functionName
     | FIRST_VALUE
     | SUM
     | LAST_VALUE
+    | PERCENTILE
+    | APPROX_COUNT_DISTINCT
     ;
 
 lastClause
@@ -771,6 +776,14 @@ LAST_VALUE
     : L A S T UNDERLINE V A L U E
     ;
 
+PERCENTILE
+    : P E R C E N T I L E
+    ;
+
+APPROX_COUNT_DISTINCT
+    : A P P R O X UNDERLINE C O U N T UNDERLINE D I S T I N C T
+    ;
+
 LAST
     : L A S T
     ;
@@ -787,6 +800,26 @@ COMPRESSION
     : C O M P R E S S I O N
     ;
 
+EXPLAIN
+    : E X P L A I N
+    ;
+
+ANALYZE
+    : A N A L Y Z E
+    ;
+
+QUERIES
+    : Q U E R I E S
+    ;
+
+QUERY
+    : Q U E R Y
+    ;
+
+KILL
+    : K I L L
+    ;
+
 TIME
     : T I M E
     ;
@@ -98,6 +98,12 @@ public class IoTDBConfig {
    */
   private boolean rpcThriftCompressionEnable = false;
 
+  /**
+   * The payloads of a session smaller than this size (in byte) are not compressed by the payload
+   * compression the client asks for. When <= 0, the payloads are never compressed.
+   */
+  private int rpcPayloadCompressionThreshold = 4096;
+
   /**
    * Port which the JDBC server listens to.
    */
@@ -223,6 +229,13 @@ public class IoTDBConfig {
    */
   private int concurrentQueryThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many locks the insertions of a storage group are striped into by time partition and
+   * device. Insertions holding different stripes run concurrently. When <= 0, use 4 times the CPU
+   * core number.
+   */
+  private int insertLockStripeNum = 4 * Runtime.getRuntime().availableProcessors();
+
   private ZoneId zoneID = ZoneId.systemDefault();
 
   /**
@@ -259,6 +272,18 @@ public class IoTDBConfig {
    */
   private long allocateMemoryForChunkCache = allocateMemoryForRead * 5 / 39;
 
+  /**
+   * Memory allocated for the data that queries read and hold, such as the copies of memtables,
+   * chunks and decoded pages, which is shared by all queries
+   */
+  private long allocateMemoryForQuery = allocateMemoryForRead * 12 / 39;
+
+  /**
+   * the max memory (in byte) that a query can use, a non-positive value means that a query can use
+   * all the memory allocated for queries
+   */
+  private long maxMemoryPerQuery = 0;
+
   /**
    * The statMonitor writes statistics info into IoTDB every backLoopPeriodSec secs. The default
    * value is 5s.
@@ -283,6 +308,51 @@ public class IoTDBConfig {
    */
   private int mManagerCacheSize = 400000;
 
+  /**
+   * Max number of (modification file, timeseries) entries cached by {@code ModificationCache},
+   * 0 disables the cache.
+   */
+  private int modificationCacheSize = 100000;
+
+  /**
+   * Max estimated memory of the SQL parse trees cached by {@code ParseDriver} in KB, 0 disables
+   * the cache.
+   */
+  private int parseCacheMemoryInKB = 16 * 1024;
+
+  /**
+   * Max number of server-side prepared statements a session can hold.
+   */
+  private int maxPreparedStatementNumPerSession = 1000;
+
+  /**
+   * Rollups maintained for sequence TsFiles at flush time, separated by ';'. Each definition is
+   * "pathPattern:interval:aggregation,aggregation...", see {@code RollupDefinition}.
+   */
+  private String rollupDefinitions = "";
+
+  /**
+   * Max number of TsFile rollups cached by {@code RollupManager}.
+   */
+  private int rollupCacheSize = 1000;
+
+  /**
+   * Whether the sketches of percentile and approx_count_distinct are kept for every series of a
+   * sequence TsFile at flush time, see {@code TsFileSketch}.
+   */
+  private boolean enableFileSketch = false;
+
+  /**
+   * Max number of TsFile sketches cached by {@code SketchManager}.
+   */
+  private int sketchCacheSize = 1000;
+
+  /**
+   * Max number of GROUP BY windows whose results are cached by {@code QueryResultCache}, 0 to
+   * disable the cache.
+   */
+  private int queryResultCacheSize = 10000;
+
   /**
    * Is external sort enable.
    */
@@ -450,6 +520,18 @@ public class IoTDBConfig {
    */
   private int chunkMergePointThreshold = 20480;
 
+  /**
+   * The max disk throughput (read and write together) of all merges in MB/s. When less than or
+   * equal to 0, merge I/O is not throttled.
+   */
+  private int mergeThroughputMbPerSec = 0;
+
+  /**
+   * Merge I/O waits for running flushes and query reads to end before it goes on, but one wait
+   * lasts no longer than this time (in ms). When less than or equal to 0, merge does not wait.
+   */
+  private long mergeMaxYieldTimeMs = 1000;
+
   private MergeFileStrategy mergeFileStrategy = MergeFileStrategy.MAX_SERIES_NUM;
 
   /**
@@ -527,6 +609,17 @@ public class IoTDBConfig {
    */
   private int defaultFillInterval = -1;
 
+  /**
+   * a query that lasts longer than this time (in ms) from its execution to its release is recorded
+   * in the slow query log with its plan, a non-positive value disables the log
+   */
+  private long slowQueryThreshold = 5000;
+
+  /**
+   * whether the slow query log records the profile of the series, which profiles every query
+   */
+  private boolean enableSlowQueryProfile = false;
+
   /**
    * default TTL for storage groups that are not set TTL by statements, in ms
    * Notice: if this property is changed, previous created storage group which are not set TTL will
@@ -547,6 +640,10 @@ public class IoTDBConfig {
   // max size for tag and attribute of one time series
   private int tagAttributeTotalSize = 700;
 
+  // a snapshot of the MTree is created after this number of lines are appended to the metadata
+  // log, a non-positive value disables the snapshot
+  private int mtreeSnapshotInterval = 100000;
+
   public IoTDBConfig() {
     // empty constructor
   }
@@ -567,6 +664,22 @@ public class IoTDBConfig {
     this.defaultFillInterval = defaultFillInterval;
   }
 
+  public long getSlowQueryThreshold() {
+    return slowQueryThreshold;
+  }
+
+  public void setSlowQueryThreshold(long slowQueryThreshold) {
+    this.slowQueryThreshold = slowQueryThreshold;
+  }
+
+  public boolean isEnableSlowQueryProfile() {
+    return enableSlowQueryProfile;
+  }
+
+  public void setEnableSlowQueryProfile(boolean enableSlowQueryProfile) {
+    this.enableSlowQueryProfile = enableSlowQueryProfile;
+  }
+
   public long getPartitionInterval() {
     return partitionInterval;
   }
@@ -835,6 +948,14 @@ public class IoTDBConfig {
     this.concurrentQueryThread = concurrentQueryThread;
   }
 
+  public int getInsertLockStripeNum() {
+    return insertLockStripeNum;
+  }
+
+  public void setInsertLockStripeNum(int insertLockStripeNum) {
+    this.insertLockStripeNum = insertLockStripeNum;
+  }
+
   public long getTsFileSizeThreshold() {
     return tsFileSizeThreshold;
   }
@@ -891,6 +1012,70 @@ public class IoTDBConfig {
     this.mManagerCacheSize = mManagerCacheSize;
   }
 
+  public int getModificationCacheSize() {
+    return modificationCacheSize;
+  }
+
+  void setModificationCacheSize(int modificationCacheSize) {
+    this.modificationCacheSize = modificationCacheSize;
+  }
+
+  public int getParseCacheMemoryInKB() {
+    return parseCacheMemoryInKB;
+  }
+
+  void setParseCacheMemoryInKB(int parseCacheMemoryInKB) {
+    this.parseCacheMemoryInKB = parseCacheMemoryInKB;
+  }
+
+  public String getRollupDefinitions() {
+    return rollupDefinitions;
+  }
+
+  public void setRollupDefinitions(String rollupDefinitions) {
+    this.rollupDefinitions = rollupDefinitions;
+  }
+
+  public int getRollupCacheSize() {
+    return rollupCacheSize;
+  }
+
+  void setRollupCacheSize(int rollupCacheSize) {
+    this.rollupCacheSize = rollupCacheSize;
+  }
+
+  public boolean isEnableFileSketch() {
+    return enableFileSketch;
+  }
+
+  public void setEnableFileSketch(boolean enableFileSketch) {
+    this.enableFileSketch = enableFileSketch;
+  }
+
+  public int getSketchCacheSize() {
+    return sketchCacheSize;
+  }
+
+  void setSketchCacheSize(int sketchCacheSize) {
+    this.sketchCacheSize = sketchCacheSize;
+  }
+
+  public int getQueryResultCacheSize() {
+    return queryResultCacheSize;
+  }
+
+  public void setQueryResultCacheSize(int queryResultCacheSize) {
+    this.queryResultCacheSize = queryResultCacheSize;
+  }
+
+  public int getMaxPreparedStatementNumPerSession() {
+    return maxPreparedStatementNumPerSession;
+  }
+
+  void setMaxPreparedStatementNumPerSession(int maxPreparedStatementNumPerSession) {
+    this.maxPreparedStatementNumPerSession = maxPreparedStatementNumPerSession;
+  }
+
   public boolean isSyncEnable() {
     return isSyncEnable;
   }
@@ -1031,7 +1216,7 @@ public class IoTDBConfig {
     return enableExternalSort;
   }
 
-  void setEnableExternalSort(boolean enableExternalSort) {
+  public void setEnableExternalSort(boolean enableExternalSort) {
     this.enableExternalSort = enableExternalSort;
   }
 
@@ -1083,6 +1268,22 @@ public class IoTDBConfig {
     this.chunkMergePointThreshold = chunkMergePointThreshold;
   }
 
+  public int getMergeThroughputMbPerSec() {
+    return mergeThroughputMbPerSec;
+  }
+
+  public void setMergeThroughputMbPerSec(int mergeThroughputMbPerSec) {
+    this.mergeThroughputMbPerSec = mergeThroughputMbPerSec;
+  }
+
+  public long getMergeMaxYieldTimeMs() {
+    return mergeMaxYieldTimeMs;
+  }
+
+  public void setMergeMaxYieldTimeMs(long mergeMaxYieldTimeMs) {
+    this.mergeMaxYieldTimeMs = mergeMaxYieldTimeMs;
+  }
+
   public long getMemtableSizeThreshold() {
     return memtableSizeThreshold;
   }
@@ -1124,6 +1325,14 @@ public class IoTDBConfig {
     this.rpcThriftCompressionEnable = rpcThriftCompressionEnable;
   }
 
+  public int getRpcPayloadCompressionThreshold() {
+    return rpcPayloadCompressionThreshold;
+  }
+
+  void setRpcPayloadCompressionThreshold(int rpcPayloadCompressionThreshold) {
+    this.rpcPayloadCompressionThreshold = rpcPayloadCompressionThreshold;
+  }
+
   public boolean isMetaDataCacheEnable() {
     return metaDataCacheEnable;
   }
@@ -1164,6 +1373,22 @@ public class IoTDBConfig {
     this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
   }
 
+  public long getAllocateMemoryForQuery() {
+    return allocateMemoryForQuery;
+  }
+
+  void setAllocateMemoryForQuery(long allocateMemoryForQuery) {
+    this.allocateMemoryForQuery = allocateMemoryForQuery;
+  }
+
+  public long getMaxMemoryPerQuery() {
+    return maxMemoryPerQuery;
+  }
+
+  public void setMaxMemoryPerQuery(long maxMemoryPerQuery) {
+    this.maxMemoryPerQuery = maxMemoryPerQuery;
+  }
+
   public boolean isEnableWatermark() {
     return enableWatermark;
   }
@@ -1505,4 +1730,12 @@ public class IoTDBConfig {
   public void setTagAttributeTotalSize(int tagAttributeTotalSize) {
     this.tagAttributeTotalSize = tagAttributeTotalSize;
   }
+
+  public int getMtreeSnapshotInterval() {
+    return mtreeSnapshotInterval;
+  }
+
+  public void setMtreeSnapshotInterval(int mtreeSnapshotInterval) {
+    this.mtreeSnapshotInterval = mtreeSnapshotInterval;
+  }
 }
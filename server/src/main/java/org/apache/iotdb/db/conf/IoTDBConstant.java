@@ -73,6 +73,14 @@ public class IoTDBConstant {
   public static final String COLUMN_STORAGE_GROUP = "storage group";
   public static final String COLUMN_TTL = "ttl";
 
+  public static final String COLUMN_QUERY_ID = "query id";
+  public static final String COLUMN_START_TIME = "start time";
+  public static final String COLUMN_DURATION = "duration(ms)";
+  public static final String COLUMN_RETURNED_ROWS = "returned rows";
+  public static final String COLUMN_MEMORY = "memory(bytes)";
+  public static final String COLUMN_STATE = "state";
+  public static final String COLUMN_STATEMENT = "statement";
+
   public static final String PATH_WILDCARD = "*";
 
   // data folder name
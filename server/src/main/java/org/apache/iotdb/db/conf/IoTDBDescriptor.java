@@ -168,6 +168,10 @@ public class IoTDBDescriptor {
           Boolean.parseBoolean(properties.getProperty("rpc_thrift_compression_enable",
               Boolean.toString(conf.isRpcThriftCompressionEnable()))));
 
+      conf.setRpcPayloadCompressionThreshold(Integer.parseInt(properties
+          .getProperty("rpc_payload_compression_threshold",
+              Integer.toString(conf.getRpcPayloadCompressionThreshold()))));
+
       conf.setRpcPort(Integer.parseInt(properties.getProperty("rpc_port",
           Integer.toString(conf.getRpcPort()))));
 
@@ -261,10 +265,48 @@ public class IoTDBDescriptor {
         conf.setConcurrentQueryThread(Runtime.getRuntime().availableProcessors());
       }
 
+      conf.setInsertLockStripeNum(Integer
+          .parseInt(properties.getProperty("insert_lock_stripe_num",
+              Integer.toString(conf.getInsertLockStripeNum()))));
+
+      if (conf.getInsertLockStripeNum() <= 0) {
+        conf.setInsertLockStripeNum(4 * Runtime.getRuntime().availableProcessors());
+      }
+
       conf.setmManagerCacheSize(Integer
           .parseInt(properties.getProperty("metadata_node_cache_size",
               Integer.toString(conf.getmManagerCacheSize())).trim()));
 
+      conf.setModificationCacheSize(Integer
+          .parseInt(properties.getProperty("modification_cache_size",
+              Integer.toString(conf.getModificationCacheSize())).trim()));
+
+      conf.setParseCacheMemoryInKB(Integer
+          .parseInt(properties.getProperty("parse_cache_memory_in_kb",
+              Integer.toString(conf.getParseCacheMemoryInKB())).trim()));
+
+      conf.setMaxPreparedStatementNumPerSession(Integer
+          .parseInt(properties.getProperty("max_prepared_statement_num_per_session",
+              Integer.toString(conf.getMaxPreparedStatementNumPerSession())).trim()));
+
+      conf.setRollupDefinitions(properties.getProperty("rollup_definitions",
+          conf.getRollupDefinitions()).trim());
+
+      conf.setRollupCacheSize(Integer
+          .parseInt(properties.getProperty("rollup_cache_size",
+              Integer.toString(conf.getRollupCacheSize())).trim()));
+
+      conf.setEnableFileSketch(Boolean.parseBoolean(properties.getProperty("enable_file_sketch",
+          Boolean.toString(conf.isEnableFileSketch())).trim()));
+
+      conf.setSketchCacheSize(Integer
+          .parseInt(properties.getProperty("sketch_cache_size",
+              Integer.toString(conf.getSketchCacheSize())).trim()));
+
+      conf.setQueryResultCacheSize(Integer
+          .parseInt(properties.getProperty("query_result_cache_size",
+              Integer.toString(conf.getQueryResultCacheSize())).trim()));
+
       conf.setLanguageVersion(properties.getProperty("language_version",
           conf.getLanguageVersion()).trim());
 
@@ -301,6 +343,10 @@ public class IoTDBDescriptor {
           Boolean.toString(conf.isForceFullMerge()))));
       conf.setChunkMergePointThreshold(Integer.parseInt(properties.getProperty(
           "chunk_merge_point_threshold", Integer.toString(conf.getChunkMergePointThreshold()))));
+      conf.setMergeThroughputMbPerSec(Integer.parseInt(properties.getProperty(
+          "merge_throughput_mb_per_sec", Integer.toString(conf.getMergeThroughputMbPerSec()))));
+      conf.setMergeMaxYieldTimeMs(Long.parseLong(properties.getProperty(
+          "merge_max_yield_time_ms", Long.toString(conf.getMergeMaxYieldTimeMs()))));
 
       conf.setEnablePerformanceStat(Boolean
           .parseBoolean(properties.getProperty("enable_performance_stat",
@@ -375,11 +421,20 @@ public class IoTDBDescriptor {
           Integer.parseInt(properties.getProperty("default_fill_interval",
               String.valueOf(conf.getDefaultFillInterval()))));
 
+      loadSlowQueryProps(properties);
+
+      conf.setMaxMemoryPerQuery(Long.parseLong(properties.getProperty("max_memory_per_query",
+          Long.toString(conf.getMaxMemoryPerQuery())).trim()));
+
       conf.setTagAttributeTotalSize(
            Integer.parseInt(properties.getProperty("tag_attribute_total_size",
               String.valueOf(conf.getTagAttributeTotalSize())))
       );
 
+      conf.setMtreeSnapshotInterval(
+          Integer.parseInt(properties.getProperty("mtree_snapshot_interval",
+              String.valueOf(conf.getMtreeSnapshotInterval()))));
+
       // mqtt
       if (properties.getProperty(IoTDBConstant.MQTT_HOST_NAME) != null) {
         conf.setMqttHost(properties.getProperty(IoTDBConstant.MQTT_HOST_NAME));
@@ -527,6 +582,13 @@ public class IoTDBDescriptor {
             TSFileDescriptor.getInstance().getConfig().getCompressor().toString()));
   }
 
+  private void loadSlowQueryProps(Properties properties) {
+    conf.setSlowQueryThreshold(Long.parseLong(properties.getProperty("slow_query_threshold",
+        Long.toString(conf.getSlowQueryThreshold())).trim()));
+    conf.setEnableSlowQueryProfile(Boolean.parseBoolean(properties.getProperty(
+        "enable_slow_query_profile", Boolean.toString(conf.isEnableSlowQueryProfile())).trim()));
+  }
+
   public void loadHotModifiedProps() throws QueryProcessException {
     String url = getPropsUrl();
     if (url == null) {
@@ -580,6 +642,8 @@ public class IoTDBDescriptor {
       // update tsfile-format config
       loadTsFileProps(properties);
 
+      loadSlowQueryProps(properties);
+
     } catch (Exception e) {
       logger.warn("Fail to reload config file {}", url, e);
       throw new QueryProcessException(
@@ -603,6 +667,8 @@ public class IoTDBDescriptor {
     }
 
     if (!conf.isMetaDataCacheEnable()) {
+      // no memory is used by the caches
+      conf.setAllocateMemoryForQuery(conf.getAllocateMemoryForRead());
       return;
     }
 
@@ -624,6 +690,11 @@ public class IoTDBDescriptor {
             maxMemoryAvailable * Integer.parseInt(proportions[2].trim()) / proportionSum);
         conf.setAllocateMemoryForTimeSeriesMetaDataCache(
             maxMemoryAvailable * Integer.parseInt(proportions[3].trim()) / proportionSum);
+        conf.setAllocateMemoryForQuery(maxMemoryAvailable
+            - conf.getAllocateMemoryForFileMetaDataCache()
+            - conf.getAllocateMemoryForChunkMetaDataCache()
+            - conf.getAllocateMemoryForChunkCache()
+            - conf.getAllocateMemoryForTimeSeriesMetaDataCache());
       } catch (Exception e) {
         throw new RuntimeException(
             "Each subsection of configuration item filemeta_chunkmeta_free_memory_proportion should be an"
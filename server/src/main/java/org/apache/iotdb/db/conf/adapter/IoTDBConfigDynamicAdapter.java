@@ -221,7 +221,7 @@ public class IoTDBConfigDynamicAdapter implements IDynamicAdapter {
   }
 
   @Override
-  public void addOrDeleteStorageGroup(int diff) throws ConfigAdjusterException {
+  public synchronized void addOrDeleteStorageGroup(int diff) throws ConfigAdjusterException {
     totalStorageGroup += diff;
     maxMemTableNum +=
         IoTDBDescriptor.getInstance().getConfig().getMemtableNumInEachStorageGroup() * diff;
@@ -239,7 +239,7 @@ public class IoTDBConfigDynamicAdapter implements IDynamicAdapter {
   }
 
   @Override
-  public void addOrDeleteTimeSeries(int diff) throws ConfigAdjusterException {
+  public synchronized void addOrDeleteTimeSeries(int diff) throws ConfigAdjusterException {
     if(!CONFIG.isEnableParameterAdapter()){
       return;
     }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.cost.statistic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram is a lock-free histogram of latencies in nanoseconds in the way of HDR
+ * histograms: each power of two is split into SUB_BUCKET_COUNT linear sub-buckets, so a recorded
+ * latency is kept with a relative error under 1 / SUB_BUCKET_COUNT (about 3%) from 1ns to
+ * MAX_LATENCY, while recording is one atomic increment.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * larger latencies, about 18 minutes, are recorded as this
+   */
+  static final long MAX_LATENCY = (1L << 40) - 1;
+
+  private static final int BUCKET_COUNT = getIndex(MAX_LATENCY) + 1;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+  static int getIndex(long latency) {
+    if (latency < SUB_BUCKET_COUNT) {
+      return (int) latency;
+    }
+    // the highest SUB_BUCKET_BITS + 1 bits select the bucket
+    int shift = 63 - Long.numberOfLeadingZeros(latency) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) (latency >>> shift) - SUB_BUCKET_COUNT;
+  }
+
+  /**
+   * @return the largest latency of a bucket
+   */
+  static long getHighestLatency(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  public void record(long latencyInNanos) {
+    long latency = Math.min(Math.max(latencyInNanos, 0), MAX_LATENCY);
+    buckets.incrementAndGet(getIndex(latency));
+    count.increment();
+    sum.add(latency);
+    max.accumulate(latency);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSumInNanos() {
+    return sum.sum();
+  }
+
+  public long getMaxInNanos() {
+    return max.get();
+  }
+
+  public double getMeanInNanos() {
+    long cnt = count.sum();
+    return cnt == 0 ? 0 : (double) sum.sum() / cnt;
+  }
+
+  /**
+   * @param percentile in [0, 100]
+   * @return the latency that the given percentage of the recorded latencies do not exceed, with
+   * the error of its bucket, or 0 if nothing is recorded
+   */
+  public long getPercentileInNanos(double percentile) {
+    long total = 0;
+    long[] snapshot = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = buckets.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(getHighestLatency(i), getMaxInNanos());
+      }
+    }
+    return getMaxInNanos();
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets.set(i, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.cost.statistic;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -90,6 +91,17 @@ public class Measurement implements MeasurementMBean, IService {
    */
   private long[][] operationHistogram;
 
+  /**
+   * high-resolution latency histograms of each operation, which are recorded directly by the
+   * operating threads
+   */
+  private final LatencyHistogram[] operationLatencyHistograms;
+
+  /**
+   * the same as operationSwitch, which is checked without hashing the operation names
+   */
+  private final boolean[] operationEnabled;
+
   /**
    * display thread and queue consumer thread.
    */
@@ -108,7 +120,7 @@ public class Measurement implements MeasurementMBean, IService {
 
   public static final Measurement INSTANCE = AsyncMeasurementHolder.MEASUREMENT;
 
-  private boolean isEnableStat;
+  private volatile boolean isEnableStat;
   private long displayIntervalInMs;
   private Map<String, Boolean> operationSwitch;
 
@@ -128,11 +140,15 @@ public class Measurement implements MeasurementMBean, IService {
     operationLatencies = new long[Operation.values().length];
     operationCnt = new long[Operation.values().length];
     operationSwitch = new HashMap<>(Operation.values().length);
+    operationLatencyHistograms = new LatencyHistogram[Operation.values().length];
+    operationEnabled = new boolean[Operation.values().length];
     for (Operation op : Operation.values()) {
       operationLatenciesQueue[op.ordinal()] = new ConcurrentCircularArray(queueSize);
       operationCnt[op.ordinal()] = 0;
       operationLatencies[op.ordinal()] = 0;
       operationSwitch.put(op.getName(), true);
+      operationLatencyHistograms[op.ordinal()] = new LatencyHistogram();
+      operationEnabled[op.ordinal()] = true;
     }
     operationHistogram = new long[Operation.values().length][BUCKET_SIZE];
     for (Operation operation : Operation.values()) {
@@ -147,11 +163,34 @@ public class Measurement implements MeasurementMBean, IService {
 
   public boolean addOperationLatency(Operation op, long startTime) {
     if (isEnableStat && operationSwitch.get(op.getName())) {
-      return operationLatenciesQueue[op.ordinal()].put((System.currentTimeMillis() - startTime));
+      long latency = System.currentTimeMillis() - startTime;
+      operationLatencyHistograms[op.ordinal()].record(TimeUnit.MILLISECONDS.toNanos(latency));
+      return operationLatenciesQueue[op.ordinal()].put(latency);
     }
     return false;
   }
 
+  /**
+   * @return the current time in nanoseconds to time a stage, or 0 if the statistic is disabled so
+   * the stage is not timed
+   */
+  public long startTimeInNanos() {
+    return isEnableStat ? System.nanoTime() : 0;
+  }
+
+  /**
+   * record the latency of a stage started at startTimeInNanos, which is from startTimeInNanos()
+   */
+  public void addOperationLatencyInNanos(Operation op, long startTimeInNanos) {
+    if (startTimeInNanos != 0 && isEnableStat && operationEnabled[op.ordinal()]) {
+      operationLatencyHistograms[op.ordinal()].record(System.nanoTime() - startTimeInNanos);
+    }
+  }
+
+  public LatencyHistogram getOperationLatencyHistogram(Operation op) {
+    return operationLatencyHistograms[op.ordinal()];
+  }
+
   @Override
   public void startStatistics() {
     stateChangeLock.lock();
@@ -229,6 +268,7 @@ public class Measurement implements MeasurementMBean, IService {
       for (int i = 0; i < BUCKET_SIZE; i++) {
         operationHistogram[op.ordinal()][i] = 0;
       }
+      operationLatencyHistograms[op.ordinal()].reset();
     }
   }
 
@@ -236,6 +276,7 @@ public class Measurement implements MeasurementMBean, IService {
   public boolean changeOperationSwitch(String operationName, Boolean operationState) {
     if (operationSwitch.containsKey(operationName)) {
       operationSwitch.put(operationName, operationState);
+      operationEnabled[Operation.valueOf(operationName).ordinal()] = operationState;
       return true;
     } else {
       return false;
@@ -325,6 +366,31 @@ public class Measurement implements MeasurementMBean, IService {
     return operationSwitch;
   }
 
+  @Override
+  public Map<String, String> getOperationLatencySummary() {
+    Map<String, String> summary = new LinkedHashMap<>();
+    for (Operation operation : Operation.values()) {
+      LatencyHistogram histogram = operationLatencyHistograms[operation.ordinal()];
+      if (histogram.getCount() > 0) {
+        summary.put(operation.getName(), String.format(
+            "count=%d, mean=%.1fus, p50=%.1fus, p90=%.1fus, p99=%.1fus, p999=%.1fus, max=%.1fus",
+            histogram.getCount(), histogram.getMeanInNanos() / 1000,
+            histogram.getPercentileInNanos(50) / 1000.0,
+            histogram.getPercentileInNanos(90) / 1000.0,
+            histogram.getPercentileInNanos(99) / 1000.0,
+            histogram.getPercentileInNanos(99.9) / 1000.0,
+            histogram.getMaxInNanos() / 1000.0));
+      }
+    }
+    return summary;
+  }
+
+  @Override
+  public long getOperationLatencyPercentileInNanos(String operationName, double percentile) {
+    return operationLatencyHistograms[Operation.valueOf(operationName).ordinal()]
+        .getPercentileInNanos(percentile);
+  }
+
   private static class AsyncMeasurementHolder {
 
     private static final Measurement MEASUREMENT = new Measurement();
@@ -377,6 +443,26 @@ public class Measurement implements MeasurementMBean, IService {
       }
     }
 
+    LOGGER.info(
+        "=====================================OPERATION LATENCY (us)======================================================");
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info(String.format("%-45s%-15s%-15s%-15s%-15s%-15s%-15s", "OPERATION", "COUNT",
+          "MEAN", "P50", "P99", "P999", "MAX"));
+    }
+    for (Operation operation : Operation.values()) {
+      LatencyHistogram histogram = operationLatencyHistograms[operation.ordinal()];
+      if (!operationSwitch.get(operation.getName()) || histogram.getCount() == 0) {
+        continue;
+      }
+      if (LOGGER.isInfoEnabled()) {
+        LOGGER.info(String.format("%-45s%-15d%-15.1f%-15.1f%-15.1f%-15.1f%-15.1f",
+            operation.getName(), histogram.getCount(), histogram.getMeanInNanos() / 1000,
+            histogram.getPercentileInNanos(50) / 1000.0,
+            histogram.getPercentileInNanos(99) / 1000.0,
+            histogram.getPercentileInNanos(99.9) / 1000.0, histogram.getMaxInNanos() / 1000.0));
+      }
+    }
+
     LOGGER.info(
         "=================================================================================================================");
   }
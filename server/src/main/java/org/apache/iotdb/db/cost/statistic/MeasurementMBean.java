@@ -69,4 +69,15 @@ public interface MeasurementMBean {
   void setDisplayIntervalInMs(long displayIntervalInMs);
 
   Map<String, Boolean> getOperationSwitch();
+
+  /**
+   * @return operation name -> the count, mean, percentiles and max of its latencies, the
+   * operations that have not been recorded are omitted
+   */
+  Map<String, String> getOperationLatencySummary();
+
+  /**
+   * @param percentile in [0, 100]
+   */
+  long getOperationLatencyPercentileInNanos(String operationName, double percentile);
 }
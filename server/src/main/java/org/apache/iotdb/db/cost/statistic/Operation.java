@@ -22,7 +22,23 @@ public enum Operation {
   EXECUTE_JDBC_BATCH("EXECUTE_JDBC_BATCH"),
   EXECUTE_ONE_SQL_IN_BATCH("EXECUTE_ONE_SQL_IN_BATCH"),
   EXECUTE_RPC_BATCH_INSERT("EXECUTE_RPC_BATCH_INSERT"),
-  EXECUTE_QUERY("EXECUTE_QUERY");
+  EXECUTE_QUERY("EXECUTE_QUERY"),
+  // the stages of the write and read paths, which are recorded in nanoseconds
+  PARSE_SQL("PARSE_SQL"),
+  GET_SCHEMA("GET_SCHEMA"),
+  WAIT_STORAGE_GROUP_LOCK("WAIT_STORAGE_GROUP_LOCK"),
+  WRITE_MEMTABLE("WRITE_MEMTABLE"),
+  WRITE_WAL("WRITE_WAL"),
+  SYNC_WAL("SYNC_WAL"),
+  FLUSH_SORT("FLUSH_SORT"),
+  FLUSH_ENCODE("FLUSH_ENCODE"),
+  FLUSH_IO("FLUSH_IO"),
+  SELECT_QUERY_FILES("SELECT_QUERY_FILES"),
+  LOAD_METADATA("LOAD_METADATA"),
+  READ_CHUNK("READ_CHUNK"),
+  DECODE_PAGE("DECODE_PAGE"),
+  MERGE("MERGE"),
+  SERIALIZE_RPC_RESULT("SERIALIZE_RPC_RESULT");
 
   public String getName() {
     return name;
@@ -76,6 +76,11 @@ public class CacheHitRatioMonitor implements CacheHitRatioMonitorMXBean, IServic
     return TimeSeriesMetadataCache.getInstance().calculateTimeSeriesMetadataHitRatio();
   }
 
+  @Override
+  public double getQueryResultHitRatio() {
+    return QueryResultCache.getInstance().calculateQueryResultHitRatio();
+  }
+
   public static CacheHitRatioMonitor getInstance() {
     return instance;
   }
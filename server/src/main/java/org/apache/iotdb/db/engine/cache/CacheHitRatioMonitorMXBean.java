@@ -27,4 +27,6 @@ public interface CacheHitRatioMonitorMXBean {
   double getChunkHitRatio();
 
   double getTimeSeriesMetadataHitRatio();
+
+  double getQueryResultHitRatio();
 }
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.engine.cache;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.merge.manage.MergeRateLimiter;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
@@ -80,9 +81,23 @@ public class ChunkCache {
     return ChunkCacheHolder.INSTANCE;
   }
 
+  /**
+   * only the query reads that miss the cache go to disk, so only they are foreground I/O that
+   * merges yield to.
+   */
+  private Chunk readChunkFromDisk(ChunkMetadata chunkMetaData, TsFileSequenceReader reader)
+      throws IOException {
+    MergeRateLimiter.getInstance().startForegroundIO();
+    try {
+      return reader.readMemChunk(chunkMetaData);
+    } finally {
+      MergeRateLimiter.getInstance().endForegroundIO();
+    }
+  }
+
   public Chunk get(ChunkMetadata chunkMetaData, TsFileSequenceReader reader) throws IOException {
     if (!cacheEnable) {
-      Chunk chunk = reader.readMemChunk(chunkMetaData);
+      Chunk chunk = readChunkFromDisk(chunkMetaData, reader);
       return new Chunk(chunk.getHeader(), chunk.getData().duplicate(), chunk.getDeletedAt(), reader.getEndianType());
     }
 
@@ -116,7 +131,7 @@ public class ChunkCache {
         return new Chunk(chunk.getHeader(), chunk.getData().duplicate(), chunk.getDeletedAt(), reader.getEndianType());
       }
       printCacheLog(false);
-      Chunk chunk = reader.readMemChunk(chunkMetaData);
+      Chunk chunk = readChunkFromDisk(chunkMetaData, reader);
       lruCache.put(chunkMetaData, chunk);
       return new Chunk(chunk.getHeader(), chunk.getData().duplicate(), chunk.getDeletedAt(), reader.getEndianType());
     } catch (IOException e) {
@@ -128,6 +143,21 @@ public class ChunkCache {
 
   }
 
+  /**
+   * @return whether the chunk is in the cache now, which is used to profile queries
+   */
+  public boolean isCached(ChunkMetadata chunkMetaData) {
+    if (!cacheEnable) {
+      return false;
+    }
+    lock.readLock().lock();
+    try {
+      return lruCache.containsKey(chunkMetaData);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
   private void printCacheLog(boolean isHit) {
     if (!logger.isDebugEnabled()) {
       return;
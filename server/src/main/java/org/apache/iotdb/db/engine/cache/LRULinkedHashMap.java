@@ -60,6 +60,12 @@ public abstract class LRULinkedHashMap<K, V> extends LinkedHashMap<K, V> {
     return super.put(key, value);
   }
 
+  @Override
+  public void clear() {
+    super.clear();
+    usedMemInB = 0;
+  }
+
   /**
    * approximately estimate the additional size of key and value.
    */
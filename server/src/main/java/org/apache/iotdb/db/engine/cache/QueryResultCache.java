@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.factory.AggregateResultFactory;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+/**
+ * This class caches the results of GROUP BY windows of a series whose data are all in sealed
+ * TsFiles, so repeated queries over the same history only read the newest data. The caching
+ * strategy is LRU.
+ * <p>
+ * A cached window is only valid for the TsFiles it was calculated from, which are recorded with
+ * it, so it misses when a file is added (e.g., a sealed unsequence file) or removed (e.g., by a
+ * merge). Deletions, merges, changing the TTL and deleting the data files invalidate the cached
+ * windows of the storage group by advancing its version, and the results of a query that began
+ * before an invalidation are not cached.
+ */
+public class QueryResultCache {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private final Map<WindowKey, CachedWindow> lruCache;
+  /**
+   * storage group -> version, guarded by lruCache
+   */
+  private final Map<String, Long> versions = new HashMap<>();
+
+  private AtomicLong cacheHitNum = new AtomicLong();
+  private AtomicLong cacheRequestNum = new AtomicLong();
+
+  private QueryResultCache() {
+    lruCache = new LinkedHashMap<WindowKey, CachedWindow>(128, 0.75f, true) {
+
+      private static final long serialVersionUID = 4627412926618394387L;
+
+      @Override
+      protected boolean removeEldestEntry(Entry<WindowKey, CachedWindow> eldest) {
+        return size() > config.getQueryResultCacheSize();
+      }
+    };
+  }
+
+  public static QueryResultCache getInstance() {
+    return QueryResultCacheHolder.INSTANCE;
+  }
+
+  public static boolean isEnabled() {
+    return config.getQueryResultCacheSize() > 0;
+  }
+
+  /**
+   * @return the current version of the storage group, which should be got before the data of a
+   * query are chosen
+   */
+  public long getVersion(String storageGroupName) {
+    synchronized (lruCache) {
+      return versions.getOrDefault(storageGroupName, 0L);
+    }
+  }
+
+  /**
+   * Merge the cached results of a window into the given results.
+   *
+   * @param files the paths of the sealed TsFiles overlapping the window
+   * @return false if the window is not cached or the cached one is invalid
+   */
+  public boolean get(WindowKey key, List<String> files, long version,
+      List<AggregateResult> results) {
+    CachedWindow window;
+    cacheRequestNum.incrementAndGet();
+    synchronized (lruCache) {
+      window = lruCache.get(key);
+      if (window == null || !window.files.equals(files) || window.version != version
+          || version != versions.getOrDefault(key.storageGroupName, 0L)) {
+        return false;
+      }
+    }
+    cacheHitNum.incrementAndGet();
+    // the cached results are never changed after put, so they are merged out of the lock
+    for (int i = 0; i < results.size(); i++) {
+      AggregateResult cachedResult = window.results.get(i);
+      if (cachedResult.hasResult()) {
+        results.get(i).merge(cachedResult);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Cache copies of the results of a window, unless the storage group has been invalidated since
+   * the query got the version.
+   */
+  public void put(WindowKey key, List<String> files, long version,
+      List<AggregateResult> results) {
+    List<AggregateResult> copies = new ArrayList<>(results.size());
+    for (AggregateResult result : results) {
+      AggregateResult copy = AggregateResultFactory
+          .getAggrResultByType(result.getAggregationType(), key.dataType);
+      if (result.hasResult()) {
+        copy.merge(result);
+      }
+      copies.add(copy);
+    }
+    synchronized (lruCache) {
+      if (version == versions.getOrDefault(key.storageGroupName, 0L)) {
+        lruCache.put(key, new CachedWindow(files, version, copies));
+      }
+    }
+  }
+
+  /**
+   * Invalidate the cached windows of a storage group, which must be called when its data are
+   * changed in place.
+   */
+  public void invalidate(String storageGroupName) {
+    synchronized (lruCache) {
+      versions.merge(storageGroupName, 1L, Long::sum);
+      lruCache.keySet().removeIf(key -> key.storageGroupName.equals(storageGroupName));
+    }
+  }
+
+  public double calculateQueryResultHitRatio() {
+    if (cacheRequestNum.get() != 0) {
+      return cacheHitNum.get() * 1.0 / cacheRequestNum.get();
+    } else {
+      return 0;
+    }
+  }
+
+  public int size() {
+    synchronized (lruCache) {
+      return lruCache.size();
+    }
+  }
+
+  public void clear() {
+    synchronized (lruCache) {
+      lruCache.clear();
+      // queries running across the clearance must not put their results
+      versions.replaceAll((storageGroupName, version) -> version + 1);
+    }
+  }
+
+  /**
+   * A window [startTime, endTime) of the aggregations of a series.
+   */
+  public static class WindowKey {
+
+    private String storageGroupName;
+    private String path;
+    private TSDataType dataType;
+    private List<String> aggregations;
+    private long startTime;
+    private long endTime;
+
+    public WindowKey(String storageGroupName, String path, TSDataType dataType,
+        List<String> aggregations, long startTime, long endTime) {
+      this.storageGroupName = storageGroupName;
+      this.path = path;
+      this.dataType = dataType;
+      this.aggregations = aggregations;
+      this.startTime = startTime;
+      this.endTime = endTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      WindowKey windowKey = (WindowKey) o;
+      return startTime == windowKey.startTime &&
+          endTime == windowKey.endTime &&
+          Objects.equals(path, windowKey.path) &&
+          dataType == windowKey.dataType &&
+          Objects.equals(aggregations, windowKey.aggregations);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, dataType, aggregations, startTime, endTime);
+    }
+  }
+
+  private static class CachedWindow {
+
+    private List<String> files;
+    private long version;
+    private List<AggregateResult> results;
+
+    private CachedWindow(List<String> files, long version, List<AggregateResult> results) {
+      this.files = files;
+      this.version = version;
+      this.results = results;
+    }
+  }
+
+  private static class QueryResultCacheHolder {
+
+    private static final QueryResultCache INSTANCE = new QueryResultCache();
+
+    private QueryResultCacheHolder() {
+    }
+  }
+}
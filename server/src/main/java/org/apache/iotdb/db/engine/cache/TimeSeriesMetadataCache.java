@@ -22,6 +22,7 @@ package org.apache.iotdb.db.engine.cache;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.merge.manage.MergeRateLimiter;
 import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetadata;
@@ -82,8 +83,16 @@ public class TimeSeriesMetadataCache {
     return TimeSeriesMetadataCache.TimeSeriesMetadataCacheHolder.INSTANCE;
   }
 
-  public TimeseriesMetadata get(TimeSeriesMetadataCacheKey key, Set<String> allSensors) throws IOException {
-    if (!cacheEnable) {
+  /**
+   * read the TimeseriesMetadata of the device of the key from disk, only the query reads that miss
+   * the cache go to disk, so only they are foreground I/O that merges yield to.
+   *
+   * @return null if the bloom filter shows the series is not in the file
+   */
+  private Map<String, TimeseriesMetadata> readDeviceMetadata(TimeSeriesMetadataCacheKey key)
+      throws IOException {
+    MergeRateLimiter.getInstance().startForegroundIO();
+    try {
       // bloom filter part
       TsFileMetadata fileMetaData = TsFileMetaDataCache.getInstance().get(key.filePath);
       BloomFilter bloomFilter = fileMetaData.getBloomFilter();
@@ -92,7 +101,16 @@ public class TimeSeriesMetadataCache {
         return null;
       }
       TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-      return reader.readDeviceMetadata(key.device).get(key.measurement);
+      return reader.readDeviceMetadata(key.device);
+    } finally {
+      MergeRateLimiter.getInstance().endForegroundIO();
+    }
+  }
+
+  public TimeseriesMetadata get(TimeSeriesMetadataCacheKey key, Set<String> allSensors) throws IOException {
+    if (!cacheEnable) {
+      Map<String, TimeseriesMetadata> timeSeriesMetadataMap = readDeviceMetadata(key);
+      return timeSeriesMetadataMap == null ? null : timeSeriesMetadataMap.get(key.measurement);
     }
 
     cacheRequestNum.incrementAndGet();
@@ -116,15 +134,10 @@ public class TimeSeriesMetadataCache {
         return lruCache.get(key);
       }
       printCacheLog(false);
-      // bloom filter part
-      TsFileMetadata fileMetaData = TsFileMetaDataCache.getInstance().get(key.filePath);
-      BloomFilter bloomFilter = fileMetaData.getBloomFilter();
-      if (bloomFilter != null && !bloomFilter
-          .contains(key.device + IoTDBConstant.PATH_SEPARATOR + key.measurement)) {
+      Map<String, TimeseriesMetadata> timeSeriesMetadataMap = readDeviceMetadata(key);
+      if (timeSeriesMetadataMap == null) {
         return null;
       }
-      TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-      Map<String, TimeseriesMetadata> timeSeriesMetadataMap = reader.readDeviceMetadata(key.device);
       TimeseriesMetadata res = timeSeriesMetadataMap.get(key.measurement);
       lruCache.put(key, res);
 
@@ -148,6 +161,21 @@ public class TimeSeriesMetadataCache {
   }
 
 
+  /**
+   * @return whether the TimeseriesMetadata is in the cache now, which is used to profile queries
+   */
+  public boolean isCached(TimeSeriesMetadataCacheKey key) {
+    if (!cacheEnable) {
+      return false;
+    }
+    lock.readLock().lock();
+    try {
+      return lruCache.containsKey(key);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
   private void printCacheLog(boolean isHit) {
     if (!logger.isDebugEnabled()) {
       return;
@@ -19,17 +19,28 @@
 package org.apache.iotdb.db.engine.flush;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.engine.flush.pool.FlushSubTaskPoolManager;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
 import org.apache.iotdb.db.engine.memtable.IWritableMemChunk;
+import org.apache.iotdb.db.engine.merge.manage.MergeRateLimiter;
+import org.apache.iotdb.db.engine.rollup.SeriesRollup;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
+import org.apache.iotdb.db.engine.sketch.SeriesSketch;
+import org.apache.iotdb.db.engine.sketch.TsFileSketch;
 import org.apache.iotdb.db.exception.runtime.FlushRunTimeException;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
 import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
@@ -52,12 +63,29 @@ public class MemTableFlushTask {
   private String storageGroup;
 
   private IMemTable memTable;
+  /**
+   * the rollups of the TsFile which are updated with the flushed data, null if the file is not
+   * rolled up
+   */
+  private TsFileRollup rollup;
+  /**
+   * the sketches of the TsFile which are updated with the flushed data, null if the file is not
+   * sketched
+   */
+  private TsFileSketch sketch;
 
   private volatile boolean noMoreEncodingTask = false;
   private volatile boolean noMoreIOTask = false;
 
   public MemTableFlushTask(IMemTable memTable, RestorableTsFileIOWriter writer, String storageGroup) {
+    this(memTable, writer, storageGroup, null, null);
+  }
+
+  public MemTableFlushTask(IMemTable memTable, RestorableTsFileIOWriter writer,
+      String storageGroup, TsFileRollup rollup, TsFileSketch sketch) {
     this.memTable = memTable;
+    this.rollup = rollup;
+    this.sketch = sketch;
     this.writer = writer;
     this.storageGroup = storageGroup;
     this.encodingTaskFuture = subTaskPoolManager.submit(encodingTask);
@@ -71,15 +99,30 @@ public class MemTableFlushTask {
    * the function for flushing memtable.
    */
   public void syncFlushMemTable() throws ExecutionException, InterruptedException {
+    // flushes have priority over merges
+    MergeRateLimiter.getInstance().startForegroundIO();
+    try {
+      doFlushMemTable();
+    } finally {
+      MergeRateLimiter.getInstance().endForegroundIO();
+    }
+  }
+
+  private void doFlushMemTable() throws ExecutionException, InterruptedException {
     long start = System.currentTimeMillis();
     long sortTime = 0;
-    for (String deviceId : memTable.getMemTableMap().keySet()) {
+    for (Entry<String, Map<String, IWritableMemChunk>> deviceEntry :
+        memTable.getMemTableMap().entrySet()) {
+      String deviceId = deviceEntry.getKey();
       encodingTaskQueue.add(new StartFlushGroupIOTask(deviceId));
-      for (String measurementId : memTable.getMemTableMap().get(deviceId).keySet()) {
+      for (Entry<String, IWritableMemChunk> seriesEntry : deviceEntry.getValue().entrySet()) {
         long startTime = System.currentTimeMillis();
-        IWritableMemChunk series = memTable.getMemTableMap().get(deviceId).get(measurementId);
+        long startTimeInNanos = Measurement.INSTANCE.startTimeInNanos();
+        String measurementId = seriesEntry.getKey();
+        IWritableMemChunk series = seriesEntry.getValue();
         MeasurementSchema desc = series.getSchema();
         TVList tvList = series.getSortedTVList();
+        Measurement.INSTANCE.addOperationLatencyInNanos(Operation.FLUSH_SORT, startTimeInNanos);
         sortTime += System.currentTimeMillis() - startTime;
         encodingTaskQueue.add(new Pair<>(tvList, desc));
         // register active time series to the ActiveTimeSeriesCounter
@@ -121,8 +164,13 @@ public class MemTableFlushTask {
 
 
   private Runnable encodingTask = new Runnable() {
+    private String currentDeviceId;
+
+    /**
+     * @param flushedData if not null, the written points are also put into it
+     */
     private void writeOneSeries(TVList tvPairs, IChunkWriter seriesWriterImpl,
-        TSDataType dataType){
+        TSDataType dataType, BatchData flushedData){
       for (int i = 0; i < tvPairs.size(); i++) {
         long time = tvPairs.getTime(i);
 
@@ -134,21 +182,39 @@ public class MemTableFlushTask {
         switch (dataType) {
           case BOOLEAN:
             seriesWriterImpl.write(time, tvPairs.getBoolean(i));
+            if (flushedData != null) {
+              flushedData.putBoolean(time, tvPairs.getBoolean(i));
+            }
             break;
           case INT32:
             seriesWriterImpl.write(time, tvPairs.getInt(i));
+            if (flushedData != null) {
+              flushedData.putInt(time, tvPairs.getInt(i));
+            }
             break;
           case INT64:
             seriesWriterImpl.write(time, tvPairs.getLong(i));
+            if (flushedData != null) {
+              flushedData.putLong(time, tvPairs.getLong(i));
+            }
             break;
           case FLOAT:
             seriesWriterImpl.write(time, tvPairs.getFloat(i));
+            if (flushedData != null) {
+              flushedData.putFloat(time, tvPairs.getFloat(i));
+            }
             break;
           case DOUBLE:
             seriesWriterImpl.write(time, tvPairs.getDouble(i));
+            if (flushedData != null) {
+              flushedData.putDouble(time, tvPairs.getDouble(i));
+            }
             break;
           case TEXT:
             seriesWriterImpl.write(time, tvPairs.getBinary(i));
+            if (flushedData != null) {
+              flushedData.putBinary(time, tvPairs.getBinary(i));
+            }
             break;
           default:
             logger.error("Storage group {} does not support data type: {}", storageGroup,
@@ -158,6 +224,22 @@ public class MemTableFlushTask {
       }
     }
 
+    private void updateRollupAndSketch(SeriesRollup seriesRollup, SeriesSketch seriesSketch,
+        BatchData flushedData) {
+      try {
+        if (seriesRollup != null) {
+          seriesRollup.update(flushedData);
+        }
+        if (seriesSketch != null) {
+          seriesSketch.update(flushedData);
+        }
+      } catch (IOException e) {
+        logger.error("Storage group {} memtable {}, rolling up or sketching data meets error.", storageGroup,
+            memTable.getVersion(), e);
+        throw new FlushRunTimeException(e);
+      }
+    }
+
     @SuppressWarnings("squid:S135")
     @Override
     public void run() {
@@ -184,15 +266,31 @@ public class MemTableFlushTask {
           }
         } else {
           if (task instanceof StartFlushGroupIOTask) {
+            currentDeviceId = ((StartFlushGroupIOTask) task).deviceId;
             ioTaskQueue.add(task);
           } else if (task instanceof EndChunkGroupIoTask) {
             ioTaskQueue.add(task);
           } else {
             long starTime = System.currentTimeMillis();
+            long startTimeInNanos = Measurement.INSTANCE.startTimeInNanos();
             Pair<TVList, MeasurementSchema> encodingMessage = (Pair<TVList, MeasurementSchema>) task;
+            TSDataType dataType = encodingMessage.right.getType();
+            String seriesPath = currentDeviceId + IoTDBConstant.PATH_SEPARATOR
+                + encodingMessage.right.getMeasurementId();
+            SeriesRollup seriesRollup = rollup == null ? null
+                : rollup.getOrCreate(seriesPath, dataType);
+            SeriesSketch seriesSketch = sketch == null ? null
+                : sketch.getOrCreate(seriesPath, dataType);
+            BatchData flushedData = seriesRollup == null && seriesSketch == null ? null
+                : new BatchData(dataType);
             IChunkWriter seriesWriter = new ChunkWriterImpl(encodingMessage.right);
-            writeOneSeries(encodingMessage.left, seriesWriter, encodingMessage.right.getType());
+            writeOneSeries(encodingMessage.left, seriesWriter, dataType, flushedData);
+            if (flushedData != null) {
+              updateRollupAndSketch(seriesRollup, seriesSketch, flushedData);
+            }
             ioTaskQueue.add(seriesWriter);
+            Measurement.INSTANCE.addOperationLatencyInNanos(Operation.FLUSH_ENCODE,
+                startTimeInNanos);
             memSerializeTime += System.currentTimeMillis() - starTime;
           }
         }
@@ -228,6 +326,7 @@ public class MemTableFlushTask {
         }
       } else {
         long starTime = System.currentTimeMillis();
+        long startTimeInNanos = Measurement.INSTANCE.startTimeInNanos();
         try {
           if (ioMessage instanceof StartFlushGroupIOTask) {
             writer.startChunkGroup(((StartFlushGroupIOTask) ioMessage).deviceId);
@@ -242,6 +341,7 @@ public class MemTableFlushTask {
               memTable.getVersion(), e);
           throw new FlushRunTimeException(e);
         }
+        Measurement.INSTANCE.addOperationLatencyInNanos(Operation.FLUSH_IO, startTimeInNanos);
         ioTime += System.currentTimeMillis() - starTime;
       }
     }
@@ -18,17 +18,22 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
+import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.PATH_SEPARATOR;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.exception.WriteProcessException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.rescon.TVListAllocator;
@@ -45,42 +50,77 @@ public abstract class AbstractMemTable implements IMemTable {
 
   private List<Modification> modifications = new ArrayList<>();
 
-  private final Map<String, Map<String, IWritableMemChunk>> memTableMap;
+  /**
+   * the chunks indexed by the ids of the LeafMNodes of their timeseries. Devices of a storage group
+   * may be inserted concurrently, while the series of a device are always inserted by one thread
+   * at a time
+   */
+  private final SeriesMemChunkMap seriesChunks;
+
+  /**
+   * ids of the series that are not in the MTree, which are only written through the path strings,
+   * e.g., by tools and tests
+   */
+  private final Map<String, Integer> unregisteredSeriesIds = new ConcurrentHashMap<>();
+  // negative ids never conflict with those of the MTree, and -1 means not existing
+  private final AtomicInteger unregisteredSeriesIdAllocator = new AtomicInteger(-2);
 
-  private long memSize = 0;
+  private final AtomicLong memSize = new AtomicLong();
 
   public AbstractMemTable() {
-    this.memTableMap = new HashMap<>();
+    this.seriesChunks = new SeriesMemChunkMap();
   }
 
-  public AbstractMemTable(Map<String, Map<String, IWritableMemChunk>> memTableMap) {
-    this.memTableMap = memTableMap;
+  /**
+   * a copy that shares the chunks of the source
+   */
+  AbstractMemTable(AbstractMemTable source) {
+    this.seriesChunks = source.seriesChunks.copy();
+    this.unregisteredSeriesIds.putAll(source.unregisteredSeriesIds);
+    this.unregisteredSeriesIdAllocator.set(source.unregisteredSeriesIdAllocator.get());
   }
 
   @Override
   public Map<String, Map<String, IWritableMemChunk>> getMemTableMap() {
+    Map<String, Map<String, IWritableMemChunk>> memTableMap = new HashMap<>();
+    seriesChunks.forEach((seriesId, deviceId, chunk) -> {
+      Map<String, IWritableMemChunk> deviceChunks = memTableMap
+          .computeIfAbsent(deviceId, k -> new HashMap<>());
+      String measurement = chunk.getSchema().getMeasurementId();
+      // an insertion planned before its series is deleted and created again may still leave a
+      // chunk of the deleted series, which must not replace the one of the current series
+      if (!deviceChunks.containsKey(measurement)
+          || MManager.getInstance().getSeriesId(deviceId, measurement) == seriesId) {
+        deviceChunks.put(measurement, chunk);
+      }
+    });
     return memTableMap;
   }
 
   /**
-   * check whether the given seriesPath is within this memtable.
-   *
-   * @return true if seriesPath is within this memtable
+   * @return the id of the series, or -1 if the series has never been written into this memtable
+   * and is not in the MTree
    */
-  private boolean checkPath(String deviceId, String measurement) {
-    return memTableMap.containsKey(deviceId) && memTableMap.get(deviceId).containsKey(measurement);
+  private int getSeriesId(String deviceId, String measurement) {
+    int seriesId = MManager.getInstance().getSeriesId(deviceId, measurement);
+    if (seriesId < 0) {
+      seriesId = unregisteredSeriesIds.getOrDefault(deviceId + PATH_SEPARATOR + measurement, -1);
+    }
+    return seriesId;
   }
 
-  private IWritableMemChunk createIfNotExistAndGet(String deviceId, String measurement,
-      MeasurementSchema schema) {
-    if (!memTableMap.containsKey(deviceId)) {
-      memTableMap.put(deviceId, new HashMap<>());
+  private int getOrCreateSeriesId(String deviceId, String measurement) {
+    int seriesId = MManager.getInstance().getSeriesId(deviceId, measurement);
+    if (seriesId < 0) {
+      seriesId = unregisteredSeriesIds.computeIfAbsent(deviceId + PATH_SEPARATOR + measurement,
+          k -> unregisteredSeriesIdAllocator.getAndDecrement());
     }
-    Map<String, IWritableMemChunk> memSeries = memTableMap.get(deviceId);
-    if (!memSeries.containsKey(measurement)) {
-      memSeries.put(measurement, genMemSeries(schema));
-    }
-    return memSeries.get(measurement);
+    return seriesId;
+  }
+
+  private IWritableMemChunk createIfNotExistAndGet(int seriesId, String deviceId,
+      MeasurementSchema schema) {
+    return seriesChunks.computeIfAbsent(seriesId, deviceId, () -> genMemSeries(schema));
   }
 
   protected abstract IWritableMemChunk genMemSeries(MeasurementSchema schema);
@@ -93,10 +133,12 @@ public abstract class AbstractMemTable implements IMemTable {
         Object value = CommonUtils.parseValue(insertPlan.getSchemas()[i].getType(),
             insertPlan.getValues()[i]);
 
-        memSize += MemUtils.getRecordSize(insertPlan.getSchemas()[i].getType(), value);
+        memSize.addAndGet(MemUtils.getRecordSize(insertPlan.getSchemas()[i].getType(), value));
 
-        write(insertPlan.getDeviceId(), insertPlan.getMeasurements()[i],
-            insertPlan.getSchemas()[i], insertPlan.getTime(), value);
+        int seriesId = insertPlan.getSeriesIds() != null ? insertPlan.getSeriesIds()[i]
+            : getOrCreateSeriesId(insertPlan.getDeviceId(), insertPlan.getMeasurements()[i]);
+        createIfNotExistAndGet(seriesId, insertPlan.getDeviceId(), insertPlan.getSchemas()[i])
+            .write(insertPlan.getTime(), value);
       }
     } catch (QueryProcessException e) {
       throw new WriteProcessException(e.getMessage());
@@ -109,7 +151,7 @@ public abstract class AbstractMemTable implements IMemTable {
     try {
       write(batchInsertPlan, start, end);
       long recordSizeInByte = MemUtils.getRecordSize(batchInsertPlan, start, end);
-      memSize += recordSizeInByte;
+      memSize.addAndGet(recordSizeInByte);
     } catch (RuntimeException e) {
       throw new WriteProcessException(e.getMessage());
     }
@@ -119,15 +161,18 @@ public abstract class AbstractMemTable implements IMemTable {
   @Override
   public void write(String deviceId, String measurement, MeasurementSchema schema, long insertTime,
       Object objectValue) {
-    IWritableMemChunk memSeries = createIfNotExistAndGet(deviceId, measurement, schema);
+    IWritableMemChunk memSeries = createIfNotExistAndGet(
+        getOrCreateSeriesId(deviceId, measurement), deviceId, schema);
     memSeries.write(insertTime, objectValue);
   }
 
   @Override
   public void write(BatchInsertPlan batchInsertPlan, int start, int end) {
     for (int i = 0; i < batchInsertPlan.getMeasurements().length; i++) {
-      IWritableMemChunk memSeries = createIfNotExistAndGet(batchInsertPlan.getDeviceId(),
-          batchInsertPlan.getMeasurements()[i], batchInsertPlan.getSchemas()[i]);
+      int seriesId = batchInsertPlan.getSeriesIds() != null ? batchInsertPlan.getSeriesIds()[i]
+          : getOrCreateSeriesId(batchInsertPlan.getDeviceId(), batchInsertPlan.getMeasurements()[i]);
+      IWritableMemChunk memSeries = createIfNotExistAndGet(seriesId, batchInsertPlan.getDeviceId(),
+          batchInsertPlan.getSchemas()[i]);
       memSeries.write(batchInsertPlan.getTimes(), batchInsertPlan.getColumns()[i],
           batchInsertPlan.getDataTypes()[i], start, end);
     }
@@ -136,41 +181,38 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public long size() {
-    long sum = 0;
-    for (Map<String, IWritableMemChunk> seriesMap : memTableMap.values()) {
-      for (IWritableMemChunk writableMemChunk : seriesMap.values()) {
-        sum += writableMemChunk.count();
-      }
-    }
-    return sum;
+    AtomicLong sum = new AtomicLong();
+    seriesChunks.forEachChunk(chunk -> sum.addAndGet(chunk.count()));
+    return sum.get();
   }
 
   @Override
   public long memSize() {
-    return memSize;
+    return memSize.get();
   }
 
   @Override
   public void clear() {
-    memTableMap.clear();
+    seriesChunks.clear();
+    unregisteredSeriesIds.clear();
     modifications.clear();
-    memSize = 0;
+    memSize.set(0);
   }
 
   @Override
   public boolean isEmpty() {
-    return memTableMap.isEmpty();
+    return seriesChunks.size() == 0;
   }
 
   @Override
   public ReadOnlyMemChunk query(String deviceId, String measurement, TSDataType dataType,
       TSEncoding encoding, Map<String, String> props, long timeLowerBound)
       throws IOException, QueryProcessException {
-    if (!checkPath(deviceId, measurement)) {
+    IWritableMemChunk memChunk = seriesChunks.get(getSeriesId(deviceId, measurement));
+    if (memChunk == null) {
       return null;
     }
     long undeletedTime = findUndeletedTime(deviceId, measurement, timeLowerBound);
-    IWritableMemChunk memChunk = memTableMap.get(deviceId).get(measurement);
     TVList chunkCopy = memChunk.getTVList().clone();
 
     chunkCopy.setTimeOffset(undeletedTime);
@@ -194,13 +236,14 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public void delete(String deviceId, String measurementId, long timestamp) {
-    Map<String, IWritableMemChunk> deviceMap = memTableMap.get(deviceId);
-    if (deviceMap != null) {
-      IWritableMemChunk chunk = deviceMap.get(measurementId);
-      if (chunk == null) {
-        return;
-      }
+    int seriesId = getSeriesId(deviceId, measurementId);
+    IWritableMemChunk chunk = seriesChunks.get(seriesId);
+    if (chunk != null) {
       chunk.delete(timestamp);
+      if (chunk.count() == 0) {
+        // e.g., the series is being deleted, it may be created again with another id
+        seriesChunks.remove(seriesId);
+      }
     }
   }
 
@@ -219,10 +262,6 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public void release() {
-    for (Entry<String, Map<String, IWritableMemChunk>> entry : memTableMap.entrySet()) {
-      for (Entry<String, IWritableMemChunk> subEntry : entry.getValue().entrySet()) {
-        TVListAllocator.getInstance().release(subEntry.getValue().getTVList());
-      }
-    }
+    seriesChunks.forEachChunk(chunk -> TVListAllocator.getInstance().release(chunk.getTVList()));
   }
 }
@@ -19,9 +19,6 @@
 
 package org.apache.iotdb.db.engine.memtable;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.iotdb.db.rescon.TVListAllocator;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
@@ -30,8 +27,8 @@ public class PrimitiveMemTable extends AbstractMemTable {
   public PrimitiveMemTable() {
   }
 
-  public PrimitiveMemTable(Map<String, Map<String, IWritableMemChunk>> memTableMap) {
-    super(memTableMap);
+  private PrimitiveMemTable(PrimitiveMemTable source) {
+    super(source);
   }
 
   @Override
@@ -41,9 +38,7 @@ public class PrimitiveMemTable extends AbstractMemTable {
 
   @Override
   public IMemTable copy() {
-    Map<String, Map<String, IWritableMemChunk>> newMap = new HashMap<>(getMemTableMap());
-
-    return new PrimitiveMemTable(newMap);
+    return new PrimitiveMemTable(this);
   }
 
   @Override
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * An open-addressing map from the ids of timeseries to their chunks in a memtable, so finding the
+ * chunk of a point needs neither hashing the path strings nor an entry object for each series.
+ * The device of each chunk is kept beside it for flushing.
+ *
+ * Series are added and removed by one thread at a time, while the lookups are lock-free and fall
+ * back to the lock when the series is not found. A key is published after its chunk, so a lookup
+ * that finds the key also sees the chunk. A removal replaces the whole table, as series are
+ * removed only when they are deleted.
+ */
+class SeriesMemChunkMap {
+
+  private static final int EMPTY = Integer.MIN_VALUE;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private volatile Table table = new Table(INITIAL_CAPACITY);
+
+  private int size = 0;
+
+  IWritableMemChunk get(int seriesId) {
+    Table current = table;
+    int index = current.find(seriesId);
+    return index < 0 ? null : current.chunks[index];
+  }
+
+  /**
+   * @return the chunk of the series, which is created by the supplier if the series does not exist
+   */
+  IWritableMemChunk computeIfAbsent(int seriesId, String deviceId,
+      Supplier<IWritableMemChunk> chunkSupplier) {
+    IWritableMemChunk chunk = get(seriesId);
+    if (chunk != null) {
+      return chunk;
+    }
+    synchronized (this) {
+      Table current = table;
+      int index = current.find(seriesId);
+      if (index >= 0) {
+        return current.chunks[index];
+      }
+      chunk = chunkSupplier.get();
+      put(seriesId, deviceId, chunk);
+      return chunk;
+    }
+  }
+
+  private synchronized void put(int seriesId, String deviceId, IWritableMemChunk chunk) {
+    Table current = table;
+    if ((size + 1) * 2 > current.capacity()) {
+      // keep the load factor under 0.5 so the probe sequences are short
+      current = current.copyExcept(current.capacity() * 2, EMPTY);
+      table = current;
+    }
+    if (current.add(seriesId, deviceId, chunk)) {
+      size++;
+    }
+  }
+
+  /**
+   * remove the chunk of a series, e.g., after all its data is deleted, so that a chunk of a
+   * deleted series does not stay beside the one of a series created again with the same path
+   */
+  synchronized void remove(int seriesId) {
+    Table current = table;
+    if (current.find(seriesId) >= 0) {
+      table = current.copyExcept(current.capacity(), seriesId);
+      size--;
+    }
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized void clear() {
+    table = new Table(INITIAL_CAPACITY);
+    size = 0;
+  }
+
+  synchronized void forEach(SeriesConsumer consumer) {
+    Table current = table;
+    for (int i = 0; i < current.capacity(); i++) {
+      int key = current.keys.get(i);
+      if (key != EMPTY) {
+        consumer.accept(key, current.devices[i], current.chunks[i]);
+      }
+    }
+  }
+
+  void forEachChunk(Consumer<IWritableMemChunk> consumer) {
+    forEach((seriesId, deviceId, chunk) -> consumer.accept(chunk));
+  }
+
+  synchronized SeriesMemChunkMap copy() {
+    SeriesMemChunkMap copy = new SeriesMemChunkMap();
+    forEach(copy::put);
+    return copy;
+  }
+
+  @FunctionalInterface
+  interface SeriesConsumer {
+
+    void accept(int seriesId, String deviceId, IWritableMemChunk chunk);
+  }
+
+  private static class Table {
+
+    // the volatile writes and reads of the keys publish the devices and chunks set before them
+    private final AtomicIntegerArray keys;
+    private final String[] devices;
+    private final IWritableMemChunk[] chunks;
+
+    private Table(int capacity) {
+      keys = new AtomicIntegerArray(capacity);
+      for (int i = 0; i < capacity; i++) {
+        keys.set(i, EMPTY);
+      }
+      devices = new String[capacity];
+      chunks = new IWritableMemChunk[capacity];
+    }
+
+    private int capacity() {
+      return keys.length();
+    }
+
+    /**
+     * @return a table of the capacity with all the series but the excluded one
+     */
+    private Table copyExcept(int capacity, int excludedSeriesId) {
+      Table copy = new Table(capacity);
+      for (int i = 0; i < capacity(); i++) {
+        int key = keys.get(i);
+        if (key != EMPTY && key != excludedSeriesId) {
+          copy.add(key, devices[i], chunks[i]);
+        }
+      }
+      return copy;
+    }
+
+    private int slot(int seriesId) {
+      // the ids are dense, so spreading them is enough
+      return (seriesId * 0x9E3779B9) >>> 1 & (capacity() - 1);
+    }
+
+    private int find(int seriesId) {
+      int mask = capacity() - 1;
+      for (int i = slot(seriesId); ; i = (i + 1) & mask) {
+        int key = keys.get(i);
+        if (key == seriesId) {
+          return i;
+        }
+        if (key == EMPTY) {
+          return -1;
+        }
+      }
+    }
+
+    /**
+     * @return false if the series already exists
+     */
+    private boolean add(int seriesId, String deviceId, IWritableMemChunk chunk) {
+      int mask = capacity() - 1;
+      for (int i = slot(seriesId); ; i = (i + 1) & mask) {
+        int key = keys.get(i);
+        if (key == seriesId) {
+          return false;
+        }
+        if (key == EMPTY) {
+          devices[i] = deviceId;
+          chunks[i] = chunk;
+          keys.set(i, seriesId);
+          return true;
+        }
+      }
+    }
+  }
+}
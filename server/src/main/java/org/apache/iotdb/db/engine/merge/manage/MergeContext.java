@@ -38,6 +38,9 @@ public class MergeContext {
 
   private AtomicInteger totalChunkWritten = new AtomicInteger();
   private AtomicLong totalPointWritten = new AtomicLong();
+  // pages copied into the merged file as raw bytes and pages decoded and re-encoded
+  private AtomicLong totalPageCopied = new AtomicLong();
+  private AtomicLong totalPageRewritten = new AtomicLong();
 
   public void clear() {
     mergedChunkCnt.clear();
@@ -87,4 +90,20 @@ public class MergeContext {
   public long getTotalPointWritten() {
     return totalPointWritten.get();
   }
+
+  public void incTotalPageCopied() {
+    totalPageCopied.incrementAndGet();
+  }
+
+  public long getTotalPageCopied() {
+    return totalPageCopied.get();
+  }
+
+  public void incTotalPageRewritten() {
+    totalPageRewritten.incrementAndGet();
+  }
+
+  public long getTotalPageRewritten() {
+    return totalPageRewritten.get();
+  }
 }
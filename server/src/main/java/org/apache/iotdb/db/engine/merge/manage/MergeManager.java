@@ -32,15 +32,17 @@ import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.merge.task.MergeTask;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
 import org.apache.iotdb.db.service.ServiceType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * MergeManager provides a ThreadPool to queue and run all merge tasks to restrain the total
- * resources occupied by merge and manages a Timer to periodically issue a global merge.
+ * resources occupied by merge and manages a Timer to periodically issue a global merge. The disk
+ * throughput of merges is restrained by MergeRateLimiter, which can be tuned through JMX.
  */
-public class MergeManager implements IService {
+public class MergeManager implements IService, MergeManagerMBean {
 
   private static final Logger logger = LoggerFactory.getLogger(MergeManager.class);
   private static final MergeManager INSTANCE = new MergeManager();
@@ -91,6 +93,7 @@ public class MergeManager implements IService {
         timedMergeThreadPool.scheduleAtFixedRate(this::mergeAll, mergeInterval,
             mergeInterval, TimeUnit.SECONDS);
       }
+      JMXService.registerMBean(this, ServiceType.MERGE_SERVICE.getJmxName());
       logger.info("MergeManager started");
     }
   }
@@ -104,6 +107,7 @@ public class MergeManager implements IService {
       }
       mergeTaskPool.shutdownNow();
       mergeChunkSubTaskPool.shutdownNow();
+      JMXService.deregisterMBean(ServiceType.MERGE_SERVICE.getJmxName());
       logger.info("Waiting for task pool to shut down");
       long startTime = System.currentTimeMillis();
       while (!mergeTaskPool.isTerminated() || !mergeChunkSubTaskPool.isTerminated() ) {
@@ -127,6 +131,7 @@ public class MergeManager implements IService {
       }
       awaitTermination(mergeTaskPool, millseconds);
       awaitTermination(mergeChunkSubTaskPool, millseconds);
+      JMXService.deregisterMBean(ServiceType.MERGE_SERVICE.getJmxName());
       logger.info("Waiting for task pool to shut down");
       long startTime = System.currentTimeMillis();
       while (!mergeTaskPool.isTerminated() || !mergeChunkSubTaskPool.isTerminated() ) {
@@ -157,6 +162,63 @@ public class MergeManager implements IService {
     return ServiceType.MERGE_SERVICE;
   }
 
+  @Override
+  public int getNumberOfWorkingTasks() {
+    return mergeTaskPool == null ? 0 : mergeTaskPool.getActiveCount();
+  }
+
+  @Override
+  public int getNumberOfPendingTasks() {
+    return mergeTaskPool == null ? 0 : mergeTaskPool.getQueue().size();
+  }
+
+  @Override
+  public int getMergeThroughputMbPerSec() {
+    return MergeRateLimiter.getInstance().getThroughputMbPerSec();
+  }
+
+  @Override
+  public void setMergeThroughputMbPerSec(int throughputMbPerSec) {
+    MergeRateLimiter.getInstance().setThroughputMbPerSec(throughputMbPerSec);
+    logger.info("Merge throughput is set to {}MB/s", throughputMbPerSec);
+  }
+
+  @Override
+  public long getMergeMaxYieldTimeMs() {
+    return MergeRateLimiter.getInstance().getMaxYieldTimeMs();
+  }
+
+  @Override
+  public void setMergeMaxYieldTimeMs(long maxYieldTimeMs) {
+    MergeRateLimiter.getInstance().setMaxYieldTimeMs(maxYieldTimeMs);
+    logger.info("Merge max yield time is set to {}ms", maxYieldTimeMs);
+  }
+
+  @Override
+  public long getMergeAcquiredBytes() {
+    return MergeRateLimiter.getInstance().getAcquiredBytes();
+  }
+
+  @Override
+  public long getMergeThrottledTimes() {
+    return MergeRateLimiter.getInstance().getThrottledTimes();
+  }
+
+  @Override
+  public long getMergeThrottledTimeMs() {
+    return MergeRateLimiter.getInstance().getThrottledTimeMs();
+  }
+
+  @Override
+  public long getMergeYieldedTimes() {
+    return MergeRateLimiter.getInstance().getYieldedTimes();
+  }
+
+  @Override
+  public long getMergeYieldedTimeMs() {
+    return MergeRateLimiter.getInstance().getYieldedTimeMs();
+  }
+
   private void mergeAll() {
     try {
       StorageEngine.getInstance().mergeAll(IoTDBDescriptor.getInstance().getConfig().isForceFullMerge());
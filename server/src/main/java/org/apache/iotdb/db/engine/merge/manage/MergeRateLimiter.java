@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge.manage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+/**
+ * MergeRateLimiter is a token bucket shared by all merge tasks, every byte a merge reads from or
+ * writes to disk must be acquired from it first. The bucket is refilled at the configured
+ * throughput and holds at most one second of tokens.
+ * <p>
+ * Flushes and query reads are foreground I/O: they announce themselves by
+ * startForegroundIO()/endForegroundIO(), and while any of them is running, merge I/O waits for
+ * it to end before taking tokens. To avoid starving merges under a continuous foreground load, a
+ * single acquisition waits no longer than the configured max yield time.
+ */
+public class MergeRateLimiter {
+
+  private static final MergeRateLimiter INSTANCE = new MergeRateLimiter();
+
+  private static final long MAX_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * bytes per second, a non-positive value means unlimited.
+   */
+  private volatile long throughput;
+  private volatile long maxYieldTimeMs;
+
+  /**
+   * the time when the bytes acquired so far are all paid for.
+   */
+  private long nextFreeNanos = System.nanoTime();
+
+  private final AtomicInteger foregroundIONum = new AtomicInteger();
+  private final Object foregroundMonitor = new Object();
+
+  private final AtomicLong acquiredBytes = new AtomicLong();
+  private final AtomicLong throttledNanos = new AtomicLong();
+  private final AtomicLong throttledTimes = new AtomicLong();
+  private final AtomicLong yieldedNanos = new AtomicLong();
+  private final AtomicLong yieldedTimes = new AtomicLong();
+
+  private MergeRateLimiter() {
+    setThroughputMbPerSec(IoTDBDescriptor.getInstance().getConfig().getMergeThroughputMbPerSec());
+    maxYieldTimeMs = IoTDBDescriptor.getInstance().getConfig().getMergeMaxYieldTimeMs();
+  }
+
+  public static MergeRateLimiter getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Block until the merge is allowed to read or write the given number of bytes.
+   */
+  public void acquire(long bytes) {
+    yieldToForegroundIO();
+    acquiredBytes.addAndGet(bytes);
+    long currThroughput = throughput;
+    if (currThroughput <= 0 || bytes <= 0) {
+      return;
+    }
+
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      // unused tokens of at most one second can be accumulated
+      nextFreeNanos = Math.max(nextFreeNanos, now - MAX_BURST_NANOS);
+      nextFreeNanos += (long) ((double) bytes / currThroughput * TimeUnit.SECONDS.toNanos(1));
+      waitNanos = nextFreeNanos - now;
+    }
+    if (waitNanos > 0) {
+      throttledTimes.incrementAndGet();
+      throttledNanos.addAndGet(waitNanos);
+      sleepNanos(waitNanos);
+    }
+  }
+
+  private void yieldToForegroundIO() {
+    if (foregroundIONum.get() == 0 || maxYieldTimeMs <= 0) {
+      return;
+    }
+    long startTime = System.nanoTime();
+    long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(maxYieldTimeMs);
+    synchronized (foregroundMonitor) {
+      long remaining;
+      while (foregroundIONum.get() > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+        try {
+          TimeUnit.NANOSECONDS.timedWait(foregroundMonitor, remaining);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+    yieldedTimes.incrementAndGet();
+    yieldedNanos.addAndGet(System.nanoTime() - startTime);
+  }
+
+  private void sleepNanos(long nanos) {
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Called before a flush or a query starts disk I/O, must be paired with endForegroundIO().
+   */
+  public void startForegroundIO() {
+    foregroundIONum.incrementAndGet();
+  }
+
+  public void endForegroundIO() {
+    if (foregroundIONum.decrementAndGet() == 0) {
+      synchronized (foregroundMonitor) {
+        foregroundMonitor.notifyAll();
+      }
+    }
+  }
+
+  public int getForegroundIONum() {
+    return foregroundIONum.get();
+  }
+
+  public int getThroughputMbPerSec() {
+    return (int) (throughput / 1024 / 1024);
+  }
+
+  public void setThroughputMbPerSec(int throughputMbPerSec) {
+    this.throughput = throughputMbPerSec * 1024L * 1024L;
+  }
+
+  public long getMaxYieldTimeMs() {
+    return maxYieldTimeMs;
+  }
+
+  public void setMaxYieldTimeMs(long maxYieldTimeMs) {
+    this.maxYieldTimeMs = maxYieldTimeMs;
+  }
+
+  public long getAcquiredBytes() {
+    return acquiredBytes.get();
+  }
+
+  public long getThrottledTimes() {
+    return throttledTimes.get();
+  }
+
+  public long getThrottledTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(throttledNanos.get());
+  }
+
+  public long getYieldedTimes() {
+    return yieldedTimes.get();
+  }
+
+  public long getYieldedTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(yieldedNanos.get());
+  }
+}
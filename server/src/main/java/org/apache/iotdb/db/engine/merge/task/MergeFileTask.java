@@ -31,10 +31,15 @@ import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.engine.cache.ChunkMetadataCache;
 import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
 import org.apache.iotdb.db.engine.merge.manage.MergeContext;
+import org.apache.iotdb.db.engine.merge.manage.MergeRateLimiter;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.recover.MergeLogger;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
+import org.apache.iotdb.db.engine.sketch.SketchManager;
+import org.apache.iotdb.db.engine.storagegroup.ResourceSummaryManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.utils.MergeUtils;
 import org.apache.iotdb.tsfile.exception.write.TsFileNotCompleteException;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
@@ -122,6 +127,9 @@ class MergeFileTask {
       TsFileMetaDataCache.getInstance().remove(seqFile);
       ChunkMetadataCache.getInstance().remove(seqFile);
       FileReaderManager.getInstance().closeFileAndRemoveReader(seqFile.getPath());
+      // the rollups and the sketches are out of date once the file is truncated
+      RollupManager.getInstance().removeRollup(seqFile.getFile());
+      SketchManager.getInstance().removeSketch(seqFile.getFile());
 
       resource.removeFileReader(seqFile);
       TsFileIOWriter oldFileWriter;
@@ -170,6 +178,7 @@ class MergeFileTask {
           .moveFile(new File(seqFile.getFile().getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX),
               new File(nextMergeVersionFile.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX));
       seqFile.setFile(nextMergeVersionFile);
+      ResourceSummaryManager.getInstance().append(seqFile);
     } catch (Exception e) {
       RestorableTsFileIOWriter oldFileRecoverWriter = new RestorableTsFileIOWriter(
           seqFile.getFile());
@@ -182,6 +191,8 @@ class MergeFileTask {
     } finally {
       seqFile.getWriteQueryLock().writeLock().unlock();
     }
+    buildRollup(seqFile);
+    buildSketch(seqFile);
   }
 
   private void updateHistoricalVersions(TsFileResource seqFile) {
@@ -204,7 +215,8 @@ class MergeFileTask {
     fileWriter.startChunkGroup(device);
     long maxVersion = 0;
     for (ChunkMetadata chunkMetaData : chunkMetadataList) {
-      Chunk chunk = reader.readMemChunk(chunkMetaData);
+      Chunk chunk = MergeUtils.readMemChunk(reader, chunkMetaData);
+      MergeRateLimiter.getInstance().acquire(MergeUtils.getChunkSize(chunk.getHeader()));
       fileWriter.writeChunk(chunk, chunkMetaData);
       maxVersion =
           chunkMetaData.getVersion() > maxVersion ? chunkMetaData.getVersion() : maxVersion;
@@ -259,6 +271,8 @@ class MergeFileTask {
       TsFileMetaDataCache.getInstance().remove(seqFile);
       ChunkMetadataCache.getInstance().remove(seqFile);
       FileReaderManager.getInstance().closeFileAndRemoveReader(seqFile.getPath());
+      RollupManager.getInstance().removeRollup(seqFile.getFile());
+      SketchManager.getInstance().removeSketch(seqFile.getFile());
       seqFile.getFile().delete();
 
       File nextMergeVersionFile = getNextMergeVersionFile(seqFile.getFile());
@@ -267,11 +281,32 @@ class MergeFileTask {
           .moveFile(new File(seqFile.getFile().getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX),
               new File(nextMergeVersionFile.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX));
       seqFile.setFile(nextMergeVersionFile);
+      ResourceSummaryManager.getInstance().append(seqFile);
     } catch (Exception e) {
       logger.error(e.getMessage(), e);
     } finally {
       seqFile.getWriteQueryLock().writeLock().unlock();
     }
+    buildRollup(seqFile);
+    buildSketch(seqFile);
+  }
+
+  private void buildRollup(TsFileResource seqFile) {
+    try {
+      RollupManager.getInstance().buildRollup(seqFile.getFile());
+    } catch (IOException e) {
+      // the file is still read without its rollups
+      logger.warn("{} cannot build the rollups of {}", taskName, seqFile, e);
+    }
+  }
+
+  private void buildSketch(TsFileResource seqFile) {
+    try {
+      SketchManager.getInstance().buildSketch(seqFile.getFile());
+    } catch (IOException e) {
+      // the file is still read without its sketches
+      logger.warn("{} cannot build the sketches of {}", taskName, seqFile, e);
+    }
   }
 
   private File getNextMergeVersionFile(File seqFile) {
@@ -292,7 +327,8 @@ class MergeFileTask {
       for (; chunkIdx < chunkMetadataList.size(); chunkIdx++) {
         ChunkMetadata metaData = chunkMetadataList.get(chunkIdx);
         if (metaData.getStartTime() == startTime) {
-          Chunk chunk = reader.readMemChunk(metaData);
+          Chunk chunk = MergeUtils.readMemChunk(reader, metaData);
+          MergeRateLimiter.getInstance().acquire(MergeUtils.getChunkSize(chunk.getHeader()));
           fileWriter.writeChunk(chunk, metaData);
           maxVersion = metaData.getVersion() > maxVersion ? metaData.getVersion() : maxVersion;
           context.incTotalPointWritten(metaData.getNumOfPoints());
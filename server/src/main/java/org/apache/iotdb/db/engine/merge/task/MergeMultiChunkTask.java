@@ -24,6 +24,7 @@ import static org.apache.iotdb.db.utils.MergeUtils.writeTVPair;
 import static org.apache.iotdb.db.utils.QueryUtils.modifyChunkMetaData;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -34,12 +35,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.merge.manage.MergeContext;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
+import org.apache.iotdb.db.engine.merge.manage.MergeRateLimiter;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.recover.MergeLogger;
 import org.apache.iotdb.db.engine.merge.selector.IMergePathSelector;
 import org.apache.iotdb.db.engine.merge.selector.NaivePathSelector;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.read.reader.IPointReader;
 import org.apache.iotdb.db.utils.MergeUtils;
 import org.apache.iotdb.db.utils.MergeUtils.MetaListEntry;
@@ -287,9 +292,15 @@ class MergeMultiChunkTask {
       boolean chunkTooSmall = MergeUtils
           .isChunkTooSmall(ptWrittens[pathIdx], currMeta, isLastChunk, minChunkPointNum);
 
+      ChunkHeader header;
+      synchronized (reader) {
+        header = reader.readChunkHeader(currMeta);
+      }
+      // the merge is throttled before the data of the chunk is read
+      MergeRateLimiter.getInstance().acquire(MergeUtils.getChunkSize(header));
       Chunk chunk;
       synchronized (reader) {
-        chunk = reader.readMemChunk(currMeta);
+        chunk = reader.readMemChunk(currMeta, header);
       }
       ptWrittens[pathIdx] = mergeChunkV2(currMeta, chunkOverflowed, chunkTooSmall, chunk,
           ptWrittens[pathIdx], pathIdx, mergeFileWriter, unseqReaders[pathIdx], chunkWriter,
@@ -309,6 +320,7 @@ class MergeMultiChunkTask {
         }
         // the last merged chunk may still be smaller than the threshold, flush it anyway
         if (ptWrittens[pathIdx] > 0) {
+          MergeRateLimiter.getInstance().acquire(chunkWriter.getCurrentChunkSize());
           synchronized (mergeFileWriter) {
             chunkWriter.writeToFileWriter(mergeFileWriter);
           }
@@ -327,8 +339,10 @@ class MergeMultiChunkTask {
    * 2. write SK to .merge.file without compressing when: is full merge & there isn't unclosed chunk
    * before & SK is big enough & SK isn't overflowed & SK isn't modified
    * <p>
-   * 3. other cases: need to unCompress the chunk and write 3.1 SK isn't overflowed 3.2 SK is
-   * overflowed
+   * 3. other cases: need to rewrite the chunk 3.1 SK isn't overflowed 3.2 SK is overflowed. In
+   * both cases only the pages that overlap unseq data or deletions are uncompressed and re-encoded,
+   * the other pages are copied as raw bytes if the chunk is encoded and compressed the same way as
+   * the new chunk.
    */
   private int mergeChunkV2(ChunkMetadata currMeta, boolean chunkOverflowed,
       boolean chunkTooSmall, Chunk chunk, int lastUnclosedChunkPoint, int pathIdx,
@@ -350,6 +364,7 @@ class MergeMultiChunkTask {
     // write SK to .merge.file without compressing
     if (fullMerge && lastUnclosedChunkPoint == 0 && !chunkTooSmall && !chunkOverflowed
         && !chunkModified) {
+      MergeRateLimiter.getInstance().acquire(MergeUtils.getChunkSize(chunk.getHeader()));
       synchronized (mergeFileWriter) {
         mergeFileWriter.writeChunk(chunk, currMeta);
       }
@@ -359,9 +374,9 @@ class MergeMultiChunkTask {
       return 0;
     }
 
-    // 3.1 SK isn't overflowed, just uncompress and write sequence chunk
+    // 3.1 SK isn't overflowed, copy its pages and only uncompress the modified ones
     if (!chunkOverflowed) {
-      unclosedChunkPoint += MergeUtils.writeChunkWithoutUnseq(chunk, chunkWriter);
+      unclosedChunkPoint += writeChunkWithoutUnseq(chunk, chunkWriter, pathIdx);
       mergedChunkNum.incrementAndGet();
     } else {
       // 3.2 SK is overflowed, uncompress sequence chunk and merge with unseq chunk, then write
@@ -375,6 +390,7 @@ class MergeMultiChunkTask {
     if (minChunkPointNum > 0 && unclosedChunkPoint >= minChunkPointNum
         || unclosedChunkPoint > 0 && minChunkPointNum < 0) {
       // the new chunk's size is large enough and it should be flushed
+      MergeRateLimiter.getInstance().acquire(chunkWriter.getCurrentChunkSize());
       synchronized (mergeFileWriter) {
         chunkWriter.writeToFileWriter(mergeFileWriter);
       }
@@ -397,18 +413,122 @@ class MergeMultiChunkTask {
     return ptWritten;
   }
 
+  private int writeChunkWithoutUnseq(Chunk chunk, IChunkWriter chunkWriter, int pathIdx)
+      throws IOException {
+    if (!isPageCopyable(chunk.getHeader(), pathIdx)) {
+      return MergeUtils.writeChunkWithoutUnseq(chunk, chunkWriter);
+    }
+    int cnt = 0;
+    ByteBuffer chunkData = chunk.getData().duplicate();
+    while (chunkData.remaining() > 0) {
+      int pageStart = chunkData.position();
+      PageHeader pageHeader = PageHeader.deserializeFrom(chunkData, chunk.getHeader().getDataType());
+      if (pageHeader.getEndTime() <= chunk.getDeletedAt()) {
+        // the whole page is deleted
+        skipPage(chunkData, pageHeader);
+        continue;
+      }
+      if (pageHeader.getStartTime() <= chunk.getDeletedAt()) {
+        cnt += MergeUtils.writeChunkWithoutUnseq(slicePage(chunk, chunkData, pageStart, pageHeader),
+            chunkWriter);
+        mergeContext.incTotalPageRewritten();
+      } else {
+        cnt += copyPage(chunkData, pageHeader, chunkWriter);
+      }
+    }
+    return cnt;
+  }
+
   private int writeChunkWithUnseq(Chunk chunk, IChunkWriter chunkWriter, IPointReader unseqReader,
       long chunkLimitTime, int pathIdx) throws IOException {
     int cnt = 0;
-    ChunkReader chunkReader = new ChunkReader(chunk, null);
-    while (chunkReader.hasNextSatisfiedPage()) {
-      BatchData batchData = chunkReader.nextPageData();
-      cnt += mergeWriteBatch(batchData, chunkWriter, unseqReader, pathIdx);
+    if (!isPageCopyable(chunk.getHeader(), pathIdx)) {
+      ChunkReader chunkReader = new ChunkReader(chunk, null);
+      while (chunkReader.hasNextSatisfiedPage()) {
+        BatchData batchData = chunkReader.nextPageData();
+        cnt += mergeWriteBatch(batchData, chunkWriter, unseqReader, pathIdx);
+      }
+      cnt += writeRemainingUnseq(chunkWriter, unseqReader, chunkLimitTime, pathIdx);
+      return cnt;
+    }
+
+    ByteBuffer chunkData = chunk.getData().duplicate();
+    while (chunkData.remaining() > 0) {
+      int pageStart = chunkData.position();
+      PageHeader pageHeader = PageHeader.deserializeFrom(chunkData, chunk.getHeader().getDataType());
+      if (pageHeader.getEndTime() <= chunk.getDeletedAt()) {
+        // the whole page is deleted
+        skipPage(chunkData, pageHeader);
+        continue;
+      }
+      // unseq data before this page
+      cnt += writeRemainingUnseq(chunkWriter, unseqReader, pageHeader.getStartTime(), pathIdx);
+      boolean pageOverflowed = currTimeValuePairs[pathIdx] != null
+          && currTimeValuePairs[pathIdx].getTimestamp() <= pageHeader.getEndTime();
+      if (pageOverflowed || pageHeader.getStartTime() <= chunk.getDeletedAt()) {
+        ChunkReader pageReader = new ChunkReader(slicePage(chunk, chunkData, pageStart,
+            pageHeader), null);
+        while (pageReader.hasNextSatisfiedPage()) {
+          cnt += mergeWriteBatch(pageReader.nextPageData(), chunkWriter, unseqReader, pathIdx);
+        }
+        mergeContext.incTotalPageRewritten();
+      } else {
+        cnt += copyPage(chunkData, pageHeader, chunkWriter);
+      }
     }
     cnt += writeRemainingUnseq(chunkWriter, unseqReader, chunkLimitTime, pathIdx);
     return cnt;
   }
 
+  /**
+   * A page can be copied without decoding only when the chunk it belongs to uses the same data
+   * type, encoding and compression as the chunk being written.
+   */
+  private boolean isPageCopyable(ChunkHeader chunkHeader, int pathIdx) {
+    MeasurementSchema schema = resource.getSchema(currMergingPaths.get(pathIdx));
+    return chunkHeader.getDataType() == schema.getType()
+        && chunkHeader.getEncodingType() == schema.getEncodingType()
+        && chunkHeader.getCompressionType() == schema.getCompressor();
+  }
+
+  /**
+   * Append the compressed body of the page at the current position of chunkData to chunkWriter
+   * and move chunkData to the next page.
+   */
+  private int copyPage(ByteBuffer chunkData, PageHeader pageHeader, IChunkWriter chunkWriter)
+      throws IOException {
+    ByteBuffer pageData = chunkData.slice();
+    pageData.limit(pageHeader.getCompressedSize());
+    skipPage(chunkData, pageHeader);
+    // the points that are not sealed precede this page, so they must be sealed before it
+    chunkWriter.sealCurrentPage();
+    try {
+      chunkWriter.writePageHeaderAndDataIntoBuff(pageData, pageHeader);
+    } catch (PageException e) {
+      throw new IOException(e);
+    }
+    mergeContext.incTotalPageCopied();
+    return (int) pageHeader.getNumOfValues();
+  }
+
+  /**
+   * Wrap the page (header included) at [pageStart, end of the page) of chunkData as a single-page
+   * chunk so it can be decoded by a ChunkReader, and move chunkData to the next page.
+   */
+  private Chunk slicePage(Chunk chunk, ByteBuffer chunkData, int pageStart,
+      PageHeader pageHeader) {
+    ByteBuffer pageBuffer = chunkData.duplicate();
+    pageBuffer.position(pageStart);
+    pageBuffer.limit(chunkData.position() + pageHeader.getCompressedSize());
+    skipPage(chunkData, pageHeader);
+    return new Chunk(chunk.getHeader(), pageBuffer.slice(), chunk.getDeletedAt(),
+        chunk.getEndianType());
+  }
+
+  private void skipPage(ByteBuffer chunkData, PageHeader pageHeader) {
+    chunkData.position(chunkData.position() + pageHeader.getCompressedSize());
+  }
+
   private int mergeWriteBatch(BatchData batchData, IChunkWriter chunkWriter,
       IPointReader unseqReader, int pathIdx) throws IOException {
     int cnt = 0;
@@ -29,6 +29,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.engine.merge.manage.MergeContext;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.merge.recover.MergeLogger;
@@ -92,8 +94,10 @@ public class MergeTask implements Callable<Void> {
 
   @Override
   public Void call() throws Exception {
+    long startTime = Measurement.INSTANCE.startTimeInNanos();
     try  {
       doMerge();
+      Measurement.INSTANCE.addOperationLatencyInNanos(Operation.MERGE, startTime);
     } catch (Exception e) {
       logger.error("Runtime exception in merge {}", taskName, e);
       cleanUp(false);
@@ -150,8 +154,9 @@ public class MergeTask implements Callable<Void> {
           (resource.getSeqFiles().size() + resource.getUnseqFiles().size()) / elapsedTime;
       double ptRate = mergeContext.getTotalPointWritten() / elapsedTime;
       logger.info("{} ends after {}s, byteRate: {}MB/s, seriesRate {}/s, chunkRate: {}/s, "
-              + "fileRate: {}/s, ptRate: {}/s",
-          taskName, elapsedTime, byteRate, seriesRate, chunkRate, fileRate, ptRate);
+              + "fileRate: {}/s, ptRate: {}/s, pages copied: {}, pages rewritten: {}",
+          taskName, elapsedTime, byteRate, seriesRate, chunkRate, fileRate, ptRate,
+          mergeContext.getTotalPageCopied(), mergeContext.getTotalPageRewritten());
     }
   }
 
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.modification;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class caches the modifications of each timeseries in each ModificationFile, so queries do
+ * not have to read and filter the whole file every time. The caching strategy is LRU.
+ * <p>
+ * A key contains the version of the ModificationFile content, which is changed by every write or
+ * abort, so entries of the old content are never hit again and are evicted as the LRU goes.
+ */
+public class ModificationCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ModificationCache.class);
+
+  private final int capacity = IoTDBDescriptor.getInstance().getConfig()
+      .getModificationCacheSize();
+
+  private final Map<ModificationCacheKey, List<Modification>> lruCache;
+
+  private AtomicLong cacheHitNum = new AtomicLong();
+  private AtomicLong cacheRequestNum = new AtomicLong();
+
+  private ModificationCache() {
+    lruCache = new LinkedHashMap<ModificationCacheKey, List<Modification>>(128, 0.75f, true) {
+
+      private static final long serialVersionUID = 5282271384658016427L;
+
+      @Override
+      protected boolean removeEldestEntry(Entry<ModificationCacheKey, List<Modification>> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  public static ModificationCache getInstance() {
+    return ModificationCacheHolder.INSTANCE;
+  }
+
+  /**
+   * Get the modifications of timeseries 'path' in 'modFile'. When missed, the per-path index of
+   * the file is built and the modifications of all timeseries in it are put into the cache.
+   */
+  List<Modification> get(ModificationFile modFile, String path) {
+    if (capacity <= 0) {
+      return modFile.getPathModifications().getOrDefault(path, Collections.emptyList());
+    }
+
+    cacheRequestNum.incrementAndGet();
+    ModificationCacheKey key = new ModificationCacheKey(modFile.getFilePath(),
+        modFile.getContentVersion(), path);
+    synchronized (lruCache) {
+      List<Modification> modifications = lruCache.get(key);
+      if (modifications != null) {
+        cacheHitNum.incrementAndGet();
+        printCacheLog(true);
+        return modifications;
+      }
+    }
+
+    printCacheLog(false);
+    Map<String, List<Modification>> pathModifications = modFile.getPathModifications();
+    List<Modification> modifications = pathModifications
+        .getOrDefault(path, Collections.emptyList());
+    synchronized (lruCache) {
+      for (Entry<String, List<Modification>> entry : pathModifications.entrySet()) {
+        lruCache.put(new ModificationCacheKey(key.filePath, key.contentVersion, entry.getKey()),
+            entry.getValue());
+      }
+      // remember the timeseries without modifications too
+      lruCache.put(key, modifications);
+    }
+    return modifications;
+  }
+
+  private void printCacheLog(boolean isHit) {
+    if (!logger.isDebugEnabled()) {
+      return;
+    }
+    logger.debug(
+        "[Modification cache {}hit] The number of requests for cache is {}, hit rate is {}.",
+        isHit ? "" : "didn't ", cacheRequestNum.get(),
+        cacheHitNum.get() * 1.0 / cacheRequestNum.get());
+  }
+
+  public double calculateModificationHitRatio() {
+    if (cacheRequestNum.get() != 0) {
+      return cacheHitNum.get() * 1.0 / cacheRequestNum.get();
+    } else {
+      return 0;
+    }
+  }
+
+  /**
+   * clear LRUCache.
+   */
+  public void clear() {
+    synchronized (lruCache) {
+      lruCache.clear();
+    }
+  }
+
+  private static class ModificationCacheKey {
+
+    private String filePath;
+    private long contentVersion;
+    private String path;
+
+    private ModificationCacheKey(String filePath, long contentVersion, String path) {
+      this.filePath = filePath;
+      this.contentVersion = contentVersion;
+      this.path = path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ModificationCacheKey that = (ModificationCacheKey) o;
+      return contentVersion == that.contentVersion &&
+          Objects.equals(filePath, that.filePath) &&
+          Objects.equals(path, that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(filePath, contentVersion, path);
+    }
+  }
+
+  /**
+   * singleton pattern.
+   */
+  private static class ModificationCacheHolder {
+
+    private static final ModificationCache INSTANCE = new ModificationCache();
+  }
+}
@@ -22,8 +22,12 @@ package org.apache.iotdb.db.engine.modification;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.iotdb.db.engine.modification.io.LocalBinaryModificationAccessor;
 import org.apache.iotdb.db.engine.modification.io.LocalTextModificationAccessor;
 import org.apache.iotdb.db.engine.modification.io.ModificationReader;
 import org.apache.iotdb.db.engine.modification.io.ModificationWriter;
@@ -37,20 +41,38 @@ public class ModificationFile implements AutoCloseable {
 
   public static final String FILE_SUFFIX = ".mods";
 
+  /**
+   * generates a new content version whenever the content of any ModificationFile changes.
+   */
+  private static final AtomicLong CONTENT_VERSION_GENERATOR = new AtomicLong();
+
   private List<Modification> modifications;
+  /**
+   * the per-path index of modifications, built lazily from 'modifications' and dropped when the
+   * content changes, so the lists in it are never modified once shared.
+   */
+  private Map<String, List<Modification>> pathModifications;
+  private volatile long contentVersion = CONTENT_VERSION_GENERATOR.incrementAndGet();
   private ModificationWriter writer;
   private ModificationReader reader;
   private String filePath;
 
   /**
-   * Construct a ModificationFile using a file as its storage.
+   * Construct a ModificationFile using a file as its storage. New files are stored in the binary
+   * format, while existing text files are still read and appended in the text format.
    *
    * @param filePath the path of the storage file.
    */
   public ModificationFile(String filePath) {
-    LocalTextModificationAccessor accessor = new LocalTextModificationAccessor(filePath);
-    this.writer = accessor;
-    this.reader = accessor;
+    if (LocalBinaryModificationAccessor.isBinaryFile(filePath)) {
+      LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(filePath);
+      this.writer = accessor;
+      this.reader = accessor;
+    } else {
+      LocalTextModificationAccessor accessor = new LocalTextModificationAccessor(filePath);
+      this.writer = accessor;
+      this.reader = accessor;
+    }
     this.filePath = filePath;
   }
 
@@ -73,6 +95,7 @@ public class ModificationFile implements AutoCloseable {
     synchronized (this) {
       writer.close();
       modifications = null;
+      pathModifications = null;
     }
   }
 
@@ -81,6 +104,8 @@ public class ModificationFile implements AutoCloseable {
       if (!modifications.isEmpty()) {
         writer.abort();
         modifications.remove(modifications.size() - 1);
+        pathModifications = null;
+        contentVersion = CONTENT_VERSION_GENERATOR.incrementAndGet();
       }
     }
   }
@@ -97,6 +122,8 @@ public class ModificationFile implements AutoCloseable {
       checkInit();
       writer.write(mod);
       modifications.add(mod);
+      pathModifications = null;
+      contentVersion = CONTENT_VERSION_GENERATOR.incrementAndGet();
     }
   }
 
@@ -112,6 +139,38 @@ public class ModificationFile implements AutoCloseable {
     }
   }
 
+  /**
+   * Get the modifications of a timeseries stored in this file, the result is cached by
+   * ModificationCache and should not be modified.
+   *
+   * @param path the full path of the timeseries.
+   */
+  public List<Modification> getModifications(String path) {
+    return ModificationCache.getInstance().get(this, path);
+  }
+
+  /**
+   * @return the per-path index of the modifications in this file, which should not be modified.
+   */
+  Map<String, List<Modification>> getPathModifications() {
+    synchronized (this) {
+      checkInit();
+      if (pathModifications == null) {
+        Map<String, List<Modification>> index = new HashMap<>();
+        for (Modification modification : modifications) {
+          index.computeIfAbsent(modification.getPathString(), k -> new ArrayList<>())
+              .add(modification);
+        }
+        pathModifications = index;
+      }
+      return pathModifications;
+    }
+  }
+
+  long getContentVersion() {
+    return contentVersion;
+  }
+
   public String getFilePath() {
     return filePath;
   }
@@ -122,6 +181,7 @@ public class ModificationFile implements AutoCloseable {
 
   public void remove() throws IOException {
     close();
+    contentVersion = CONTENT_VERSION_GENERATOR.incrementAndGet();
     FSFactoryProducer.getFSFactory().getFile(filePath).delete();
   }
 
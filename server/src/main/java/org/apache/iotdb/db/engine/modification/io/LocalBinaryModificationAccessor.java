@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.modification.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LocalBinaryModificationAccessor uses a local file to store modifications in a compact binary
+ * format. The file starts with a magic string and a version byte, followed by appended records:
+ * <p>
+ * [type (byte)] [path (int length + bytes)] [versionNum (long)] [timestamp (long), deletion only]
+ * <p>
+ * An abort is recorded as a single ABORT_MARK byte which cancels the previous record.
+ */
+public class LocalBinaryModificationAccessor implements ModificationReader, ModificationWriter,
+    AutoCloseable {
+
+  private static final Logger logger = LoggerFactory
+      .getLogger(LocalBinaryModificationAccessor.class);
+
+  static final byte[] MAGIC_STRING = "IoTDBMods".getBytes();
+  private static final byte VERSION = 1;
+  private static final byte DELETION = 0;
+  private static final byte ABORT_MARK = -1;
+
+  private String filePath;
+  private BufferedOutputStream outputStream;
+
+  /**
+   * Construct a LocalBinaryModificationAccessor using a file specified by filePath.
+   *
+   * @param filePath the path of the file that is used for storing modifications.
+   */
+  public LocalBinaryModificationAccessor(String filePath) {
+    this.filePath = filePath;
+  }
+
+  /**
+   * @return true if the file does not exist or is empty, or it starts with the binary header;
+   * false if it is a legacy text modification file.
+   */
+  public static boolean isBinaryFile(String filePath) {
+    File file = FSFactoryProducer.getFSFactory().getFile(filePath);
+    if (!file.exists() || file.length() == 0) {
+      return true;
+    }
+    try (InputStream inputStream = FSFactoryProducer.getFSFactory()
+        .getBufferedInputStream(filePath)) {
+      byte[] head = new byte[MAGIC_STRING.length];
+      int readLen = inputStream.read(head);
+      return readLen == MAGIC_STRING.length && Arrays.equals(head, MAGIC_STRING);
+    } catch (IOException e) {
+      logger.error("Cannot read the header of modification file {}", filePath, e);
+      return true;
+    }
+  }
+
+  @Override
+  public Collection<Modification> read() {
+    File file = FSFactoryProducer.getFSFactory().getFile(filePath);
+    if (!file.exists() || file.length() == 0) {
+      logger.debug("No modification has been written to this file");
+      return new ArrayList<>();
+    }
+
+    List<Modification> modificationList = new ArrayList<>();
+    try {
+      readModifications(file, modificationList);
+    } catch (IOException e) {
+      logger.error("An error occurred when reading modifications from {}", filePath, e);
+    }
+    return modificationList;
+  }
+
+  /**
+   * Read the complete records of the file into modificationList.
+   *
+   * @return the length of the header and the complete records, the bytes after it belong to a
+   * record broken by a crash
+   */
+  private long readModifications(File file, List<Modification> modificationList)
+      throws IOException {
+    if (!file.exists()) {
+      return 0;
+    }
+    ByteBuffer buffer;
+    try (BufferedInputStream inputStream = FSFactoryProducer.getFSFactory()
+        .getBufferedInputStream(filePath)) {
+      buffer = ByteBuffer.wrap(ReadWriteIOUtils.readBytes(inputStream, (int) file.length()));
+    }
+    if (buffer.remaining() < MAGIC_STRING.length + 1) {
+      // the header is incomplete
+      return 0;
+    }
+
+    checkHeader(buffer);
+    long validLength = buffer.position();
+    try {
+      while (buffer.hasRemaining()) {
+        byte type = buffer.get();
+        if (type == ABORT_MARK) {
+          if (!modificationList.isEmpty()) {
+            modificationList.remove(modificationList.size() - 1);
+          }
+        } else {
+          modificationList.add(decodeModification(type, buffer));
+        }
+        validLength = buffer.position();
+      }
+    } catch (IOException | BufferUnderflowException e) {
+      // the last record may be incomplete if the system crashed when writing it
+      logger.error("An error occurred when reading modifications from {}, and the remaining "
+          + "modifications were ignored.", filePath, e);
+    }
+    return validLength;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (outputStream != null) {
+      outputStream.close();
+      outputStream = null;
+    }
+  }
+
+  @Override
+  public void abort() throws IOException {
+    checkOutputStream();
+    outputStream.write(ABORT_MARK);
+    outputStream.flush();
+  }
+
+  @Override
+  public void write(Modification mod) throws IOException {
+    checkOutputStream();
+    // serialize the whole record first so that it is appended by a single write
+    ByteArrayOutputStream record = new ByteArrayOutputStream();
+    encodeModification(mod, record);
+    record.writeTo(outputStream);
+    outputStream.flush();
+  }
+
+  private void checkOutputStream() throws IOException {
+    if (outputStream == null) {
+      File file = FSFactoryProducer.getFSFactory().getFile(filePath);
+      long validLength = readModifications(file, new ArrayList<>());
+      if (file.exists() && file.length() > validLength) {
+        // records appended after a broken one could not be read
+        logger.warn("Truncating the incomplete record at the end of modification file {}",
+            filePath);
+        try (FileOutputStream truncator = new FileOutputStream(file, true)) {
+          truncator.getChannel().truncate(validLength);
+        }
+      }
+      boolean isNewFile = validLength == 0;
+      outputStream = FSFactoryProducer.getFSFactory().getBufferedOutputStream(filePath, true);
+      if (outputStream == null) {
+        throw new IOException("Cannot open modification file " + filePath);
+      }
+      if (isNewFile) {
+        outputStream.write(MAGIC_STRING);
+        outputStream.write(VERSION);
+      }
+    }
+  }
+
+  private void checkHeader(ByteBuffer buffer) throws IOException {
+    byte[] head = new byte[MAGIC_STRING.length];
+    buffer.get(head);
+    if (!Arrays.equals(head, MAGIC_STRING)) {
+      throw new IOException("Not a binary modification file: " + filePath);
+    }
+    byte version = buffer.get();
+    if (version != VERSION) {
+      throw new IOException("Unsupported modification file version: " + version);
+    }
+  }
+
+  private static void encodeModification(Modification mod, ByteArrayOutputStream outputStream)
+      throws IOException {
+    if (mod instanceof Deletion) {
+      Deletion del = (Deletion) mod;
+      ReadWriteIOUtils.write(DELETION, outputStream);
+      ReadWriteIOUtils.write(del.getPathString(), outputStream);
+      ReadWriteIOUtils.write(del.getVersionNum(), outputStream);
+      ReadWriteIOUtils.write(del.getTimestamp(), outputStream);
+    } else {
+      throw new IOException("Unknown modification type: " + mod.getType());
+    }
+  }
+
+  private static Modification decodeModification(byte type, ByteBuffer buffer)
+      throws IOException {
+    if (type == DELETION) {
+      String path = ReadWriteIOUtils.readString(buffer);
+      long versionNum = ReadWriteIOUtils.readLong(buffer);
+      long timestamp = ReadWriteIOUtils.readLong(buffer);
+      return new Deletion(new Path(path), versionNum, timestamp);
+    }
+    throw new IOException("Unknown modification type: " + type);
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.engine.querycontext;
 
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.reader.chunk.MemChunkLoader;
+import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
@@ -108,6 +109,14 @@ public class ReadOnlyMemChunk {
     return dataType;
   }
 
+  /**
+   * @return the memory of the TVList copied from the memtable, whose TEXT values are shared with
+   * the memtable
+   */
+  public long getMemSize() {
+    return chunkData.size() * MemUtils.getPointSize(dataType);
+  }
+
   public boolean isEmpty() throws IOException {
     return !chunkPointReader.hasNextTimeValuePair();
   }
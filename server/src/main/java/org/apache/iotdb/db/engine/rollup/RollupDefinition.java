@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.utils.SchemaUtils;
+
+/**
+ * A RollupDefinition tells which aggregations of which time series are pre-aggregated in windows
+ * of a fixed interval. The windows are aligned to timestamp 0, i.e., [k * interval, (k + 1) *
+ * interval).
+ * <p>
+ * The text form is "pathPattern:interval:aggregation,aggregation...", e.g.,
+ * "root.ln.*.*.temperature:3600000:count,avg,max_value". A '*' in the pattern matches exactly one
+ * node.
+ */
+public class RollupDefinition {
+
+  private static final String NODE_SEPARATOR_REGEX = "\\.";
+
+  private final String pathPattern;
+  private final String[] patternNodes;
+  private final long interval;
+  private final List<String> aggregations;
+
+  public RollupDefinition(String pathPattern, long interval, List<String> aggregations) {
+    this.pathPattern = pathPattern;
+    this.patternNodes = pathPattern.split(NODE_SEPARATOR_REGEX);
+    this.interval = interval;
+    this.aggregations = Collections.unmodifiableList(new ArrayList<>(aggregations));
+  }
+
+  /**
+   * @param definitions definitions separated by ';', blanks are ignored
+   */
+  public static List<RollupDefinition> parseAll(String definitions) throws MetadataException {
+    List<RollupDefinition> result = new ArrayList<>();
+    for (String definition : definitions.split(";")) {
+      if (!definition.trim().isEmpty()) {
+        result.add(parse(definition.trim()));
+      }
+    }
+    return result;
+  }
+
+  public static RollupDefinition parse(String definition) throws MetadataException {
+    // the path may contain ':' only in quotes, so the interval and aggregations are the last parts
+    int aggregationsStart = definition.lastIndexOf(':');
+    int intervalStart = aggregationsStart <= 0 ? -1
+        : definition.lastIndexOf(':', aggregationsStart - 1);
+    if (intervalStart <= 0) {
+      throw new MetadataException(String.format("Illegal rollup definition %s, it should be "
+          + "pathPattern:interval:aggregation[,aggregation...]", definition));
+    }
+    String pathPattern = definition.substring(0, intervalStart).trim();
+    if (!pathPattern.startsWith(IoTDBConstant.PATH_ROOT + IoTDBConstant.PATH_SEPARATOR)) {
+      throw new MetadataException(String.format("Illegal path pattern %s of rollup definition %s",
+          pathPattern, definition));
+    }
+    long interval;
+    try {
+      interval = Long.parseLong(definition.substring(intervalStart + 1, aggregationsStart).trim());
+    } catch (NumberFormatException e) {
+      throw new MetadataException(String.format("Illegal interval of rollup definition %s",
+          definition));
+    }
+    if (interval <= 0) {
+      throw new MetadataException(String.format("The interval of rollup definition %s should be "
+          + "positive", definition));
+    }
+    List<String> aggregations = new ArrayList<>();
+    for (String aggregation : definition.substring(aggregationsStart + 1).split(",")) {
+      aggregation = aggregation.trim().toLowerCase();
+      // check the aggregation is supported
+      SchemaUtils.getAggregationType(aggregation);
+      if (!aggregations.contains(aggregation)) {
+        aggregations.add(aggregation);
+      }
+    }
+    return new RollupDefinition(pathPattern, interval, aggregations);
+  }
+
+  public boolean matches(String seriesPath) {
+    String[] nodes = seriesPath.split(NODE_SEPARATOR_REGEX);
+    if (nodes.length != patternNodes.length) {
+      return false;
+    }
+    for (int i = 0; i < nodes.length; i++) {
+      if (!IoTDBConstant.PATH_WILDCARD.equals(patternNodes[i])
+          && !patternNodes[i].equals(nodes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public String getPathPattern() {
+    return pathPattern;
+  }
+
+  public long getInterval() {
+    return interval;
+  }
+
+  public List<String> getAggregations() {
+    return aggregations;
+  }
+
+  public boolean containsAll(Collection<String> aggregations) {
+    return this.aggregations.containsAll(aggregations);
+  }
+
+  @Override
+  public String toString() {
+    return pathPattern + ":" + interval + ":" + String.join(",", aggregations);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RollupDefinition that = (RollupDefinition) o;
+    return interval == that.interval && Arrays.equals(patternNodes, that.patternNodes)
+        && aggregations.equals(that.aggregations);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(patternNodes) + Long.hashCode(interval);
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RollupManager holds the rollup definitions in the config and caches the rollups of TsFiles read
+ * by queries. The caching strategy is LRU.
+ */
+public class RollupManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(RollupManager.class);
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * an empty rollup is cached for the TsFiles without a rollup file
+   */
+  private static final TsFileRollup NO_ROLLUP = new TsFileRollup(Collections.emptyList());
+
+  private String parsedDefinitions;
+  private List<RollupDefinition> definitions = Collections.emptyList();
+
+  private final Map<String, TsFileRollup> lruCache;
+
+  /**
+   * increased whenever cached rollups are invalidated, guarded by lruCache. A rollup read from
+   * the disk is cached only if no invalidation happens meanwhile, otherwise it may be the one
+   * just removed.
+   */
+  private long generation = 0;
+
+  private RollupManager() {
+    lruCache = new LinkedHashMap<String, TsFileRollup>(128, 0.75f, true) {
+
+      private static final long serialVersionUID = -2378457410296473640L;
+
+      @Override
+      protected boolean removeEldestEntry(Entry<String, TsFileRollup> eldest) {
+        return size() > config.getRollupCacheSize();
+      }
+    };
+  }
+
+  public static RollupManager getInstance() {
+    return RollupManagerHolder.INSTANCE;
+  }
+
+  /**
+   * @return the definitions in the config, which are parsed again when the config changes. Illegal
+   * definitions disable the rollups.
+   */
+  public synchronized List<RollupDefinition> getDefinitions() {
+    String configDefinitions = config.getRollupDefinitions();
+    if (!configDefinitions.equals(parsedDefinitions)) {
+      parsedDefinitions = configDefinitions;
+      try {
+        definitions = Collections.unmodifiableList(RollupDefinition.parseAll(configDefinitions));
+      } catch (MetadataException e) {
+        logger.error("Cannot parse the rollup definitions, rollups are disabled", e);
+        definitions = Collections.emptyList();
+      }
+    }
+    return definitions;
+  }
+
+  /**
+   * @return the rollups of a sealed TsFile, or null if it has no rollup file or the file cannot
+   * be read
+   */
+  public TsFileRollup getRollup(File tsFile) {
+    String key = tsFile.getPath();
+    TsFileRollup rollup;
+    long readGeneration;
+    synchronized (lruCache) {
+      rollup = lruCache.get(key);
+      readGeneration = generation;
+    }
+    if (rollup == null) {
+      try {
+        rollup = TsFileRollup.deserialize(tsFile);
+      } catch (IOException e) {
+        logger.warn("Cannot read the rollup file of {}, the TsFile will be read instead", tsFile,
+            e);
+      }
+      if (rollup == null) {
+        rollup = NO_ROLLUP;
+      }
+      synchronized (lruCache) {
+        if (readGeneration == generation) {
+          lruCache.put(key, rollup);
+        }
+      }
+    }
+    return rollup == NO_ROLLUP ? null : rollup;
+  }
+
+  /**
+   * Build and write the rollups of a sealed sequence TsFile, e.g., after it is generated by a
+   * merge.
+   */
+  public void buildRollup(File tsFile) throws IOException {
+    List<RollupDefinition> currentDefinitions = getDefinitions();
+    if (currentDefinitions.isEmpty()) {
+      return;
+    }
+    TsFileRollup rollup = TsFileRollup.build(tsFile, currentDefinitions);
+    if (!rollup.isEmpty()) {
+      rollup.serialize(tsFile);
+    }
+    invalidate(tsFile);
+  }
+
+  /**
+   * Remove the rollup file of a TsFile, which must be called before the TsFile is changed.
+   */
+  public void removeRollup(File tsFile) throws IOException {
+    Files.deleteIfExists(TsFileRollup.getRollupFile(tsFile).toPath());
+    invalidate(tsFile);
+  }
+
+  private void invalidate(File tsFile) {
+    synchronized (lruCache) {
+      generation++;
+      lruCache.remove(tsFile.getPath());
+    }
+  }
+
+  public void clear() {
+    synchronized (lruCache) {
+      generation++;
+      lruCache.clear();
+    }
+  }
+
+  private static class RollupManagerHolder {
+
+    private static final RollupManager INSTANCE = new RollupManager();
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.factory.AggregateResultFactory;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * The pre-aggregated windows of one time series in one TsFile. Each window holds the partial
+ * result of every aggregation of the definition, so the windows of different files and the
+ * windows inside a larger GROUP BY interval can be merged.
+ */
+public class SeriesRollup {
+
+  private final TSDataType dataType;
+  private final long interval;
+  private final List<String> aggregations;
+
+  /**
+   * window start time -> results of the aggregations, only windows with data are present
+   */
+  private final NavigableMap<Long, AggregateResult[]> windows = new TreeMap<>();
+
+  SeriesRollup(TSDataType dataType, long interval, List<String> aggregations) {
+    this.dataType = dataType;
+    this.interval = interval;
+    this.aggregations = aggregations;
+  }
+
+  /**
+   * Aggregate the points in a batch into the windows. The points are sorted by time and they are
+   * all later than the points aggregated before, which is guaranteed by sequence TsFiles.
+   */
+  public void update(BatchData batchData) throws IOException {
+    BatchData windowData = null;
+    long windowStart = 0;
+    while (batchData.hasCurrent()) {
+      long time = batchData.currentTime();
+      if (windowData == null || time >= windowStart + interval) {
+        if (windowData != null) {
+          updateWindow(windowStart, windowData);
+        }
+        windowStart = getWindowStart(time);
+        windowData = new BatchData(dataType);
+      }
+      windowData.putAnObject(time, batchData.currentValue());
+      batchData.next();
+    }
+    if (windowData != null) {
+      updateWindow(windowStart, windowData);
+    }
+  }
+
+  private void updateWindow(long windowStart, BatchData windowData) throws IOException {
+    AggregateResult[] results = windows.computeIfAbsent(windowStart, k -> newResults());
+    for (AggregateResult result : results) {
+      windowData.resetBatchData();
+      result.updateResultFromPageData(windowData);
+    }
+  }
+
+  private AggregateResult[] newResults() {
+    AggregateResult[] results = new AggregateResult[aggregations.size()];
+    for (int i = 0; i < results.length; i++) {
+      results[i] = AggregateResultFactory.getAggrResultByName(aggregations.get(i), dataType);
+    }
+    return results;
+  }
+
+  long getWindowStart(long time) {
+    return time - Math.floorMod(time, interval);
+  }
+
+  /**
+   * Merge the windows in [startTime, endTime) into the results, both bounds should be aligned to
+   * the interval.
+   *
+   * @param results the result of aggregation i is merged into results[i], the aggregations of the
+   * results should be contained in the aggregations of this rollup
+   */
+  public void mergeInto(List<String> resultAggregations, List<AggregateResult> results,
+      long startTime, long endTime) {
+    int[] indexes = new int[resultAggregations.size()];
+    for (int i = 0; i < indexes.length; i++) {
+      indexes[i] = aggregations.indexOf(resultAggregations.get(i));
+    }
+    for (AggregateResult[] window : windows.subMap(startTime, true, endTime, false).values()) {
+      for (int i = 0; i < indexes.length; i++) {
+        if (window[indexes[i]].hasResult()) {
+          results.get(i).merge(window[indexes[i]]);
+        }
+      }
+    }
+  }
+
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  public long getInterval() {
+    return interval;
+  }
+
+  public List<String> getAggregations() {
+    return aggregations;
+  }
+
+  public int getWindowNum() {
+    return windows.size();
+  }
+
+  void serializeTo(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(dataType, outputStream);
+    ReadWriteIOUtils.write(interval, outputStream);
+    ReadWriteIOUtils.write(aggregations.size(), outputStream);
+    for (String aggregation : aggregations) {
+      ReadWriteIOUtils.write(aggregation, outputStream);
+    }
+    ReadWriteIOUtils.write(windows.size(), outputStream);
+    for (Entry<Long, AggregateResult[]> entry : windows.entrySet()) {
+      ReadWriteIOUtils.write(entry.getKey(), outputStream);
+      for (AggregateResult result : entry.getValue()) {
+        result.serializeTo(outputStream);
+      }
+    }
+  }
+
+  static SeriesRollup deserializeFrom(ByteBuffer buffer) {
+    TSDataType dataType = ReadWriteIOUtils.readDataType(buffer);
+    long interval = ReadWriteIOUtils.readLong(buffer);
+    int aggregationNum = ReadWriteIOUtils.readInt(buffer);
+    List<String> aggregations = new ArrayList<>(aggregationNum);
+    for (int i = 0; i < aggregationNum; i++) {
+      aggregations.add(ReadWriteIOUtils.readString(buffer));
+    }
+    SeriesRollup rollup = new SeriesRollup(dataType, interval, aggregations);
+    int windowNum = ReadWriteIOUtils.readInt(buffer);
+    for (int i = 0; i < windowNum; i++) {
+      long windowStart = ReadWriteIOUtils.readLong(buffer);
+      AggregateResult[] results = new AggregateResult[aggregationNum];
+      for (int j = 0; j < aggregationNum; j++) {
+        results[j] = AggregateResult.deserializeFrom(buffer);
+      }
+      rollup.windows.put(windowStart, results);
+    }
+    return rollup;
+  }
+}
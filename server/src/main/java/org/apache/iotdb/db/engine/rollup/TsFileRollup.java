@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.iotdb.db.utils.SchemaUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * The rollups of the time series in a sequence TsFile, stored in "{tsfile}.rollup" next to the
+ * TsFile. A rollup file is only written for a complete TsFile whose data are all in the rollups,
+ * i.e., a file flushed from its first memtable to its end or a file generated by a merge. It is
+ * removed before its TsFile is changed, so a TsFile without a rollup file is simply read.
+ */
+public class TsFileRollup {
+
+  public static final String ROLLUP_SUFFIX = ".rollup";
+  private static final String TEMP_SUFFIX = ".temp";
+
+  private final List<RollupDefinition> definitions;
+
+  /**
+   * series path -> rollup
+   */
+  private final Map<String, SeriesRollup> seriesRollups = new HashMap<>();
+
+  /**
+   * @param definitions decide which series are rolled up when building the rollups
+   */
+  public TsFileRollup(List<RollupDefinition> definitions) {
+    this.definitions = definitions;
+  }
+
+  /**
+   * @return the rollup of the series, which is created if the series matches a definition (the
+   * first matching definition is used), or null if the series is not rolled up
+   */
+  public SeriesRollup getOrCreate(String seriesPath, TSDataType dataType) {
+    SeriesRollup rollup = seriesRollups.get(seriesPath);
+    if (rollup != null || definitions == null) {
+      return rollup;
+    }
+    for (RollupDefinition definition : definitions) {
+      if (definition.matches(seriesPath) && canRollup(definition, dataType)) {
+        rollup = new SeriesRollup(dataType, definition.getInterval(),
+            definition.getAggregations());
+        seriesRollups.put(seriesPath, rollup);
+        return rollup;
+      }
+    }
+    return null;
+  }
+
+  private static boolean canRollup(RollupDefinition definition, TSDataType dataType) {
+    if (dataType != TSDataType.BOOLEAN && dataType != TSDataType.TEXT) {
+      return true;
+    }
+    // sum, avg and percentile do not support non-numeric values
+    for (String aggregation : definition.getAggregations()) {
+      try {
+        if (SchemaUtils.getAggregationType(aggregation) == TSDataType.DOUBLE) {
+          return false;
+        }
+      } catch (Exception e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public SeriesRollup get(String seriesPath) {
+    return seriesRollups.get(seriesPath);
+  }
+
+  public boolean isEmpty() {
+    return seriesRollups.isEmpty();
+  }
+
+  public static File getRollupFile(File tsFile) {
+    return FSFactoryProducer.getFSFactory().getFile(tsFile.getPath() + ROLLUP_SUFFIX);
+  }
+
+  /**
+   * Write the rollups next to the TsFile, a temporary file is written first so an incomplete
+   * rollup file is never seen.
+   */
+  public void serialize(File tsFile) throws IOException {
+    FSFactory fsFactory = FSFactoryProducer.getFSFactory();
+    File dest = getRollupFile(tsFile);
+    File src = fsFactory.getFile(dest.getPath() + TEMP_SUFFIX);
+    try (OutputStream outputStream = fsFactory.getBufferedOutputStream(src.getPath())) {
+      ReadWriteIOUtils.write(seriesRollups.size(), outputStream);
+      for (Entry<String, SeriesRollup> entry : seriesRollups.entrySet()) {
+        ReadWriteIOUtils.write(entry.getKey(), outputStream);
+        entry.getValue().serializeTo(outputStream);
+      }
+    }
+    dest.delete();
+    fsFactory.moveFile(src, dest);
+  }
+
+  /**
+   * @return the rollups of the TsFile, or null if it has no rollup file
+   */
+  public static TsFileRollup deserialize(File tsFile) throws IOException {
+    File rollupFile = getRollupFile(tsFile);
+    if (!rollupFile.exists()) {
+      return null;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(rollupFile.toPath()));
+    TsFileRollup tsFileRollup = new TsFileRollup(null);
+    int seriesNum = ReadWriteIOUtils.readInt(buffer);
+    for (int i = 0; i < seriesNum; i++) {
+      String path = ReadWriteIOUtils.readString(buffer);
+      tsFileRollup.seriesRollups.put(path, SeriesRollup.deserializeFrom(buffer));
+    }
+    return tsFileRollup;
+  }
+
+  /**
+   * Build the rollups by reading the data of the matched series in a sealed sequence TsFile.
+   */
+  public static TsFileRollup build(File tsFile, List<RollupDefinition> definitions)
+      throws IOException {
+    TsFileRollup tsFileRollup = new TsFileRollup(definitions);
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(tsFile.getPath())) {
+      for (String device : reader.readFileMetadata().getDeviceMetadataIndex().keySet()) {
+        for (Entry<String, TimeseriesMetadata> entry : reader.readDeviceMetadata(device)
+            .entrySet()) {
+          Path path = new Path(device, entry.getKey());
+          SeriesRollup rollup = tsFileRollup
+              .getOrCreate(path.getFullPath(), entry.getValue().getTSDataType());
+          if (rollup == null) {
+            continue;
+          }
+          List<ChunkMetadata> chunkMetadataList = reader.getChunkMetadataList(path);
+          chunkMetadataList.sort(Comparator.comparingLong(ChunkMetadata::getStartTime));
+          for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+            ChunkReader chunkReader = new ChunkReader(reader.readMemChunk(chunkMetadata), null);
+            while (chunkReader.hasNextSatisfiedPage()) {
+              rollup.update(chunkReader.nextPageData());
+            }
+          }
+        }
+      }
+    }
+    return tsFileRollup;
+  }
+}
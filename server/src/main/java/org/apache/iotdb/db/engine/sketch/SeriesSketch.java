@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.sketch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.aggregation.impl.ApproxCountDistinctAggrResult;
+import org.apache.iotdb.db.query.aggregation.impl.PercentileAggrResult;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * The sketches of all the points of one time series in one TsFile, i.e., the partial results of
+ * the approximate aggregations which cannot be calculated from the statistics of the TsFile.
+ * PERCENTILE is only sketched for numeric series.
+ */
+public class SeriesSketch {
+
+  private final TSDataType dataType;
+  private final List<AggregateResult> sketches;
+
+  SeriesSketch(TSDataType dataType) {
+    this(dataType, new ArrayList<>());
+    if (dataType != TSDataType.BOOLEAN && dataType != TSDataType.TEXT) {
+      sketches.add(new PercentileAggrResult(dataType, PercentileAggrResult.DEFAULT_QUANTILE));
+    }
+    sketches.add(new ApproxCountDistinctAggrResult());
+  }
+
+  private SeriesSketch(TSDataType dataType, List<AggregateResult> sketches) {
+    this.dataType = dataType;
+    this.sketches = sketches;
+  }
+
+  /**
+   * Add the points in a batch into the sketches.
+   */
+  public void update(BatchData batchData) throws IOException {
+    for (AggregateResult sketch : sketches) {
+      batchData.resetBatchData();
+      sketch.updateResultFromPageData(batchData);
+    }
+  }
+
+  /**
+   * Merge the sketches into the results of the same aggregations that are not aggregated yet.
+   *
+   * @param aggregated marks the results that are aggregated, which is updated
+   */
+  public void mergeInto(List<AggregateResult> results, boolean[] aggregated) {
+    for (int i = 0; i < results.size(); i++) {
+      if (!aggregated[i]) {
+        aggregated[i] = mergeInto(results.get(i));
+      }
+    }
+  }
+
+  private boolean mergeInto(AggregateResult result) {
+    for (AggregateResult sketch : sketches) {
+      if (sketch.getAggregationType() == result.getAggregationType()) {
+        if (sketch.hasResult()) {
+          result.merge(sketch);
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  void serializeTo(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(dataType, outputStream);
+    ReadWriteIOUtils.write(sketches.size(), outputStream);
+    for (AggregateResult sketch : sketches) {
+      sketch.serializeTo(outputStream);
+    }
+  }
+
+  static SeriesSketch deserializeFrom(ByteBuffer buffer) {
+    TSDataType dataType = ReadWriteIOUtils.readDataType(buffer);
+    int sketchNum = ReadWriteIOUtils.readInt(buffer);
+    List<AggregateResult> sketches = new ArrayList<>(sketchNum);
+    for (int i = 0; i < sketchNum; i++) {
+      sketches.add(AggregateResult.deserializeFrom(buffer));
+    }
+    return new SeriesSketch(dataType, sketches);
+  }
+}
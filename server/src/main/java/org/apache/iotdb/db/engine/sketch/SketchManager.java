@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.sketch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SketchManager caches the sketches of TsFiles read by queries. The caching strategy is LRU.
+ */
+public class SketchManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(SketchManager.class);
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * an empty sketch is cached for the TsFiles without a sketch file
+   */
+  private static final TsFileSketch NO_SKETCH = new TsFileSketch();
+
+  private final Map<String, TsFileSketch> lruCache;
+
+  /**
+   * increased whenever cached sketches are invalidated, guarded by lruCache. A sketch read from
+   * the disk is cached only if no invalidation happens meanwhile, otherwise it may be the one just
+   * removed.
+   */
+  private long generation = 0;
+
+  private SketchManager() {
+    lruCache = new LinkedHashMap<String, TsFileSketch>(128, 0.75f, true) {
+
+      private static final long serialVersionUID = 3390178471521187246L;
+
+      @Override
+      protected boolean removeEldestEntry(Entry<String, TsFileSketch> eldest) {
+        return size() > config.getSketchCacheSize();
+      }
+    };
+  }
+
+  public static SketchManager getInstance() {
+    return SketchManagerHolder.INSTANCE;
+  }
+
+  /**
+   * @return the sketches of a sealed TsFile, or null if it has no sketch file or the file cannot
+   * be read
+   */
+  public TsFileSketch getSketch(File tsFile) {
+    String key = tsFile.getPath();
+    TsFileSketch sketch;
+    long readGeneration;
+    synchronized (lruCache) {
+      sketch = lruCache.get(key);
+      readGeneration = generation;
+    }
+    if (sketch == null) {
+      try {
+        sketch = TsFileSketch.deserialize(tsFile);
+      } catch (IOException e) {
+        logger.warn("Cannot read the sketch file of {}, the TsFile will be read instead", tsFile,
+            e);
+      }
+      if (sketch == null) {
+        sketch = NO_SKETCH;
+      }
+      synchronized (lruCache) {
+        if (readGeneration == generation) {
+          lruCache.put(key, sketch);
+        }
+      }
+    }
+    return sketch == NO_SKETCH ? null : sketch;
+  }
+
+  /**
+   * Build and write the sketches of a sealed sequence TsFile, e.g., after it is generated by a
+   * merge.
+   */
+  public void buildSketch(File tsFile) throws IOException {
+    if (!config.isEnableFileSketch()) {
+      return;
+    }
+    TsFileSketch sketch = TsFileSketch.build(tsFile);
+    if (!sketch.isEmpty()) {
+      sketch.serialize(tsFile);
+    }
+    invalidate(tsFile);
+  }
+
+  /**
+   * Remove the sketch file of a TsFile, which must be called before the TsFile is changed.
+   */
+  public void removeSketch(File tsFile) throws IOException {
+    Files.deleteIfExists(TsFileSketch.getSketchFile(tsFile).toPath());
+    invalidate(tsFile);
+  }
+
+  private void invalidate(File tsFile) {
+    synchronized (lruCache) {
+      generation++;
+      lruCache.remove(tsFile.getPath());
+    }
+  }
+
+  public void clear() {
+    synchronized (lruCache) {
+      generation++;
+      lruCache.clear();
+    }
+  }
+
+  private static class SketchManagerHolder {
+
+    private static final SketchManager INSTANCE = new SketchManager();
+  }
+}
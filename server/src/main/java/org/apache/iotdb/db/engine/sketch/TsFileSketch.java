@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.sketch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * The sketches of the time series in a sequence TsFile, stored in "{tsfile}.sketch" next to the
+ * TsFile. Like a rollup file, a sketch file is only written for a complete TsFile whose data are
+ * all in the sketches, and it is removed before its TsFile is changed.
+ */
+public class TsFileSketch {
+
+  public static final String SKETCH_SUFFIX = ".sketch";
+  private static final String TEMP_SUFFIX = ".temp";
+
+  /**
+   * series path -> sketch
+   */
+  private final Map<String, SeriesSketch> seriesSketches = new HashMap<>();
+
+  public SeriesSketch getOrCreate(String seriesPath, TSDataType dataType) {
+    return seriesSketches.computeIfAbsent(seriesPath, k -> new SeriesSketch(dataType));
+  }
+
+  public SeriesSketch get(String seriesPath) {
+    return seriesSketches.get(seriesPath);
+  }
+
+  public boolean isEmpty() {
+    return seriesSketches.isEmpty();
+  }
+
+  public static File getSketchFile(File tsFile) {
+    return FSFactoryProducer.getFSFactory().getFile(tsFile.getPath() + SKETCH_SUFFIX);
+  }
+
+  /**
+   * Write the sketches next to the TsFile, a temporary file is written first so an incomplete
+   * sketch file is never seen.
+   */
+  public void serialize(File tsFile) throws IOException {
+    FSFactory fsFactory = FSFactoryProducer.getFSFactory();
+    File dest = getSketchFile(tsFile);
+    File src = fsFactory.getFile(dest.getPath() + TEMP_SUFFIX);
+    try (OutputStream outputStream = fsFactory.getBufferedOutputStream(src.getPath())) {
+      ReadWriteIOUtils.write(seriesSketches.size(), outputStream);
+      for (Entry<String, SeriesSketch> entry : seriesSketches.entrySet()) {
+        ReadWriteIOUtils.write(entry.getKey(), outputStream);
+        entry.getValue().serializeTo(outputStream);
+      }
+    }
+    dest.delete();
+    fsFactory.moveFile(src, dest);
+  }
+
+  /**
+   * @return the sketches of the TsFile, or null if it has no sketch file
+   */
+  public static TsFileSketch deserialize(File tsFile) throws IOException {
+    File sketchFile = getSketchFile(tsFile);
+    if (!sketchFile.exists()) {
+      return null;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(sketchFile.toPath()));
+    TsFileSketch tsFileSketch = new TsFileSketch();
+    int seriesNum = ReadWriteIOUtils.readInt(buffer);
+    for (int i = 0; i < seriesNum; i++) {
+      String path = ReadWriteIOUtils.readString(buffer);
+      tsFileSketch.seriesSketches.put(path, SeriesSketch.deserializeFrom(buffer));
+    }
+    return tsFileSketch;
+  }
+
+  /**
+   * Build the sketches by reading the data of all the series in a sealed sequence TsFile.
+   */
+  public static TsFileSketch build(File tsFile) throws IOException {
+    TsFileSketch tsFileSketch = new TsFileSketch();
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(tsFile.getPath())) {
+      for (String device : reader.readFileMetadata().getDeviceMetadataIndex().keySet()) {
+        for (Entry<String, TimeseriesMetadata> entry : reader.readDeviceMetadata(device)
+            .entrySet()) {
+          Path path = new Path(device, entry.getKey());
+          SeriesSketch sketch = tsFileSketch
+              .getOrCreate(path.getFullPath(), entry.getValue().getTSDataType());
+          List<ChunkMetadata> chunkMetadataList = reader.getChunkMetadataList(path);
+          chunkMetadataList.sort(Comparator.comparingLong(ChunkMetadata::getStartTime));
+          for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+            ChunkReader chunkReader = new ChunkReader(reader.readMemChunk(chunkMetadata), null);
+            while (chunkReader.hasNextSatisfiedPage()) {
+              sketch.update(chunkReader.nextPageData());
+            }
+          }
+        }
+      }
+    }
+    return tsFileSketch;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DeviceIdTable interns the devices of all TsFileResources into dense int ids, so the time index
+ * of a file only stores the ids and the device strings are shared by all files. Ids are never
+ * released.
+ */
+public class DeviceIdTable {
+
+  private final Map<String, Integer> deviceIds = new ConcurrentHashMap<>();
+
+  private volatile String[] devices = new String[1024];
+
+  private int size = 0;
+
+  private DeviceIdTable() {
+  }
+
+  public static DeviceIdTable getInstance() {
+    return DeviceIdTableHolder.INSTANCE;
+  }
+
+  /**
+   * @return the id of the device, or -1 if no file contains the device
+   */
+  public int getId(String device) {
+    Integer id = deviceIds.get(device);
+    return id == null ? -1 : id;
+  }
+
+  public int getOrCreateId(String device) {
+    Integer id = deviceIds.get(device);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = deviceIds.get(device);
+      if (id != null) {
+        return id;
+      }
+      String[] current = devices;
+      if (size == current.length) {
+        current = Arrays.copyOf(current, current.length * 2);
+      }
+      current[size] = device;
+      // publish the device before its id
+      devices = current;
+      deviceIds.put(device, size);
+      return size++;
+    }
+  }
+
+  public String getDevice(int id) {
+    return devices[id];
+  }
+
+  private static class DeviceIdTableHolder {
+
+    private static final DeviceIdTable INSTANCE = new DeviceIdTable();
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * DeviceTimeMap is the compact device -> time map of a sealed TsFileResource. The ids of the
+ * devices in DeviceIdTable are kept sorted in an int array and the times in a long array, so a
+ * device costs 12 bytes instead of a HashMap node, a boxed Long and a device string of its own.
+ *
+ * It is mainly read. Updating the time of an existing device is in place, while adding a device
+ * copies the arrays and is only expected in merges and tests.
+ */
+public class DeviceTimeMap extends AbstractMap<String, Long> {
+
+  private volatile Index index;
+
+  public DeviceTimeMap(Map<String, Long> timeMap) {
+    String[] devices = new String[timeMap.size()];
+    long[] times = new long[devices.length];
+    int size = 0;
+    for (Entry<String, Long> entry : timeMap.entrySet()) {
+      devices[size] = entry.getKey();
+      times[size] = entry.getValue();
+      size++;
+    }
+    this.index = buildIndex(devices, times, size);
+  }
+
+  /**
+   * @param devices the devices, which may be released after building
+   * @param times the time of each device
+   * @param size the number of devices
+   */
+  public DeviceTimeMap(String[] devices, long[] times, int size) {
+    this.index = buildIndex(devices, times, size);
+  }
+
+  private static Index buildIndex(String[] devices, long[] times, int size) {
+    DeviceIdTable deviceIdTable = DeviceIdTable.getInstance();
+    // sort the positions by the device ids, an id is in the high half and a position in the low
+    long[] idAndPositions = new long[size];
+    for (int i = 0; i < size; i++) {
+      idAndPositions[i] = ((long) deviceIdTable.getOrCreateId(devices[i]) << 32) | i;
+    }
+    Arrays.sort(idAndPositions);
+    int[] sortedIds = new int[size];
+    long[] sortedTimes = new long[size];
+    for (int i = 0; i < size; i++) {
+      sortedIds[i] = (int) (idAndPositions[i] >>> 32);
+      sortedTimes[i] = times[(int) idAndPositions[i]];
+    }
+    return new Index(sortedIds, sortedTimes);
+  }
+
+  private int indexOf(Index current, Object device) {
+    if (!(device instanceof String)) {
+      return -1;
+    }
+    int deviceId = DeviceIdTable.getInstance().getId((String) device);
+    return deviceId < 0 ? -1 : Arrays.binarySearch(current.deviceIds, deviceId);
+  }
+
+  @Override
+  public Long get(Object device) {
+    Index current = index;
+    int i = indexOf(current, device);
+    return i < 0 ? null : current.times[i];
+  }
+
+  @Override
+  public Long getOrDefault(Object device, Long defaultValue) {
+    Index current = index;
+    int i = indexOf(current, device);
+    return i < 0 ? defaultValue : current.times[i];
+  }
+
+  @Override
+  public boolean containsKey(Object device) {
+    return indexOf(index, device) >= 0;
+  }
+
+  @Override
+  public synchronized Long put(String device, Long time) {
+    Index current = index;
+    int i = indexOf(current, device);
+    if (i >= 0) {
+      long previous = current.times[i];
+      current.times[i] = time;
+      return previous;
+    }
+    int deviceId = DeviceIdTable.getInstance().getOrCreateId(device);
+    int insertion = -Arrays.binarySearch(current.deviceIds, deviceId) - 1;
+    int size = current.deviceIds.length;
+    int[] deviceIds = new int[size + 1];
+    long[] times = new long[size + 1];
+    System.arraycopy(current.deviceIds, 0, deviceIds, 0, insertion);
+    System.arraycopy(current.times, 0, times, 0, insertion);
+    deviceIds[insertion] = deviceId;
+    times[insertion] = time;
+    System.arraycopy(current.deviceIds, insertion, deviceIds, insertion + 1, size - insertion);
+    System.arraycopy(current.times, insertion, times, insertion + 1, size - insertion);
+    index = new Index(deviceIds, times);
+    return null;
+  }
+
+  @Override
+  public int size() {
+    return index.deviceIds.length;
+  }
+
+  @Override
+  public Set<Entry<String, Long>> entrySet() {
+    Index current = index;
+    return new AbstractSet<Entry<String, Long>>() {
+      @Override
+      public Iterator<Entry<String, Long>> iterator() {
+        return new Iterator<Entry<String, Long>>() {
+          private int next = 0;
+
+          @Override
+          public boolean hasNext() {
+            return next < current.deviceIds.length;
+          }
+
+          @Override
+          public Entry<String, Long> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            int i = next++;
+            return new SimpleImmutableEntry<>(
+                DeviceIdTable.getInstance().getDevice(current.deviceIds[i]), current.times[i]);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return current.deviceIds.length;
+      }
+    };
+  }
+
+  private static class Index {
+
+    private final int[] deviceIds;
+    private final long[] times;
+
+    private Index(int[] deviceIds, long[] times) {
+      this.deviceIds = deviceIds;
+      this.times = times;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.fileSystem.FSType;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ResourceSummaryManager keeps an append-only summary of the TsFileResources of the complete
+ * TsFiles in each partition folder, so the resources of a partition are loaded by one sequential
+ * read instead of reading a .resource file and recovering each TsFile.
+ *
+ * An entry is appended whenever a TsFile is completed by a flush, a merge or a recovery, and the
+ * last entry of a file wins. An entry is only used if the file is in the folder and its length is
+ * still the one when the entry was appended, otherwise the file is recovered as before. The
+ * .resource files are still written and remain authoritative.
+ */
+public class ResourceSummaryManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResourceSummaryManager.class);
+
+  public static final String SUMMARY_FILE_NAME = "resources.summary";
+
+  private ResourceSummaryManager() {
+  }
+
+  public static ResourceSummaryManager getInstance() {
+    return ResourceSummaryManagerHolder.INSTANCE;
+  }
+
+  private static boolean isEnabled() {
+    // appending is not supported by all file systems
+    return TSFileDescriptor.getInstance().getConfig().getTSFileStorageFs() == FSType.LOCAL;
+  }
+
+  /**
+   * append the resource of a complete TsFile to the summary of its partition. Failures are only
+   * logged, as the file can still be recovered without the summary.
+   */
+  public synchronized void append(TsFileResource resource) {
+    if (!isEnabled()) {
+      return;
+    }
+    File tsFile = resource.getFile();
+    try (OutputStream outputStream = new BufferedOutputStream(
+        new FileOutputStream(new File(tsFile.getParentFile(), SUMMARY_FILE_NAME), true))) {
+      writeEntry(resource, outputStream);
+    } catch (IOException e) {
+      logger.warn("Cannot append the resource of {} to the summary", tsFile, e);
+    }
+  }
+
+  /**
+   * an entry is the length of the rest, the name and length of the TsFile and the resource.
+   */
+  private void writeEntry(TsFileResource resource, OutputStream outputStream)
+      throws IOException {
+    ByteArrayOutputStream entry = new ByteArrayOutputStream();
+    ReadWriteIOUtils.write(resource.getFile().getName(), entry);
+    ReadWriteIOUtils.write(resource.getFile().length(), entry);
+    resource.serialize(entry);
+    ReadWriteIOUtils.write(entry.size(), outputStream);
+    entry.writeTo(outputStream);
+  }
+
+  /**
+   * load the resources of the given TsFiles of a partition folder from its summary. The summary is
+   * rewritten if most of its entries are out of date.
+   *
+   * @return TsFile name -> the loaded resource, which is closed. The files that are not in the
+   * result should be recovered.
+   */
+  public synchronized Map<String, TsFileResource> load(File partitionFolder, File[] tsFiles) {
+    Map<String, TsFileResource> resources = new HashMap<>();
+    File summaryFile = new File(partitionFolder, SUMMARY_FILE_NAME);
+    if (!isEnabled() || tsFiles == null || !summaryFile.exists()) {
+      return resources;
+    }
+    Map<String, File> filesByName = new HashMap<>();
+    for (File tsFile : tsFiles) {
+      filesByName.put(tsFile.getName(), tsFile);
+    }
+
+    Map<String, byte[]> lastEntries = new HashMap<>();
+    int entryNum = 0;
+    try (DataInputStream inputStream = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(summaryFile)))) {
+      while (true) {
+        byte[] entry;
+        try {
+          entry = new byte[inputStream.readInt()];
+          inputStream.readFully(entry);
+        } catch (EOFException e) {
+          // the end, or an entry is partly appended before a crash
+          break;
+        }
+        entryNum++;
+        InputStream entryStream = new ByteArrayInputStream(entry);
+        lastEntries.put(ReadWriteIOUtils.readString(entryStream), entry);
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Cannot read the resource summary {}, the files will be recovered", summaryFile,
+          e);
+      return resources;
+    }
+
+    for (Map.Entry<String, byte[]> entry : lastEntries.entrySet()) {
+      File tsFile = filesByName.get(entry.getKey());
+      if (tsFile == null) {
+        // removed by a merge, TTL or deletion
+        continue;
+      }
+      try {
+        InputStream entryStream = new ByteArrayInputStream(entry.getValue());
+        ReadWriteIOUtils.readString(entryStream);
+        if (ReadWriteIOUtils.readLong(entryStream) != tsFile.length()) {
+          // changed after the entry, e.g., a merge is interrupted
+          continue;
+        }
+        TsFileResource resource = new TsFileResource(tsFile);
+        resource.deserialize(entryStream);
+        resource.setClosed(true);
+        resources.put(tsFile.getName(), resource);
+      } catch (IOException | RuntimeException e) {
+        logger.warn("Cannot load the resource of {} from the summary", tsFile, e);
+      }
+    }
+
+    if (entryNum > 2 * resources.size()) {
+      rewrite(summaryFile, resources);
+    }
+    return resources;
+  }
+
+  /**
+   * replace the summary with one that only contains the given resources
+   */
+  private void rewrite(File summaryFile, Map<String, TsFileResource> resources) {
+    File tempFile = new File(summaryFile.getPath() + TsFileResource.TEMP_SUFFIX);
+    try {
+      try (OutputStream outputStream = new BufferedOutputStream(
+          new FileOutputStream(tempFile))) {
+        for (TsFileResource resource : resources.values()) {
+          writeEntry(resource, outputStream);
+        }
+      }
+      Files.move(tempFile.toPath(), summaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.warn("Cannot rewrite the resource summary {}", summaryFile, e);
+      tempFile.delete();
+    }
+  }
+
+  private static class ResourceSummaryManagerHolder {
+
+    private static final ResourceSummaryManager INSTANCE = new ResourceSummaryManager();
+  }
+}
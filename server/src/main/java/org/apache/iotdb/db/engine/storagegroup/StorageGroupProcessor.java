@@ -37,13 +37,17 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.QueryResultCache;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
 import org.apache.iotdb.db.engine.merge.manage.MergeManager;
@@ -77,6 +81,8 @@ import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.SeriesProfile;
+import org.apache.iotdb.db.query.context.SeriesProfile.Counter;
 import org.apache.iotdb.db.query.control.QueryFileManager;
 import org.apache.iotdb.db.utils.CopyOnReadLinkedList;
 import org.apache.iotdb.db.utils.UpgradeUtils;
@@ -114,6 +120,10 @@ import org.slf4j.LoggerFactory;
  * <p>
  * When a TsFileProcessor is closed, the closeUnsealedTsFileProcessorCallBack() method will be
  * called as a callback.
+ * <p>
+ * Insertions of a device in a time partition are serialized by one of the striped insert locks,
+ * so different devices are inserted concurrently. An insertion that needs a new TsFileProcessor
+ * or fills a memtable takes the write lock of the storage group to change the TsFileProcessors.
  */
 public class StorageGroupProcessor {
 
@@ -132,9 +142,17 @@ public class StorageGroupProcessor {
    * a read write lock for guaranteeing concurrent safety when accessing all fields in this class
    * (i.e., schema, (un)sequenceFileList, work(un)SequenceTsFileProcessor,
    * closing(Un)SequenceTsFileProcessor, latestTimeForEachDevice, and
-   * partitionLatestFlushedTimeForEachDevice)
+   * partitionLatestFlushedTimeForEachDevice). Insertions and queries hold its read lock together
+   * with the insertStripeLocks of their devices.
    */
   private final ReadWriteLock insertLock = new ReentrantReadWriteLock();
+  /**
+   * an insertion holds the write lock of the stripe of its time partition and device, so the
+   * insertions of a device in a partition are in order and the flushed time and the memtable
+   * chunks of the device are changed by one thread at a time. A query holds the read locks of
+   * the stripes of its device in all working partitions.
+   */
+  private final ReadWriteLock[] insertStripeLocks;
   /**
    * closeStorageGroupCondition is used to wait for all currently closing TsFiles to be done.
    */
@@ -170,7 +188,7 @@ public class StorageGroupProcessor {
    * changes upon timestamps of each device, and is used to update partitionLatestFlushedTimeForEachDevice
    * when a flush is issued.
    */
-  private Map<Long, Map<String, Long>> latestTimeForEachDevice = new HashMap<>();
+  private Map<Long, Map<String, Long>> latestTimeForEachDevice = new ConcurrentHashMap<>();
   /**
    * time partition id -> map, which contains device -> largest timestamp of the latest memtable to
    * be submitted to asyncTryToFlush partitionLatestFlushedTimeForEachDevice determines whether a
@@ -178,13 +196,14 @@ public class StorageGroupProcessor {
    * with timestamp less than or equals to the device's latestFlushedTime should go into an
    * unsequential file.
    */
-  private Map<Long, Map<String, Long>> partitionLatestFlushedTimeForEachDevice = new HashMap<>();
+  private Map<Long, Map<String, Long>> partitionLatestFlushedTimeForEachDevice =
+      new ConcurrentHashMap<>();
   /**
    * global mapping of device -> largest timestamp of the latest memtable to * be submitted to
    * asyncTryToFlush, globalLatestFlushedTimeForEachDevice is utilized to maintain global
    * latestFlushedTime of devices and will be updated along with partitionLatestFlushedTimeForEachDevice
    */
-  private Map<String, Long> globalLatestFlushedTimeForEachDevice = new HashMap<>();
+  private Map<String, Long> globalLatestFlushedTimeForEachDevice = new ConcurrentHashMap<>();
   private String storageGroupName;
   private File storageGroupSysDir;
   /**
@@ -237,6 +256,11 @@ public class StorageGroupProcessor {
       TsFileFlushPolicy fileFlushPolicy) throws StorageGroupProcessorException {
     this.storageGroupName = storageGroupName;
     this.fileFlushPolicy = fileFlushPolicy;
+    this.insertStripeLocks = new ReadWriteLock[IoTDBDescriptor.getInstance().getConfig()
+        .getInsertLockStripeNum()];
+    for (int i = 0; i < insertStripeLocks.length; i++) {
+      insertStripeLocks[i] = new ReentrantReadWriteLock();
+    }
 
     storageGroupSysDir = SystemFileFactory.INSTANCE.getFile(systemDir, storageGroupName);
     if (storageGroupSysDir.mkdirs()) {
@@ -296,10 +320,10 @@ public class StorageGroupProcessor {
 
     for (TsFileResource resource : sequenceFileTreeSet) {
       long timePartitionId = resource.getTimePartition();
-      latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new HashMap<>())
+      latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new ConcurrentHashMap<>())
           .putAll(resource.getEndTimeMap());
       partitionLatestFlushedTimeForEachDevice
-          .computeIfAbsent(timePartitionId, id -> new HashMap<>())
+          .computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>())
           .putAll(resource.getEndTimeMap());
       globalLatestFlushedTimeForEachDevice.putAll(resource.getEndTimeMap());
     }
@@ -330,8 +354,14 @@ public class StorageGroupProcessor {
         });
   }
 
+  /**
+   * @return the resources of the TsFiles in the folders, the resources of the complete files in
+   * the resource summaries of their partitions are loaded and closed, and the others should be
+   * recovered
+   */
   private List<TsFileResource> getAllFiles(List<String> folders) {
     List<File> tsFiles = new ArrayList<>();
+    Map<File, TsFileResource> summarizedResources = new HashMap<>();
     for (String baseDir : folders) {
       File fileFolder = fsFactory.getFile(baseDir, storageGroupName);
       if (!fileFolder.exists()) {
@@ -354,15 +384,23 @@ public class StorageGroupProcessor {
           continue;
         }
 
-        Collections.addAll(tsFiles,
-            fsFactory.listFilesBySuffix(partitionFolder.getAbsolutePath(), TSFILE_SUFFIX));
+        File[] partitionTsFiles = fsFactory.listFilesBySuffix(partitionFolder.getAbsolutePath(),
+            TSFILE_SUFFIX);
+        Collections.addAll(tsFiles, partitionTsFiles);
+        for (TsFileResource resource : ResourceSummaryManager.getInstance()
+            .load(partitionFolder, partitionTsFiles).values()) {
+          summarizedResources.put(resource.getFile(), resource);
+        }
         }
       }
 
     }
     tsFiles.sort(this::compareFileName);
     List<TsFileResource> ret = new ArrayList<>();
-    tsFiles.forEach(f -> ret.add(new TsFileResource(f)));
+    for (File f : tsFiles) {
+      TsFileResource resource = summarizedResources.get(f);
+      ret.add(resource != null ? resource : new TsFileResource(f));
+    }
     return ret;
   }
 
@@ -383,6 +421,11 @@ public class StorageGroupProcessor {
   private void recoverSeqFiles(List<TsFileResource> tsFiles) {
     for (int i = 0; i < tsFiles.size(); i++) {
       TsFileResource tsFileResource = tsFiles.get(i);
+      if (tsFileResource.isClosed()) {
+        // loaded from the resource summary, the file is complete
+        sequenceFileTreeSet.add(tsFileResource);
+        continue;
+      }
       long timePartitionId = tsFileResource.getTimePartition();
 
       TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-",
@@ -418,6 +461,11 @@ public class StorageGroupProcessor {
   private void recoverUnseqFiles(List<TsFileResource> tsFiles) {
     for (int i = 0; i < tsFiles.size(); i++) {
       TsFileResource tsFileResource = tsFiles.get(i);
+      if (tsFileResource.isClosed()) {
+        // loaded from the resource summary, the file is complete
+        unSequenceFileList.add(tsFileResource);
+        continue;
+      }
       long timePartitionId = tsFileResource.getTimePartition();
 
       TsFileRecoverPerformer recoverPerformer = new TsFileRecoverPerformer(storageGroupName + "-",
@@ -471,96 +519,208 @@ public class StorageGroupProcessor {
     if (!checkTTL(insertPlan.getTime())) {
       throw new OutOfTTLException(insertPlan.getTime(), (System.currentTimeMillis() - dataTTL));
     }
-    writeLock();
-    try {
-      // init map
-      long timePartitionId = StorageEngine.getTimePartition(insertPlan.getTime());
-
-      latestTimeForEachDevice.computeIfAbsent(timePartitionId, l -> new HashMap<>());
-      partitionLatestFlushedTimeForEachDevice.computeIfAbsent(timePartitionId, id -> new HashMap<>());
+    long timePartitionId = StorageEngine.getTimePartition(insertPlan.getTime());
+    ReadWriteLock stripeLock = getInsertStripeLock(timePartitionId, insertPlan.getDeviceId());
 
+    boolean sequence;
+    TsFileProcessor tsFileProcessor;
+    long lockStartTime = Measurement.INSTANCE.startTimeInNanos();
+    insertLock.readLock().lock();
+    stripeLock.writeLock().lock();
+    Measurement.INSTANCE.addOperationLatencyInNanos(Operation.WAIT_STORAGE_GROUP_LOCK,
+        lockStartTime);
+    try {
       // insert to sequence or unSequence file
-      insertToTsFileProcessor(insertPlan,
-          insertPlan.getTime() > partitionLatestFlushedTimeForEachDevice.get(timePartitionId)
-              .getOrDefault(insertPlan.getDeviceId(), Long.MIN_VALUE));
-
+      sequence = isSequence(timePartitionId, insertPlan.getDeviceId(), insertPlan.getTime());
+      tsFileProcessor = getWorkingTsFileProcessor(timePartitionId, sequence);
+      if (tsFileProcessor != null) {
+        insertToTsFileProcessor(insertPlan, tsFileProcessor, timePartitionId);
+      }
     } finally {
-      writeUnlock();
+      stripeLock.writeLock().unlock();
+      insertLock.readLock().unlock();
     }
+
+    if (tsFileProcessor == null) {
+      // a new TsFileProcessor is created, so the other insertions and queries are excluded
+      writeLock();
+      try {
+        sequence = isSequence(timePartitionId, insertPlan.getDeviceId(), insertPlan.getTime());
+        tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId, sequence);
+        if (tsFileProcessor == null) {
+          return;
+        }
+        insertToTsFileProcessor(insertPlan, tsFileProcessor, timePartitionId);
+      } finally {
+        writeUnlock();
+      }
+    }
+
+    tryToFlush(tsFileProcessor, sequence);
   }
 
   public TSStatus[] insertBatch(BatchInsertPlan batchInsertPlan) throws WriteProcessException {
-    writeLock();
+    TSStatus[] results = new TSStatus[batchInsertPlan.getRowCount()];
+
+    /*
+     * assume that batch has been sorted by client
+     */
+    int loc = 0;
+    while (loc < batchInsertPlan.getRowCount()) {
+      long currTime = batchInsertPlan.getTimes()[loc];
+      // skip points that do not satisfy TTL
+      if (!checkTTL(currTime)) {
+        results[loc] = RpcUtils.getStatus(TSStatusCode.OUT_OF_TTL_ERROR,
+            "time " + currTime + " in current line is out of TTL: " + dataTTL);
+        loc++;
+      } else {
+        break;
+      }
+    }
+
+    // loc pointing at first legal position, insert the rows of each time partition
+    while (loc < batchInsertPlan.getRowCount()) {
+      long timePartitionId = StorageEngine.getTimePartition(batchInsertPlan.getTimes()[loc]);
+      int end = loc + 1;
+      while (end < batchInsertPlan.getRowCount()
+          && StorageEngine.getTimePartition(batchInsertPlan.getTimes()[end]) == timePartitionId) {
+        end++;
+      }
+      insertBatchToTimePartition(batchInsertPlan, loc, end, results, timePartitionId);
+      loc = end;
+    }
+    return results;
+  }
+
+  /**
+   * insert the rows [start, end) of a time partition, the rows before the first one after the
+   * latest flushed time of the device are inserted into the unsequence file, and the others are
+   * inserted into the sequence file.
+   */
+  private void insertBatchToTimePartition(BatchInsertPlan batchInsertPlan, int start, int end,
+      TSStatus[] results, long timePartitionId) throws WriteProcessException {
+    for (int i = start; i < end; i++) {
+      results[i] = RpcUtils.SUCCESS_STATUS;
+    }
+    ReadWriteLock stripeLock = getInsertStripeLock(timePartitionId,
+        batchInsertPlan.getDeviceId());
+
+    int sequenceStart;
+    TsFileProcessor unsequenceProcessor = null;
+    TsFileProcessor sequenceProcessor = null;
+    boolean inserted = false;
+    long lockStartTime = Measurement.INSTANCE.startTimeInNanos();
+    insertLock.readLock().lock();
+    stripeLock.writeLock().lock();
+    Measurement.INSTANCE.addOperationLatencyInNanos(Operation.WAIT_STORAGE_GROUP_LOCK,
+        lockStartTime);
     try {
-      TSStatus[] results = new TSStatus[batchInsertPlan.getRowCount()];
-
-      /*
-       * assume that batch has been sorted by client
-       */
-      int loc = 0;
-      while (loc < batchInsertPlan.getRowCount()) {
-        long currTime = batchInsertPlan.getTimes()[loc];
-        // skip points that do not satisfy TTL
-        if (!checkTTL(currTime)) {
-          results[loc] = RpcUtils.getStatus(TSStatusCode.OUT_OF_TTL_ERROR,
-              "time " + currTime + " in current line is out of TTL: " + dataTTL);
-          loc++;
-        } else {
-          break;
-        }
+      sequenceStart = getSequenceStart(batchInsertPlan, start, end, timePartitionId);
+      if (start < sequenceStart) {
+        unsequenceProcessor = getWorkingTsFileProcessor(timePartitionId, false);
       }
-      // loc pointing at first legal position
-      if (loc == batchInsertPlan.getRowCount()) {
-        return results;
-      }
-      // before is first start point
-      int before = loc;
-      // before time partition
-      long beforeTimePartition = StorageEngine.getTimePartition(batchInsertPlan.getTimes()[before]);
-      // init map
-      long lastFlushTime = partitionLatestFlushedTimeForEachDevice.
-          computeIfAbsent(beforeTimePartition, id -> new HashMap<>()).
-          computeIfAbsent(batchInsertPlan.getDeviceId(), id -> Long.MIN_VALUE);
-      // if is sequence
-      boolean isSequence = false;
-      while (loc < batchInsertPlan.getRowCount()) {
-        long time = batchInsertPlan.getTimes()[loc];
-        long curTimePartition = StorageEngine.getTimePartition(time);
-        results[loc] = RpcUtils.SUCCESS_STATUS;
-        // start next partition
-        if (curTimePartition != beforeTimePartition) {
-          // insert last time partition
-          insertBatchToTsFileProcessor(batchInsertPlan, before, loc, isSequence, results,
-              beforeTimePartition);
-          // re initialize
-          before = loc;
-          beforeTimePartition = curTimePartition;
-          lastFlushTime = partitionLatestFlushedTimeForEachDevice.
-              computeIfAbsent(beforeTimePartition, id -> new HashMap<>()).
-              computeIfAbsent(batchInsertPlan.getDeviceId(), id -> Long.MIN_VALUE);
-          isSequence = false;
-        }
-        // still in this partition
-        else {
-          // judge if we should insert sequence
-          if (!isSequence && time > lastFlushTime) {
-            // insert into unsequence and then start sequence
-            insertBatchToTsFileProcessor(batchInsertPlan, before, loc, false, results,
-                beforeTimePartition);
-            before = loc;
-            isSequence = true;
-          }
-          loc++;
-        }
+      if (sequenceStart < end) {
+        sequenceProcessor = getWorkingTsFileProcessor(timePartitionId, true);
       }
+      if ((start == sequenceStart || unsequenceProcessor != null)
+          && (sequenceStart == end || sequenceProcessor != null)) {
+        insertBatchToTsFileProcessor(batchInsertPlan, start, sequenceStart, false, results,
+            timePartitionId, unsequenceProcessor);
+        insertBatchToTsFileProcessor(batchInsertPlan, sequenceStart, end, true, results,
+            timePartitionId, sequenceProcessor);
+        inserted = true;
+      }
+    } finally {
+      stripeLock.writeLock().unlock();
+      insertLock.readLock().unlock();
+    }
 
-      // do not forget last part
-      if (before < loc) {
-        insertBatchToTsFileProcessor(batchInsertPlan, before, loc, isSequence, results,
-            beforeTimePartition);
+    if (!inserted) {
+      // new TsFileProcessors are created, so the other insertions and queries are excluded
+      writeLock();
+      try {
+        sequenceStart = getSequenceStart(batchInsertPlan, start, end, timePartitionId);
+        unsequenceProcessor = start < sequenceStart
+            ? getOrCreateTsFileProcessor(timePartitionId, false) : null;
+        insertBatchToTsFileProcessor(batchInsertPlan, start, sequenceStart, false, results,
+            timePartitionId, unsequenceProcessor);
+        sequenceProcessor = sequenceStart < end
+            ? getOrCreateTsFileProcessor(timePartitionId, true) : null;
+        insertBatchToTsFileProcessor(batchInsertPlan, sequenceStart, end, true, results,
+            timePartitionId, sequenceProcessor);
+      } finally {
+        writeUnlock();
       }
+    }
 
-      return results;
+    if (unsequenceProcessor != null) {
+      tryToFlush(unsequenceProcessor, false);
+    }
+    if (sequenceProcessor != null) {
+      tryToFlush(sequenceProcessor, true);
+    }
+  }
+
+  /**
+   * @return the first row in [start, end) whose time is after the latest flushed time of the
+   * device, or end if there is no such row
+   */
+  private int getSequenceStart(BatchInsertPlan batchInsertPlan, int start, int end,
+      long timePartitionId) {
+    long lastFlushTime = partitionLatestFlushedTimeForEachDevice
+        .computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>())
+        .getOrDefault(batchInsertPlan.getDeviceId(), Long.MIN_VALUE);
+    int loc = start;
+    while (loc < end && batchInsertPlan.getTimes()[loc] <= lastFlushTime) {
+      loc++;
+    }
+    return loc;
+  }
+
+  /**
+   * the caller should hold the read lock of insertLock and the stripe lock of the device, or the
+   * write lock of insertLock
+   */
+  private boolean isSequence(long timePartitionId, String deviceId, long time) {
+    return time > partitionLatestFlushedTimeForEachDevice
+        .computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>())
+        .getOrDefault(deviceId, Long.MIN_VALUE);
+  }
+
+  private ReadWriteLock getInsertStripeLock(long timePartitionId, String deviceId) {
+    return insertStripeLocks[getInsertStripe(timePartitionId, deviceId)];
+  }
+
+  private int getInsertStripe(long timePartitionId, String deviceId) {
+    return Math.floorMod(31 * Long.hashCode(timePartitionId) + deviceId.hashCode(),
+        insertStripeLocks.length);
+  }
+
+  /**
+   * @return the working TsFileProcessor of the time partition, or null if there is no one, which
+   * can only be created by a holder of the write lock of insertLock
+   */
+  private TsFileProcessor getWorkingTsFileProcessor(long timePartitionId, boolean sequence) {
+    return sequence ? workSequenceTsFileProcessors.get(timePartitionId)
+        : workUnsequenceTsFileProcessors.get(timePartitionId);
+  }
+
+  /**
+   * check the memtable size of a TsFileProcessor after an insertion and may asyncTryToFlush the
+   * work memtable. As switching the memtable excludes all insertions, it is done after the
+   * insertion releases its stripe lock.
+   */
+  private void tryToFlush(TsFileProcessor tsFileProcessor, boolean sequence) {
+    if (!tsFileProcessor.shouldFlush()) {
+      return;
+    }
+    writeLock();
+    try {
+      // another insertion may have flushed or closed it before the write lock is got
+      if (getWorkingTsFileProcessor(tsFileProcessor.getTimeRangeId(), sequence) == tsFileProcessor
+          && tsFileProcessor.shouldFlush()) {
+        fileFlushPolicy.apply(this, tsFileProcessor, sequence);
+      }
     } finally {
       writeUnlock();
     }
@@ -580,16 +740,17 @@ public class StorageGroupProcessor {
    * @param sequence whether is sequence
    * @param results result array
    * @param timePartitionId time partition id
+   * @param tsFileProcessor the working TsFileProcessor of the partition, null if it can not be
+   * created
    */
   private void insertBatchToTsFileProcessor(BatchInsertPlan batchInsertPlan,
-      int start, int end, boolean sequence, TSStatus[] results, long timePartitionId)
-      throws WriteProcessException {
+      int start, int end, boolean sequence, TSStatus[] results, long timePartitionId,
+      TsFileProcessor tsFileProcessor) throws WriteProcessException {
     // return when start >= end
     if (start >= end) {
       return;
     }
 
-    TsFileProcessor tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId, sequence);
     if (tsFileProcessor == null) {
       for (int i = start; i < end; i++) {
         results[i] = RpcUtils.getStatus(TSStatusCode.INTERNAL_SERVER_ERROR,
@@ -605,22 +766,16 @@ public class StorageGroupProcessor {
       return;
     }
 
-    latestTimeForEachDevice.computeIfAbsent(timePartitionId, t -> new HashMap<>());
+    Map<String, Long> latestTimeMap = latestTimeForEachDevice
+        .computeIfAbsent(timePartitionId, t -> new ConcurrentHashMap<>());
     // try to update the latest time of the device of this tsRecord
-    if (sequence && latestTimeForEachDevice.get(timePartitionId)
-        .getOrDefault(batchInsertPlan.getDeviceId(), Long.MIN_VALUE)
+    if (sequence && latestTimeMap.getOrDefault(batchInsertPlan.getDeviceId(), Long.MIN_VALUE)
         < batchInsertPlan.getTimes()[end - 1]) {
-      latestTimeForEachDevice.get(timePartitionId)
-          .put(batchInsertPlan.getDeviceId(), batchInsertPlan.getTimes()[end - 1]);
+      latestTimeMap.put(batchInsertPlan.getDeviceId(), batchInsertPlan.getTimes()[end - 1]);
     }
     long globalLatestFlushedTime = globalLatestFlushedTimeForEachDevice.getOrDefault(
         batchInsertPlan.getDeviceId(), Long.MIN_VALUE);
     tryToUpdateBatchInsertLastCache(batchInsertPlan, globalLatestFlushedTime);
-
-    // check memtable size and may async try to flush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
-    }
   }
 
   public void tryToUpdateBatchInsertLastCache(BatchInsertPlan plan, Long latestFlushedTime)
@@ -640,35 +795,23 @@ public class StorageGroupProcessor {
     }
   }
 
-  private void insertToTsFileProcessor(InsertPlan insertPlan, boolean sequence)
-      throws WriteProcessException {
-    long timePartitionId = StorageEngine.getTimePartition(insertPlan.getTime());
-
-    TsFileProcessor tsFileProcessor = getOrCreateTsFileProcessor(timePartitionId, sequence);
-
-    if (tsFileProcessor == null) {
-      return;
-    }
-
+  private void insertToTsFileProcessor(InsertPlan insertPlan, TsFileProcessor tsFileProcessor,
+      long timePartitionId) throws WriteProcessException {
     // insert TsFileProcessor
     tsFileProcessor.insert(insertPlan);
 
     // try to update the latest time of the device of this tsRecord
-    if (latestTimeForEachDevice.get(timePartitionId)
-        .getOrDefault(insertPlan.getDeviceId(), Long.MIN_VALUE) < insertPlan.getTime()) {
-      latestTimeForEachDevice.get(timePartitionId)
-          .put(insertPlan.getDeviceId(), insertPlan.getTime());
+    Map<String, Long> latestTimeMap = latestTimeForEachDevice
+        .computeIfAbsent(timePartitionId, t -> new ConcurrentHashMap<>());
+    if (latestTimeMap.getOrDefault(insertPlan.getDeviceId(), Long.MIN_VALUE)
+        < insertPlan.getTime()) {
+      latestTimeMap.put(insertPlan.getDeviceId(), insertPlan.getTime());
     }
 
     long globalLatestFlushTime = globalLatestFlushedTimeForEachDevice.getOrDefault(
         insertPlan.getDeviceId(), Long.MIN_VALUE);
 
     tryToUpdateInsertLastCache(insertPlan, globalLatestFlushTime);
-
-    // check memtable size and may asyncTryToFlush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
-    }
   }
 
   public void tryToUpdateInsertLastCache(InsertPlan plan, Long latestFlushedTime)
@@ -894,6 +1037,7 @@ public class StorageGroupProcessor {
     }
     try {
       closeAllResources();
+      QueryResultCache.getInstance().invalidate(storageGroupName);
       List<String> folder = DirectoryManager.getInstance().getAllSequenceFileFolders();
       folder.addAll(DirectoryManager.getInstance().getAllUnSequenceFileFolders());
       deleteAllSGFolders(folder);
@@ -1034,13 +1178,34 @@ public class StorageGroupProcessor {
       QueryFileManager filePathsManager, Filter timeFilter) throws QueryProcessException {
     insertLock.readLock().lock();
     mergeLock.readLock().lock();
+    // the stripes are locked in order so queries waiting for each other's stripes do not deadlock
+    // behind waiting insertions
+    Set<Integer> stripes = new TreeSet<>();
+    for (long timePartitionId : workSequenceTsFileProcessors.keySet()) {
+      stripes.add(getInsertStripe(timePartitionId, deviceId));
+    }
+    for (long timePartitionId : workUnsequenceTsFileProcessors.keySet()) {
+      stripes.add(getInsertStripe(timePartitionId, deviceId));
+    }
+    for (int stripe : stripes) {
+      insertStripeLocks[stripe].readLock().lock();
+    }
     try {
+      Path seriesPath = new Path(deviceId, measurementId);
+      SeriesProfile profile = context.getSeriesProfile(seriesPath);
+      long startTime = profile == null ? Measurement.INSTANCE.startTimeInNanos()
+          : System.nanoTime();
       List<TsFileResource> seqResources = getFileResourceListForQuery(sequenceFileTreeSet,
           deviceId, measurementId, context, timeFilter);
       List<TsFileResource> unseqResources = getFileResourceListForQuery(unSequenceFileList,
           deviceId, measurementId, context, timeFilter);
-      QueryDataSource dataSource = new QueryDataSource(new Path(deviceId, measurementId),
-          seqResources, unseqResources);
+      Measurement.INSTANCE.addOperationLatencyInNanos(Operation.SELECT_QUERY_FILES, startTime);
+      if (profile != null) {
+        profile.addTime(Counter.FILE_SELECTION_TIME, startTime);
+        profile.add(Counter.SEQ_FILES, seqResources.size());
+        profile.add(Counter.UNSEQ_FILES, unseqResources.size());
+      }
+      QueryDataSource dataSource = new QueryDataSource(seriesPath, seqResources, unseqResources);
       // used files should be added before mergeLock is unlocked, or they may be deleted by
       // running merge
       // is null only in tests
@@ -1052,6 +1217,9 @@ public class StorageGroupProcessor {
     } catch (MetadataException e) {
       throw new QueryProcessException(e);
     } finally {
+      for (int stripe : stripes) {
+        insertStripeLocks[stripe].readLock().unlock();
+      }
       insertLock.readLock().unlock();
       mergeLock.readLock().unlock();
     }
@@ -1181,6 +1349,7 @@ public class StorageGroupProcessor {
 
       deleteDataInFiles(sequenceFileTreeSet, deletion, updatedModFiles);
       deleteDataInFiles(unSequenceFileList, deletion, updatedModFiles);
+      QueryResultCache.getInstance().invalidate(storageGroupName);
 
     } catch (Exception e) {
       // roll back
@@ -1274,7 +1443,7 @@ public class StorageGroupProcessor {
 
     for (Entry<String, Long> entry : curPartitionDeviceLatestTime.entrySet()) {
       partitionLatestFlushedTimeForEachDevice
-          .computeIfAbsent(processor.getTimeRangeId(), id -> new HashMap<>())
+          .computeIfAbsent(processor.getTimeRangeId(), id -> new ConcurrentHashMap<>())
           .put(entry.getKey(), entry.getValue());
       if (globalLatestFlushedTimeForEachDevice
           .getOrDefault(entry.getKey(), Long.MIN_VALUE) < entry.getValue()) {
@@ -1481,6 +1650,8 @@ public class StorageGroupProcessor {
     }
 
     removeUnseqFiles(unseqFiles);
+    // the merged sequence files keep their names, so the cached results of them are stale
+    QueryResultCache.getInstance().invalidate(storageGroupName);
 
     for (int i = 0; i < seqFiles.size(); i++) {
       TsFileResource seqFile = seqFiles.get(i);
@@ -1793,7 +1964,7 @@ public class StorageGroupProcessor {
       String device = entry.getKey();
       long endTime = newTsFileResource.getEndTimeMap().get(device);
       long timePartitionId = StorageEngine.getTimePartition(endTime);
-      if (!latestTimeForEachDevice.computeIfAbsent(timePartitionId, id -> new HashMap<>())
+      if (!latestTimeForEachDevice.computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>())
           .containsKey(device)
           || latestTimeForEachDevice.get(timePartitionId).get(device) < endTime) {
         latestTimeForEachDevice.get(timePartitionId).put(device, endTime);
@@ -1804,7 +1975,7 @@ public class StorageGroupProcessor {
 
       if (latestFlushTimeForPartition.getOrDefault(device, Long.MIN_VALUE) < endTime) {
         partitionLatestFlushedTimeForEachDevice
-            .computeIfAbsent(timePartitionId, id -> new HashMap<>()).put(device, endTime);
+            .computeIfAbsent(timePartitionId, id -> new ConcurrentHashMap<>()).put(device, endTime);
       }
       if (globalLatestFlushedTimeForEachDevice.getOrDefault(device, Long.MIN_VALUE) < endTime) {
         globalLatestFlushedTimeForEachDevice.put(device, endTime);
@@ -2013,6 +2184,7 @@ public class StorageGroupProcessor {
 
   public void setDataTTL(long dataTTL) {
     this.dataTTL = dataTTL;
+    QueryResultCache.getInstance().invalidate(storageGroupName);
     checkFilesTTL();
   }
 
@@ -33,6 +33,8 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.conf.adapter.CompressionRatio;
 import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.engine.cache.RamUsageEstimator;
 import org.apache.iotdb.db.engine.flush.FlushManager;
 import org.apache.iotdb.db.engine.flush.MemTableFlushTask;
@@ -42,11 +44,16 @@ import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.rollup.RollupDefinition;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
+import org.apache.iotdb.db.engine.sketch.TsFileSketch;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.CloseTsFileCallBack;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.UpdateEndTimeCallBack;
 import org.apache.iotdb.db.engine.version.VersionController;
 import org.apache.iotdb.db.exception.TsFileProcessorException;
 import org.apache.iotdb.db.exception.WriteProcessException;
+import org.apache.iotdb.db.exception.runtime.QueryMemoryExceededException;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
@@ -87,7 +94,11 @@ public class TsFileProcessor {
    * and its flushingMemTables are all flushed, then the flush thread will close this file.)
    */
   private volatile boolean shouldClose;
-  private IMemTable workMemTable;
+  /**
+   * insertions of different devices may come concurrently, while it is only switched (e.g., by a
+   * flush) when no insertion is running
+   */
+  private volatile IMemTable workMemTable;
 
   private VersionController versionController;
   /**
@@ -101,6 +112,15 @@ public class TsFileProcessor {
   private WriteLogNode logNode;
   private boolean sequence;
   private long totalMemTableSize;
+  /**
+   * the rollups of the flushed data, only a sequence file flushed from its first memtable has
+   * them. It is written when the file is closed.
+   */
+  private TsFileRollup rollup;
+  /**
+   * the sketches of the flushed data, kept like the rollups
+   */
+  private TsFileSketch sketch;
 
   private static final String FLUSH_QUERY_WRITE_LOCKED = "{}: {} get flushQueryLock write lock";
   private static final String FLUSH_QUERY_WRITE_RELEASE = "{}: {} get flushQueryLock write lock released";
@@ -117,6 +137,13 @@ public class TsFileProcessor {
     this.closeTsFileCallback = closeTsFileCallback;
     this.updateLatestFlushTimeCallback = updateLatestFlushTimeCallback;
     this.sequence = sequence;
+    List<RollupDefinition> rollupDefinitions = RollupManager.getInstance().getDefinitions();
+    if (sequence && !rollupDefinitions.isEmpty()) {
+      this.rollup = new TsFileRollup(rollupDefinitions);
+    }
+    if (sequence && IoTDBDescriptor.getInstance().getConfig().isEnableFileSketch()) {
+      this.sketch = new TsFileSketch();
+    }
     logger.info("create a new tsfile processor {}", tsfile.getAbsolutePath());
     // a file generated by flush has only one historical version, which is itself
     this.tsFileResource
@@ -152,16 +179,16 @@ public class TsFileProcessor {
    */
   public void insert(InsertPlan insertPlan) throws WriteProcessException {
 
-    if (workMemTable == null) {
-      workMemTable = MemTablePool.getInstance().getAvailableMemTable(this);
-    }
-
     // insert insertPlan to the work memtable
-    workMemTable.insert(insertPlan);
+    long startTime = Measurement.INSTANCE.startTimeInNanos();
+    getOrCreateWorkMemTable().insert(insertPlan);
+    Measurement.INSTANCE.addOperationLatencyInNanos(Operation.WRITE_MEMTABLE, startTime);
 
     if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
       try {
+        startTime = Measurement.INSTANCE.startTimeInNanos();
         getLogNode().write(insertPlan);
+        Measurement.INSTANCE.addOperationLatencyInNanos(Operation.WRITE_WAL, startTime);
       } catch (Exception e) {
         throw new WriteProcessException(String.format("%s: %s write WAL failed",
             storageGroupName, tsFileResource.getFile().getAbsolutePath()), e);
@@ -180,17 +207,19 @@ public class TsFileProcessor {
   public void insertBatch(BatchInsertPlan batchInsertPlan, int start, int end,
       TSStatus[] results) throws WriteProcessException {
 
-    if (workMemTable == null) {
-      workMemTable = MemTablePool.getInstance().getAvailableMemTable(this);
-    }
+    IMemTable memTable = getOrCreateWorkMemTable();
 
     // insert insertPlan to the work memtable
     try {
-      workMemTable.insertBatch(batchInsertPlan, start, end);
+      long startTime = Measurement.INSTANCE.startTimeInNanos();
+      memTable.insertBatch(batchInsertPlan, start, end);
+      Measurement.INSTANCE.addOperationLatencyInNanos(Operation.WRITE_MEMTABLE, startTime);
       if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
         batchInsertPlan.setStart(start);
         batchInsertPlan.setEnd(end);
+        startTime = Measurement.INSTANCE.startTimeInNanos();
         getLogNode().write(batchInsertPlan);
+        Measurement.INSTANCE.addOperationLatencyInNanos(Operation.WRITE_WAL, startTime);
       }
     } catch (Exception e) {
       for (int i = start; i < end; i++) {
@@ -214,6 +243,20 @@ public class TsFileProcessor {
     }
   }
 
+  private IMemTable getOrCreateWorkMemTable() {
+    IMemTable memTable = workMemTable;
+    if (memTable == null) {
+      synchronized (this) {
+        memTable = workMemTable;
+        if (memTable == null) {
+          memTable = MemTablePool.getInstance().getAvailableMemTable(this);
+          workMemTable = memTable;
+        }
+      }
+    }
+    return memTable;
+  }
+
   /**
    * Delete data which belongs to the timeseries `deviceId.measurementId` and the timestamp of which
    * <= 'timestamp' in the deletion. <br/>
@@ -523,13 +566,16 @@ public class TsFileProcessor {
     // signal memtable only may appear when calling asyncClose()
     if (!memTableToFlush.isSignalMemTable()) {
       MemTableFlushTask flushTask = new MemTableFlushTask(memTableToFlush, writer,
-          storageGroupName);
+          storageGroupName, rollup, sketch);
       try {
         writer.mark();
         flushTask.syncFlushMemTable();
       } catch (Exception e) {
         logger.error("{}: {} meet error when flushing a memtable, change system mode to read-only",
             storageGroupName, tsFileResource.getFile().getName(), e);
+        // the rollups and the sketches may contain data that is truncated
+        rollup = null;
+        sketch = null;
         IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
         try {
           logger.error("{}: {} IOTask meets error, truncate the corrupted data", storageGroupName,
@@ -613,8 +659,29 @@ public class TsFileProcessor {
 
   private void endFile() throws IOException, TsFileProcessorException {
     long closeStartTime = System.currentTimeMillis();
+    // the rollups and the sketches are written before the file is complete, so a complete file
+    // never has incomplete ones
+    if (rollup != null && !rollup.isEmpty()) {
+      try {
+        rollup.serialize(tsFileResource.getFile());
+      } catch (IOException e) {
+        logger.warn("{}: {} cannot write the rollups, the file will be read instead",
+            storageGroupName, tsFileResource.getFile().getName(), e);
+      }
+    }
+    rollup = null;
+    if (sketch != null && !sketch.isEmpty()) {
+      try {
+        sketch.serialize(tsFileResource.getFile());
+      } catch (IOException e) {
+        logger.warn("{}: {} cannot write the sketches, the file will be read instead",
+            storageGroupName, tsFileResource.getFile().getName(), e);
+      }
+    }
+    sketch = null;
     tsFileResource.serialize();
     writer.endFile();
+    ResourceSummaryManager.getInstance().append(tsFileResource);
     tsFileResource.cleanCloseFlag();
 
     // remove this processor from Closing list in StorageGroupProcessor,
@@ -705,6 +772,7 @@ public class TsFileProcessor {
         ReadOnlyMemChunk memChunk = flushingMemTable.query(deviceId, measurementId,
             dataType, encoding, props, context.getQueryTimeLowerBound());
         if (memChunk != null) {
+          context.allocateMemory(memChunk.getMemSize());
           readOnlyMemChunks.add(memChunk);
         }
       }
@@ -712,6 +780,7 @@ public class TsFileProcessor {
         ReadOnlyMemChunk memChunk = workMemTable.query(deviceId, measurementId, dataType, encoding,
             props, context.getQueryTimeLowerBound());
         if (memChunk != null) {
+          context.allocateMemory(memChunk.getMemSize());
           readOnlyMemChunks.add(memChunk);
         }
       }
@@ -728,6 +797,8 @@ public class TsFileProcessor {
       chunkMetadataList.removeIf(context::chunkNotSatisfy);
 
       return new Pair<>(readOnlyMemChunks, chunkMetadataList);
+    } catch (QueryMemoryExceededException e) {
+      throw e;
     } catch (Exception e) {
       logger.error("{}: {} get ReadOnlyMemChunk has error", storageGroupName,
           tsFileResource.getFile().getName(), e);
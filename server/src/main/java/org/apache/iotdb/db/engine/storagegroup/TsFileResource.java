@@ -22,6 +22,8 @@ import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
+import org.apache.iotdb.db.engine.sketch.TsFileSketch;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.engine.upgrade.UpgradeTask;
 import org.apache.iotdb.db.exception.PartitionViolationException;
@@ -58,14 +60,15 @@ public class TsFileResource {
   private static final String CLOSING_SUFFIX = ".closing";
 
   /**
-   * device -> start time
+   * device -> start time, which is a compact DeviceTimeMap once the file is sealed
    */
-  protected Map<String, Long> startTimeMap;
+  protected volatile Map<String, Long> startTimeMap;
 
   /**
-   * device -> end time. It is null if it's an unsealed sequence tsfile
+   * device -> end time. It is null if it's an unsealed sequence tsfile, and is a compact
+   * DeviceTimeMap once the file is sealed
    */
-  protected Map<String, Long> endTimeMap;
+  protected volatile Map<String, Long> endTimeMap;
 
   public TsFileProcessor getProcessor() {
     return processor;
@@ -199,23 +202,7 @@ public class TsFileResource {
   public void serialize() throws IOException {
     try (OutputStream outputStream = fsFactory.getBufferedOutputStream(
         file + RESOURCE_SUFFIX + TEMP_SUFFIX)) {
-      ReadWriteIOUtils.write(this.startTimeMap.size(), outputStream);
-      for (Entry<String, Long> entry : this.startTimeMap.entrySet()) {
-        ReadWriteIOUtils.write(entry.getKey(), outputStream);
-        ReadWriteIOUtils.write(entry.getValue(), outputStream);
-      }
-      ReadWriteIOUtils.write(this.endTimeMap.size(), outputStream);
-      for (Entry<String, Long> entry : this.endTimeMap.entrySet()) {
-        ReadWriteIOUtils.write(entry.getKey(), outputStream);
-        ReadWriteIOUtils.write(entry.getValue(), outputStream);
-      }
-
-      if (historicalVersions != null) {
-        ReadWriteIOUtils.write(this.historicalVersions.size(), outputStream);
-        for (Long historicalVersion : historicalVersions) {
-          ReadWriteIOUtils.write(historicalVersion, outputStream);
-        }
-      }
+      serialize(outputStream);
     }
     File src = fsFactory.getFile(file + RESOURCE_SUFFIX + TEMP_SUFFIX);
     File dest = fsFactory.getFile(file + RESOURCE_SUFFIX);
@@ -223,37 +210,74 @@ public class TsFileResource {
     fsFactory.moveFile(src, dest);
   }
 
+  void serialize(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(this.startTimeMap.size(), outputStream);
+    for (Entry<String, Long> entry : this.startTimeMap.entrySet()) {
+      ReadWriteIOUtils.write(entry.getKey(), outputStream);
+      ReadWriteIOUtils.write(entry.getValue(), outputStream);
+    }
+    ReadWriteIOUtils.write(this.endTimeMap.size(), outputStream);
+    for (Entry<String, Long> entry : this.endTimeMap.entrySet()) {
+      ReadWriteIOUtils.write(entry.getKey(), outputStream);
+      ReadWriteIOUtils.write(entry.getValue(), outputStream);
+    }
+
+    if (historicalVersions != null) {
+      ReadWriteIOUtils.write(this.historicalVersions.size(), outputStream);
+      for (Long historicalVersion : historicalVersions) {
+        ReadWriteIOUtils.write(historicalVersion, outputStream);
+      }
+    }
+  }
+
   public void deserialize() throws IOException {
     try (InputStream inputStream = fsFactory.getBufferedInputStream(
         file + RESOURCE_SUFFIX)) {
-      int size = ReadWriteIOUtils.readInt(inputStream);
-      Map<String, Long> startTimes = new HashMap<>();
-      for (int i = 0; i < size; i++) {
-        String path = ReadWriteIOUtils.readString(inputStream);
-        long time = ReadWriteIOUtils.readLong(inputStream);
-        startTimes.put(path, time);
-      }
-      size = ReadWriteIOUtils.readInt(inputStream);
-      Map<String, Long> endTimes = new HashMap<>();
-      for (int i = 0; i < size; i++) {
-        String path = ReadWriteIOUtils.readString(inputStream);
-        long time = ReadWriteIOUtils.readLong(inputStream);
-        endTimes.put(path, time);
-      }
-      this.startTimeMap = startTimes;
-      this.endTimeMap = endTimes;
-
-      if (inputStream.available() > 0) {
-        int versionSize = ReadWriteIOUtils.readInt(inputStream);
-        historicalVersions = new HashSet<>();
-        for (int i = 0; i < versionSize; i++) {
-          historicalVersions.add(ReadWriteIOUtils.readLong(inputStream));
-        }
-      } else {
-        // use the version in file name as the historical version for files of old versions
-        long version = Long.parseLong(file.getName().split(IoTDBConstant.TSFILE_NAME_SEPARATOR)[1]);
-        historicalVersions = Collections.singleton(version);
+      deserialize(inputStream);
+    }
+  }
+
+  /**
+   * @param inputStream a stream that ends right after the resource
+   */
+  void deserialize(InputStream inputStream) throws IOException {
+    this.startTimeMap = deserializeTimeMap(inputStream);
+    this.endTimeMap = deserializeTimeMap(inputStream);
+
+    if (inputStream.available() > 0) {
+      int versionSize = ReadWriteIOUtils.readInt(inputStream);
+      historicalVersions = new HashSet<>();
+      for (int i = 0; i < versionSize; i++) {
+        historicalVersions.add(ReadWriteIOUtils.readLong(inputStream));
       }
+    } else {
+      // use the version in file name as the historical version for files of old versions
+      long version = Long.parseLong(file.getName().split(IoTDBConstant.TSFILE_NAME_SEPARATOR)[1]);
+      historicalVersions = Collections.singleton(version);
+    }
+  }
+
+  private static Map<String, Long> deserializeTimeMap(InputStream inputStream)
+      throws IOException {
+    int size = ReadWriteIOUtils.readInt(inputStream);
+    String[] devices = new String[size];
+    long[] times = new long[size];
+    for (int i = 0; i < size; i++) {
+      devices[i] = ReadWriteIOUtils.readString(inputStream);
+      times[i] = ReadWriteIOUtils.readLong(inputStream);
+    }
+    return new DeviceTimeMap(devices, times, size);
+  }
+
+  /**
+   * replace the time maps with compact ones, as they are rarely updated after the file is sealed
+   */
+  private void compactTimeMaps() {
+    if (startTimeMap != null && !(startTimeMap instanceof DeviceTimeMap)) {
+      startTimeMap = new DeviceTimeMap(startTimeMap);
+    }
+    if (endTimeMap != null && !(endTimeMap instanceof DeviceTimeMap)) {
+      endTimeMap = new DeviceTimeMap(endTimeMap);
     }
   }
 
@@ -328,6 +352,7 @@ public class TsFileResource {
 
   public void close() throws IOException {
     closed = true;
+    compactTimeMaps();
     if (modFile != null) {
       modFile.close();
       modFile = null;
@@ -359,6 +384,8 @@ public class TsFileResource {
     file.delete();
     fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX).delete();
     fsFactory.getFile(file.getPath() + ModificationFile.FILE_SUFFIX).delete();
+    fsFactory.getFile(file.getPath() + TsFileRollup.ROLLUP_SUFFIX).delete();
+    fsFactory.getFile(file.getPath() + TsFileSketch.SKETCH_SUFFIX).delete();
   }
 
   void moveTo(File targetDir) throws IOException {
@@ -366,6 +393,8 @@ public class TsFileResource {
     FileUtils.moveFile(fsFactory.getFile(file.getPath() + RESOURCE_SUFFIX),
         new File(targetDir, file.getName() + RESOURCE_SUFFIX));
     fsFactory.getFile(file.getPath() + ModificationFile.FILE_SUFFIX).delete();
+    fsFactory.getFile(file.getPath() + TsFileRollup.ROLLUP_SUFFIX).delete();
+    fsFactory.getFile(file.getPath() + TsFileSketch.SKETCH_SUFFIX).delete();
   }
 
   @Override
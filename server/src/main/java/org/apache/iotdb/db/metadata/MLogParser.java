@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MLogParser parses the lines written by MLogWriter, so the metadata log is replayed the same way
+ * by MManager and MTreeSnapshot.
+ */
+public class MLogParser {
+
+  private static final Logger logger = LoggerFactory.getLogger(MLogParser.class);
+
+  private MLogParser() {
+    // util class
+  }
+
+  public static void parse(String cmd, MetadataOperationHandler handler)
+      throws IOException, MetadataException {
+    //see MLogWriter.createTimeseries() to get the detailed format of the cmd
+    String[] args = cmd.trim().split(",", -1);
+    switch (args[0]) {
+      case MetadataOperationType.CREATE_TIMESERIES:
+        Map<String, String> props = new HashMap<>();
+        if (!args[5].isEmpty()) {
+          String[] keyValues = args[5].split("&");
+          String[] kv;
+          for (String keyValue : keyValues) {
+            kv = keyValue.split("=");
+            props.put(kv[0], kv[1]);
+          }
+        }
+
+        String alias = null;
+        if (!args[6].isEmpty()) {
+          alias = args[6];
+        }
+        long offset = -1L;
+        if (!args[7].isEmpty()) {
+          offset = Long.parseLong(args[7]);
+        }
+
+        CreateTimeSeriesPlan plan = new CreateTimeSeriesPlan(new Path(args[1]),
+            TSDataType.deserialize(Short.parseShort(args[2])),
+            TSEncoding.deserialize(Short.parseShort(args[3])),
+            CompressionType.deserialize(Short.parseShort(args[4])),
+            props, null, null, alias);
+        handler.createTimeseries(plan, offset);
+        break;
+      case MetadataOperationType.DELETE_TIMESERIES:
+        handler.deleteTimeseries(args[1]);
+        break;
+      case MetadataOperationType.SET_STORAGE_GROUP:
+        handler.setStorageGroup(args[1]);
+        break;
+      case MetadataOperationType.DELETE_STORAGE_GROUP:
+        handler.deleteStorageGroups(Arrays.asList(args).subList(1, args.length));
+        break;
+      case MetadataOperationType.SET_TTL:
+        handler.setTTL(args[1], Long.parseLong(args[2]));
+        break;
+      default:
+        logger.error("Unrecognizable command {}", cmd);
+    }
+  }
+}
@@ -50,12 +50,12 @@ import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -68,24 +68,30 @@ public class MManager {
   private static final Logger logger = LoggerFactory.getLogger(MManager.class);
   private static final String TIME_SERIES_TREE_HEADER = "===  Timeseries Tree  ===\n\n";
 
-  // the lock for read/insert
+  /*
+   * Reads and creating timeseries take the read lock, so timeseries are created in parallel, with
+   * the nodes added under the lock of their parents. Deletions and storage group changes take the
+   * write lock.
+   */
   private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
   // the log file seriesPath
   private String logFilePath;
   private MTree mtree;
   private MLogWriter logWriter;
   private TagLogFile tagLogFile;
+  private MTreeSnapshot mtreeSnapshot;
   private boolean writeToLog;
   // device -> DeviceMNode
   private RandomDeleteCache<String, MNode> mNodeCache;
 
   // tag key -> tag value -> LeafMNode
-  private Map<String, Map<String, Set<LeafMNode>>> tagIndex = new HashMap<>();
+  private Map<String, Map<String, Set<LeafMNode>>> tagIndex = new ConcurrentHashMap<>();
 
-  private Map<String, Integer> seriesNumberInStorageGroups = new HashMap<>();
-  private long maxSeriesNumberAmongStorageGroup;
+  private Map<String, Integer> seriesNumberInStorageGroups = new ConcurrentHashMap<>();
+  private AtomicLong maxSeriesNumberAmongStorageGroup = new AtomicLong();
   private boolean initialized;
   private IoTDBConfig config;
+  private final LogReplayer logReplayer = new LogReplayer();
 
   private static class MManagerHolder {
     private MManagerHolder() {
@@ -142,10 +148,12 @@ public class MManager {
 
     try {
       tagLogFile = new TagLogFile(config.getSchemaDir(), MetadataConstant.TAG_LOG);
+      mtreeSnapshot = new MTreeSnapshot(config.getSchemaDir(), MetadataConstant.METADATA_LOG,
+          config.getMtreeSnapshotInterval());
 
       if (config.isEnableParameterAdapter()) {
         // storage group name -> the series number
-        seriesNumberInStorageGroups = new HashMap<>();
+        seriesNumberInStorageGroups = new ConcurrentHashMap<>();
       }
 
       initFromLog(logFile);
@@ -157,10 +165,10 @@ public class MManager {
           seriesNumberInStorageGroups.put(sg, node.getLeafCount());
         }
         if (seriesNumberInStorageGroups.isEmpty()) {
-          maxSeriesNumberAmongStorageGroup = 0;
+          maxSeriesNumberAmongStorageGroup.set(0);
         } else {
-          maxSeriesNumberAmongStorageGroup = seriesNumberInStorageGroups.values().stream()
-              .max(Integer::compareTo).get();
+          maxSeriesNumberAmongStorageGroup.set(seriesNumberInStorageGroups.values().stream()
+              .max(Integer::compareTo).get());
         }
       }
 
@@ -174,19 +182,72 @@ public class MManager {
   }
 
   private void initFromLog(File logFile) throws IOException {
-    // init the metadata from the operation log
-    mtree = new MTree();
-    if (logFile.exists()) {
-      try (FileReader fr = new FileReader(logFile);
-          BufferedReader br = new BufferedReader(fr)) {
-        String cmd;
-        while ((cmd = br.readLine()) != null) {
-          try {
-            operation(cmd);
-          } catch (Exception e) {
-            logger.error("Can not operate cmd {}", cmd, e);
-          }
+    // init the metadata from the snapshot and the operation log written after it
+    long logOffset = 0;
+    Pair<MTree, Long> snapshot = mtreeSnapshot.load();
+    if (snapshot != null) {
+      mtree = snapshot.left;
+      logOffset = snapshot.right;
+      initFromSnapshot();
+    } else {
+      mtree = new MTree();
+    }
+
+    int[] replayedLineNum = new int[1];
+    MTreeSnapshot.readLog(logFile, logOffset, true, cmd -> {
+      replayedLineNum[0]++;
+      try {
+        operation(cmd);
+      } catch (Exception e) {
+        logger.error("Can not operate cmd {}", cmd, e);
+      }
+    });
+    logger.info("{} lines of the metadata log are replayed after the MTree snapshot",
+        replayedLineNum[0]);
+    // a long replay means the snapshot should be updated
+    mtreeSnapshot.onLogWritten(replayedLineNum[0]);
+  }
+
+  /**
+   * Rebuild the tag index and statistics of the MTree loaded from the snapshot, which are built
+   * by each operation when replaying the log.
+   */
+  private void initFromSnapshot() throws IOException {
+    List<StorageGroupMNode> storageGroupNodes = mtree.getAllStorageGroupNodes();
+    int timeseriesNum = 0;
+    for (StorageGroupMNode storageGroupNode : storageGroupNodes) {
+      int leafCount = storageGroupNode.getLeafCount();
+      timeseriesNum += leafCount;
+      if (config.isEnableParameterAdapter()) {
+        ActiveTimeSeriesCounter.getInstance().init(storageGroupNode.getFullPath());
+        seriesNumberInStorageGroups.put(storageGroupNode.getFullPath(), leafCount);
+      }
+    }
+    try {
+      IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(storageGroupNodes.size());
+      IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(timeseriesNum);
+    } catch (ConfigAdjusterException e) {
+      logger.error("The metadata in the MTree snapshot exceeds the memory limit", e);
+    }
+
+    Deque<MNode> nodeDeque = new ArrayDeque<>();
+    nodeDeque.add(mtree.getRoot());
+    while (!nodeDeque.isEmpty()) {
+      MNode node = nodeDeque.removeFirst();
+      if (node instanceof LeafMNode) {
+        LeafMNode leafMNode = (LeafMNode) node;
+        if (leafMNode.getOffset() < 0) {
+          continue;
         }
+        Map<String, String> tagMap = tagLogFile
+            .readTag(config.getTagAttributeTotalSize(), leafMNode.getOffset());
+        for (Entry<String, String> entry : tagMap.entrySet()) {
+          tagIndex.computeIfAbsent(entry.getKey(), k -> new ConcurrentHashMap<>())
+              .computeIfAbsent(entry.getValue(), v -> ConcurrentHashMap.newKeySet())
+              .add(leafMNode);
+        }
+      } else {
+        nodeDeque.addAll(node.getChildren().values());
       }
     }
   }
@@ -203,15 +264,21 @@ public class MManager {
       if (seriesNumberInStorageGroups != null) {
         this.seriesNumberInStorageGroups.clear();
       }
-      this.maxSeriesNumberAmongStorageGroup = 0;
+      this.maxSeriesNumberAmongStorageGroup.set(0);
       if (logWriter != null) {
         logWriter.close();
         logWriter = null;
       }
+      // do not write log when recover in the next init()
+      writeToLog = false;
       if (tagLogFile != null) {
         tagLogFile.close();
         tagLogFile = null;
       }
+      if (mtreeSnapshot != null) {
+        mtreeSnapshot.close();
+        mtreeSnapshot = null;
+      }
       initialized = false;
     } catch (IOException e) {
       logger.error("Cannot close metadata log writer, because:", e);
@@ -221,57 +288,7 @@ public class MManager {
   }
 
   public void operation(String cmd) throws IOException, MetadataException {
-    //see createTimeseries() to get the detailed format of the cmd
-    String[] args = cmd.trim().split(",", -1);
-    switch (args[0]) {
-      case MetadataOperationType.CREATE_TIMESERIES:
-        Map<String, String> props = new HashMap<>();
-        if (!args[5].isEmpty()){
-          String[] keyValues = args[5].split("&");
-          String[] kv;
-          for (String keyValue : keyValues) {
-            kv = keyValue.split("=");
-            props.put(kv[0], kv[1]);
-          }
-        }
-
-        String alias = null;
-        if (!args[6].isEmpty()) {
-          alias = args[6];
-        }
-        long offset = -1L;
-        Map<String, String>  tagMap = null;
-        if (!args[7].isEmpty()) {
-          offset = Long.parseLong(args[7]);
-          tagMap = tagLogFile.readTag(config.getTagAttributeTotalSize(), offset);
-        }
-
-        CreateTimeSeriesPlan plan = new CreateTimeSeriesPlan(new Path(args[1]),
-            TSDataType.deserialize(Short.parseShort(args[2])),
-            TSEncoding.deserialize(Short.parseShort(args[3])),
-            CompressionType.deserialize(Short.parseShort(args[4])),
-            props, tagMap, null, alias);
-        createTimeseries(plan, offset);
-        break;
-      case MetadataOperationType.DELETE_TIMESERIES:
-        for (String deleteStorageGroup : deleteTimeseries(args[1])) {
-          StorageEngine.getInstance().deleteAllDataFilesInOneStorageGroup(deleteStorageGroup);
-        }
-        break;
-      case MetadataOperationType.SET_STORAGE_GROUP:
-        setStorageGroup(args[1]);
-        break;
-      case MetadataOperationType.DELETE_STORAGE_GROUP:
-        List<String> storageGroups = new ArrayList<>();
-        storageGroups.addAll(Arrays.asList(args).subList(1, args.length));
-        deleteStorageGroups(storageGroups);
-        break;
-      case MetadataOperationType.SET_TTL:
-        setTTL(args[1], Long.parseLong(args[2]));
-        break;
-      default:
-        logger.error("Unrecognizable command {}", cmd);
-    }
+    MLogParser.parse(cmd, logReplayer);
   }
 
   public void createTimeseries(CreateTimeSeriesPlan plan) throws MetadataException {
@@ -279,34 +296,35 @@ public class MManager {
   }
 
   public void createTimeseries(CreateTimeSeriesPlan plan, long offset) throws MetadataException {
-    lock.writeLock().lock();
     String path = plan.getPath().getFullPath();
+    /*
+     * get the storage group with auto create schema, which is done before taking the read lock
+     * because setting a storage group takes the write lock
+     */
+    String storageGroupName;
     try {
-      /*
-       * get the storage group with auto create schema
-       */
-      String storageGroupName;
-      try {
-        storageGroupName = mtree.getStorageGroupName(path);
-      } catch (StorageGroupNotSetException e) {
-        if (!config.isAutoCreateSchemaEnabled()) {
-          throw e;
-        }
-        storageGroupName = MetaUtils.getStorageGroupNameByLevel(path,
-            config.getDefaultStorageGroupLevel());
-        setStorageGroup(storageGroupName);
+      storageGroupName = mtree.getStorageGroupName(path);
+    } catch (StorageGroupNotSetException e) {
+      if (!config.isAutoCreateSchemaEnabled()) {
+        throw e;
       }
+      storageGroupName = MetaUtils.getStorageGroupNameByLevel(path,
+          config.getDefaultStorageGroupLevel());
+      setStorageGroupIfAbsent(storageGroupName);
+    }
+
+    boolean seriesCounted = false;
+    LeafMNode leafMNode = null;
+    boolean created = false;
+    lock.readLock().lock();
+    try {
+      // check memory before the timeseries becomes visible
+      IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(1);
+      seriesCounted = true;
 
       // create time series in MTree
-      LeafMNode leafMNode = mtree.createTimeseries(path, plan.getDataType(), plan.getEncoding(),
+      leafMNode = mtree.createTimeseries(path, plan.getDataType(), plan.getEncoding(),
           plan.getCompressor(), plan.getProps(), plan.getAlias());
-      try {
-        // check memory
-        IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(1);
-      } catch (ConfigAdjusterException e) {
-        removeFromTagInvertedIndex(mtree.deleteTimeseriesAndReturnEmptyStorageGroup(path).right);
-        throw e;
-      }
 
       // write log
       if (writeToLog) {
@@ -316,6 +334,7 @@ public class MManager {
           offset = tagLogFile.write(plan.getTags(), plan.getAttributes());
         }
         logWriter.createTimeseries(plan, offset);
+        mtreeSnapshot.onLogWritten();
       }
       leafMNode.setOffset(offset);
 
@@ -323,22 +342,55 @@ public class MManager {
       if (plan.getTags() != null) {
         // tag key, tag value
         for (Entry<String, String> entry : plan.getTags().entrySet()) {
-          tagIndex.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
-              .computeIfAbsent(entry.getValue(), v -> new HashSet<>())
+          tagIndex.computeIfAbsent(entry.getKey(), k -> new ConcurrentHashMap<>())
+              .computeIfAbsent(entry.getValue(), v -> ConcurrentHashMap.newKeySet())
               .add(leafMNode);
         }
       }
 
       // update statistics
       if (config.isEnableParameterAdapter()) {
-        int size = seriesNumberInStorageGroups.get(storageGroupName);
-        seriesNumberInStorageGroups.put(storageGroupName, size + 1);
-        if (size + 1 > maxSeriesNumberAmongStorageGroup) {
-          maxSeriesNumberAmongStorageGroup = size + 1;
-        }
+        int size = seriesNumberInStorageGroups.merge(storageGroupName, 1, Integer::sum);
+        maxSeriesNumberAmongStorageGroup.accumulateAndGet(size, Math::max);
       }
+      created = true;
     } catch (IOException | ConfigAdjusterException e) {
       throw new MetadataException(e.getMessage());
+    } finally {
+      lock.readLock().unlock();
+      if (!created) {
+        rollbackCreateTimeseries(path, seriesCounted, leafMNode);
+      }
+    }
+  }
+
+  /**
+   * Undo a timeseries creation that failed, so it neither stays counted nor stays in the MTree
+   * without a log entry.
+   *
+   * @param leafMNode the node of the timeseries, null if it has not been added to the MTree
+   */
+  private void rollbackCreateTimeseries(String path, boolean seriesCounted,
+      LeafMNode leafMNode) {
+    try {
+      if (seriesCounted) {
+        IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(-1);
+      }
+    } catch (ConfigAdjusterException e) {
+      logger.error("Cannot roll back the series number of {}", path, e);
+    }
+    if (leafMNode == null) {
+      return;
+    }
+    // nodes are only removed under the write lock
+    lock.writeLock().lock();
+    try {
+      if (mtree.isPathExist(path) && mtree.getNodeByPath(path) == leafMNode) {
+        mtree.deleteTimeseriesAndReturnEmptyStorageGroup(path);
+        mNodeCache.clear();
+      }
+    } catch (MetadataException e) {
+      logger.error("Cannot roll back the creation of {}", path, e);
     } finally {
       lock.writeLock().unlock();
     }
@@ -376,9 +428,9 @@ public class MManager {
       if (config.isEnableParameterAdapter()) {
         int size = seriesNumberInStorageGroups.get(prefixPath);
         seriesNumberInStorageGroups.put(prefixPath, 0);
-        if (size == maxSeriesNumberAmongStorageGroup) {
+        if (size == maxSeriesNumberAmongStorageGroup.get()) {
           seriesNumberInStorageGroups.values().stream().max(Integer::compareTo)
-              .ifPresent(val -> maxSeriesNumberAmongStorageGroup = val);
+              .ifPresent(maxSeriesNumberAmongStorageGroup::set);
         }
       }
 
@@ -435,6 +487,7 @@ public class MManager {
       String storageGroupName = pair.left;
       if (writeToLog) {
         logWriter.deleteTimeseries(path);
+        mtreeSnapshot.onLogWritten();
       }
       // TODO: delete the path node and all its ancestors
       mNodeCache.clear();
@@ -448,9 +501,9 @@ public class MManager {
         String storageGroup = getStorageGroupName(path);
         int size = seriesNumberInStorageGroups.get(storageGroup);
         seriesNumberInStorageGroups.put(storageGroup, size - 1);
-        if (size == maxSeriesNumberAmongStorageGroup) {
+        if (size == maxSeriesNumberAmongStorageGroup.get()) {
           seriesNumberInStorageGroups.values().stream().max(Integer::compareTo)
-              .ifPresent(val -> maxSeriesNumberAmongStorageGroup = val);
+              .ifPresent(maxSeriesNumberAmongStorageGroup::set);
         }
       }
       return storageGroupName;
@@ -470,6 +523,7 @@ public class MManager {
       mtree.setStorageGroup(storageGroup);
       if (writeToLog) {
         logWriter.setStorageGroup(storageGroup);
+        mtreeSnapshot.onLogWritten();
       }
       IoTDBConfigDynamicAdapter.getInstance().addOrDeleteStorageGroup(1);
 
@@ -487,6 +541,18 @@ public class MManager {
     }
   }
 
+  /**
+   * Set the storage group unless it has been set concurrently by another thread, must not be
+   * called when holding the read lock.
+   */
+  private void setStorageGroupIfAbsent(String storageGroup) throws MetadataException {
+    try {
+      setStorageGroup(storageGroup);
+    } catch (StorageGroupAlreadySetException e) {
+      // ignore set storage group concurrently
+    }
+  }
+
   /**
    * Delete storage groups of given paths from MTree. Log format: "delete_storage_group,sg1,sg2,sg3"
    *
@@ -502,6 +568,7 @@ public class MManager {
         // if success
         if (writeToLog) {
           logWriter.deleteStorageGroup(storageGroup);
+          mtreeSnapshot.onLogWritten();
         }
         mNodeCache.clear();
 
@@ -511,12 +578,12 @@ public class MManager {
           IoTDBConfigDynamicAdapter.getInstance().addOrDeleteTimeSeries(size * -1);
           ActiveTimeSeriesCounter.getInstance().delete(storageGroup);
           seriesNumberInStorageGroups.remove(storageGroup);
-          if (size == maxSeriesNumberAmongStorageGroup) {
+          if (size == maxSeriesNumberAmongStorageGroup.get()) {
             if (seriesNumberInStorageGroups.isEmpty()) {
-              maxSeriesNumberAmongStorageGroup = 0;
+              maxSeriesNumberAmongStorageGroup.set(0);
             } else {
-              maxSeriesNumberAmongStorageGroup = seriesNumberInStorageGroups.values().stream()
-                  .max(Integer::compareTo).get();
+              maxSeriesNumberAmongStorageGroup.set(seriesNumberInStorageGroups.values().stream()
+                  .max(Integer::compareTo).get());
             }
           }
         }
@@ -580,6 +647,39 @@ public class MManager {
     }
   }
 
+  /**
+   * Get the ids of the LeafMNodes of the given measurements of a device
+   */
+  public int[] getSeriesIds(String deviceId, String[] measurements) throws MetadataException {
+    MNode deviceNode = getNodeByPath(deviceId);
+    int[] seriesIds = new int[measurements.length];
+    for (int i = 0; i < seriesIds.length; i++) {
+      if (!deviceNode.hasChild(measurements[i])) {
+        throw new MetadataException(measurements[i] + " does not exist in " + deviceId);
+      }
+      seriesIds[i] = ((LeafMNode) deviceNode.getChild(measurements[i])).getSeriesId();
+    }
+    return seriesIds;
+  }
+
+  /**
+   * Get the id of the LeafMNode of a timeseries
+   *
+   * @return the id, or -1 if the timeseries does not exist
+   */
+  public int getSeriesId(String deviceId, String measurement) {
+    MTree tree = mtree;
+    if (tree == null) {
+      return -1;
+    }
+    try {
+      MNode node = tree.getNodeByPath(deviceId).getChild(measurement);
+      return node instanceof LeafMNode ? ((LeafMNode) node).getSeriesId() : -1;
+    } catch (MetadataException e) {
+      return -1;
+    }
+  }
+
   /**
    * Get all devices under given prefixPath.
    *
@@ -861,36 +961,26 @@ public class MManager {
    */
   public MNode getDeviceNodeWithAutoCreateStorageGroup(String path, boolean autoCreateSchema,
       int sgLevel) throws MetadataException {
-    lock.readLock().lock();
-    MNode node = null;
-    boolean shouldSetStorageGroup = false;
+    boolean shouldSetStorageGroup;
     try {
-      node = mNodeCache.get(path);
+      return mNodeCache.get(path);
     } catch (CacheException e) {
       if (!autoCreateSchema) {
         throw new PathNotExistException(path);
-      } else {
-        shouldSetStorageGroup = e.getCause() instanceof StorageGroupNotSetException;
       }
+      shouldSetStorageGroup = e.getCause() instanceof StorageGroupNotSetException;
+    }
+
+    if (shouldSetStorageGroup) {
+      String storageGroupName = MetaUtils.getStorageGroupNameByLevel(path, sgLevel);
+      setStorageGroupIfAbsent(storageGroupName);
+    }
+    lock.readLock().lock();
+    try {
+      return mtree.getDeviceNodeWithAutoCreating(path);
     } finally {
       lock.readLock().unlock();
-      lock.writeLock().lock();
-      try {
-        if (autoCreateSchema) {
-          if (shouldSetStorageGroup) {
-            String storageGroupName = MetaUtils.getStorageGroupNameByLevel(path, sgLevel);
-            setStorageGroup(storageGroupName);
-          }
-          node = mtree.getDeviceNodeWithAutoCreating(path);
-        }
-      } catch (StorageGroupAlreadySetException e) {
-        // ignore set storage group concurrently
-        node = mtree.getDeviceNodeWithAutoCreating(path);
-      } finally {
-        lock.writeLock().unlock();
-      }
     }
-    return node;
   }
 
   public MNode getDeviceNodeWithAutoCreateStorageGroup(String path) throws MetadataException {
@@ -910,13 +1000,21 @@ public class MManager {
     }
   }
 
+  /**
+   * Create the MTree snapshot synchronously.
+   */
+  @TestOnly
+  void createMTreeSnapshot() {
+    mtreeSnapshot.createSnapshot();
+  }
+
   @TestOnly
   public void setMaxSeriesNumberAmongStorageGroup(long maxSeriesNumberAmongStorageGroup) {
-    this.maxSeriesNumberAmongStorageGroup = maxSeriesNumberAmongStorageGroup;
+    this.maxSeriesNumberAmongStorageGroup.set(maxSeriesNumberAmongStorageGroup);
   }
 
   public long getMaximalSeriesNumberAmongStorageGroups() {
-    return maxSeriesNumberAmongStorageGroup;
+    return maxSeriesNumberAmongStorageGroup.get();
   }
 
   public void setTTL(String storageGroup, long dataTTL) throws MetadataException, IOException {
@@ -925,6 +1023,7 @@ public class MManager {
       getStorageGroupNode(storageGroup).setDataTTL(dataTTL);
       if (writeToLog) {
         logWriter.setTTL(storageGroup, dataTTL);
+        mtreeSnapshot.onLogWritten();
       }
     } finally {
       lock.writeLock().unlock();
@@ -1024,4 +1123,42 @@ public class MManager {
       lock.readLock().unlock();
     }
   }
+
+  /**
+   * Replay the operations of the metadata log on this MManager.
+   */
+  private class LogReplayer implements MetadataOperationHandler {
+
+    @Override
+    public void createTimeseries(CreateTimeSeriesPlan plan, long offset)
+        throws IOException, MetadataException {
+      if (offset >= 0) {
+        plan.setTags(tagLogFile.readTag(config.getTagAttributeTotalSize(), offset));
+      }
+      MManager.this.createTimeseries(plan, offset);
+    }
+
+    @Override
+    public void deleteTimeseries(String path) throws IOException, MetadataException {
+      for (String deleteStorageGroup : MManager.this.deleteTimeseries(path)) {
+        StorageEngine.getInstance().deleteAllDataFilesInOneStorageGroup(deleteStorageGroup);
+      }
+    }
+
+    @Override
+    public void setStorageGroup(String storageGroup) throws IOException, MetadataException {
+      MManager.this.setStorageGroup(storageGroup);
+    }
+
+    @Override
+    public void deleteStorageGroups(List<String> storageGroups)
+        throws IOException, MetadataException {
+      MManager.this.deleteStorageGroups(storageGroups);
+    }
+
+    @Override
+    public void setTTL(String storageGroup, long dataTTL) throws IOException, MetadataException {
+      MManager.this.setTTL(storageGroup, dataTTL);
+    }
+  }
 }
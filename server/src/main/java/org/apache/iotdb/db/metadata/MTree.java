@@ -62,6 +62,10 @@ public class MTree implements Serializable {
     this.root = new InternalMNode(null, IoTDBConstant.PATH_ROOT);
   }
 
+  MNode getRoot() {
+    return root;
+  }
+
   /**
    * Create a timeseries with a full path from root to leaf node Before creating a timeseries, the
    * storage group should be set first, throw exception otherwise
@@ -91,7 +95,7 @@ public class MTree implements Serializable {
         if (!hasSetStorageGroup) {
           throw new StorageGroupNotSetException("Storage group should be created first");
         }
-        cur.addChild(nodeName, new InternalMNode(cur, nodeName));
+        addInternalNodeIfAbsent(cur, nodeName);
       }
       cur = cur.getChild(nodeName);
     }
@@ -99,19 +103,35 @@ public class MTree implements Serializable {
       throw new PathAlreadyExistException(cur.getFullPath());
     }
     String leafName = nodeNames[nodeNames.length - 1];
-    if (cur.hasChild(leafName)) {
-      throw new PathAlreadyExistException(path);
-    }
-    if (alias != null && cur.hasChild(alias)) {
-      throw new AliasAlreadyExistException(path, alias);
+    // timeseries of the same device may be created concurrently
+    synchronized (cur) {
+      if (cur.hasChild(leafName)) {
+        throw new PathAlreadyExistException(path);
+      }
+      if (alias != null && cur.hasChild(alias)) {
+        throw new AliasAlreadyExistException(path, alias);
+      }
+      LeafMNode leaf = new LeafMNode(cur, leafName, alias, dataType, encoding, compressor, props);
+      cur.addChild(leafName, leaf);
+      // link alias to LeafMNode
+      if (alias != null) {
+        cur.addAlias(alias, leaf);
+      }
+      return leaf;
     }
-    LeafMNode leaf = new LeafMNode(cur, leafName, alias, dataType, encoding, compressor, props);
-    cur.addChild(leafName, leaf);
-    // link alias to LeafMNode
-    if (alias != null) {
-      cur.addAlias(alias, leaf);
+  }
+
+  /**
+   * Add an InternalMNode named 'name' under 'parent' unless it already has such a child. Children
+   * are added under the lock of the parent, so paths sharing a prefix can be created concurrently
+   * while lookups go without any lock.
+   */
+  private void addInternalNodeIfAbsent(MNode parent, String name) {
+    synchronized (parent) {
+      if (!parent.hasChild(name)) {
+        parent.addChild(name, new InternalMNode(parent, name));
+      }
     }
-    return leaf;
   }
 
   /**
@@ -127,7 +147,7 @@ public class MTree implements Serializable {
     MNode cur = root;
     for (int i = 1; i < nodeNames.length; i++) {
       if (!cur.hasChild(nodeNames[i])) {
-        cur.addChild(nodeNames[i], new InternalMNode(cur, nodeNames[i]));
+        addInternalNodeIfAbsent(cur, nodeNames[i]);
       }
       cur = cur.getChild(nodeNames[i]);
     }
@@ -486,8 +506,11 @@ public class MTree implements Serializable {
    * Get all time series schema under the given path
    *
    * result: [name, alias, storage group, dataType, encoding, compression, offset]
+   *
+   * Synchronized as the limit and offset are kept in fields during the traversal.
    */
-  List<String[]> getAllMeasurementSchema(ShowTimeSeriesPlan plan) throws MetadataException {
+  synchronized List<String[]> getAllMeasurementSchema(ShowTimeSeriesPlan plan)
+      throws MetadataException {
     List<String[]> res;
     String[] nodes = MetaUtils.getNodeNames(plan.getPath().getFullPath());
     if (nodes.length == 0 || !nodes[0].equals(root.getName())) {
@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.metadata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.metadata.mnode.InternalMNode;
+import org.apache.iotdb.db.metadata.mnode.LeafMNode;
+import org.apache.iotdb.db.metadata.mnode.MNode;
+import org.apache.iotdb.db.metadata.mnode.StorageGroupMNode;
+import org.apache.iotdb.db.monitor.MonitorConstants;
+import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MTreeSnapshot maintains a binary snapshot of the MTree, so that the startup only loads the
+ * snapshot and replays the metadata log written after it, instead of replaying the whole log.
+ * <p>
+ * A snapshot is never taken from the MTree in use. It is built in the background by loading the
+ * previous snapshot and applying the complete lines of the log written after it, so schema writes
+ * are never blocked. The snapshot file is organized as:
+ * <p>
+ * [magic string] [version (int)] [log offset (long)] [storage group number (int)]
+ * ([storage group path] [ttl (long)] [section length (int)] [section])*
+ * <p>
+ * where each section contains the subtree of a storage group, so sections can be deserialized in
+ * parallel.
+ */
+public class MTreeSnapshot {
+
+  private static final Logger logger = LoggerFactory.getLogger(MTreeSnapshot.class);
+
+  private static final String MAGIC_STRING = "IoTDBMTreeSnapshot";
+  private static final int VERSION = 1;
+  private static final byte INTERNAL_NODE = 0;
+  private static final byte LEAF_NODE = 1;
+
+  private File snapshotFile;
+  private File tmpSnapshotFile;
+  private File logFile;
+  private int snapshotInterval;
+
+  private ExecutorService snapshotThread;
+  private AtomicBoolean snapshotRunning = new AtomicBoolean();
+  private final Object snapshotLock = new Object();
+  /**
+   * number of log lines appended since the last snapshot was triggered.
+   */
+  private AtomicInteger unsnapshotLineNum = new AtomicInteger();
+
+  /**
+   * @param snapshotInterval a snapshot is created after this number of lines are appended to the
+   * log, a non-positive value disables snapshots.
+   */
+  MTreeSnapshot(String schemaDir, String logFileName, int snapshotInterval) {
+    this.snapshotFile = SystemFileFactory.INSTANCE
+        .getFile(schemaDir + File.separator + MetadataConstant.MTREE_SNAPSHOT);
+    this.tmpSnapshotFile = SystemFileFactory.INSTANCE
+        .getFile(schemaDir + File.separator + MetadataConstant.MTREE_SNAPSHOT
+            + MetadataConstant.TMP_SUFFIX);
+    this.logFile = SystemFileFactory.INSTANCE.getFile(schemaDir + File.separator + logFileName);
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  boolean isEnabled() {
+    return snapshotInterval > 0;
+  }
+
+  /**
+   * Load the MTree from the snapshot, the storage groups are deserialized in parallel.
+   *
+   * @return the MTree and the offset of the log it covers, or null if there is no valid snapshot.
+   */
+  Pair<MTree, Long> load() {
+    if (!isEnabled() || !snapshotFile.exists()) {
+      return null;
+    }
+    try {
+      Pair<MTree, Long> result = deserialize();
+      if (result.right > logFile.length()) {
+        logger.warn("The metadata log is shorter than the snapshot {}, ignore the snapshot",
+            snapshotFile);
+        return null;
+      }
+      return result;
+    } catch (IOException | MetadataException | RuntimeException e) {
+      logger.error("Cannot load the MTree snapshot {}, replay the whole log instead",
+          snapshotFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * Called after a line is appended to the log, trigger a snapshot in the background if enough
+   * lines are not covered by any snapshot.
+   */
+  void onLogWritten() {
+    onLogWritten(1);
+  }
+
+  void onLogWritten(int lineNum) {
+    if (!isEnabled()) {
+      return;
+    }
+    if (unsnapshotLineNum.addAndGet(lineNum) >= snapshotInterval
+        && snapshotRunning.compareAndSet(false, true)) {
+      unsnapshotLineNum.set(0);
+      synchronized (this) {
+        if (snapshotThread == null) {
+          snapshotThread = IoTDBThreadPoolFactory.newSingleThreadExecutor("MTree-Snapshot");
+        }
+        snapshotThread.submit(() -> {
+          try {
+            createSnapshot();
+          } finally {
+            snapshotRunning.set(false);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Create a new snapshot from the previous one and the log written after it.
+   */
+  void createSnapshot() {
+    synchronized (snapshotLock) {
+      long startTime = System.currentTimeMillis();
+      Pair<MTree, Long> previous = load();
+      MTree mtree = previous == null ? new MTree() : previous.left;
+      long prevOffset = previous == null ? 0 : previous.right;
+      MTreeReplayer replayer = new MTreeReplayer(mtree);
+      try {
+        long offset = readLog(logFile, prevOffset, false, cmd -> {
+          try {
+            MLogParser.parse(cmd, replayer);
+          } catch (IOException | MetadataException | RuntimeException e) {
+            logger.error("Can not operate cmd {} when creating the MTree snapshot", cmd, e);
+          }
+        });
+        if (offset == prevOffset) {
+          return;
+        }
+        serialize(mtree, offset);
+        logger.info("MTree snapshot covering {} bytes of the metadata log is created in {}ms",
+            offset, System.currentTimeMillis() - startTime);
+      } catch (IOException e) {
+        logger.error("Cannot create the MTree snapshot {}", snapshotFile, e);
+      }
+    }
+  }
+
+  /**
+   * Wait for the running snapshot to finish and release the thread.
+   */
+  synchronized void close() {
+    if (snapshotThread != null) {
+      snapshotThread.shutdown();
+      try {
+        snapshotThread.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      snapshotThread = null;
+    }
+    unsnapshotLineNum.set(0);
+  }
+
+  /**
+   * Read the lines of the log starting from the given byte offset.
+   *
+   * @param includeIncompleteLine whether the last line that is not ended by a line separator
+   * should also be consumed
+   * @return the offset after the last complete line
+   */
+  static long readLog(File logFile, long offset, boolean includeIncompleteLine,
+      Consumer<String> consumer) throws IOException {
+    if (!logFile.exists()) {
+      return offset;
+    }
+    try (InputStream inputStream = new BufferedInputStream(new FileInputStream(logFile))) {
+      long skipped = 0;
+      while (skipped < offset) {
+        long len = inputStream.skip(offset - skipped);
+        if (len <= 0) {
+          throw new IOException("Cannot skip to " + offset + " of " + logFile);
+        }
+        skipped += len;
+      }
+
+      long position = offset;
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      int b;
+      while ((b = inputStream.read()) != -1) {
+        if (b == '\n') {
+          position += line.size() + 1;
+          consumer.accept(lineToString(line));
+          line.reset();
+        } else {
+          line.write(b);
+        }
+      }
+      if (includeIncompleteLine && line.size() > 0) {
+        consumer.accept(lineToString(line));
+      }
+      return position;
+    }
+  }
+
+  private static String lineToString(ByteArrayOutputStream line) {
+    String str = line.toString();
+    return str.endsWith("\r") ? str.substring(0, str.length() - 1) : str;
+  }
+
+  private void serialize(MTree mtree, long logOffset) throws IOException {
+    List<StorageGroupMNode> storageGroups = new ArrayList<>();
+    collectStorageGroups(mtree.getRoot(), storageGroups);
+
+    try (FileOutputStream fileOutputStream = new FileOutputStream(tmpSnapshotFile);
+        DataOutputStream outputStream = new DataOutputStream(
+            new BufferedOutputStream(fileOutputStream))) {
+      ReadWriteIOUtils.write(MAGIC_STRING, outputStream);
+      ReadWriteIOUtils.write(VERSION, outputStream);
+      ReadWriteIOUtils.write(logOffset, outputStream);
+      ReadWriteIOUtils.write(storageGroups.size(), outputStream);
+      ByteArrayOutputStream section = new ByteArrayOutputStream();
+      for (StorageGroupMNode storageGroup : storageGroups) {
+        section.reset();
+        serializeChildren(storageGroup, new DataOutputStream(section));
+        ReadWriteIOUtils.write(storageGroup.getFullPath(), outputStream);
+        ReadWriteIOUtils.write(storageGroup.getDataTTL(), outputStream);
+        ReadWriteIOUtils.write(section.size(), outputStream);
+        section.writeTo(outputStream);
+      }
+      outputStream.flush();
+      fileOutputStream.getFD().sync();
+    }
+    Files.move(tmpSnapshotFile.toPath(), snapshotFile.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void collectStorageGroups(MNode node, List<StorageGroupMNode> storageGroups) {
+    if (node instanceof StorageGroupMNode) {
+      storageGroups.add((StorageGroupMNode) node);
+      return;
+    }
+    for (MNode child : node.getChildren().values()) {
+      collectStorageGroups(child, storageGroups);
+    }
+  }
+
+  private void serializeChildren(MNode node, DataOutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(node.getChildren().size(), outputStream);
+    for (MNode child : node.getChildren().values()) {
+      if (child instanceof LeafMNode) {
+        LeafMNode leaf = (LeafMNode) child;
+        ReadWriteIOUtils.write(LEAF_NODE, outputStream);
+        ReadWriteIOUtils.write(leaf.getName(), outputStream);
+        ReadWriteIOUtils.write(leaf.getAlias() != null, outputStream);
+        if (leaf.getAlias() != null) {
+          ReadWriteIOUtils.write(leaf.getAlias(), outputStream);
+        }
+        ReadWriteIOUtils.write(leaf.getSchema().getType().serialize(), outputStream);
+        ReadWriteIOUtils.write(leaf.getSchema().getEncodingType().serialize(), outputStream);
+        ReadWriteIOUtils.write(leaf.getSchema().getCompressor().serialize(), outputStream);
+        Map<String, String> props = leaf.getSchema().getProps();
+        ReadWriteIOUtils.write(props == null ? 0 : props.size(), outputStream);
+        if (props != null) {
+          for (Entry<String, String> entry : props.entrySet()) {
+            ReadWriteIOUtils.write(entry.getKey(), outputStream);
+            ReadWriteIOUtils.write(entry.getValue(), outputStream);
+          }
+        }
+        ReadWriteIOUtils.write(leaf.getOffset(), outputStream);
+      } else {
+        ReadWriteIOUtils.write(INTERNAL_NODE, outputStream);
+        ReadWriteIOUtils.write(child.getName(), outputStream);
+        serializeChildren(child, outputStream);
+      }
+    }
+  }
+
+  private Pair<MTree, Long> deserialize() throws IOException, MetadataException {
+    MTree mtree = new MTree();
+    long logOffset;
+    List<Future<?>> futures = new ArrayList<>();
+    ExecutorService loadPool = IoTDBThreadPoolFactory
+        .newFixedThreadPool(Runtime.getRuntime().availableProcessors(), "MTree-Snapshot-Load");
+    try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(snapshotFile)))) {
+      if (!MAGIC_STRING.equals(ReadWriteIOUtils.readString(inputStream))) {
+        throw new IOException("Not a MTree snapshot");
+      }
+      int version = ReadWriteIOUtils.readInt(inputStream);
+      if (version != VERSION) {
+        throw new IOException("Unsupported MTree snapshot version " + version);
+      }
+      logOffset = ReadWriteIOUtils.readLong(inputStream);
+      int storageGroupNum = ReadWriteIOUtils.readInt(inputStream);
+      for (int i = 0; i < storageGroupNum; i++) {
+        String storageGroupPath = ReadWriteIOUtils.readString(inputStream);
+        long ttl = ReadWriteIOUtils.readLong(inputStream);
+        int sectionLength = ReadWriteIOUtils.readInt(inputStream);
+        byte[] sectionBytes = new byte[sectionLength];
+        inputStream.readFully(sectionBytes);
+        ByteBuffer section = ByteBuffer.wrap(sectionBytes);
+
+        // the ancestors are shared so they are created here, while the storage groups never
+        // overlap so their subtrees can be built concurrently
+        mtree.setStorageGroup(storageGroupPath);
+        StorageGroupMNode storageGroup = (StorageGroupMNode) mtree
+            .getNodeByPath(storageGroupPath);
+        storageGroup.setDataTTL(ttl);
+        futures.add(loadPool.submit(() -> deserializeChildren(storageGroup, section)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      loadPool.shutdownNow();
+    }
+    return new Pair<>(mtree, logOffset);
+  }
+
+  private void deserializeChildren(MNode node, ByteBuffer buffer) {
+    int childNum = ReadWriteIOUtils.readInt(buffer);
+    for (int i = 0; i < childNum; i++) {
+      byte type = buffer.get();
+      String name = ReadWriteIOUtils.readString(buffer);
+      if (type == LEAF_NODE) {
+        String alias = ReadWriteIOUtils.readBool(buffer) ? ReadWriteIOUtils.readString(buffer)
+            : null;
+        TSDataType dataType = TSDataType.deserialize(ReadWriteIOUtils.readShort(buffer));
+        TSEncoding encoding = TSEncoding.deserialize(ReadWriteIOUtils.readShort(buffer));
+        CompressionType compressor = CompressionType
+            .deserialize(ReadWriteIOUtils.readShort(buffer));
+        Map<String, String> props = ReadWriteIOUtils.readMap(buffer);
+        LeafMNode leaf = new LeafMNode(node, name, alias, dataType, encoding, compressor, props);
+        leaf.setOffset(ReadWriteIOUtils.readLong(buffer));
+        node.addChild(name, leaf);
+        if (alias != null) {
+          node.addAlias(alias, leaf);
+        }
+      } else {
+        MNode child = new InternalMNode(node, name);
+        node.addChild(name, child);
+        deserializeChildren(child, buffer);
+      }
+    }
+  }
+
+  /**
+   * Replay the operations of the metadata log on an MTree that is not in use.
+   */
+  private static class MTreeReplayer implements MetadataOperationHandler {
+
+    private MTree mtree;
+
+    private MTreeReplayer(MTree mtree) {
+      this.mtree = mtree;
+    }
+
+    @Override
+    public void createTimeseries(CreateTimeSeriesPlan plan, long offset)
+        throws MetadataException {
+      LeafMNode leafMNode = mtree.createTimeseries(plan.getPath().getFullPath(),
+          plan.getDataType(), plan.getEncoding(), plan.getCompressor(), plan.getProps(),
+          plan.getAlias());
+      leafMNode.setOffset(offset);
+    }
+
+    @Override
+    public void deleteTimeseries(String path) throws MetadataException {
+      List<String> allTimeseries = mtree.getAllTimeseriesName(path);
+      allTimeseries.removeIf(p -> p.startsWith(MonitorConstants.STAT_STORAGE_GROUP_PREFIX));
+      for (String timeseries : allTimeseries) {
+        mtree.deleteTimeseriesAndReturnEmptyStorageGroup(timeseries);
+      }
+    }
+
+    @Override
+    public void setStorageGroup(String storageGroup) throws MetadataException {
+      mtree.setStorageGroup(storageGroup);
+    }
+
+    @Override
+    public void deleteStorageGroups(List<String> storageGroups) throws MetadataException {
+      for (String storageGroup : storageGroups) {
+        mtree.deleteStorageGroup(storageGroup);
+      }
+    }
+
+    @Override
+    public void setTTL(String storageGroup, long dataTTL) throws MetadataException {
+      MNode node = mtree.getNodeByPath(storageGroup);
+      if (node instanceof StorageGroupMNode) {
+        ((StorageGroupMNode) node).setDataTTL(dataTTL);
+      }
+    }
+  }
+}
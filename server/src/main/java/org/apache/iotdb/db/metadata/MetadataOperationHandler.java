@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
+
+/**
+ * MetadataOperationHandler applies the operations parsed from the metadata log by MLogParser.
+ */
+public interface MetadataOperationHandler {
+
+  /**
+   * @param plan the tags of the timeseries are not set, they are stored in the tag file
+   * @param offset the offset of the tags and attributes in the tag file, -1 if there is no one
+   */
+  void createTimeseries(CreateTimeSeriesPlan plan, long offset)
+      throws IOException, MetadataException;
+
+  void deleteTimeseries(String path) throws IOException, MetadataException;
+
+  void setStorageGroup(String storageGroup) throws IOException, MetadataException;
+
+  void deleteStorageGroups(List<String> storageGroups) throws IOException, MetadataException;
+
+  void setTTL(String storageGroup, long dataTTL) throws IOException, MetadataException;
+}
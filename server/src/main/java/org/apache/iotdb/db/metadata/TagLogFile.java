@@ -79,7 +79,7 @@ public class TagLogFile implements AutoCloseable {
     return ReadWriteIOUtils.readMap(byteBuffer);
   }
 
-  public long write(Map<String, String> tagMap, Map<String, String> attributeMap) throws IOException, MetadataException {
+  public synchronized long write(Map<String, String> tagMap, Map<String, String> attributeMap) throws IOException, MetadataException {
     long offset = fileChannel.position();
     ByteBuffer byteBuffer = ByteBuffer.allocate(MAX_LENGTH);
     int length = serializeMap(tagMap, byteBuffer, 0);
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mnode;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The children of an InternalMNode. Lookups are served by a ConcurrentHashMap and iterations
+ * follow the insertion order as a LinkedHashMap does, so both can be done without any lock while
+ * other threads are adding children. Iterators are weakly consistent.
+ * <p>
+ * Updates are serialized by the map itself, removing a child costs O(n) as its name has to be
+ * found in the insertion order, which is acceptable as deletions are rare.
+ */
+class ChildrenMap extends AbstractMap<String, MNode> implements Serializable {
+
+  private static final long serialVersionUID = -3618437502836275384L;
+
+  private final ConcurrentHashMap<String, MNode> nodes = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<String> names = new ConcurrentLinkedQueue<>();
+  private transient Set<Entry<String, MNode>> entrySet;
+
+  @Override
+  public MNode get(Object key) {
+    return nodes.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return nodes.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return nodes.isEmpty();
+  }
+
+  @Override
+  public synchronized MNode put(String key, MNode value) {
+    MNode old = nodes.put(key, value);
+    if (old == null) {
+      names.add(key);
+    }
+    return old;
+  }
+
+  @Override
+  public synchronized MNode putIfAbsent(String key, MNode value) {
+    MNode old = nodes.putIfAbsent(key, value);
+    if (old == null) {
+      names.add(key);
+    }
+    return old;
+  }
+
+  @Override
+  public synchronized MNode remove(Object key) {
+    MNode old = nodes.remove(key);
+    if (old != null) {
+      names.remove(key);
+    }
+    return old;
+  }
+
+  @Override
+  public synchronized void clear() {
+    nodes.clear();
+    names.clear();
+  }
+
+  @Override
+  public Set<Entry<String, MNode>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  private class EntrySet extends AbstractSet<Entry<String, MNode>> {
+
+    @Override
+    public Iterator<Entry<String, MNode>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return nodes.size();
+    }
+  }
+
+  private class EntryIterator implements Iterator<Entry<String, MNode>> {
+
+    private final Iterator<String> nameIterator = names.iterator();
+    private Entry<String, MNode> next;
+    private String lastReturned;
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && nameIterator.hasNext()) {
+        String name = nameIterator.next();
+        MNode node = nodes.get(name);
+        // the child may have been removed after the iteration started
+        if (node != null) {
+          next = new SimpleImmutableEntry<>(name, node);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public Entry<String, MNode> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Entry<String, MNode> entry = next;
+      next = null;
+      lastReturned = entry.getKey();
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      if (lastReturned == null) {
+        throw new IllegalStateException();
+      }
+      ChildrenMap.this.remove(lastReturned);
+      lastReturned = null;
+    }
+  }
+}
@@ -18,8 +18,8 @@
  */
 package org.apache.iotdb.db.metadata.mnode;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class InternalMNode extends MNode {
 
@@ -30,8 +30,8 @@ public class InternalMNode extends MNode {
 
   public InternalMNode(MNode parent, String name) {
     super(parent, name);
-    this.children = new LinkedHashMap<>();
-    this.aliasChildren = new LinkedHashMap<>();
+    this.children = new ChildrenMap();
+    this.aliasChildren = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -57,7 +57,8 @@ public class InternalMNode extends MNode {
 
   @Override
   public MNode getChild(String name) {
-    return children.containsKey(name) ? children.get(name) : aliasChildren.get(name);
+    MNode child = children.get(name);
+    return child != null ? child : aliasChildren.get(name);
   }
 
   @Override
@@ -26,11 +26,14 @@ import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class LeafMNode extends MNode {
 
   private static final long serialVersionUID = -1199657856921206435L;
 
+  private static final AtomicInteger SERIES_ID_ALLOCATOR = new AtomicInteger();
+
   /**
    * measurement's Schema for one timeseries represented by current leaf node
    */
@@ -41,6 +44,12 @@ public class LeafMNode extends MNode {
 
   private TimeValuePair cachedLastValuePair = null;
 
+  /**
+   * a dense id that identifies the timeseries in this process, so the timeseries can be indexed
+   * without hashing its path. The ids of deleted timeseries are not reused.
+   */
+  private final transient int seriesId = SERIES_ID_ALLOCATOR.getAndIncrement();
+
   /**
    * @param alias alias of measurementName
    */
@@ -95,6 +104,10 @@ public class LeafMNode extends MNode {
     return schema;
   }
 
+  public int getSeriesId() {
+    return seriesId;
+  }
+
   public TimeValuePair getCachedLast() {
     return cachedLastValuePair;
   }
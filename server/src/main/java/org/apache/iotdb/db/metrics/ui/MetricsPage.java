@@ -24,6 +24,9 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.cost.statistic.LatencyHistogram;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.metrics.server.SqlArgument;
 import org.apache.iotdb.db.service.TSServiceImpl;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
@@ -81,9 +84,39 @@ public class MetricsPage {
         + " GB Used");
     
     html = html.replace("{sql_table}", sqlRow());
+    html = html.replace("{latency_table}", latencyRow());
     return html;
   }
 
+  /**
+   * the latencies of the operations that have been recorded since the statistic is enabled, in
+   * microseconds
+   */
+  public StringBuilder latencyRow() {
+    StringBuilder table = new StringBuilder();
+    for (Operation operation : Operation.values()) {
+      LatencyHistogram histogram = Measurement.INSTANCE.getOperationLatencyHistogram(operation);
+      if (histogram.getCount() == 0) {
+        continue;
+      }
+      table.append("<tr>"
+          + "<td>" + operation.getName() + "</td>"
+          + "<td>" + histogram.getCount() + "</td>"
+          + "<td>" + formatLatency(histogram.getMeanInNanos()) + "</td>"
+          + "<td>" + formatLatency(histogram.getPercentileInNanos(50)) + "</td>"
+          + "<td>" + formatLatency(histogram.getPercentileInNanos(90)) + "</td>"
+          + "<td>" + formatLatency(histogram.getPercentileInNanos(99)) + "</td>"
+          + "<td>" + formatLatency(histogram.getPercentileInNanos(99.9)) + "</td>"
+          + "<td>" + formatLatency(histogram.getMaxInNanos()) + "</td>"
+          + "</tr>");
+    }
+    return table;
+  }
+
+  private String formatLatency(double nanos) {
+    return String.format("%.1f us", nanos / 1000);
+  }
+
   public StringBuilder sqlRow() {
     StringBuilder table = new StringBuilder();
     SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss:SSS");
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp;
+
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.qp.constant.DatetimeUtils;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.db.qp.logical.Operator;
+import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * A server-side prepared statement. Each '?' out of quotes in the SQL is a parameter, and the
+ * parameters are bound with typed values when executing.
+ * <p>
+ * An INSERT is parsed only once, when it is prepared: the parameters are replaced by numeric
+ * markers and the slots (the time or a value) they end in are remembered, so binding only fills
+ * a copy of the cached InsertPlan. Other statements have their parameters written into the SQL
+ * and go through the planner, whose syntax trees are cached by {@link
+ * org.apache.iotdb.db.qp.strategy.ParseDriver}. Their physical plans are not cached, because
+ * queries modify their plans while executing and metadata (e.g., the paths of a wildcard) may
+ * change between executions.
+ */
+public class PlanTemplate {
+
+  /**
+   * parameter i is replaced by MARKER_BASE + i when parsing the template, the numbers are big
+   * enough to be unlikely in a real statement and it is checked they are not.
+   */
+  private static final long MARKER_BASE = 8_765_432_109_876_540_000L;
+
+  private final String sql;
+  private final ZoneId zoneId;
+  private final Planner planner;
+
+  /**
+   * the SQL split by the parameters, so there are parameterCount + 1 segments.
+   */
+  private final List<String> segments;
+
+  /**
+   * not null if the statement is an INSERT and each parameter is the time or a value of it.
+   */
+  private InsertPlan insertTemplate;
+  private int timeParameter = -1;
+  /**
+   * the parameter of each value of the insertTemplate, -1 if the value is a constant.
+   */
+  private int[] valueParameters;
+
+  public PlanTemplate(String sql, ZoneId zoneId, Planner planner)
+      throws QueryProcessException {
+    this.sql = sql;
+    this.zoneId = zoneId;
+    this.planner = planner;
+    this.segments = splitByParameters(sql);
+
+    int parameterCount = getParameterCount();
+    String[] markers = new String[parameterCount];
+    boolean markerConflict = false;
+    for (int i = 0; i < parameterCount; i++) {
+      markers[i] = Long.toString(MARKER_BASE + i);
+      markerConflict |= sql.contains(markers[i]);
+    }
+    // check the syntax with markers in place of the parameters, a failed statement is rejected
+    // when being prepared instead of every time it is executed
+    String markedSql = concat(markers);
+    Operator operator = planner.parseDriver.parse(markedSql, zoneId);
+    if (operator.getType() == OperatorType.INSERT && !markerConflict) {
+      initInsertTemplate((InsertPlan) planner.parseSQLToPhysicalPlan(markedSql, zoneId), markers);
+    }
+  }
+
+  private void initInsertTemplate(InsertPlan plan, String[] markers) {
+    int[] slotCounts = new int[markers.length];
+    int timeSlot = -1;
+    for (int i = 0; i < markers.length; i++) {
+      if (Long.toString(plan.getTime()).equals(markers[i])) {
+        timeSlot = i;
+        slotCounts[i]++;
+      }
+    }
+    String[] values = plan.getValues();
+    int[] valueSlots = new int[values.length];
+    Arrays.fill(valueSlots, -1);
+    for (int i = 0; i < values.length; i++) {
+      for (int j = 0; j < markers.length; j++) {
+        if (values[i].equals(markers[j])) {
+          valueSlots[i] = j;
+          slotCounts[j]++;
+        }
+      }
+    }
+    for (int slotCount : slotCounts) {
+      if (slotCount != 1) {
+        // a parameter is somewhere else (e.g., in a path), so it can only be substituted
+        return;
+      }
+    }
+    this.insertTemplate = plan;
+    this.timeParameter = timeSlot;
+    this.valueParameters = valueSlots;
+  }
+
+  public String getSql() {
+    return sql;
+  }
+
+  public int getParameterCount() {
+    return segments.size() - 1;
+  }
+
+  public boolean isInsertTemplate() {
+    return insertTemplate != null;
+  }
+
+  /**
+   * Decode the parameters which are serialized one after another by their types.
+   */
+  public Object[] deserializeParameters(List<Integer> types, ByteBuffer buffer)
+      throws QueryProcessException {
+    if (types.size() != getParameterCount()) {
+      throw new QueryProcessException(String.format("%d parameters are required but %d are given",
+          getParameterCount(), types.size()));
+    }
+    Object[] parameters = new Object[types.size()];
+    for (int i = 0; i < parameters.length; i++) {
+      TSDataType type = TSDataType.values()[types.get(i)];
+      switch (type) {
+        case BOOLEAN:
+          parameters[i] = ReadWriteIOUtils.readBool(buffer);
+          break;
+        case INT32:
+          parameters[i] = ReadWriteIOUtils.readInt(buffer);
+          break;
+        case INT64:
+          parameters[i] = ReadWriteIOUtils.readLong(buffer);
+          break;
+        case FLOAT:
+          parameters[i] = ReadWriteIOUtils.readFloat(buffer);
+          break;
+        case DOUBLE:
+          parameters[i] = ReadWriteIOUtils.readDouble(buffer);
+          break;
+        case TEXT:
+          parameters[i] = ReadWriteIOUtils.readString(buffer);
+          break;
+        default:
+          throw new QueryProcessException("Unsupported parameter type: " + type);
+      }
+    }
+    return parameters;
+  }
+
+  /**
+   * Bind the parameters and generate a new physical plan.
+   */
+  public PhysicalPlan bind(Object[] parameters) throws QueryProcessException {
+    if (parameters.length != getParameterCount()) {
+      throw new QueryProcessException(String.format("%d parameters are required but %d are given",
+          getParameterCount(), parameters.length));
+    }
+    if (insertTemplate == null) {
+      return planner.parseSQLToPhysicalPlan(getBoundSql(parameters), zoneId);
+    }
+
+    long time = timeParameter == -1 ? insertTemplate.getTime()
+        : bindTime(parameters[timeParameter]);
+    String[] values = insertTemplate.getValues().clone();
+    for (int i = 0; i < values.length; i++) {
+      if (valueParameters[i] != -1) {
+        Object parameter = parameters[valueParameters[i]];
+        // the value is used as it is, so only the quotes marking a TEXT are added
+        values[i] = parameter instanceof String ? SQLConstant.QUOTE + parameter + SQLConstant.QUOTE
+            : parameter.toString();
+      }
+    }
+    return new InsertPlan(insertTemplate.getDeviceId(), time, insertTemplate.getMeasurements(),
+        values);
+  }
+
+  private long bindTime(Object parameter) throws QueryProcessException {
+    if (parameter instanceof Integer || parameter instanceof Long) {
+      return ((Number) parameter).longValue();
+    }
+    if (parameter instanceof String) {
+      String timeStr = (String) parameter;
+      if (timeStr.equalsIgnoreCase(SQLConstant.NOW_FUNC)) {
+        return System.currentTimeMillis();
+      }
+      try {
+        return DatetimeUtils.convertDatetimeStrToLong(timeStr, zoneId);
+      } catch (Exception e) {
+        throw new QueryProcessException(String.format("Input time format %s error.", timeStr));
+      }
+    }
+    throw new QueryProcessException("The time of an insertion should be a long or a datetime, "
+        + "but got " + parameter);
+  }
+
+  /**
+   * @return the SQL with the parameters written in as literals.
+   */
+  public String getBoundSql(Object[] parameters) {
+    String[] literals = new String[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      literals[i] = parameters[i] instanceof String
+          ? SQLConstant.QUOTE + ((String) parameters[i]).replace("'", "\\'") + SQLConstant.QUOTE
+          : parameters[i].toString();
+    }
+    return concat(literals);
+  }
+
+  private String concat(String[] parameters) {
+    StringBuilder builder = new StringBuilder(segments.get(0));
+    for (int i = 0; i < parameters.length; i++) {
+      builder.append(parameters[i]).append(segments.get(i + 1));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Split the SQL by each '?' out of quotes, a character after '\' is always skipped.
+   */
+  static List<String> splitByParameters(String sql) {
+    List<String> parts = new ArrayList<>();
+    char quote = 0;
+    int start = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      char c = sql.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '?') {
+        parts.add(sql.substring(start, i));
+        start = i + 1;
+      }
+    }
+    parts.add(sql.substring(start));
+    return parts;
+  }
+}
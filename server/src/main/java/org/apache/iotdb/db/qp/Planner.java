@@ -22,6 +22,8 @@ import java.time.ZoneId;
 import java.util.Set;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.exception.query.LogicalOperatorException;
 import org.apache.iotdb.db.exception.query.LogicalOptimizeException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
@@ -58,10 +60,13 @@ public class Planner {
 
   public PhysicalPlan parseSQLToPhysicalPlan(String sqlStr, ZoneId zoneId)
       throws QueryProcessException {
+    long startTime = Measurement.INSTANCE.startTimeInNanos();
     Operator operator = parseDriver.parse(sqlStr, zoneId);
     operator = logicalOptimize(operator);
     PhysicalGenerator physicalGenerator = new PhysicalGenerator();
-    return physicalGenerator.transformToPhysicalPlan(operator);
+    PhysicalPlan physicalPlan = physicalGenerator.transformToPhysicalPlan(operator);
+    Measurement.INSTANCE.addOperationLatencyInNanos(Operation.PARSE_SQL, startTime);
+    return physicalPlan;
   }
 
 
@@ -93,6 +98,7 @@ public class Planner {
       case LOAD_FILES:
       case REMOVE_FILE:
       case MOVE_FILE:
+      case KILL_QUERY:
         return operator;
       case QUERY:
       case UPDATE:
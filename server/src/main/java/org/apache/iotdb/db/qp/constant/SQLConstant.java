@@ -65,6 +65,12 @@ public class SQLConstant {
   public static final String AVG = "avg";
   public static final String SUM = "sum";
 
+  /**
+   * the quantile of a percentile is the parameter of the aggregation, e.g. percentile(s1, 0.99)
+   */
+  public static final String PERCENTILE = "percentile";
+  public static final String APPROX_COUNT_DISTINCT = "approx_count_distinct";
+
   public static final String ALL = "all";
 
   public static final int KW_AND = 1;
@@ -137,6 +143,8 @@ public class SQLConstant {
   public static final int TOK_COUNT_TIMESERIES = 77;
   public static final int TOK_COUNT_NODE_TIMESERIES = 78;
   public static final int TOK_COUNT_NODES = 79;
+  public static final int TOK_QUERIES = 80;
+  public static final int TOK_KILL_QUERY = 81;
 
   public static final Map<Integer, String> tokenSymbol = new HashMap<>();
   public static final Map<Integer, String> tokenNames = new HashMap<>();
@@ -205,6 +213,8 @@ public class SQLConstant {
     tokenNames.put(TOK_LOAD_FILES, "TOK_LOAD_FILES");
     tokenNames.put(TOK_REMOVE_FILE, "TOK_REMOVE_FILE");
     tokenNames.put(TOK_MOVE_FILE, "TOK_MOVE_FILE");
+    tokenNames.put(TOK_QUERIES, "TOK_QUERIES");
+    tokenNames.put(TOK_KILL_QUERY, "TOK_KILL_QUERY");
   }
 
   static {
@@ -29,6 +29,8 @@ import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.CompressionRatio;
 import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.flush.pool.FlushTaskPoolManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -48,6 +50,10 @@ import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.crud.*;
 import org.apache.iotdb.db.qp.physical.sys.*;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.SeriesProfile;
+import org.apache.iotdb.db.query.context.SeriesProfile.Counter;
+import org.apache.iotdb.db.query.control.RunningQuery;
+import org.apache.iotdb.db.query.control.RunningQueryManager;
 import org.apache.iotdb.db.query.dataset.AlignByDeviceDataSet;
 import org.apache.iotdb.db.query.dataset.ListDataSet;
 import org.apache.iotdb.db.query.dataset.ShowTimeSeriesResult;
@@ -80,7 +86,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import static org.apache.iotdb.db.conf.IoTDBConstant.*;
 import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.PATH_SEPARATOR;
 import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFFIX;
@@ -88,6 +97,8 @@ import static org.apache.iotdb.tsfile.common.constant.TsFileConstant.TSFILE_SUFF
 public class PlanExecutor implements IPlanExecutor {
 
   private static final Logger logger = LoggerFactory.getLogger(PlanExecutor.class);
+  // the timeseries of the rows of the whole query in the result of EXPLAIN ANALYZE
+  private static final String EXPLAIN_ANALYZE_QUERY = "query";
   // for data query
   protected IQueryRouter queryRouter;
   // for system schema
@@ -115,6 +126,8 @@ public class PlanExecutor implements IPlanExecutor {
       return processAuthorQuery((AuthorPlan) queryPlan);
     } else if (queryPlan instanceof ShowPlan) {
       return processShowQuery((ShowPlan) queryPlan);
+    } else if (queryPlan instanceof ExplainAnalyzePlan) {
+      return processExplainAnalyze((ExplainAnalyzePlan) queryPlan, context);
     } else {
       throw new QueryProcessException(String.format("Unrecognized query plan %s", queryPlan));
     }
@@ -175,6 +188,9 @@ public class PlanExecutor implements IPlanExecutor {
       case MOVE_FILE:
         operateMoveFile((OperateFilePlan) plan);
         return true;
+      case KILL_QUERY:
+        RunningQueryManager.getInstance().kill(((KillQueryPlan) plan).getQueryId());
+        return true;
       default:
         throw new UnsupportedOperationException(
             String.format("operation %s is not supported", plan.getOperatorType()));
@@ -245,6 +261,8 @@ public class PlanExecutor implements IPlanExecutor {
         return processCountNodeTimeSeries((CountPlan) showPlan);
       case COUNT_NODES:
         return processCountNodes((CountPlan) showPlan);
+      case QUERIES:
+        return processShowQueries();
       default:
         throw new QueryProcessException(String.format("Unrecognized show plan %s", showPlan));
     }
@@ -509,6 +527,89 @@ public class PlanExecutor implements IPlanExecutor {
     return listDataSet;
   }
 
+  private QueryDataSet processShowQueries() {
+    ListDataSet listDataSet = new ListDataSet(
+        Arrays.asList(new Path(COLUMN_QUERY_ID), new Path(COLUMN_USER),
+            new Path(COLUMN_START_TIME), new Path(COLUMN_DURATION),
+            new Path(COLUMN_RETURNED_ROWS), new Path(COLUMN_MEMORY), new Path(COLUMN_STATE),
+            new Path(COLUMN_STATEMENT)),
+        Arrays.asList(TSDataType.INT64, TSDataType.TEXT, TSDataType.TEXT, TSDataType.INT64,
+            TSDataType.INT64, TSDataType.INT64, TSDataType.TEXT, TSDataType.TEXT));
+
+    long currentTime = System.currentTimeMillis();
+    ZoneId zoneId = IoTDBDescriptor.getInstance().getConfig().getZoneID();
+    int timestamp = 0;
+    for (RunningQuery runningQuery : RunningQueryManager.getInstance().getRunningQueries()) {
+      RowRecord rowRecord = new RowRecord(timestamp++);
+      rowRecord.addField(runningQuery.getQueryId(), TSDataType.INT64);
+      rowRecord.addField(new Binary(runningQuery.getUser()), TSDataType.TEXT);
+      rowRecord.addField(new Binary(Instant.ofEpochMilli(runningQuery.getStartTime())
+          .atZone(zoneId).toOffsetDateTime().toString()), TSDataType.TEXT);
+      rowRecord.addField(currentTime - runningQuery.getStartTime(), TSDataType.INT64);
+      rowRecord.addField(runningQuery.getReturnedRows(), TSDataType.INT64);
+      rowRecord.addField(runningQuery.getMemory(), TSDataType.INT64);
+      rowRecord.addField(new Binary(runningQuery.getContext().isKilled() ? "killed" : "running"),
+          TSDataType.TEXT);
+      rowRecord.addField(new Binary(runningQuery.getStatement()), TSDataType.TEXT);
+      listDataSet.putRecord(rowRecord);
+    }
+    return listDataSet;
+  }
+
+  /**
+   * execute the query to the end and return the profile of each series read by it, after the
+   * total rows and execution time of the query
+   */
+  private QueryDataSet processExplainAnalyze(ExplainAnalyzePlan explainAnalyzePlan,
+      QueryContext context) throws IOException, StorageEngineException,
+      QueryFilterOptimizationException, QueryProcessException {
+    QueryPlan queryPlan = explainAnalyzePlan.getQueryPlan();
+    if (!queryPlan.isAlignByTime()) {
+      throw new QueryProcessException("EXPLAIN ANALYZE doesn't support disable align clause.");
+    }
+    context.enableProfile();
+    long startTime = System.nanoTime();
+    QueryDataSet queryDataSet = processDataQuery(queryPlan, context);
+    long rowCount = 0;
+    while (queryDataSet.hasNext()) {
+      queryDataSet.next();
+      rowCount++;
+    }
+    long executionTime = System.nanoTime() - startTime;
+
+    ListDataSet listDataSet = new ListDataSet(
+        Arrays.asList(new Path(COLUMN_TIMESERIES), new Path(COLUMN_ITEM), new Path(COLUMN_VALUE)),
+        Arrays.asList(TSDataType.TEXT, TSDataType.TEXT, TSDataType.TEXT));
+    int timestamp = 0;
+    addRowRecordForExplainAnalyze(listDataSet, timestamp++, EXPLAIN_ANALYZE_QUERY, "result rows",
+        rowCount);
+    addRowRecordForExplainAnalyze(listDataSet, timestamp++, EXPLAIN_ANALYZE_QUERY,
+        "execution time(us)", TimeUnit.NANOSECONDS.toMicros(executionTime));
+    for (Map.Entry<String, SeriesProfile> entry : context.getSeriesProfiles().entrySet()) {
+      for (Counter counter : Counter.values()) {
+        long value = entry.getValue().get(counter);
+        addRowRecordForExplainAnalyze(listDataSet, timestamp++, entry.getKey(),
+            counter.getName(), counter.isTime() ? TimeUnit.NANOSECONDS.toMicros(value) : value);
+      }
+    }
+    return listDataSet;
+  }
+
+  private void addRowRecordForExplainAnalyze(ListDataSet listDataSet, int timestamp,
+      String series, String item, long value) {
+    RowRecord rowRecord = new RowRecord(timestamp);
+    Field seriesField = new Field(TSDataType.TEXT);
+    seriesField.setBinaryV(new Binary(series));
+    rowRecord.addField(seriesField);
+    Field itemField = new Field(TSDataType.TEXT);
+    itemField.setBinaryV(new Binary(item));
+    rowRecord.addField(itemField);
+    Field valueField = new Field(TSDataType.TEXT);
+    valueField.setBinaryV(new Binary(Long.toString(value)));
+    rowRecord.addField(valueField);
+    listDataSet.putRecord(rowRecord);
+  }
+
   private void addRowRecordForShowQuery(ListDataSet listDataSet, int timestamp, String item,
       String value) {
     RowRecord rowRecord = new RowRecord(timestamp);
@@ -706,11 +807,13 @@ public class PlanExecutor implements IPlanExecutor {
   @Override
   public void insert(InsertPlan insertPlan) throws QueryProcessException {
     try {
+      long startTime = Measurement.INSTANCE.startTimeInNanos();
       String[] measurementList = insertPlan.getMeasurements();
       String deviceId = insertPlan.getDeviceId();
       MNode node = mManager.getDeviceNodeWithAutoCreateStorageGroup(deviceId);
       String[] strValues = insertPlan.getValues();
       MeasurementSchema[] schemas = new MeasurementSchema[measurementList.length];
+      int[] seriesIds = new int[measurementList.length];
 
       for (int i = 0; i < measurementList.length; i++) {
         String measurement = measurementList[i];
@@ -724,8 +827,11 @@ public class PlanExecutor implements IPlanExecutor {
         }
         LeafMNode measurementNode = (LeafMNode) node.getChild(measurement);
         schemas[i] = measurementNode.getSchema();
+        seriesIds[i] = measurementNode.getSeriesId();
       }
       insertPlan.setSchemas(schemas);
+      insertPlan.setSeriesIds(seriesIds);
+      Measurement.INSTANCE.addOperationLatencyInNanos(Operation.GET_SCHEMA, startTime);
       StorageEngine.getInstance().insert(insertPlan);
     } catch (StorageEngineException | MetadataException e) {
       throw new QueryProcessException(e);
@@ -775,12 +881,14 @@ public class PlanExecutor implements IPlanExecutor {
   @Override
   public TSStatus[] insertBatch(BatchInsertPlan batchInsertPlan) throws QueryProcessException {
     try {
+      long startTime = Measurement.INSTANCE.startTimeInNanos();
       String[] measurementList = batchInsertPlan.getMeasurements();
       String deviceId = batchInsertPlan.getDeviceId();
       MNode node = mManager.getDeviceNodeWithAutoCreateStorageGroup(deviceId);
       TSDataType[] dataTypes = batchInsertPlan.getDataTypes();
       IoTDBConfig conf = IoTDBDescriptor.getInstance().getConfig();
       MeasurementSchema[] schemas = new MeasurementSchema[measurementList.length];
+      int[] seriesIds = new int[measurementList.length];
 
       for (int i = 0; i < measurementList.length; i++) {
         // check if timeseries exists
@@ -804,8 +912,11 @@ public class PlanExecutor implements IPlanExecutor {
                   measurementNode.getSchema().getType()));
         }
         schemas[i] = measurementNode.getSchema();
+        seriesIds[i] = measurementNode.getSeriesId();
       }
       batchInsertPlan.setSchemas(schemas);
+      batchInsertPlan.setSeriesIds(seriesIds);
+      Measurement.INSTANCE.addOperationLatencyInNanos(Operation.GET_SCHEMA, startTime);
       return StorageEngine.getInstance().insertBatch(batchInsertPlan);
     } catch (StorageEngineException | MetadataException e) {
       throw new QueryProcessException(e);
@@ -50,6 +50,9 @@ public class QueryOperator extends SFWOperator {
   private boolean isAlignByDevice = false;
   private boolean isAlignByTime = true;
 
+  // execute the query and return its execution profile instead of its result
+  private boolean isExplainAnalyze = false;
+
   public QueryOperator(int tokenIntType) {
     super(tokenIntType);
     operatorType = Operator.OperatorType.QUERY;
@@ -174,4 +177,12 @@ public class QueryOperator extends SFWOperator {
   public void setAlignByTime(boolean isAlignByTime) {
     this.isAlignByTime = isAlignByTime;
   }
+
+  public boolean isExplainAnalyze() {
+    return isExplainAnalyze;
+  }
+
+  public void setExplainAnalyze(boolean isExplainAnalyze) {
+    this.isExplainAnalyze = isExplainAnalyze;
+  }
 }
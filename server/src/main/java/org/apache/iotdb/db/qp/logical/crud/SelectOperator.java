@@ -31,6 +31,11 @@ public final class SelectOperator extends Operator {
 
   private List<Path> suffixList;
   private List<String> aggregations;
+  /**
+   * the parameter of each aggregation, e.g., the quantile of percentile, null if the aggregation
+   * has no parameter
+   */
+  private List<Double> aggregationParameters;
   private boolean lastQuery;
 
   /**
@@ -41,6 +46,7 @@ public final class SelectOperator extends Operator {
     operatorType = OperatorType.SELECT;
     suffixList = new ArrayList<>();
     aggregations = new ArrayList<>();
+    aggregationParameters = new ArrayList<>();
     lastQuery = false;
   }
 
@@ -48,9 +54,10 @@ public final class SelectOperator extends Operator {
     suffixList.add(suffixPath);
   }
 
-  public void addClusterPath(Path suffixPath, String aggregation) {
+  public void addClusterPath(Path suffixPath, String aggregation, Double aggregationParameter) {
     suffixList.add(suffixPath);
     aggregations.add(aggregation);
+    aggregationParameters.add(aggregationParameter);
   }
 
   public void setLastQuery() {
@@ -65,6 +72,14 @@ public final class SelectOperator extends Operator {
     this.aggregations = aggregations;
   }
 
+  public List<Double> getAggregationParameters() {
+    return aggregationParameters;
+  }
+
+  public void setAggregationParameters(List<Double> aggregationParameters) {
+    this.aggregationParameters = aggregationParameters;
+  }
+
   public void setSuffixPathList(List<Path> suffixPaths) {
     suffixList = suffixPaths;
   }
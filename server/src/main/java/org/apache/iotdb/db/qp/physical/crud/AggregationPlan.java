@@ -31,6 +31,11 @@ public class AggregationPlan extends RawDataQueryPlan {
   private List<String> aggregations = new ArrayList<>();
   private List<String> deduplicatedAggregations = new ArrayList<>();
 
+  // the parameter of each aggregation, e.g., the quantile of percentile, null if the aggregation
+  // has no parameter
+  private List<Double> aggregationParameters = new ArrayList<>();
+  private List<Double> deduplicatedAggregationParameters = new ArrayList<>();
+
   public AggregationPlan() {
     super();
     setOperatorType(Operator.OperatorType.AGGREGATION);
@@ -56,4 +61,34 @@ public class AggregationPlan extends RawDataQueryPlan {
   public void setDeduplicatedAggregations(List<String> deduplicatedAggregations) {
     this.deduplicatedAggregations = deduplicatedAggregations;
   }
+
+  public List<Double> getAggregationParameters() {
+    return aggregationParameters;
+  }
+
+  public void setAggregationParameters(List<Double> aggregationParameters) {
+    this.aggregationParameters = aggregationParameters;
+  }
+
+  public List<Double> getDeduplicatedAggregationParameters() {
+    return deduplicatedAggregationParameters;
+  }
+
+  public void addDeduplicatedAggregationParameter(Double aggregationParameter) {
+    this.deduplicatedAggregationParameters.add(aggregationParameter);
+  }
+
+  public void setDeduplicatedAggregationParameters(
+      List<Double> deduplicatedAggregationParameters) {
+    this.deduplicatedAggregationParameters = deduplicatedAggregationParameters;
+  }
+
+  /**
+   * @return the column of an aggregation in the result, e.g., count(root.sg.d1.s1) or
+   * percentile(root.sg.d1.s1, 0.99)
+   */
+  public static String getColumnName(String aggregation, Double parameter, String path) {
+    return parameter == null ? aggregation + "(" + path + ")"
+        : aggregation + "(" + path + ", " + parameter + ")";
+  }
 }
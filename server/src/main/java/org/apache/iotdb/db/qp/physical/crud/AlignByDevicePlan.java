@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.qp.physical.crud;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.iotdb.db.qp.logical.Operator;
@@ -34,6 +35,8 @@ public class AlignByDevicePlan extends QueryPlan {
   private Map<String, IExpression> deviceToFilterMap;
   // to record different kinds of measurement
   private Map<String, MeasurementType> measurementTypeMap;
+  // the parameters of the aggregation columns that have one, e.g. percentile(s1, 0.99) -> 0.99
+  private Map<String, Double> measurementParameterMap = new HashMap<>();
 
   private GroupByPlan groupByPlan;
   private FillQueryPlan fillQueryPlan;
@@ -85,6 +88,14 @@ public class AlignByDevicePlan extends QueryPlan {
     this.measurementTypeMap = measurementTypeMap;
   }
 
+  public Map<String, Double> getMeasurementParameterMap() {
+    return measurementParameterMap;
+  }
+
+  public void setMeasurementParameterMap(Map<String, Double> measurementParameterMap) {
+    this.measurementParameterMap = measurementParameterMap;
+  }
+
   public GroupByPlan getGroupByPlan() {
     return groupByPlan;
   }
@@ -112,6 +123,11 @@ public class AlignByDevicePlan extends QueryPlan {
     this.setOperatorType(Operator.OperatorType.AGGREGATION);
   }
 
+  @Override
+  public String toString() {
+    return String.format("%s %s of %s align by device", getOperatorType(), measurements, devices);
+  }
+
   /**
    * Exist: the measurements which don't belong to NonExist and Constant.
    * NonExist: the measurements that do not exist in any device, data type is considered as String.
@@ -52,6 +52,8 @@ public class BatchInsertPlan extends PhysicalPlan {
   private TSDataType[] dataTypes;
   // only be set in insert
   private MeasurementSchema[] schemas;
+  // ids of the LeafMNodes of the measurements, only be set in insert and not serialized
+  private int[] seriesIds;
 
   private long[] times; // times should be sorted. It is done in the session API.
   private ByteBuffer timeBuffer;
@@ -368,6 +370,14 @@ public class BatchInsertPlan extends PhysicalPlan {
     this.schemas = schemas;
   }
 
+  public int[] getSeriesIds() {
+    return seriesIds;
+  }
+
+  public void setSeriesIds(int[] seriesIds) {
+    this.seriesIds = seriesIds;
+  }
+
   public void setDataTypes(List<Integer> dataTypes) {
     this.dataTypes = new TSDataType[dataTypes.size()];
     for (int i = 0; i < dataTypes.size(); i++) {
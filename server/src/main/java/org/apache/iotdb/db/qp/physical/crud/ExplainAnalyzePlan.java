@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp.physical.crud;
+
+import java.util.List;
+import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.tsfile.read.common.Path;
+
+/**
+ * ExplainAnalyzePlan executes a query to the end and returns what reading each of its series cost
+ * instead of the result of the query.
+ */
+public class ExplainAnalyzePlan extends PhysicalPlan {
+
+  private final QueryPlan queryPlan;
+
+  public ExplainAnalyzePlan(QueryPlan queryPlan) {
+    super(true, OperatorType.EXPLAIN_ANALYZE);
+    this.queryPlan = queryPlan;
+  }
+
+  public QueryPlan getQueryPlan() {
+    return queryPlan;
+  }
+
+  @Override
+  public List<Path> getPaths() {
+    return queryPlan.getPaths();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s %s", getOperatorType(), queryPlan);
+  }
+}
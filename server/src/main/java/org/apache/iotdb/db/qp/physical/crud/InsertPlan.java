@@ -46,6 +46,8 @@ public class InsertPlan extends PhysicalPlan {
   private String[] measurements;
   private String[] values;
   private MeasurementSchema[] schemas;
+  // ids of the LeafMNodes of the measurements, only be set in insert and not serialized
+  private int[] seriesIds;
 
   public InsertPlan() {
     super(false, OperatorType.INSERT);
@@ -103,6 +105,14 @@ public class InsertPlan extends PhysicalPlan {
     this.schemas = schemas;
   }
 
+  public int[] getSeriesIds() {
+    return seriesIds;
+  }
+
+  public void setSeriesIds(int[] seriesIds) {
+    this.seriesIds = seriesIds;
+  }
+
   @Override
   public List<Path> getPaths() {
     List<Path> ret = new ArrayList<>();
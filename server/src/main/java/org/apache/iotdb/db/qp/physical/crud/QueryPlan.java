@@ -99,4 +99,9 @@ public abstract class QueryPlan extends PhysicalPlan {
   public Map<String, Integer> getPathToIndex() {
     return pathToIndex;
   }
+
+  @Override
+  public String toString() {
+    return String.format("%s %s", getOperatorType(), getPaths());
+  }
 }
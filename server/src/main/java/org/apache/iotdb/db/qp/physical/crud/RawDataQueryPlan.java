@@ -85,4 +85,11 @@ public class RawDataQueryPlan extends QueryPlan {
     return deviceToMeasurements.getOrDefault(device, Collections.emptySet());
   }
 
+  @Override
+  public String toString() {
+    if (expression == null) {
+      return super.toString();
+    }
+    return String.format("%s where %s", super.toString(), expression);
+  }
 }
@@ -143,6 +143,15 @@ public class LogicalGenerator extends SqlBaseBaseListener {
         new File(ctx.FILE(1).getText()));
   }
 
+  @Override
+  public void exitExplainAnalyze(ExplainAnalyzeContext ctx) {
+    super.exitExplainAnalyze(ctx);
+    if (!(initializedOperator instanceof QueryOperator)) {
+      throw new SQLParserException("EXPLAIN ANALYZE only supports select statements");
+    }
+    ((QueryOperator) initializedOperator).setExplainAnalyze(true);
+  }
+
   @Override
   public void enterRemoveFile(RemoveFileContext ctx) {
     super.enterRemoveFile(ctx);
@@ -173,6 +182,18 @@ public class LogicalGenerator extends SqlBaseBaseListener {
     initializedOperator = new ShowOperator(SQLConstant.TOK_FLUSH_TASK_INFO);
   }
 
+  @Override
+  public void enterShowQueries(ShowQueriesContext ctx) {
+    super.enterShowQueries(ctx);
+    initializedOperator = new ShowOperator(SQLConstant.TOK_QUERIES);
+  }
+
+  @Override
+  public void enterKillQuery(KillQueryContext ctx) {
+    super.enterKillQuery(ctx);
+    initializedOperator = new KillQueryOperator(Long.parseLong(ctx.queryId.getText()));
+  }
+
   @Override
   public void enterShowTimeseries(ShowTimeseriesContext ctx) {
     super.enterShowTimeseries(ctx);
@@ -638,10 +659,6 @@ public class LogicalGenerator extends SqlBaseBaseListener {
     // parse sliding step
     if (ctx.DURATION().size() == 2) {
       queryOp.setSlidingStep(parseDuration(ctx.DURATION(1).getText()));
-      if (queryOp.getSlidingStep() < queryOp.getUnit()) {
-        throw new SQLParserException(
-            "The third parameter sliding step shouldn't be smaller than the second parameter time interval.");
-      }
     }
 
     parseTimeInterval(ctx.timeInterval());
@@ -967,11 +984,40 @@ public class LogicalGenerator extends SqlBaseBaseListener {
     List<FunctionCallContext> functionCallContextList = ctx.functionCall();
     for (FunctionCallContext functionCallContext : functionCallContextList) {
       Path path = parseSuffixPath(functionCallContext.suffixPath());
-      selectOp.addClusterPath(path, functionCallContext.functionName().getText());
+      selectOp.addClusterPath(path, functionCallContext.functionName().getText(),
+          parseFunctionParameter(functionCallContext));
     }
     queryOp.setSelectOperator(selectOp);
   }
 
+  /**
+   * @return the quantile of percentile, or null for the functions without a parameter
+   */
+  private Double parseFunctionParameter(FunctionCallContext ctx) {
+    String functionName = ctx.functionName().getText();
+    String parameter = null;
+    if (ctx.INT() != null) {
+      parameter = ctx.INT().getText();
+    } else if (ctx.realLiteral() != null) {
+      parameter = ctx.realLiteral().getText();
+    }
+    if (ctx.functionName().PERCENTILE() == null) {
+      if (parameter != null) {
+        throw new SQLParserException(functionName + " does not need a parameter");
+      }
+      return null;
+    }
+    if (parameter == null) {
+      throw new SQLParserException("percentile needs a quantile, e.g. percentile(s1, 0.99)");
+    }
+    double quantile = Double.parseDouble(parameter);
+    if (quantile < 0 || quantile > 1) {
+      throw new SQLParserException("The quantile of percentile should be in [0, 1], but got "
+          + parameter);
+    }
+    return quantile;
+  }
+
   @Override
   public void enterSelectElement(SelectElementContext ctx) {
     super.enterSelectElement(ctx);
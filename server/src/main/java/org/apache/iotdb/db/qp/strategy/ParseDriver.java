@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.qp.strategy;
 
 import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
@@ -26,13 +27,54 @@ import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.LRULinkedHashMap;
 import org.apache.iotdb.db.qp.logical.Operator;
+import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.tsfile.utils.Pair;
 
 /**
  * ParseDriver.
- *
+ * <p>
+ * Syntax trees are cached globally by SQL text in an LRU map bounded by their estimated memory, so
+ * a statement sent again (e.g., by a dashboard) skips the lexer and parser. INSERTs are not
+ * cached, as their values make almost every one unique and repeated ones are prepared instead.
+ * The trees are never modified once built and each parse walks them with a new LogicalGenerator,
+ * so sharing them between threads is safe.
  */
 public class ParseDriver {
+
+  /**
+   * statements longer than this are seldom sent twice, caching them only evicts useful entries.
+   */
+  private static final int MAX_CACHED_SQL_LENGTH = 4096;
+
+  /**
+   * the estimated memory of a cached syntax tree per token, including the token, the tree nodes
+   * built on it and its share of the token stream and the char stream.
+   */
+  private static final int ESTIMATED_BYTES_PER_TOKEN = 200;
+
+  private static final long PARSE_CACHE_MEMORY_IN_B =
+      IoTDBDescriptor.getInstance().getConfig().getParseCacheMemoryInKB() * 1024L;
+
+  /**
+   * SQL text -> (syntax tree, its estimated memory in bytes)
+   */
+  private static final LRULinkedHashMap<String, Pair<ParseTree, Long>> parseCache =
+      new LRULinkedHashMap<String, Pair<ParseTree, Long>>(PARSE_CACHE_MEMORY_IN_B, true) {
+
+        private static final long serialVersionUID = -3571867366378413574L;
+
+        @Override
+        protected long calEntrySize(String key, Pair<ParseTree, Long> value) {
+          return value.right;
+        }
+      };
+
+  private static final AtomicLong cacheHitNum = new AtomicLong();
+  private static final AtomicLong cacheRequestNum = new AtomicLong();
+
   private ParseTreeWalker walker;
 
   public ParseDriver() {
@@ -41,6 +83,48 @@ public class ParseDriver {
 
   public Operator parse(String sql, ZoneId zoneId) throws ParseCancellationException {
     LogicalGenerator logicalGenerator = new LogicalGenerator(zoneId);
+    walker.walk(logicalGenerator, getParseTree(sql));
+    return logicalGenerator.getLogicalPlan();
+  }
+
+  private ParseTree getParseTree(String sql) {
+    boolean cacheable = PARSE_CACHE_MEMORY_IN_B > 0 && sql.length() <= MAX_CACHED_SQL_LENGTH
+        && !isInsert(sql);
+    if (!cacheable) {
+      return buildParseTree(sql).left;
+    }
+    cacheRequestNum.incrementAndGet();
+    Pair<ParseTree, Long> cached;
+    synchronized (parseCache) {
+      cached = parseCache.get(sql);
+    }
+    if (cached != null) {
+      cacheHitNum.incrementAndGet();
+      return cached.left;
+    }
+    // only statements without syntax errors reach here, as the error listener throws
+    Pair<ParseTree, Long> built = buildParseTree(sql);
+    synchronized (parseCache) {
+      // another thread may have cached it meanwhile, whose size must not be counted twice
+      if (!parseCache.containsKey(sql)) {
+        parseCache.put(sql, built);
+      }
+    }
+    return built.left;
+  }
+
+  private static boolean isInsert(String sql) {
+    int start = 0;
+    while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+      start++;
+    }
+    return sql.regionMatches(true, start, "insert", 0, "insert".length());
+  }
+
+  /**
+   * @return the syntax tree and its estimated memory in bytes
+   */
+  private Pair<ParseTree, Long> buildParseTree(String sql) {
     CharStream charStream1 = CharStreams.fromString(sql);
     SqlBaseLexer lexer1 = new SqlBaseLexer(charStream1);
     CommonTokenStream tokens1 = new CommonTokenStream(lexer1);
@@ -49,6 +133,7 @@ public class ParseDriver {
     parser1.removeErrorListeners();
     parser1.addErrorListener(LogicalGeneratorError.INSTANCE);
     ParseTree tree;
+    CommonTokenStream tokens = tokens1;
     try {
       tree = parser1.singleStatement();  // STAGE 1
     }
@@ -62,8 +147,39 @@ public class ParseDriver {
       parser2.addErrorListener(LogicalGeneratorError.INSTANCE);
       tree = parser2.singleStatement();  // STAGE 2
       // if we parse ok, it's LL not SLL
+      tokens = tokens2;
+    }
+    // the SQL text is also held as the key
+    long estimatedSize = (long) sql.length() * Character.BYTES
+        + (long) tokens.size() * ESTIMATED_BYTES_PER_TOKEN;
+    return new Pair<>(tree, estimatedSize);
+  }
+
+  public static double calculateParseCacheHitRatio() {
+    if (cacheRequestNum.get() != 0) {
+      return cacheHitNum.get() * 1.0 / cacheRequestNum.get();
+    } else {
+      return 0;
+    }
+  }
+
+  @TestOnly
+  public static int getParseCacheSize() {
+    synchronized (parseCache) {
+      return parseCache.size();
+    }
+  }
+
+  @TestOnly
+  public static double getParseCacheUsedMemoryProportion() {
+    synchronized (parseCache) {
+      return parseCache.getUsedMemoryProportion();
+    }
+  }
+
+  public static void clearParseCache() {
+    synchronized (parseCache) {
+      parseCache.clear();
     }
-    walker.walk(logicalGenerator, tree);
-    return logicalGenerator.getLogicalPlan();
   }
 }
@@ -98,7 +98,9 @@ public class PhysicalGenerator {
             insert.getValueList());
       case QUERY:
         QueryOperator query = (QueryOperator) operator;
-        return transformQuery(query);
+        PhysicalPlan queryPlan = transformQuery(query);
+        return query.isExplainAnalyze() ? new ExplainAnalyzePlan((QueryPlan) queryPlan)
+            : queryPlan;
       case TTL:
         switch (operator.getTokenIntType()) {
           case SQLConstant.TOK_SET:
@@ -116,6 +118,8 @@ public class PhysicalGenerator {
         }
       case LOAD_CONFIGURATION:
         return new LoadConfigurationPlan();
+      case KILL_QUERY:
+        return new KillQueryPlan(((KillQueryOperator) operator).getQueryId());
       case SHOW:
         switch (operator.getTokenIntType()) {
           case SQLConstant.TOK_DYNAMIC_PARAMETER:
@@ -124,6 +128,8 @@ public class PhysicalGenerator {
             return new ShowPlan(ShowContentType.FLUSH_TASK_INFO);
           case SQLConstant.TOK_VERSION:
             return new ShowPlan(ShowContentType.VERSION);
+          case SQLConstant.TOK_QUERIES:
+            return new ShowPlan(ShowContentType.QUERIES);
           case SQLConstant.TOK_TIMESERIES:
             ShowTimeSeriesOperator showTimeSeriesOperator = (ShowTimeSeriesOperator) operator;
             return new ShowTimeSeriesPlan(
@@ -196,6 +202,8 @@ public class PhysicalGenerator {
       }
       ((GroupByFillPlan) queryPlan)
               .setAggregations(queryOperator.getSelectOperator().getAggregations());
+      ((GroupByFillPlan) queryPlan).setAggregationParameters(
+          queryOperator.getSelectOperator().getAggregationParameters());
       for (String aggregation : queryPlan.getAggregations()) {
         if (!SQLConstant.LAST_VALUE.equals(aggregation)) {
           throw new QueryProcessException("Group By Fill only support last_value function");
@@ -216,6 +224,8 @@ public class PhysicalGenerator {
       }
       ((GroupByPlan) queryPlan)
           .setAggregations(queryOperator.getSelectOperator().getAggregations());
+      ((GroupByPlan) queryPlan).setAggregationParameters(
+          queryOperator.getSelectOperator().getAggregationParameters());
     } else if (queryOperator.isFill()) {
       queryPlan = new FillQueryPlan();
       FilterOperator timeFilter = queryOperator.getFilterOperator();
@@ -229,6 +239,8 @@ public class PhysicalGenerator {
       queryPlan = new AggregationPlan();
       ((AggregationPlan) queryPlan)
           .setAggregations(queryOperator.getSelectOperator().getAggregations());
+      ((AggregationPlan) queryPlan).setAggregationParameters(
+          queryOperator.getSelectOperator().getAggregationParameters());
     } else if (queryOperator.isLastQuery()) {
       queryPlan = new LastQueryPlan();
     } else {
@@ -257,12 +269,15 @@ public class PhysicalGenerator {
       List<String> devices = this.removeStarsInDeviceWithUnique(prefixPaths);
       List<Path> suffixPaths = queryOperator.getSelectOperator().getSuffixPaths();
       List<String> originAggregations = queryOperator.getSelectOperator().getAggregations();
+      List<Double> originParameters = queryOperator.getSelectOperator()
+          .getAggregationParameters();
 
       // to record result measurement columns
       List<String> measurements = new ArrayList<>();
       // to check the same measurement of different devices having the same datatype
       Map<String, TSDataType> measurementDataTypeMap = new HashMap<>();
       Map<String, MeasurementType> measurementTypeMap = new HashMap<>();
+      Map<String, Double> measurementParameterMap = new HashMap<>();
       List<Path> paths = new ArrayList<>();
 
       for (int i = 0; i < suffixPaths.size(); i++) { // per suffix in SELECT
@@ -303,7 +318,12 @@ public class PhysicalGenerator {
               // while root.sg1.d1.s0 is INT32 and root.sg2.d3.s0 is FLOAT.
               String measurementChecked;
               if (originAggregations != null && !originAggregations.isEmpty()) {
-                measurementChecked = originAggregations.get(i) + "(" + path.getMeasurement() + ")";
+                Double parameter = originParameters.get(i);
+                measurementChecked = AggregationPlan
+                    .getColumnName(originAggregations.get(i), parameter, path.getMeasurement());
+                if (parameter != null) {
+                  measurementParameterMap.put(measurementChecked, parameter);
+                }
               } else {
                 measurementChecked = path.getMeasurement();
               }
@@ -357,6 +377,7 @@ public class PhysicalGenerator {
       alignByDevicePlan.setDevices(devices);
       alignByDevicePlan.setMeasurementDataTypeMap(measurementDataTypeMap);
       alignByDevicePlan.setMeasurementTypeMap(measurementTypeMap);
+      alignByDevicePlan.setMeasurementParameterMap(measurementParameterMap);
       alignByDevicePlan.setPaths(paths);
 
       // get deviceToFilterMap
@@ -487,15 +508,18 @@ public class PhysicalGenerator {
     if (queryPlan instanceof AggregationPlan) {
       AggregationPlan aggregationPlan = (AggregationPlan) queryPlan;
       List<String> aggregations = aggregationPlan.getAggregations();
+      List<Double> parameters = aggregationPlan.getAggregationParameters();
       Set<String> columnSet = new HashSet<>();
       int index = 0;
       for (Pair<Path, Integer> indexedPath : indexedPaths) {
-        String column = aggregations.get(indexedPath.right) + "(" + indexedPath.left.toString() + ")";
+        String column = AggregationPlan.getColumnName(aggregations.get(indexedPath.right),
+            parameters.get(indexedPath.right), indexedPath.left.toString());
         if (!columnSet.contains(column)) {
           aggregationPlan.addDeduplicatedPaths(indexedPath.left);
           TSDataType seriesType = dataTypes.get(indexedPath.right);
           aggregationPlan.addDeduplicatedDataTypes(seriesType);
           aggregationPlan.addDeduplicatedAggregations(aggregations.get(indexedPath.right));
+          aggregationPlan.addDeduplicatedAggregationParameter(parameters.get(indexedPath.right));
           columnSet.add(column);
           aggregationPlan.addColumn(column, index++);
         }
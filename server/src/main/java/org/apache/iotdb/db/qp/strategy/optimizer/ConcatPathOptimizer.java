@@ -148,7 +148,7 @@ public class ConcatPathOptimizer implements ILogicalOptimizer {
     }
   }
 
-  private void extendListSafely(List<String> source, int index, List<String> target) {
+  private <T> void extendListSafely(List<T> source, int index, List<T> target) {
     if (source != null && !source.isEmpty()) {
       target.add(source.get(index));
     }
@@ -165,6 +165,8 @@ public class ConcatPathOptimizer implements ILogicalOptimizer {
     List<Path> allPaths = new ArrayList<>();
     List<String> originAggregations = selectOperator.getAggregations();
     List<String> afterConcatAggregations = new ArrayList<>();
+    List<Double> originParameters = selectOperator.getAggregationParameters();
+    List<Double> afterConcatParameters = new ArrayList<>();
 
     for (int i = 0; i < suffixPaths.size(); i++) {
       // selectPath cannot start with ROOT, which is guaranteed by TSParser
@@ -172,10 +174,11 @@ public class ConcatPathOptimizer implements ILogicalOptimizer {
       for (Path fromPath : fromPaths) {
         allPaths.add(Path.addPrefixPath(selectPath, fromPath));
         extendListSafely(originAggregations, i, afterConcatAggregations);
+        extendListSafely(originParameters, i, afterConcatParameters);
       }
     }
 
-    removeStarsInPath(allPaths, afterConcatAggregations, selectOperator);
+    removeStarsInPath(allPaths, afterConcatAggregations, afterConcatParameters, selectOperator);
   }
 
   /**
@@ -209,6 +212,8 @@ public class ConcatPathOptimizer implements ILogicalOptimizer {
       List<String> trimedAggregations = new ArrayList<>(
           aggregations.subList(seriesOffset, endPosition));
       select.setAggregations(trimedAggregations);
+      select.setAggregationParameters(new ArrayList<>(
+          select.getAggregationParameters().subList(seriesOffset, endPosition)));
     }
   }
 
@@ -299,9 +304,11 @@ public class ConcatPathOptimizer implements ILogicalOptimizer {
   }
 
   private void removeStarsInPath(List<Path> paths, List<String> afterConcatAggregations,
-      SelectOperator selectOperator) throws LogicalOptimizeException {
+      List<Double> afterConcatParameters, SelectOperator selectOperator)
+      throws LogicalOptimizeException {
     List<Path> retPaths = new ArrayList<>();
     List<String> newAggregations = new ArrayList<>();
+    List<Double> newParameters = new ArrayList<>();
     for (int i = 0; i < paths.size(); i++) {
       try {
         List<String> actualPaths = removeWildcard(paths.get(i).getFullPath());
@@ -309,6 +316,7 @@ public class ConcatPathOptimizer implements ILogicalOptimizer {
           retPaths.add(new Path(actualPath));
           if (afterConcatAggregations != null && !afterConcatAggregations.isEmpty()) {
             newAggregations.add(afterConcatAggregations.get(i));
+            newParameters.add(afterConcatParameters.get(i));
           }
         }
       } catch (MetadataException e) {
@@ -317,6 +325,7 @@ public class ConcatPathOptimizer implements ILogicalOptimizer {
     }
     selectOperator.setSuffixPathList(retPaths);
     selectOperator.setAggregations(newAggregations);
+    selectOperator.setAggregationParameters(newParameters);
   }
 
   protected List<String> removeWildcard(String path) throws MetadataException {
@@ -68,6 +68,15 @@ public abstract class AggregateResult {
   public abstract void updateResultFromStatistics(Statistics statistics)
       throws QueryProcessException;
 
+  /**
+   * @return false if the aggregation needs every value (e.g., a sketch of the values), so the
+   * data is read for it even if the Statistics of a file, chunk or page are used by the other
+   * aggregations of the series
+   */
+  public boolean canUseStatistics() {
+    return true;
+  }
+
   /**
    * Aggregate results cannot be calculated using Statistics directly, using the data in each page
    *
@@ -106,6 +115,23 @@ public abstract class AggregateResult {
    */
   public abstract void merge(AggregateResult another);
 
+  /**
+   * @return true if a merged aggregateResult can be taken out by {@link
+   * #subtract(AggregateResult)}
+   */
+  public boolean isInvertible() {
+    return false;
+  }
+
+  /**
+   * Take out another aggregateResult which has been merged into this, only supported if {@link
+   * #isInvertible()}
+   */
+  public void subtract(AggregateResult another) {
+    throw new UnsupportedOperationException(
+        String.format("Aggregation %s cannot be subtracted", aggregationType));
+  }
+
   public static AggregateResult deserializeFrom(ByteBuffer buffer) {
     AggregationType aggregationType = AggregationType.deserialize(buffer);
     TSDataType dataType = TSDataType.deserialize(buffer.getShort());
@@ -293,7 +319,7 @@ public abstract class AggregateResult {
     this.binaryValue = binaryValue;
   }
 
-  protected boolean hasResult() {
+  public boolean hasResult() {
     return hasResult;
   }
 
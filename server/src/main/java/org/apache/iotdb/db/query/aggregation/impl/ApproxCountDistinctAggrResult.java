@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.aggregation.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.db.query.aggregation.sketch.HyperLogLog;
+import org.apache.iotdb.db.query.reader.series.IReaderByTimestamp;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * The approximate number of distinct values of a series, calculated by a HyperLogLog.
+ */
+public class ApproxCountDistinctAggrResult extends AggregateResult {
+
+  private HyperLogLog hyperLogLog = new HyperLogLog();
+
+  public ApproxCountDistinctAggrResult() {
+    super(TSDataType.INT64, AggregationType.APPROX_COUNT_DISTINCT);
+    reset();
+  }
+
+  @Override
+  public Object getResult() {
+    if (hasResult()) {
+      setLongValue(hyperLogLog.cardinality());
+    }
+    return getLongValue();
+  }
+
+  @Override
+  public boolean canUseStatistics() {
+    return false;
+  }
+
+  @Override
+  public void updateResultFromStatistics(Statistics statistics) throws QueryProcessException {
+    throw new QueryProcessException("APPROX_COUNT_DISTINCT cannot be calculated from statistics");
+  }
+
+  @Override
+  public void updateResultFromPageData(BatchData dataInThisPage) {
+    updateResultFromPageData(dataInThisPage, Long.MAX_VALUE);
+  }
+
+  @Override
+  public void updateResultFromPageData(BatchData dataInThisPage, long bound) {
+    while (dataInThisPage.hasCurrent() && dataInThisPage.currentTime() < bound) {
+      updateResult(dataInThisPage.currentValue());
+      dataInThisPage.next();
+    }
+  }
+
+  @Override
+  public void updateResultUsingTimestamps(long[] timestamps, int length,
+      IReaderByTimestamp dataReader) throws IOException {
+    for (int i = 0; i < length; i++) {
+      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      if (value != null) {
+        updateResult(value);
+      }
+    }
+  }
+
+  private void updateResult(Object value) {
+    if (value instanceof Integer || value instanceof Long) {
+      hyperLogLog.offer(((Number) value).longValue());
+    } else if (value instanceof Float || value instanceof Double) {
+      hyperLogLog.offer(((Number) value).doubleValue());
+    } else if (value instanceof Boolean) {
+      hyperLogLog.offer((Boolean) value ? 1L : 0L);
+    } else {
+      hyperLogLog.offer(((Binary) value).getValues());
+    }
+    hasResult = true;
+  }
+
+  @Override
+  public boolean isCalculatedAggregationResult() {
+    return false;
+  }
+
+  @Override
+  public void merge(AggregateResult another) {
+    ApproxCountDistinctAggrResult anotherResult = (ApproxCountDistinctAggrResult) another;
+    hyperLogLog.merge(anotherResult.hyperLogLog);
+    hasResult |= anotherResult.hasResult();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    hyperLogLog = new HyperLogLog();
+  }
+
+  @Override
+  protected void deserializeSpecificFields(ByteBuffer buffer) {
+    hyperLogLog = HyperLogLog.deserialize(buffer);
+  }
+
+  @Override
+  protected void serializeSpecificFields(OutputStream outputStream) throws IOException {
+    hyperLogLog.serialize(outputStream);
+  }
+}
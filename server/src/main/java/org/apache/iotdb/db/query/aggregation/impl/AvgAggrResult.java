@@ -45,7 +45,7 @@ public class AvgAggrResult extends AggregateResult {
   }
 
   @Override
-  protected boolean hasResult() {
+  public boolean hasResult() {
     return cnt > 0;
   }
 
@@ -134,6 +134,26 @@ public class AvgAggrResult extends AggregateResult {
     cnt += anotherAvg.cnt;
   }
 
+  @Override
+  public boolean isInvertible() {
+    return true;
+  }
+
+  @Override
+  public void subtract(AggregateResult another) {
+    AvgAggrResult anotherAvg = (AvgAggrResult) another;
+    if (anotherAvg.cnt == 0) {
+      return;
+    }
+    if (anotherAvg.cnt >= cnt) {
+      reset();
+      return;
+    }
+    avg = avg * ((double) cnt / (cnt - anotherAvg.cnt)) -
+        anotherAvg.avg * ((double) anotherAvg.cnt / (cnt - anotherAvg.cnt));
+    cnt -= anotherAvg.cnt;
+  }
+
   @Override
   protected void deserializeSpecificFields(ByteBuffer buffer) {
     this.seriesDataType = TSDataType.deserialize(buffer.getShort());
@@ -96,6 +96,17 @@ public class CountAggrResult extends AggregateResult {
     setLongValue(anotherCount.getResult() + this.getResult());
   }
 
+  @Override
+  public boolean isInvertible() {
+    return true;
+  }
+
+  @Override
+  public void subtract(AggregateResult another) {
+    CountAggrResult anotherCount = (CountAggrResult) another;
+    setLongValue(this.getResult() - anotherCount.getResult());
+  }
+
   @Override
   protected void deserializeSpecificFields(ByteBuffer buffer) {
   }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.aggregation.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.db.query.aggregation.sketch.KllSketch;
+import org.apache.iotdb.db.query.reader.series.IReaderByTimestamp;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * An approximate percentile of a numeric series, calculated by a KLL sketch.
+ */
+public class PercentileAggrResult extends AggregateResult {
+
+  /**
+   * the median, used when no quantile is given, e.g., by the partial results that are only merged
+   */
+  public static final double DEFAULT_QUANTILE = 0.5;
+
+  private double quantile;
+  private KllSketch sketch = new KllSketch();
+
+  public PercentileAggrResult(TSDataType seriesDataType, double quantile) {
+    super(TSDataType.DOUBLE, AggregationType.PERCENTILE);
+    if (seriesDataType == TSDataType.BOOLEAN || seriesDataType == TSDataType.TEXT) {
+      throw new UnSupportedDataTypeException(
+          String.format("Unsupported data type in aggregation PERCENTILE : %s", seriesDataType));
+    }
+    this.quantile = quantile;
+    reset();
+  }
+
+  public double getQuantile() {
+    return quantile;
+  }
+
+  @Override
+  public Object getResult() {
+    if (!hasResult()) {
+      return null;
+    }
+    setDoubleValue(sketch.getQuantile(quantile));
+    return getDoubleValue();
+  }
+
+  @Override
+  public boolean canUseStatistics() {
+    return false;
+  }
+
+  @Override
+  public void updateResultFromStatistics(Statistics statistics) throws QueryProcessException {
+    throw new QueryProcessException("PERCENTILE cannot be calculated from statistics");
+  }
+
+  @Override
+  public void updateResultFromPageData(BatchData dataInThisPage) {
+    updateResultFromPageData(dataInThisPage, Long.MAX_VALUE);
+  }
+
+  @Override
+  public void updateResultFromPageData(BatchData dataInThisPage, long bound) {
+    while (dataInThisPage.hasCurrent() && dataInThisPage.currentTime() < bound) {
+      updateResult(dataInThisPage.currentValue());
+      dataInThisPage.next();
+    }
+  }
+
+  @Override
+  public void updateResultUsingTimestamps(long[] timestamps, int length,
+      IReaderByTimestamp dataReader) throws IOException {
+    for (int i = 0; i < length; i++) {
+      Object value = dataReader.getValueInTimestamp(timestamps[i]);
+      if (value != null) {
+        updateResult(value);
+      }
+    }
+  }
+
+  private void updateResult(Object value) {
+    sketch.update(((Number) value).doubleValue());
+    hasResult = true;
+  }
+
+  @Override
+  public boolean isCalculatedAggregationResult() {
+    return false;
+  }
+
+  @Override
+  public void merge(AggregateResult another) {
+    PercentileAggrResult anotherPercentile = (PercentileAggrResult) another;
+    sketch.merge(anotherPercentile.sketch);
+    hasResult |= anotherPercentile.hasResult();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    sketch = new KllSketch();
+  }
+
+  @Override
+  protected void deserializeSpecificFields(ByteBuffer buffer) {
+    quantile = ReadWriteIOUtils.readDouble(buffer);
+    sketch = KllSketch.deserialize(buffer);
+  }
+
+  @Override
+  protected void serializeSpecificFields(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(quantile, outputStream);
+    sketch.serialize(outputStream);
+  }
+}
@@ -115,6 +115,17 @@ public class SumAggrResult extends AggregateResult {
     setDoubleValue(getDoubleValue() + anotherSum.getDoubleValue());
   }
 
+  @Override
+  public boolean isInvertible() {
+    return true;
+  }
+
+  @Override
+  public void subtract(AggregateResult another) {
+    SumAggrResult anotherSum = (SumAggrResult) another;
+    setDoubleValue(getDoubleValue() - anotherSum.getDoubleValue());
+  }
+
   @Override
   protected void deserializeSpecificFields(ByteBuffer buffer) {
     seriesDataType = TSDataType.deserialize(buffer.getShort());
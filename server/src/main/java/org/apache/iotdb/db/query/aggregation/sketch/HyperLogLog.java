@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.aggregation.sketch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * A HyperLogLog distinct counter with 2^precision one-byte registers. Each value is hashed to 64
+ * bits, the first precision bits choose a register, which keeps the maximum position of the first
+ * 1-bit in the rest. The standard error of the estimation is 1.04 / sqrt(2^precision), i.e.,
+ * 0.8% with the default precision, and small cardinalities are estimated by linear counting.
+ * Two counters are merged by taking the maximum of each register.
+ */
+public class HyperLogLog {
+
+  public static final int DEFAULT_PRECISION = 14;
+
+  private final int precision;
+  private final byte[] registers;
+
+  public HyperLogLog() {
+    this(DEFAULT_PRECISION);
+  }
+
+  public HyperLogLog(int precision) {
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  public void offer(long value) {
+    offerHash(mix(value));
+  }
+
+  public void offer(double value) {
+    // 0.0 and -0.0 are the same value
+    offer(Double.doubleToLongBits(value == 0.0 ? 0.0 : value));
+  }
+
+  public void offer(byte[] value) {
+    // FNV-1a, whose bits are spread by mix()
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    offerHash(mix(hash));
+  }
+
+  private void offerHash(long hash) {
+    int index = (int) (hash >>> (Long.SIZE - precision));
+    // the guard bit limits the rank when the remaining bits are all 0
+    long remaining = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+    if (rank > registers[index]) {
+      registers[index] = rank;
+    }
+  }
+
+  public void merge(HyperLogLog another) {
+    if (another.precision != precision) {
+      throw new IllegalArgumentException(String.format(
+          "Cannot merge HyperLogLogs of precision %d and %d", precision, another.precision));
+    }
+    for (int i = 0; i < registers.length; i++) {
+      if (another.registers[i] > registers[i]) {
+        registers[i] = another.registers[i];
+      }
+    }
+  }
+
+  public long cardinality() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * The registers are written as (index, register) pairs if less than a third of them are set,
+   * which is common for the few distinct values of a TsFile, or all written otherwise.
+   */
+  public void serialize(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(precision, outputStream);
+    int setNum = 0;
+    for (byte register : registers) {
+      if (register != 0) {
+        setNum++;
+      }
+    }
+    boolean sparse = setNum * 3 < registers.length;
+    ReadWriteIOUtils.write(sparse, outputStream);
+    if (!sparse) {
+      outputStream.write(registers);
+      return;
+    }
+    ReadWriteIOUtils.write(setNum, outputStream);
+    for (int i = 0; i < registers.length; i++) {
+      if (registers[i] != 0) {
+        ReadWriteIOUtils.write(i, outputStream);
+        outputStream.write(registers[i]);
+      }
+    }
+  }
+
+  public static HyperLogLog deserialize(ByteBuffer buffer) {
+    HyperLogLog hyperLogLog = new HyperLogLog(ReadWriteIOUtils.readInt(buffer));
+    if (!ReadWriteIOUtils.readBool(buffer)) {
+      buffer.get(hyperLogLog.registers);
+      return hyperLogLog;
+    }
+    int setNum = ReadWriteIOUtils.readInt(buffer);
+    for (int i = 0; i < setNum; i++) {
+      int index = ReadWriteIOUtils.readInt(buffer);
+      hyperLogLog.registers[index] = buffer.get();
+    }
+    return hyperLogLog;
+  }
+
+  /**
+   * the finalizer of MurmurHash3.
+   */
+  private static long mix(long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.aggregation.sketch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * A KLL quantile sketch of doubles. The items are kept in levels, an item at level h stands for
+ * 2^h original values. When a level is full, it is sorted and every other item is promoted to the
+ * next level, so the sketch keeps about 3k items whatever the number of values, and the rank error
+ * of a quantile is about 1.7 / k. Two sketches are merged by merging their levels, which makes
+ * the sketch usable as a partial aggregation result.
+ * <p>
+ * The sketch is exact as long as fewer than k values are added.
+ */
+public class KllSketch {
+
+  public static final int DEFAULT_K = 200;
+
+  private static final double CAPACITY_DECAY = 2.0 / 3.0;
+  private static final int MIN_CAPACITY = 8;
+
+  private final int k;
+  private final List<Level> levels = new ArrayList<>();
+  private long count;
+  private double min = Double.MAX_VALUE;
+  private double max = -Double.MAX_VALUE;
+  /**
+   * decides which half of a level is promoted, the seed is fixed so results are reproducible
+   */
+  private final Random random = new Random(0);
+
+  public KllSketch() {
+    this(DEFAULT_K);
+  }
+
+  public KllSketch(int k) {
+    this.k = k;
+    levels.add(new Level(k));
+  }
+
+  public void update(double value) {
+    levels.get(0).add(value);
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    if (levels.get(0).size >= capacity(0)) {
+      compress();
+    }
+  }
+
+  public void merge(KllSketch another) {
+    if (another.count == 0) {
+      return;
+    }
+    while (levels.size() < another.levels.size()) {
+      levels.add(new Level(MIN_CAPACITY));
+    }
+    for (int h = 0; h < another.levels.size(); h++) {
+      Level level = another.levels.get(h);
+      for (int i = 0; i < level.size; i++) {
+        levels.get(h).add(level.items[i]);
+      }
+    }
+    count += another.count;
+    min = Math.min(min, another.min);
+    max = Math.max(max, another.max);
+    compress();
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @param quantile in [0, 1]
+   * @return the smallest kept value whose rank is no less than quantile * count, or NaN if the
+   * sketch is empty
+   */
+  public double getQuantile(double quantile) {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    if (quantile <= 0) {
+      return min;
+    }
+    if (quantile >= 1) {
+      return max;
+    }
+    int size = 0;
+    for (Level level : levels) {
+      size += level.size;
+    }
+    double[] values = new double[size];
+    long[] weights = new long[size];
+    Integer[] order = new Integer[size];
+    int index = 0;
+    for (int h = 0; h < levels.size(); h++) {
+      Level level = levels.get(h);
+      for (int i = 0; i < level.size; i++) {
+        values[index] = level.items[i];
+        weights[index] = 1L << h;
+        order[index] = index;
+        index++;
+      }
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+    long totalWeight = 0;
+    for (long weight : weights) {
+      totalWeight += weight;
+    }
+    double targetRank = quantile * totalWeight;
+    long rank = 0;
+    for (int i : order) {
+      rank += weights[i];
+      if (rank >= targetRank) {
+        return values[i];
+      }
+    }
+    return max;
+  }
+
+  private int capacity(int height) {
+    int depth = levels.size() - 1 - height;
+    return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+  }
+
+  private void compress() {
+    for (int h = 0; h < levels.size(); h++) {
+      Level level = levels.get(h);
+      if (level.size < capacity(h)) {
+        continue;
+      }
+      if (h + 1 == levels.size()) {
+        levels.add(new Level(MIN_CAPACITY));
+      }
+      Level upper = levels.get(h + 1);
+      Arrays.sort(level.items, 0, level.size);
+      int offset = random.nextBoolean() ? 1 : 0;
+      int pairs = level.size / 2;
+      for (int i = 0; i < pairs; i++) {
+        upper.add(level.items[2 * i + offset]);
+      }
+      // an odd item out stays at this level
+      if (level.size % 2 == 1) {
+        level.items[0] = level.items[level.size - 1];
+        level.size = 1;
+      } else {
+        level.size = 0;
+      }
+    }
+  }
+
+  public void serialize(OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(k, outputStream);
+    ReadWriteIOUtils.write(count, outputStream);
+    ReadWriteIOUtils.write(min, outputStream);
+    ReadWriteIOUtils.write(max, outputStream);
+    ReadWriteIOUtils.write(levels.size(), outputStream);
+    for (Level level : levels) {
+      ReadWriteIOUtils.write(level.size, outputStream);
+      for (int i = 0; i < level.size; i++) {
+        ReadWriteIOUtils.write(level.items[i], outputStream);
+      }
+    }
+  }
+
+  public static KllSketch deserialize(ByteBuffer buffer) {
+    KllSketch sketch = new KllSketch(ReadWriteIOUtils.readInt(buffer));
+    sketch.count = ReadWriteIOUtils.readLong(buffer);
+    sketch.min = ReadWriteIOUtils.readDouble(buffer);
+    sketch.max = ReadWriteIOUtils.readDouble(buffer);
+    int levelNum = ReadWriteIOUtils.readInt(buffer);
+    sketch.levels.clear();
+    for (int h = 0; h < levelNum; h++) {
+      int size = ReadWriteIOUtils.readInt(buffer);
+      Level level = new Level(Math.max(size, MIN_CAPACITY));
+      for (int i = 0; i < size; i++) {
+        level.add(ReadWriteIOUtils.readDouble(buffer));
+      }
+      sketch.levels.add(level);
+    }
+    return sketch;
+  }
+
+  private static class Level {
+
+    private double[] items;
+    private int size;
+
+    private Level(int initialCapacity) {
+      items = new double[initialCapacity];
+    }
+
+    private void add(double item) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, items.length * 2);
+      }
+      items[size++] = item;
+    }
+  }
+}
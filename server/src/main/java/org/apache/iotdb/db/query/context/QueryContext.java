@@ -19,14 +19,16 @@
 
 package org.apache.iotdb.db.query.context;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.exception.runtime.QueryKilledException;
+import org.apache.iotdb.db.exception.runtime.QueryMemoryExceededException;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.common.Path;
 
 /**
  * QueryContext contains the shared information with in a query.
@@ -35,20 +37,32 @@ public class QueryContext {
 
   /**
    * The outer key is the path of a ModificationFile, the inner key in the name of a timeseries and
-   * the value is the Modifications of a timeseries in this file.
+   * the value is the Modifications of a timeseries in this file. Modifications are kept here so
+   * that all readers of a query see the same modifications.
    */
   private Map<String, Map<String, List<Modification>>> filePathModCache = new ConcurrentHashMap<>();
-  /**
-   * The key is the path of a ModificationFile and the value is all Modifications in this file. We
-   * use this field because each call of Modification.getModifications() return a copy of the
-   * Modifications, and we do not want it to create multiple copies within a query.
-   */
-  private Map<String, List<Modification>> fileModCache = new HashMap<>();
 
   private long queryId;
 
   private long queryTimeLowerBound = Long.MIN_VALUE;
 
+  /**
+   * full path of a series -> the profile of reading it, which is null unless the query is
+   * profiled by EXPLAIN ANALYZE or the slow query log
+   */
+  private Map<String, SeriesProfile> seriesProfiles;
+
+  /**
+   * set by KILL QUERY, the readers of the query check it before reading each file, chunk and page
+   */
+  private volatile boolean killed = false;
+
+  /**
+   * counts the memory held by the query, which is null unless the query is admitted by
+   * RunningQueryManager
+   */
+  private QueryMemoryTracker memoryTracker;
+
   public QueryContext() {
   }
 
@@ -57,28 +71,13 @@ public class QueryContext {
   }
 
   /**
-   * Find the modifications of timeseries 'path' in 'modFile'. If they are not in the cache, read
+   * Find the modifications of timeseries 'path' in 'modFile'. If they are not in the cache, get
    * them from 'modFile' and put then into the cache.
    */
   public List<Modification> getPathModifications(ModificationFile modFile, String path) {
     Map<String, List<Modification>> fileModifications =
         filePathModCache.computeIfAbsent(modFile.getFilePath(), k -> new ConcurrentHashMap<>());
-    return fileModifications.computeIfAbsent(path, k -> {
-      List<Modification> allModifications = fileModCache.get(modFile.getFilePath());
-      if (allModifications == null) {
-        allModifications = (List<Modification>) modFile.getModifications();
-        fileModCache.put(modFile.getFilePath(), allModifications);
-      }
-      List<Modification> finalPathModifications = new ArrayList<>();
-      if (!allModifications.isEmpty()) {
-        allModifications.forEach(modification -> {
-          if (modification.getPathString().equals(path)) {
-            finalPathModifications.add(modification);
-          }
-        });
-      }
-      return finalPathModifications;
-    });
+    return fileModifications.computeIfAbsent(path, modFile::getModifications);
   }
 
   public long getQueryId() {
@@ -96,4 +95,88 @@ public class QueryContext {
   public boolean chunkNotSatisfy(ChunkMetadata chunkMetaData) {
     return chunkMetaData.getEndTime() < queryTimeLowerBound;
   }
+
+  /**
+   * profile the series read by this query from now on, should be called before the query starts
+   */
+  public void enableProfile() {
+    seriesProfiles = new ConcurrentSkipListMap<>();
+  }
+
+  /**
+   * @return the profile of the series, or null if the query is not profiled
+   */
+  public SeriesProfile getSeriesProfile(Path seriesPath) {
+    if (seriesProfiles == null) {
+      return null;
+    }
+    return seriesProfiles.computeIfAbsent(seriesPath.getFullPath(), p -> new SeriesProfile());
+  }
+
+  /**
+   * @return the profiles of the series ordered by their full paths, or null if the query is not
+   * profiled
+   */
+  public Map<String, SeriesProfile> getSeriesProfiles() {
+    return seriesProfiles;
+  }
+
+  public boolean isKilled() {
+    return killed;
+  }
+
+  /**
+   * mark the query as killed, its readers will stop when they check it next time
+   */
+  public void kill() {
+    killed = true;
+  }
+
+  /**
+   * @throws QueryKilledException if the query has been killed
+   */
+  public void checkKilled() {
+    if (killed) {
+      throw new QueryKilledException(queryId);
+    }
+  }
+
+  public QueryMemoryTracker getMemoryTracker() {
+    return memoryTracker;
+  }
+
+  public void setMemoryTracker(QueryMemoryTracker memoryTracker) {
+    this.memoryTracker = memoryTracker;
+  }
+
+  /**
+   * charge the memory to the query if its memory is tracked
+   *
+   * @throws QueryMemoryExceededException if the query can not get the memory
+   */
+  public void allocateMemory(long size) {
+    if (memoryTracker != null) {
+      memoryTracker.allocate(size);
+    }
+  }
+
+  /**
+   * @return false if the memory of the query is tracked and the memory can not be charged to it
+   */
+  public boolean tryAllocateMemory(long size) {
+    return memoryTracker == null || memoryTracker.tryAllocate(size);
+  }
+
+  public void releaseMemory(long size) {
+    if (memoryTracker != null) {
+      memoryTracker.release(size);
+    }
+  }
+
+  /**
+   * @return true if the memory of the query is tracked and its readers should not read ahead
+   */
+  public boolean isMemoryTight() {
+    return memoryTracker != null && memoryTracker.isMemoryTight();
+  }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.context;
+
+import org.apache.iotdb.db.exception.runtime.QueryMemoryExceededException;
+import org.apache.iotdb.db.rescon.QueryMemoryPool;
+
+/**
+ * QueryMemoryTracker counts the memory held by a query, which is charged by the copies of
+ * memtables, the chunks and the decoded pages it reads and the batches it reads ahead. The memory
+ * is allocated from a QueryMemoryPool within the budget of the query, and all of it is returned to
+ * the pool when the query ends. A query may be read by several threads, so the methods are
+ * synchronized.
+ */
+public class QueryMemoryTracker {
+
+  /**
+   * the readers of a query stop reading ahead when more than this ratio of the budget of the query
+   * or the pool is used
+   */
+  private static final double READ_AHEAD_THRESHOLD = 0.5;
+
+  private final long queryId;
+  private final long budget;
+  private final QueryMemoryPool pool;
+
+  private long usedMemory = 0;
+  private long peakMemory = 0;
+  // after the query ends, the memory is neither allocated nor released
+  private boolean closed = false;
+
+  /**
+   * @param budget the max memory of the query, a non-positive value means the capacity of the pool
+   */
+  public QueryMemoryTracker(long queryId, long budget, QueryMemoryPool pool) {
+    this.queryId = queryId;
+    this.budget = budget > 0 ? budget : pool.getCapacity();
+    this.pool = pool;
+  }
+
+  /**
+   * @return true if the memory is allocated, false if the query would exceed its budget or the pool
+   * does not have enough free memory
+   */
+  public synchronized boolean tryAllocate(long size) {
+    if (closed || usedMemory + size > budget || !pool.tryAllocate(size)) {
+      return false;
+    }
+    usedMemory += size;
+    peakMemory = Math.max(peakMemory, usedMemory);
+    return true;
+  }
+
+  /**
+   * @throws QueryMemoryExceededException if the query would exceed its budget or the pool does not
+   * have enough free memory
+   */
+  public synchronized void allocate(long size) {
+    if (closed || tryAllocate(size)) {
+      return;
+    }
+    if (usedMemory + size > budget) {
+      throw new QueryMemoryExceededException(String.format(
+          "Query %d needs %d more bytes of memory, which exceeds its budget of %d bytes "
+              + "(max_memory_per_query)", queryId, size, budget));
+    }
+    throw new QueryMemoryExceededException(String.format(
+        "Query %d needs %d more bytes of memory, but the query memory pool is exhausted "
+            + "(%d of %d bytes are used)", queryId, size, pool.getUsedMemory(),
+        pool.getCapacity()));
+  }
+
+  public synchronized void release(long size) {
+    if (closed) {
+      return;
+    }
+    usedMemory -= size;
+    pool.release(size);
+  }
+
+  /**
+   * return all the memory of the query to the pool when the query ends
+   */
+  public synchronized void releaseAll() {
+    if (closed) {
+      return;
+    }
+    pool.release(usedMemory);
+    usedMemory = 0;
+    closed = true;
+  }
+
+  /**
+   * @return true if the readers of the query should only read what the query needs now
+   */
+  public synchronized boolean isMemoryTight() {
+    return usedMemory > budget * READ_AHEAD_THRESHOLD
+        || pool.getUsedMemory() > pool.getCapacity() * READ_AHEAD_THRESHOLD;
+  }
+
+  public synchronized long getUsedMemory() {
+    return usedMemory;
+  }
+
+  public synchronized long getPeakMemory() {
+    return peakMemory;
+  }
+}
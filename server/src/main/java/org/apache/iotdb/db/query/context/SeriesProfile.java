@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.context;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * SeriesProfile counts what reading a time series costs in a query profiled by EXPLAIN ANALYZE or
+ * the slow query log. A series may be read by several threads of a query, so the counters are
+ * atomic.
+ */
+public class SeriesProfile {
+
+  public enum Counter {
+    SEQ_FILES("sequence files"),
+    UNSEQ_FILES("unsequence files"),
+    FILES_SKIPPED("files skipped"),
+    CHUNKS_READ("chunks read"),
+    CHUNKS_SKIPPED("chunks skipped"),
+    PAGES_READ("pages read"),
+    PAGES_SKIPPED("pages skipped"),
+    BYTES_READ("bytes read"),
+    CACHE_HITS("cache hits"),
+    POINTS_DECODED("points decoded"),
+    // overlapped pages written to temporary files as the query does not have enough memory
+    PAGES_SPILLED("pages spilled"),
+    FILE_SELECTION_TIME("file selection time(us)"),
+    METADATA_LOAD_TIME("metadata load time(us)"),
+    CHUNK_READ_TIME("chunk read time(us)"),
+    DECODE_TIME("decode time(us)"),
+    // merging the overlapped data, including loading and decoding it
+    MERGE_TIME("merge time(us)");
+
+    private final String name;
+
+    Counter(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public boolean isTime() {
+      return name.endsWith("time(us)");
+    }
+  }
+
+  private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+  public void add(Counter counter, long delta) {
+    counters.addAndGet(counter.ordinal(), delta);
+  }
+
+  /**
+   * add the nanoseconds since startTimeInNanos to a time counter
+   */
+  public void addTime(Counter counter, long startTimeInNanos) {
+    add(counter, System.nanoTime() - startTimeInNanos);
+  }
+
+  /**
+   * @return the value of the counter, times are in nanoseconds
+   */
+  public long get(Counter counter) {
+    return counters.get(counter.ordinal());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.QueryMemoryTracker;
+
+/**
+ * RunningQuery is a query in RunningQueryManager, from its execution to the release of its
+ * resources.
+ */
+public class RunningQuery {
+
+  private final QueryContext context;
+  private final PhysicalPlan plan;
+  private final String statement;
+  private final String user;
+  private final long startTime;
+
+  /**
+   * the number of rows that have been returned to the client, as the progress of the query
+   */
+  private final AtomicLong returnedRows = new AtomicLong();
+
+  RunningQuery(QueryContext context, PhysicalPlan plan, String statement, String user) {
+    this.context = context;
+    this.plan = plan;
+    this.statement = statement;
+    this.user = user;
+    this.startTime = System.currentTimeMillis();
+  }
+
+  public long getQueryId() {
+    return context.getQueryId();
+  }
+
+  public QueryContext getContext() {
+    return context;
+  }
+
+  public PhysicalPlan getPlan() {
+    return plan;
+  }
+
+  public String getStatement() {
+    return statement;
+  }
+
+  public String getUser() {
+    return user;
+  }
+
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * @return the memory (in byte) held by the query now, 0 if it is not tracked
+   */
+  public long getMemory() {
+    QueryMemoryTracker memoryTracker = context.getMemoryTracker();
+    return memoryTracker == null ? 0 : memoryTracker.getUsedMemory();
+  }
+
+  /**
+   * @return the most memory (in byte) that the query has held, 0 if it is not tracked
+   */
+  public long getPeakMemory() {
+    QueryMemoryTracker memoryTracker = context.getMemoryTracker();
+    return memoryTracker == null ? 0 : memoryTracker.getPeakMemory();
+  }
+
+  public long getReturnedRows() {
+    return returnedRows.get();
+  }
+
+  public void addReturnedRows(long rows) {
+    returnedRows.addAndGet(rows);
+  }
+}
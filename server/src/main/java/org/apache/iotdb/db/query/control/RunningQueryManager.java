@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.runtime.QueryMemoryExceededException;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.QueryMemoryTracker;
+import org.apache.iotdb.db.query.context.SeriesProfile;
+import org.apache.iotdb.db.query.context.SeriesProfile.Counter;
+import org.apache.iotdb.db.rescon.QueryMemoryPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RunningQueryManager records the queries of clients from their execution to the release of their
+ * resources, so that they can be listed by SHOW QUERIES and killed by KILL QUERY. When a query
+ * lasts longer than slow_query_threshold, it is recorded in the slow query log when released,
+ * together with the profile of the series it reads if enable_slow_query_profile is set.
+ *
+ * A query is admitted by the QueryMemoryPool when it is registered, and its memory is tracked
+ * until it is unregistered.
+ */
+public class RunningQueryManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(RunningQueryManager.class);
+  private static final Logger SLOW_QUERY_LOGGER = LoggerFactory.getLogger("SLOW_QUERY");
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * query id -> running query, ordered by the query ids
+   */
+  private final Map<Long, RunningQuery> runningQueries = new ConcurrentSkipListMap<>();
+
+  private RunningQueryManager() {
+  }
+
+  public static RunningQueryManager getInstance() {
+    return RunningQueryManagerHolder.INSTANCE;
+  }
+
+  /**
+   * register a query before it is executed, the series it reads are profiled for the slow query
+   * log if both the log and its profile are enabled
+   *
+   * @throws QueryMemoryExceededException if the query memory pool is still nearly exhausted after
+   * the query waits for a while
+   */
+  public RunningQuery register(QueryContext context, PhysicalPlan plan, String statement,
+      String user) {
+    admit(context);
+    if (config.getSlowQueryThreshold() > 0 && config.isEnableSlowQueryProfile()) {
+      context.enableProfile();
+    }
+    RunningQuery runningQuery = new RunningQuery(context, plan, statement, user);
+    runningQueries.put(context.getQueryId(), runningQuery);
+    return runningQuery;
+  }
+
+  private void admit(QueryContext context) {
+    QueryMemoryPool pool = QueryMemoryPool.getInstance();
+    boolean admitted;
+    try {
+      admitted = pool.admit();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      admitted = false;
+    }
+    if (!admitted) {
+      throw new QueryMemoryExceededException(String.format(
+          "Query %d is rejected as the query memory pool is exhausted (%d of %d bytes are used)",
+          context.getQueryId(), pool.getUsedMemory(), pool.getCapacity()));
+    }
+    context.setMemoryTracker(
+        new QueryMemoryTracker(context.getQueryId(), config.getMaxMemoryPerQuery(), pool));
+  }
+
+  /**
+   * @return the running query, or null if there is no running query of the id
+   */
+  public RunningQuery get(long queryId) {
+    return runningQueries.get(queryId);
+  }
+
+  /**
+   * @return the running queries ordered by their ids
+   */
+  public List<RunningQuery> getRunningQueries() {
+    return new ArrayList<>(runningQueries.values());
+  }
+
+  /**
+   * kill a running query, which ends as soon as its readers read the next file, chunk or page, or
+   * its client fetches the next results.
+   */
+  public void kill(long queryId) throws QueryProcessException {
+    RunningQuery runningQuery = runningQueries.get(queryId);
+    if (runningQuery == null) {
+      throw new QueryProcessException(String.format("Query %d is not running", queryId));
+    }
+    runningQuery.getContext().kill();
+    logger.info("Query {} of user {} is killed: {}", queryId, runningQuery.getUser(),
+        runningQuery.getStatement());
+  }
+
+  /**
+   * unregister a query when its resources are released, return its memory to the pool and record
+   * it in the slow query log if it lasted longer than slow_query_threshold
+   */
+  public void unregister(long queryId) {
+    RunningQuery runningQuery = runningQueries.remove(queryId);
+    if (runningQuery == null) {
+      return;
+    }
+    QueryMemoryTracker memoryTracker = runningQuery.getContext().getMemoryTracker();
+    if (memoryTracker != null) {
+      memoryTracker.releaseAll();
+    }
+    long duration = System.currentTimeMillis() - runningQuery.getStartTime();
+    long slowQueryThreshold = config.getSlowQueryThreshold();
+    if (slowQueryThreshold > 0 && duration >= slowQueryThreshold
+        && SLOW_QUERY_LOGGER.isInfoEnabled()) {
+      SLOW_QUERY_LOGGER.info(toSlowQueryLog(runningQuery, duration));
+    }
+  }
+
+  private String toSlowQueryLog(RunningQuery runningQuery, long duration) {
+    StringBuilder builder = new StringBuilder(String.format(
+        "Query %d of user %s lasted %d ms, used at most %d bytes of memory and returned %d "
+            + "rows%s: %s, plan: %s",
+        runningQuery.getQueryId(), runningQuery.getUser(), duration,
+        runningQuery.getPeakMemory(), runningQuery.getReturnedRows(),
+        runningQuery.getContext().isKilled() ? " before it was killed" : "",
+        runningQuery.getStatement(), runningQuery.getPlan()));
+    Map<String, SeriesProfile> seriesProfiles = runningQuery.getContext().getSeriesProfiles();
+    if (seriesProfiles != null && !seriesProfiles.isEmpty()) {
+      // the sum of the counters of all series
+      builder.append(", profile of ").append(seriesProfiles.size()).append(" series:");
+      for (Counter counter : Counter.values()) {
+        long value = 0;
+        for (SeriesProfile seriesProfile : seriesProfiles.values()) {
+          value += seriesProfile.get(counter);
+        }
+        builder.append(' ').append(counter.getName()).append('=')
+            .append(counter.isTime() ? TimeUnit.NANOSECONDS.toMicros(value) : value).append(',');
+      }
+      builder.setLength(builder.length() - 1);
+    }
+    return builder.toString();
+  }
+
+  private static class RunningQueryManagerHolder {
+
+    private static final RunningQueryManager INSTANCE = new RunningQueryManager();
+
+    private RunningQueryManagerHolder() {
+    }
+  }
+}
@@ -51,7 +51,7 @@ import org.apache.iotdb.tsfile.utils.Binary;
 /**
  * This QueryDataSet is used for ALIGN_BY_DEVICE query result.
  */
-public class AlignByDeviceDataSet extends QueryDataSet {
+public class AlignByDeviceDataSet extends QueryDataSet implements DirectAlignByTimeDataSet {
 
   private DataSetType dataSetType;
   private IQueryRouter queryRouter;
@@ -63,6 +63,7 @@ public class AlignByDeviceDataSet extends QueryDataSet {
   private Map<String, IExpression> deviceToFilterMap;
   private Map<String, MeasurementType> measurementTypeMap;
   private Map<String, TSDataType> measurementDataTpeMap;
+  private Map<String, Double> measurementParameterMap;
 
   private GroupByPlan groupByPlan;
   private FillQueryPlan fillQueryPlan;
@@ -75,6 +76,13 @@ public class AlignByDeviceDataSet extends QueryDataSet {
   private Iterator<String> deviceIterator;
   private List<String> executeColumns;
 
+  // the columns of the result each column of the current data set is written to
+  private int[][] currentColumnMapping;
+  private Binary currentDeviceBinary;
+  // the columns of the constant measurements in the result and their values
+  private int[] constantColumns;
+  private Binary[] constantValues;
+
   public AlignByDeviceDataSet(AlignByDevicePlan alignByDevicePlan, QueryContext context,
       IQueryRouter queryRouter) {
     super(null, alignByDevicePlan.getDataTypes());
@@ -86,6 +94,7 @@ public class AlignByDeviceDataSet extends QueryDataSet {
     this.context = context;
     this.deviceToFilterMap = alignByDevicePlan.getDeviceToFilterMap();
     this.measurementTypeMap = alignByDevicePlan.getMeasurementTypeMap();
+    this.measurementParameterMap = alignByDevicePlan.getMeasurementParameterMap();
 
     switch (alignByDevicePlan.getOperatorType()) {
       case GROUPBY:
@@ -107,6 +116,20 @@ public class AlignByDeviceDataSet extends QueryDataSet {
 
     this.curDataSetInitialized = false;
     this.deviceIterator = devices.iterator();
+
+    List<Integer> constantColumnList = new ArrayList<>();
+    for (int i = 0; i < measurements.size(); i++) {
+      if (measurementTypeMap.get(measurements.get(i)) == MeasurementType.Constant) {
+        constantColumnList.add(i);
+      }
+    }
+    this.constantColumns = new int[constantColumnList.size()];
+    this.constantValues = new Binary[constantColumnList.size()];
+    for (int i = 0; i < constantColumns.length; i++) {
+      // the first column of the result is the device
+      constantColumns[i] = constantColumnList.get(i) + 1;
+      constantValues[i] = Binary.valueOf(measurements.get(constantColumnList.get(i)));
+    }
   }
 
   protected boolean hasNextWithoutConstraint() throws IOException {
@@ -132,12 +155,17 @@ public class AlignByDeviceDataSet extends QueryDataSet {
       List<Path> executePaths = new ArrayList<>();
       List<TSDataType> tsDataTypes = new ArrayList<>();
       List<String> executeAggregations = new ArrayList<>();
+      List<Double> executeParameters = new ArrayList<>();
       for (String column : measurementDataTpeMap.keySet()) {
         String measurement = column;
         if (dataSetType == DataSetType.GROUPBY || dataSetType == DataSetType.AGGREGATE) {
-          measurement = column.substring(column.indexOf('(') + 1, column.indexOf(')'));
+          // e.g. count(s1) or percentile(s1, 0.99)
+          Double parameter = measurementParameterMap.get(column);
+          measurement = column.substring(column.indexOf('(') + 1,
+              column.indexOf(parameter == null ? ')' : ','));
           if (measurementOfGivenDevice.contains(measurement)) {
             executeAggregations.add(column.substring(0, column.indexOf('(')));
+            executeParameters.add(parameter);
           }
         }
         if (measurementOfGivenDevice.contains(measurement)) {
@@ -147,6 +175,8 @@ public class AlignByDeviceDataSet extends QueryDataSet {
         }
       }
 
+      initColumnMapping();
+
       // get filter to execute for the current device
       if (deviceToFilterMap != null) {
         this.expression = deviceToFilterMap.get(currentDevice);
@@ -158,11 +188,13 @@ public class AlignByDeviceDataSet extends QueryDataSet {
             groupByPlan.setDeduplicatedPaths(executePaths);
             groupByPlan.setDeduplicatedDataTypes(tsDataTypes);
             groupByPlan.setDeduplicatedAggregations(executeAggregations);
+            groupByPlan.setDeduplicatedAggregationParameters(executeParameters);
             currentDataSet = queryRouter.groupBy(groupByPlan, context);
             break;
           case AGGREGATE:
             aggregationPlan.setDeduplicatedPaths(executePaths);
             aggregationPlan.setDeduplicatedAggregations(executeAggregations);
+            aggregationPlan.setDeduplicatedAggregationParameters(executeParameters);
             aggregationPlan.setDeduplicatedDataTypes(tsDataTypes);
             aggregationPlan.setExpression(expression);
             currentDataSet = queryRouter.aggregate(aggregationPlan, context);
@@ -231,6 +263,46 @@ public class AlignByDeviceDataSet extends QueryDataSet {
     return rowRecord;
   }
 
+  /**
+   * map each column of the current data set to the columns of the same measurement in the
+   * result, which may be none if the measurement is trimmed by SLIMIT.
+   */
+  private void initColumnMapping() {
+    currentDeviceBinary = Binary.valueOf(currentDevice);
+    currentColumnMapping = new int[executeColumns.size()][];
+    for (int i = 0; i < executeColumns.size(); i++) {
+      List<Integer> resultColumns = new ArrayList<>();
+      for (int j = 0; j < measurements.size(); j++) {
+        if (measurements.get(j).equals(executeColumns.get(i))
+            && measurementTypeMap.get(measurements.get(j)) == MeasurementType.Exist) {
+          resultColumns.add(j + 1);
+        }
+      }
+      currentColumnMapping[i] = resultColumns.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  @Override
+  public void writeNext(TSQueryDataSetBuilder builder) throws IOException {
+    if (rowLimit > 0) {
+      alreadyReturnedRowNum++;
+    }
+    builder.setColumnMapping(currentColumnMapping);
+    try {
+      if (currentDataSet instanceof DirectAlignByTimeDataSet) {
+        ((DirectAlignByTimeDataSet) currentDataSet).writeNext(builder);
+      } else {
+        builder.putRecord(currentDataSet.next());
+      }
+    } finally {
+      builder.setColumnMapping(null);
+    }
+    builder.putBinary(0, currentDeviceBinary);
+    for (int i = 0; i < constantColumns.length; i++) {
+      builder.putBinary(constantColumns[i], constantValues[i]);
+    }
+  }
+
   private enum DataSetType {
     GROUPBY, AGGREGATE, FILL, QUERY
   }
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import java.io.IOException;
+
+/**
+ * A data set aligned by time that writes its rows into the columns of a TSQueryDataSetBuilder
+ * directly, so no RowRecord or Field is created for the rows returned to the client.
+ */
+public interface DirectAlignByTimeDataSet {
+
+  /**
+   * write the next row into the builder, which is called after hasNext() returns true and counts
+   * in the LIMIT like next().
+   */
+  void writeNext(TSQueryDataSetBuilder builder) throws IOException;
+}
@@ -20,6 +20,9 @@
 package org.apache.iotdb.db.query.dataset;
 
 import org.apache.iotdb.db.concurrent.WrappedRunnable;
+import org.apache.iotdb.db.exception.runtime.QueryKilledException;
+import org.apache.iotdb.db.exception.runtime.QueryMemoryExceededException;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.series.ManagedSeriesReader;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
@@ -70,6 +73,12 @@ public class NonAlignEngineDataSet extends QueryDataSet {
       PublicBAOS valueBAOS = new PublicBAOS();
       try {
         synchronized (reader) {
+          // stop reading ahead when the query is short of memory, the consumer will submit the
+          // task again after it takes a buffer pair from the queue
+          if (!blockingQueue.isEmpty() && context.isMemoryTight()) {
+            reader.setManagedByQueryManager(false);
+            return;
+          }
           // if the task is submitted, there must be free space in the queue
           // so here we don't need to check whether the queue has free space
           // the reader has next batch
@@ -172,6 +181,8 @@ public class NonAlignEngineDataSet extends QueryDataSet {
 
             Pair<ByteBuffer, ByteBuffer> timeValueBAOSPair = new Pair(timeBuffer, valueBuffer);
 
+            // released when the consumer takes the buffers
+            context.allocateMemory(timeBuffer.capacity() + (long) valueBuffer.capacity());
             blockingQueue.put(timeValueBAOSPair);
             // if the queue also has free space, just submit another itself
             if (blockingQueue.remainingCapacity() > 0) {
@@ -196,12 +207,30 @@ public class NonAlignEngineDataSet extends QueryDataSet {
         Thread.currentThread().interrupt();
       } catch (IOException e) {
         LOGGER.error("Something gets wrong while reading from the series reader: ", e);
+      } catch (QueryKilledException | QueryMemoryExceededException e) {
+        LOGGER.debug("Stop reading the series reader: {}", e.getMessage());
+        stopException = e;
+        endReader();
       } catch (Exception e) {
         LOGGER.error("Something gets wrong: ", e);
       }
 
     }
 
+    /**
+     * end the reader with an empty pair so that the consumer does not wait for it any more
+     */
+    private void endReader() {
+      reader.setHasRemaining(false);
+      reader.setManagedByQueryManager(false);
+      try {
+        blockingQueue.put(new Pair<>(null, null));
+      } catch (InterruptedException e) {
+        LOGGER.error("Interrupted while putting into the blocking queue: ", e);
+        Thread.currentThread().interrupt();
+      }
+    }
+
   }
 
 
@@ -230,6 +259,12 @@ public class NonAlignEngineDataSet extends QueryDataSet {
 
   private int fetchSize;
 
+  private QueryContext context;
+
+  // thrown to the client after a reader is ended because the query is killed or can not get
+  // enough memory
+  private volatile RuntimeException stopException;
+
   // indicate that there is no more batch data in the corresponding queue
   // in case that the consumer thread is blocked on the queue and won't get runnable any more
   // this field is not same as the `hasRemaining` in SeriesReaderWithoutValueFilter
@@ -250,11 +285,13 @@ public class NonAlignEngineDataSet extends QueryDataSet {
    * @param paths     paths in List structure
    * @param dataTypes time series data type
    * @param readers   readers in List(IPointReader) structure
+   * @param context   the context of the query, which is charged by the buffers read ahead
    */
   public NonAlignEngineDataSet(List<Path> paths, List<TSDataType> dataTypes,
-      List<ManagedSeriesReader> readers) {
+      List<ManagedSeriesReader> readers, QueryContext context) {
     super(paths, dataTypes);
     this.seriesReaderWithoutValueFilterList = readers;
+    this.context = context;
     blockingQueueArray = new BlockingQueue[readers.size()];
     noMoreDataInQueueArray = new boolean[readers.size()];
     for (int i = 0; i < seriesReaderWithoutValueFilterList.size(); i++) {
@@ -302,9 +339,15 @@ public class NonAlignEngineDataSet extends QueryDataSet {
         Pair<ByteBuffer, ByteBuffer> timeValueByteBufferPair = blockingQueueArray[seriesIndex]
             .take();
         if (timeValueByteBufferPair.left == null || timeValueByteBufferPair.right == null) {
+          if (stopException != null) {
+            throw stopException;
+          }
           noMoreDataInQueueArray[seriesIndex] = true;
           timeValueByteBufferPair.left = ByteBuffer.allocate(0);
           timeValueByteBufferPair.right = ByteBuffer.allocate(0);
+        } else {
+          context.releaseMemory(timeValueByteBufferPair.left.capacity()
+              + (long) timeValueByteBufferPair.right.capacity());
         }
         timeBufferList.add(timeValueByteBufferPair.left);
         valueBufferList.add(timeValueByteBufferPair.right);
@@ -20,47 +20,53 @@
 package org.apache.iotdb.db.query.dataset;
 
 import org.apache.iotdb.db.concurrent.WrappedRunnable;
+import org.apache.iotdb.db.exception.runtime.QueryKilledException;
+import org.apache.iotdb.db.exception.runtime.QueryMemoryExceededException;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.series.ManagedSeriesReader;
-import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
-import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.*;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
-import org.apache.iotdb.tsfile.utils.BytesUtils;
-import org.apache.iotdb.tsfile.utils.PublicBAOS;
-import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
-public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
+public class RawQueryDataSetWithoutValueFilter extends QueryDataSet implements
+    DirectAlignByTimeDataSet {
 
   private static class ReadTask extends WrappedRunnable {
 
     private final ManagedSeriesReader reader;
     private final String pathName;
     private BlockingQueue<BatchData> blockingQueue;
+    private final QueryContext context;
 
     public ReadTask(ManagedSeriesReader reader,
-        BlockingQueue<BatchData> blockingQueue, String pathName) {
+        BlockingQueue<BatchData> blockingQueue, String pathName, QueryContext context) {
       this.reader = reader;
       this.blockingQueue = blockingQueue;
       this.pathName = pathName;
+      this.context = context;
     }
 
     @Override
     public void runMayThrow() {
       try {
         synchronized (reader) {
+          // stop reading ahead when the query is short of memory, the consumer will submit the
+          // task again after it takes a batch from the queue
+          if (!blockingQueue.isEmpty() && context.isMemoryTight()) {
+            reader.setManagedByQueryManager(false);
+            return;
+          }
           // if the task is submitted, there must be free space in the queue
           // so here we don't need to check whether the queue has free space
           // the reader has next batch
@@ -70,6 +76,10 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
             if (batchData.isEmpty()) {
               continue;
             }
+            // released when the consumer has consumed the batch
+            if (context.getMemoryTracker() != null) {
+              context.allocateMemory(MemUtils.getBatchDataSize(batchData));
+            }
             blockingQueue.put(batchData);
             // if the queue also has free space, just submit another itself
             if (blockingQueue.remainingCapacity() > 0) {
@@ -97,14 +107,22 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
         reader.setHasRemaining(false);
       } catch (IOException e) {
         putExceptionBatchData(e, String.format("Something gets wrong while reading from the series reader %s: ", pathName));
+      } catch (QueryKilledException | QueryMemoryExceededException e) {
+        // not an error, the consumer throws it to end the query
+        LOGGER.debug("Stop reading the series reader {}: {}", pathName, e.getMessage());
+        putExceptionBatchData(e);
       } catch (Exception e) {
         putExceptionBatchData(e, "Something gets wrong: ");
       }
     }
 
     private void putExceptionBatchData(Exception e, String logMessage) {
+      LOGGER.error(logMessage, e);
+      putExceptionBatchData(e);
+    }
+
+    private void putExceptionBatchData(Exception e) {
       try {
-        LOGGER.error(logMessage, e);
         reader.setHasRemaining(false);
         blockingQueue.put(new ExceptionBatchData(e));
       } catch (InterruptedException ex) {
@@ -132,7 +150,7 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
 
   private BatchData[] cachedBatchDataArray;
 
-  private static final int FLAG = 0x01;
+  private QueryContext context;
 
   // capacity for blocking queue
   private static final int BLOCKING_QUEUE_CAPACITY = 5;
@@ -149,11 +167,14 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
    * @param paths     paths in List structure
    * @param dataTypes time series data type
    * @param readers   readers in List(IPointReader) structure
+   * @param context   the context of the query, which is charged by the batches read ahead
    */
   public RawQueryDataSetWithoutValueFilter(List<Path> paths, List<TSDataType> dataTypes,
-      List<ManagedSeriesReader> readers) throws IOException, InterruptedException {
+      List<ManagedSeriesReader> readers, QueryContext context)
+      throws IOException, InterruptedException {
     super(paths, dataTypes);
     this.seriesReaderList = readers;
+    this.context = context;
     blockingQueueArray = new BlockingQueue[readers.size()];
     for (int i = 0; i < seriesReaderList.size(); i++) {
       blockingQueueArray[i] = new LinkedBlockingQueue<>(BLOCKING_QUEUE_CAPACITY);
@@ -170,7 +191,8 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
       reader.setHasRemaining(true);
       reader.setManagedByQueryManager(true);
       TASK_POOL_MANAGER
-          .submit(new ReadTask(reader, blockingQueueArray[i], paths.get(i).getFullPath()));
+          .submit(new ReadTask(reader, blockingQueueArray[i], paths.get(i).getFullPath(),
+              context));
     }
     for (int i = 0; i < seriesReaderList.size(); i++) {
       fillCache(i);
@@ -183,169 +205,73 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
   }
 
 
-  /**
-   * for RPC in RawData query between client and server fill time buffer, value buffers and bitmap
-   * buffers
-   */
-  public TSQueryDataSet fillBuffer(int fetchSize, WatermarkEncoder encoder) throws IOException, InterruptedException {
-    int seriesNum = seriesReaderList.size();
-    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
-
-    PublicBAOS timeBAOS = new PublicBAOS();
-    PublicBAOS[] valueBAOSList = new PublicBAOS[seriesNum];
-    PublicBAOS[] bitmapBAOSList = new PublicBAOS[seriesNum];
-
-    for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-      valueBAOSList[seriesIndex] = new PublicBAOS();
-      bitmapBAOSList[seriesIndex] = new PublicBAOS();
+  @Override
+  public void writeNext(TSQueryDataSetBuilder builder) throws IOException {
+    if (rowLimit > 0) {
+      alreadyReturnedRowNum++;
     }
+    long minTime = timeHeap.pollFirst();
+    builder.putTime(minTime);
 
-    // used to record a bitmap for every 8 row records
-    int[] currentBitmapList = new int[seriesNum];
-    int rowCount = 0;
-    while (rowCount < fetchSize) {
-
-      if ((rowLimit > 0 && alreadyReturnedRowNum >= rowLimit) || timeHeap.isEmpty()) {
-        break;
-      }
-
-      long minTime = timeHeap.pollFirst();
-
-      if (rowOffset == 0) {
-        timeBAOS.write(BytesUtils.longToBytes(minTime));
+    for (int seriesIndex = 0; seriesIndex < seriesReaderList.size(); seriesIndex++) {
+      BatchData batchData = cachedBatchDataArray[seriesIndex];
+      if (batchData == null || !batchData.hasCurrent() || batchData.currentTime() != minTime) {
+        // current batch is empty or does not have value at minTime
+        continue;
       }
-
-      for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-
-        if (cachedBatchDataArray[seriesIndex] == null
-            || !cachedBatchDataArray[seriesIndex].hasCurrent()
-            || cachedBatchDataArray[seriesIndex].currentTime() != minTime) {
-          // current batch is empty or does not have value at minTime
-          if (rowOffset == 0) {
-            currentBitmapList[seriesIndex] = (currentBitmapList[seriesIndex] << 1);
-          }
-        } else {
-          // current batch has value at minTime, consume current value
-          if (rowOffset == 0) {
-            currentBitmapList[seriesIndex] = (currentBitmapList[seriesIndex] << 1) | FLAG;
-            TSDataType type = cachedBatchDataArray[seriesIndex].getDataType();
-            switch (type) {
-              case INT32:
-                int intValue = cachedBatchDataArray[seriesIndex].getInt();
-                if (encoder != null && encoder.needEncode(minTime)) {
-                  intValue = encoder.encodeInt(intValue, minTime);
-                }
-                ReadWriteIOUtils.write(intValue, valueBAOSList[seriesIndex]);
-                break;
-              case INT64:
-                long longValue = cachedBatchDataArray[seriesIndex].getLong();
-                if (encoder != null && encoder.needEncode(minTime)) {
-                  longValue = encoder.encodeLong(longValue, minTime);
-                }
-                ReadWriteIOUtils.write(longValue, valueBAOSList[seriesIndex]);
-                break;
-              case FLOAT:
-                float floatValue = cachedBatchDataArray[seriesIndex].getFloat();
-                if (encoder != null && encoder.needEncode(minTime)) {
-                  floatValue = encoder.encodeFloat(floatValue, minTime);
-                }
-                ReadWriteIOUtils.write(floatValue, valueBAOSList[seriesIndex]);
-                break;
-              case DOUBLE:
-                double doubleValue = cachedBatchDataArray[seriesIndex].getDouble();
-                if (encoder != null && encoder.needEncode(minTime)) {
-                  doubleValue = encoder.encodeDouble(doubleValue, minTime);
-                }
-                ReadWriteIOUtils.write(doubleValue, valueBAOSList[seriesIndex]);
-                break;
-              case BOOLEAN:
-                ReadWriteIOUtils.write(cachedBatchDataArray[seriesIndex].getBoolean(),
-                    valueBAOSList[seriesIndex]);
-                break;
-              case TEXT:
-                ReadWriteIOUtils
-                    .write(cachedBatchDataArray[seriesIndex].getBinary(),
-                        valueBAOSList[seriesIndex]);
-                break;
-              default:
-                throw new UnSupportedDataTypeException(
-                    String.format("Data type %s is not supported.", type));
-            }
-          }
-
-          // move next
-          cachedBatchDataArray[seriesIndex].next();
-
-          // get next batch if current batch is empty and  still have remaining batch data in queue
-          if (!cachedBatchDataArray[seriesIndex].hasCurrent()
-              && !noMoreDataInQueueArray[seriesIndex]) {
-            fillCache(seriesIndex);
-          }
-
-          // try to put the next timestamp into the heap
-          if (cachedBatchDataArray[seriesIndex].hasCurrent()) {
-            long time = cachedBatchDataArray[seriesIndex].currentTime();
-            timeHeap.add(time);
-          }
-
-        }
-      }
-
-      if (rowOffset == 0) {
-        rowCount++;
-        if (rowCount % 8 == 0) {
-          for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-            ReadWriteIOUtils
-                .write((byte) currentBitmapList[seriesIndex], bitmapBAOSList[seriesIndex]);
-            // we should clear the bitmap every 8 row record
-            currentBitmapList[seriesIndex] = 0;
-          }
-        }
-        if (rowLimit > 0) {
-          alreadyReturnedRowNum++;
-        }
-      } else {
-        rowOffset--;
+      // current batch has value at minTime, consume current value
+      TSDataType type = batchData.getDataType();
+      switch (type) {
+        case INT32:
+          builder.putInt(seriesIndex, batchData.getInt());
+          break;
+        case INT64:
+          builder.putLong(seriesIndex, batchData.getLong());
+          break;
+        case FLOAT:
+          builder.putFloat(seriesIndex, batchData.getFloat());
+          break;
+        case DOUBLE:
+          builder.putDouble(seriesIndex, batchData.getDouble());
+          break;
+        case BOOLEAN:
+          builder.putBoolean(seriesIndex, batchData.getBoolean());
+          break;
+        case TEXT:
+          builder.putBinary(seriesIndex, batchData.getBinary());
+          break;
+        default:
+          throw new UnSupportedDataTypeException(
+              String.format("Data type %s is not supported.", type));
       }
+      moveNext(seriesIndex);
     }
+  }
 
-    /*
-     * feed the bitmap with remaining 0 in the right
-     * if current bitmap is 00011111 and remaining is 3, after feeding the bitmap is 11111000
-     */
-    if (rowCount > 0) {
-      int remaining = rowCount % 8;
-      if (remaining != 0) {
-        for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-          ReadWriteIOUtils.write((byte) (currentBitmapList[seriesIndex] << (8 - remaining)),
-              bitmapBAOSList[seriesIndex]);
-        }
+  /**
+   * consume the current value of a series and put its next timestamp into the heap
+   */
+  private void moveNext(int seriesIndex) throws IOException {
+    cachedBatchDataArray[seriesIndex].next();
+
+    // get next batch if current batch is empty and still have remaining batch data in queue
+    if (!cachedBatchDataArray[seriesIndex].hasCurrent()
+        && !noMoreDataInQueueArray[seriesIndex]) {
+      try {
+        fillCache(seriesIndex);
+      } catch (InterruptedException e) {
+        LOGGER.error("Interrupted while taking from the blocking queue: ", e);
+        Thread.currentThread().interrupt();
+      } catch (IOException e) {
+        LOGGER.error("Got IOException", e);
+        throw e;
       }
     }
 
-    // set time buffer
-    ByteBuffer timeBuffer = ByteBuffer.allocate(timeBAOS.size());
-    timeBuffer.put(timeBAOS.getBuf(), 0, timeBAOS.size());
-    timeBuffer.flip();
-    tsQueryDataSet.setTime(timeBuffer);
-
-    List<ByteBuffer> valueBufferList = new ArrayList<>();
-    List<ByteBuffer> bitmapBufferList = new ArrayList<>();
-
-    for (int seriesIndex = 0; seriesIndex < seriesNum; seriesIndex++) {
-
-      // add value buffer of current series
-      putPBOSToBuffer(valueBAOSList, valueBufferList, seriesIndex);
-
-      // add bitmap buffer of current series
-      putPBOSToBuffer(bitmapBAOSList, bitmapBufferList, seriesIndex);
+    // try to put the next timestamp into the heap
+    if (cachedBatchDataArray[seriesIndex].hasCurrent()) {
+      timeHeap.add(cachedBatchDataArray[seriesIndex].currentTime());
     }
-
-    // set value buffers and bitmap buffers
-    tsQueryDataSet.setValueList(valueBufferList);
-    tsQueryDataSet.setBitmapList(bitmapBufferList);
-
-    return tsQueryDataSet;
   }
 
   private void fillCache(int seriesIndex) throws IOException, InterruptedException {
@@ -356,7 +282,10 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
     } else if (batchData instanceof ExceptionBatchData) {
       // exception happened in producer thread
       ExceptionBatchData exceptionBatchData = (ExceptionBatchData) batchData;
-      LOGGER.error("exception happened in producer thread", exceptionBatchData.getException());
+      if (!(exceptionBatchData.getException() instanceof QueryKilledException)
+          && !(exceptionBatchData.getException() instanceof QueryMemoryExceededException)) {
+        LOGGER.error("exception happened in producer thread", exceptionBatchData.getException());
+      }
       if (exceptionBatchData.getException() instanceof IOException) {
         throw (IOException)exceptionBatchData.getException();
       } else if (exceptionBatchData.getException() instanceof RuntimeException) {
@@ -364,6 +293,9 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
       }
 
     } else {   // there are more batch data in this time series queue
+      if (cachedBatchDataArray[seriesIndex] != null && context.getMemoryTracker() != null) {
+        context.releaseMemory(MemUtils.getBatchDataSize(cachedBatchDataArray[seriesIndex]));
+      }
       cachedBatchDataArray[seriesIndex] = batchData;
 
       synchronized (seriesReaderList.get(seriesIndex)) {
@@ -376,22 +308,13 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
           if (!reader.isManagedByQueryManager() && reader.hasRemaining()) {
             reader.setManagedByQueryManager(true);
             TASK_POOL_MANAGER.submit(new ReadTask(reader, blockingQueueArray[seriesIndex],
-                paths.get(seriesIndex).getFullPath()));
+                paths.get(seriesIndex).getFullPath(), context));
           }
         }
       }
     }
   }
 
-  private void putPBOSToBuffer(PublicBAOS[] bitmapBAOSList, List<ByteBuffer> bitmapBufferList,
-      int tsIndex) {
-    ByteBuffer bitmapBuffer = ByteBuffer.allocate(bitmapBAOSList[tsIndex].size());
-    bitmapBuffer.put(bitmapBAOSList[tsIndex].getBuf(), 0, bitmapBAOSList[tsIndex].size());
-    bitmapBuffer.flip();
-    bitmapBufferList.add(bitmapBuffer);
-  }
-
-
   /**
    * for spark/hadoop/hive integration and test
    */
@@ -419,28 +342,7 @@ public class RawQueryDataSetWithoutValueFilter extends QueryDataSet {
       } else {
         TSDataType dataType = dataTypes.get(seriesIndex);
         record.addField(cachedBatchDataArray[seriesIndex].currentValue(), dataType);
-
-        // move next
-        cachedBatchDataArray[seriesIndex].next();
-
-        // get next batch if current batch is empty and still have remaining batch data in queue
-        if (!cachedBatchDataArray[seriesIndex].hasCurrent()
-            && !noMoreDataInQueueArray[seriesIndex]) {
-          try {
-            fillCache(seriesIndex);
-          } catch (InterruptedException e) {
-            LOGGER.error("Interrupted while taking from the blocking queue: ", e);
-            Thread.currentThread().interrupt();
-          } catch (IOException e) {
-            LOGGER.error("Got IOException", e);
-            throw e;
-          }
-        }
-
-        // try to put the next timestamp into the heap
-        if (cachedBatchDataArray[seriesIndex].hasCurrent()) {
-          timeHeap.add(cachedBatchDataArray[seriesIndex].currentTime());
-        }
+        moveNext(seriesIndex);
       }
     }
 
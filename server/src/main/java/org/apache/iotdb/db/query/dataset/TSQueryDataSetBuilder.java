@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/**
+ * TSQueryDataSetBuilder writes the rows returned to the client into a time buffer, a value buffer
+ * and a bitmap buffer of each column, which are sent as a TSQueryDataSet without being copied.
+ *
+ * A row is started by putTime() and its non-null values are put into their columns afterwards,
+ * the columns without a value are null in the row. The buffers are heap buffers, as thrift
+ * serializes a binary field through its backing array.
+ */
+public class TSQueryDataSetBuilder {
+
+  /**
+   * the buffers are sized for at most so many rows at first and grow when more rows come, so a
+   * large fetch size of a small result does not allocate much memory
+   */
+  private static final int MAX_INITIAL_ROW_NUM = 1024;
+  private static final int ESTIMATED_TEXT_SIZE = 16;
+
+  private WatermarkEncoder encoder;
+
+  private ByteBuffer timeBuffer;
+  private ByteBuffer[] valueBuffers;
+  // the bit of a row is 1 if the column has a value in the row, the first row is the highest bit
+  private byte[][] bitmaps;
+  // the bytes of each bitmap
+  private int bitmapCapacity;
+  private int rowCount = 0;
+
+  private long currentTime;
+  private boolean encodeCurrentRow;
+
+  // the columns of the builder each column is written to, null means the column itself
+  private int[][] columnMapping;
+
+  /**
+   * @param expectedRowNum the number of rows that are likely to be put, used to size the buffers
+   * @param encoder the watermark encoder of the user, or null if the values are not encoded
+   */
+  public TSQueryDataSetBuilder(List<TSDataType> dataTypes, int expectedRowNum,
+      WatermarkEncoder encoder) {
+    this.encoder = encoder;
+    int initialRowNum = Math.max(1, Math.min(expectedRowNum, MAX_INITIAL_ROW_NUM));
+    timeBuffer = ByteBuffer.allocate(initialRowNum * Long.BYTES);
+    valueBuffers = new ByteBuffer[dataTypes.size()];
+    bitmaps = new byte[dataTypes.size()][];
+    bitmapCapacity = (initialRowNum + 7) / 8;
+    for (int i = 0; i < dataTypes.size(); i++) {
+      valueBuffers[i] = ByteBuffer.allocate(initialRowNum * getEstimatedValueSize(dataTypes.get(i)));
+      bitmaps[i] = new byte[bitmapCapacity];
+    }
+  }
+
+  private static int getEstimatedValueSize(TSDataType dataType) {
+    if (dataType == null) {
+      return Long.BYTES;
+    }
+    switch (dataType) {
+      case BOOLEAN:
+        return 1;
+      case INT32:
+      case FLOAT:
+        return Integer.BYTES;
+      case TEXT:
+        return Integer.BYTES + ESTIMATED_TEXT_SIZE;
+      default:
+        return Long.BYTES;
+    }
+  }
+
+  /**
+   * write the values put into the i-th column to the columns in columnMapping[i] instead until
+   * the mapping is cleared by null, so a data set can write its rows into some columns of another
+   * one.
+   */
+  public void setColumnMapping(int[][] columnMapping) {
+    this.columnMapping = columnMapping;
+  }
+
+  /**
+   * start a new row.
+   */
+  public void putTime(long time) {
+    timeBuffer = ensureRemaining(timeBuffer, Long.BYTES);
+    timeBuffer.putLong(time);
+    if (rowCount == bitmapCapacity * 8) {
+      for (int i = 0; i < bitmaps.length; i++) {
+        bitmaps[i] = Arrays.copyOf(bitmaps[i], bitmapCapacity * 2);
+      }
+      bitmapCapacity *= 2;
+    }
+    rowCount++;
+    currentTime = time;
+    encodeCurrentRow = encoder != null && encoder.needEncode(time);
+  }
+
+  public void putBoolean(int column, boolean value) {
+    if (columnMapping != null) {
+      for (int target : columnMapping[column]) {
+        writeBoolean(target, value);
+      }
+    } else {
+      writeBoolean(column, value);
+    }
+  }
+
+  public void putInt(int column, int value) {
+    if (columnMapping != null) {
+      for (int target : columnMapping[column]) {
+        writeInt(target, value);
+      }
+    } else {
+      writeInt(column, value);
+    }
+  }
+
+  public void putLong(int column, long value) {
+    if (columnMapping != null) {
+      for (int target : columnMapping[column]) {
+        writeLong(target, value);
+      }
+    } else {
+      writeLong(column, value);
+    }
+  }
+
+  public void putFloat(int column, float value) {
+    if (columnMapping != null) {
+      for (int target : columnMapping[column]) {
+        writeFloat(target, value);
+      }
+    } else {
+      writeFloat(column, value);
+    }
+  }
+
+  public void putDouble(int column, double value) {
+    if (columnMapping != null) {
+      for (int target : columnMapping[column]) {
+        writeDouble(target, value);
+      }
+    } else {
+      writeDouble(column, value);
+    }
+  }
+
+  public void putBinary(int column, Binary value) {
+    if (columnMapping != null) {
+      for (int target : columnMapping[column]) {
+        writeBinary(target, value);
+      }
+    } else {
+      writeBinary(column, value);
+    }
+  }
+
+  /**
+   * put a value of the given type, null values are skipped.
+   */
+  public void putValue(int column, Object value, TSDataType dataType) {
+    if (value == null) {
+      return;
+    }
+    switch (dataType) {
+      case BOOLEAN:
+        putBoolean(column, (boolean) value);
+        break;
+      case INT32:
+        putInt(column, (int) value);
+        break;
+      case INT64:
+        putLong(column, (long) value);
+        break;
+      case FLOAT:
+        putFloat(column, (float) value);
+        break;
+      case DOUBLE:
+        putDouble(column, (double) value);
+        break;
+      case TEXT:
+        putBinary(column, (Binary) value);
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataType));
+    }
+  }
+
+  /**
+   * put the value of a field, null fields are skipped.
+   */
+  public void putField(int column, Field field) {
+    if (field == null || field.getDataType() == null) {
+      return;
+    }
+    switch (field.getDataType()) {
+      case BOOLEAN:
+        putBoolean(column, field.getBoolV());
+        break;
+      case INT32:
+        putInt(column, field.getIntV());
+        break;
+      case INT64:
+        putLong(column, field.getLongV());
+        break;
+      case FLOAT:
+        putFloat(column, field.getFloatV());
+        break;
+      case DOUBLE:
+        putDouble(column, field.getDoubleV());
+        break;
+      case TEXT:
+        putBinary(column, field.getBinaryV());
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", field.getDataType()));
+    }
+  }
+
+  /**
+   * put a row of a data set which does not write its rows into the builder directly.
+   */
+  public void putRecord(RowRecord record) {
+    putTime(record.getTimestamp());
+    List<Field> fields = record.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      putField(i, fields.get(i));
+    }
+  }
+
+  private void writeBoolean(int column, boolean value) {
+    ByteBuffer valueBuffer = ensureRemaining(column, 1);
+    valueBuffer.put((byte) (value ? 1 : 0));
+    markNotNull(column);
+  }
+
+  private void writeInt(int column, int value) {
+    ByteBuffer valueBuffer = ensureRemaining(column, Integer.BYTES);
+    valueBuffer.putInt(encodeCurrentRow ? encoder.encodeInt(value, currentTime) : value);
+    markNotNull(column);
+  }
+
+  private void writeLong(int column, long value) {
+    ByteBuffer valueBuffer = ensureRemaining(column, Long.BYTES);
+    valueBuffer.putLong(encodeCurrentRow ? encoder.encodeLong(value, currentTime) : value);
+    markNotNull(column);
+  }
+
+  private void writeFloat(int column, float value) {
+    ByteBuffer valueBuffer = ensureRemaining(column, Float.BYTES);
+    valueBuffer.putFloat(encodeCurrentRow ? encoder.encodeFloat(value, currentTime) : value);
+    markNotNull(column);
+  }
+
+  private void writeDouble(int column, double value) {
+    ByteBuffer valueBuffer = ensureRemaining(column, Double.BYTES);
+    valueBuffer.putDouble(encodeCurrentRow ? encoder.encodeDouble(value, currentTime) : value);
+    markNotNull(column);
+  }
+
+  private void writeBinary(int column, Binary value) {
+    ByteBuffer valueBuffer = ensureRemaining(column, Integer.BYTES + value.getLength());
+    valueBuffer.putInt(value.getLength());
+    valueBuffer.put(value.getValues());
+    markNotNull(column);
+  }
+
+  private void markNotNull(int column) {
+    int row = rowCount - 1;
+    bitmaps[column][row >>> 3] |= (byte) (0x80 >>> (row & 7));
+  }
+
+  private ByteBuffer ensureRemaining(int column, int size) {
+    valueBuffers[column] = ensureRemaining(valueBuffers[column], size);
+    return valueBuffers[column];
+  }
+
+  private static ByteBuffer ensureRemaining(ByteBuffer buffer, int size) {
+    if (buffer.remaining() >= size) {
+      return buffer;
+    }
+    ByteBuffer newBuffer = ByteBuffer
+        .allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+    buffer.flip();
+    newBuffer.put(buffer);
+    return newBuffer;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return a TSQueryDataSet that shares the buffers of the builder, so no more rows can be put
+   */
+  public TSQueryDataSet build() {
+    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
+    timeBuffer.flip();
+    tsQueryDataSet.setTime(timeBuffer);
+
+    int bitmapSize = (rowCount + 7) / 8;
+    List<ByteBuffer> valueBufferList = new ArrayList<>(valueBuffers.length);
+    List<ByteBuffer> bitmapBufferList = new ArrayList<>(bitmaps.length);
+    for (int i = 0; i < valueBuffers.length; i++) {
+      valueBuffers[i].flip();
+      valueBufferList.add(valueBuffers[i]);
+      bitmapBufferList.add(ByteBuffer.wrap(bitmaps[i], 0, bitmapSize));
+    }
+    tsQueryDataSet.setValueList(valueBufferList);
+    tsQueryDataSet.setBitmapList(bitmapBufferList);
+    return tsQueryDataSet;
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset.groupby;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.engine.cache.QueryResultCache;
+import org.apache.iotdb.db.engine.cache.QueryResultCache.WindowKey;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.factory.AggregateResultFactory;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+
+/**
+ * Gets the windows of a series from {@link QueryResultCache} if the TsFiles overlapping them are
+ * all sealed, and calculates the others by another executor. The executor is created when the
+ * first window is missed and only reads the data from that window on, so a query repeated over
+ * the same history only reads the newest data.
+ */
+public class CachedGroupByExecutor implements GroupByExecutor {
+
+  @FunctionalInterface
+  public interface ExecutorFactory {
+
+    GroupByExecutor create(Filter timeFilter) throws StorageEngineException, QueryProcessException;
+  }
+
+  private Path path;
+  private TSDataType dataType;
+  private Filter timeFilter;
+  private List<String> aggregations;
+  private ExecutorFactory executorFactory;
+  private GroupByExecutor executor;
+
+  private String storageGroupName;
+  private long version;
+  /**
+   * the files are sealed when the query begins, so the data of the windows they cover do not
+   * change during the query
+   */
+  private List<TsFileResource> sealedFiles = new ArrayList<>();
+  /**
+   * the start time of the series in each unsealed file when the query begins, later data in them
+   * are always after the start time
+   */
+  private List<Long> unsealedStartTimes = new ArrayList<>();
+  private boolean cacheable;
+
+  private List<AggregateResult> results = new ArrayList<>();
+
+  /**
+   * @param aggregations the aggregations of the AggregateResults that will be added, in order
+   */
+  public CachedGroupByExecutor(Path path, TSDataType dataType, QueryContext context,
+      Filter timeFilter, List<String> aggregations, ExecutorFactory executorFactory)
+      throws StorageEngineException, QueryProcessException {
+    this.path = path;
+    this.dataType = dataType;
+    this.timeFilter = timeFilter;
+    this.aggregations = aggregations;
+    this.executorFactory = executorFactory;
+    try {
+      this.storageGroupName = MManager.getInstance().getStorageGroupName(path.getFullPath());
+    } catch (MetadataException e) {
+      throw new StorageEngineException(e);
+    }
+    // the version is got before the files, so the windows are not cached if the files change
+    // in place after the files are got
+    this.version = QueryResultCache.getInstance().getVersion(storageGroupName);
+
+    QueryDataSource queryDataSource = QueryResourceManager.getInstance()
+        .getQueryDataSource(path, context, timeFilter);
+    // windows with expired data change with time
+    this.cacheable = queryDataSource.getDataTTL() == Long.MAX_VALUE;
+    String device = path.getDevice();
+    List<TsFileResource> resources = new ArrayList<>(queryDataSource.getSeqResources());
+    resources.addAll(queryDataSource.getUnseqResources());
+    for (TsFileResource resource : resources) {
+      if (resource.isClosed()) {
+        sealedFiles.add(resource);
+      } else {
+        unsealedStartTimes.add(resource.getStartTimeMap().getOrDefault(device, Long.MAX_VALUE));
+      }
+    }
+  }
+
+  @Override
+  public void addAggregateResult(AggregateResult aggrResult) {
+    results.add(aggrResult);
+  }
+
+  @Override
+  public List<AggregateResult> calcResult(long curStartTime, long curEndTime)
+      throws IOException, QueryProcessException {
+    for (AggregateResult result : results) {
+      result.reset();
+    }
+
+    List<String> files = getOverlappedFiles(curStartTime, curEndTime);
+    WindowKey key = null;
+    if (files != null) {
+      key = new WindowKey(storageGroupName, path.getFullPath(), dataType, aggregations,
+          curStartTime, curEndTime);
+      if (QueryResultCache.getInstance().get(key, files, version, results)) {
+        return results;
+      }
+    }
+
+    if (executor == null) {
+      createExecutor(curStartTime);
+    }
+    List<AggregateResult> partialResults = executor.calcResult(curStartTime, curEndTime);
+    for (int i = 0; i < results.size(); i++) {
+      if (partialResults.get(i).hasResult()) {
+        results.get(i).merge(partialResults.get(i));
+      }
+    }
+    if (key != null) {
+      QueryResultCache.getInstance().put(key, files, version, results);
+    }
+    return results;
+  }
+
+  /**
+   * @return the paths of the files overlapping [startTime, endTime), or null if the window cannot
+   * be cached
+   */
+  private List<String> getOverlappedFiles(long startTime, long endTime) {
+    if (!cacheable
+        || timeFilter != null && !timeFilter.containStartEndTime(startTime, endTime - 1)) {
+      return null;
+    }
+    for (long unsealedStartTime : unsealedStartTimes) {
+      if (unsealedStartTime < endTime) {
+        return null;
+      }
+    }
+    String device = path.getDevice();
+    List<String> files = new ArrayList<>();
+    for (TsFileResource resource : sealedFiles) {
+      Long fileStartTime = resource.getStartTimeMap().get(device);
+      Long fileEndTime = resource.getEndTimeMap().get(device);
+      if (fileStartTime != null && fileEndTime != null && fileStartTime < endTime
+          && fileEndTime >= startTime) {
+        files.add(resource.getFile().getPath());
+      }
+    }
+    return files;
+  }
+
+  private void createExecutor(long startTime) throws IOException {
+    Filter filter = TimeFilter.gtEq(startTime);
+    try {
+      executor = executorFactory
+          .create(timeFilter == null ? filter : FilterFactory.and(timeFilter, filter));
+    } catch (StorageEngineException | QueryProcessException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+    for (AggregateResult result : results) {
+      executor.addAggregateResult(AggregateResultFactory
+          .getAggrResultByType(result.getAggregationType(), dataType));
+    }
+  }
+}
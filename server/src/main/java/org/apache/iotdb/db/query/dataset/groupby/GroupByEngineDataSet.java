@@ -19,15 +19,20 @@
 package org.apache.iotdb.db.query.dataset.groupby;
 
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.dataset.DirectAlignByTimeDataSet;
+import org.apache.iotdb.db.query.dataset.TSQueryDataSetBuilder;
 import org.apache.iotdb.db.utils.TestOnly;
 import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.utils.Pair;
 
 import java.io.IOException;
+import java.util.List;
 
-public abstract class GroupByEngineDataSet extends QueryDataSet {
+public abstract class GroupByEngineDataSet extends QueryDataSet implements
+    DirectAlignByTimeDataSet {
 
   protected long queryId;
   protected long interval;
@@ -82,7 +87,46 @@ public abstract class GroupByEngineDataSet extends QueryDataSet {
   }
 
   @Override
-  protected abstract RowRecord nextWithoutConstraint() throws IOException;
+  protected RowRecord nextWithoutConstraint() throws IOException {
+    List<AggregateResult> aggregateResults = nextAggregateResults();
+    RowRecord record = new RowRecord(getCurrentTime());
+    for (AggregateResult aggregateResult : aggregateResults) {
+      if (aggregateResult == null) {
+        record.addField(null);
+        continue;
+      }
+      record.addField(aggregateResult.getResult(), aggregateResult.getResultDataType());
+    }
+    return record;
+  }
+
+  @Override
+  public void writeNext(TSQueryDataSetBuilder builder) throws IOException {
+    if (rowLimit > 0) {
+      alreadyReturnedRowNum++;
+    }
+    List<AggregateResult> aggregateResults = nextAggregateResults();
+    builder.putTime(getCurrentTime());
+    for (int i = 0; i < aggregateResults.size(); i++) {
+      AggregateResult aggregateResult = aggregateResults.get(i);
+      if (aggregateResult != null) {
+        builder.putValue(i, aggregateResult.getResult(), aggregateResult.getResultDataType());
+      }
+    }
+  }
+
+  /**
+   * calculate the results of the current interval [curStartTime, curEndTime) of all paths, a
+   * result is null if the path is not calculated.
+   */
+  protected abstract List<AggregateResult> nextAggregateResults() throws IOException;
+
+  /**
+   * @return the timestamp of the current interval in the result
+   */
+  private long getCurrentTime() {
+    return leftCRightO ? curStartTime : curEndTime - 1;
+  }
 
   public long getStartTime() {
     return startTime;
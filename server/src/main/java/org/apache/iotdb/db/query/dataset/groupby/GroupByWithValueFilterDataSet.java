@@ -34,7 +34,6 @@ import org.apache.iotdb.db.query.reader.series.SeriesReaderByTimestamp;
 import org.apache.iotdb.db.query.timegenerator.ServerTimeGenerator;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
-import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.query.timegenerator.TimeGenerator;
 
@@ -61,6 +60,11 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
    */
   protected int timeStampFetchSize;
 
+  /**
+   * calculates overlapped windows from panes, null if the windows do not overlap.
+   */
+  private SlidingWindowAggregator slidingWindowAggregator;
+
   public GroupByWithValueFilterDataSet() {
   }
 
@@ -107,17 +111,45 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
   }
 
   @Override
-  protected RowRecord nextWithoutConstraint() throws IOException {
+  protected List<AggregateResult> nextAggregateResults() throws IOException {
     if (!hasCachedTimeInterval) {
       throw new IOException("need to call hasNext() before calling next()"
           + " in GroupByWithoutValueFilterDataSet.");
     }
     hasCachedTimeInterval = false;
+    try {
+      if (!SlidingWindowAggregator.isSliding(interval, slidingStep)) {
+        return calcResults(curStartTime, curEndTime);
+      }
+      if (slidingWindowAggregator == null) {
+        List<AggregateResult> windowResults = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+          windowResults.add(AggregateResultFactory.getAggrResultByName(
+              groupByPlan.getDeduplicatedAggregations().get(i),
+              groupByPlan.getDeduplicatedDataTypes().get(i),
+              groupByPlan.getDeduplicatedAggregationParameters().get(i)));
+        }
+        slidingWindowAggregator = new SlidingWindowAggregator(startTime, endTime, interval,
+            slidingStep, windowResults, this::calcResults);
+      }
+      return slidingWindowAggregator.calcWindow(curStartTime, curEndTime);
+    } catch (QueryProcessException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * calculate the results of all paths in [curStartTime, curEndTime) using the timestamps which
+   * satisfy the value filter, the calls must be in time order and not overlap.
+   */
+  private List<AggregateResult> calcResults(long curStartTime, long curEndTime)
+      throws IOException {
     List<AggregateResult> aggregateResultList = new ArrayList<>();
     for (int i = 0; i < paths.size(); i++) {
       aggregateResultList.add(AggregateResultFactory.getAggrResultByName(
           groupByPlan.getDeduplicatedAggregations().get(i),
-          groupByPlan.getDeduplicatedDataTypes().get(i)));
+          groupByPlan.getDeduplicatedDataTypes().get(i),
+          groupByPlan.getDeduplicatedAggregationParameters().get(i)));
     }
 
     long[] timestampArray = new long[timeStampFetchSize];
@@ -129,12 +161,12 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
           timestampArray[timeArrayLength++] = timestamp;
         }
       } else {
-        return constructRowRecord(aggregateResultList);
+        return aggregateResultList;
       }
     }
     while (timestampGenerator.hasNext()) {
       // construct timestamp array
-      timeArrayLength = constructTimeArrayForOneCal(timestampArray, timeArrayLength);
+      timeArrayLength = constructTimeArrayForOneCal(timestampArray, timeArrayLength, curEndTime);
 
       // cal result using timestamp array
       for (int i = 0; i < paths.size(); i++) {
@@ -157,7 +189,7 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
             timestampArray, timeArrayLength, allDataReaderList.get(i));
       }
     }
-    return constructRowRecord(aggregateResultList);
+    return aggregateResultList;
   }
 
   /**
@@ -165,10 +197,11 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
    *
    * @param timestampArray  timestamp array
    * @param timeArrayLength the current size of timestamp array
+   * @param curEndTime      the end of the current group by partition
    * @return time array size
    */
-  private int constructTimeArrayForOneCal(long[] timestampArray, int timeArrayLength)
-      throws IOException {
+  private int constructTimeArrayForOneCal(long[] timestampArray, int timeArrayLength,
+      long curEndTime) throws IOException {
     for (int cnt = 1; cnt < timeStampFetchSize && timestampGenerator.hasNext(); cnt++) {
       timestamp = timestampGenerator.next();
       if (timestamp < curEndTime) {
@@ -180,18 +213,4 @@ public class GroupByWithValueFilterDataSet extends GroupByEngineDataSet {
     }
     return timeArrayLength;
   }
-
-  private RowRecord constructRowRecord(List<AggregateResult> aggregateResultList) {
-    RowRecord record;
-    if (leftCRightO) {
-      record = new RowRecord(curStartTime);
-    } else {
-      record = new RowRecord(curEndTime-1);
-    }
-    for (int i = 0; i < paths.size(); i++) {
-      AggregateResult aggregateResult = aggregateResultList.get(i);
-      record.addField(aggregateResult.getResult(), aggregateResult.getResultDataType());
-    }
-    return record;
-  }
 }
@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.query.dataset.groupby;
 
+import org.apache.iotdb.db.engine.cache.QueryResultCache;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
@@ -28,7 +29,6 @@ import org.apache.iotdb.db.query.factory.AggregateResultFactory;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
-import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
@@ -83,33 +83,49 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
 
     // init resultIndexes, group result indexes by path
     for (int i = 0; i < paths.size(); i++) {
-      Path path = paths.get(i);
-      if (!pathExecutors.containsKey(path)) {
-        //init GroupByExecutor
-        pathExecutors.put(path,
-                getGroupByExecutor(path, groupByPlan.getAllMeasurementsInDevice(path.getDevice()), dataTypes.get(i), context, timeFilter, null));
-        resultIndexes.put(path, new ArrayList<>());
+      resultIndexes.computeIfAbsent(paths.get(i), k -> new ArrayList<>()).add(i);
+    }
+
+    boolean useRollups = RollupGroupByExecutor.isApplicable(groupByPlan, timeFilter);
+    for (Entry<Path, List<Integer>> pathToIndexesEntry : resultIndexes.entrySet()) {
+      Path path = pathToIndexesEntry.getKey();
+      List<Integer> indexes = pathToIndexesEntry.getValue();
+      TSDataType dataType = dataTypes.get(indexes.get(0));
+      List<String> aggregations = new ArrayList<>();
+      for (int index : indexes) {
+        aggregations.add(groupByPlan.getDeduplicatedAggregations().get(index).toLowerCase());
+      }
+      //init GroupByExecutor
+      Set<String> allSensors = groupByPlan.getAllMeasurementsInDevice(path.getDevice());
+      GroupByExecutor executor;
+      if (QueryResultCache.isEnabled()) {
+        // the executor is created with a filter starting from the first window not cached
+        executor = new CachedGroupByExecutor(path, dataType, context, timeFilter, aggregations,
+            filter -> createExecutor(path, allSensors, dataType, context, filter, groupByPlan,
+                aggregations, useRollups));
+      } else {
+        executor = createExecutor(path, allSensors, dataType, context, timeFilter, groupByPlan,
+            aggregations, useRollups);
+      }
+      if (SlidingWindowAggregator.isSliding(interval, slidingStep)) {
+        executor = new SlidingWindowGroupByExecutor(executor, dataType, groupByPlan);
+      }
+      for (int index : indexes) {
+        executor.addAggregateResult(AggregateResultFactory.getAggrResultByName(
+            groupByPlan.getDeduplicatedAggregations().get(index), dataType,
+            groupByPlan.getDeduplicatedAggregationParameters().get(index)));
       }
-      resultIndexes.get(path).add(i);
-      AggregateResult aggrResult = AggregateResultFactory
-              .getAggrResultByName(groupByPlan.getDeduplicatedAggregations().get(i), dataTypes.get(i));
-      pathExecutors.get(path).addAggregateResult(aggrResult);
+      pathExecutors.put(path, executor);
     }
   }
 
   @Override
-  protected RowRecord nextWithoutConstraint() throws IOException {
+  protected List<AggregateResult> nextAggregateResults() throws IOException {
     if (!hasCachedTimeInterval) {
       throw new IOException("need to call hasNext() before calling next() "
               + "in GroupByWithoutValueFilterDataSet.");
     }
     hasCachedTimeInterval = false;
-    RowRecord record;
-    if (leftCRightO) {
-      record = new RowRecord(curStartTime);
-    } else {
-      record = new RowRecord(curEndTime-1);
-    }
 
     AggregateResult[] fields = new AggregateResult[paths.size()];
 
@@ -126,15 +142,16 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
       logger.error("GroupByWithoutValueFilterDataSet execute has error", e);
       throw new IOException(e.getMessage(), e);
     }
+    return Arrays.asList(fields);
+  }
 
-    for (AggregateResult res : fields) {
-      if (res == null) {
-        record.addField(null);
-        continue;
-      }
-      record.addField(res.getResult(), res.getResultDataType());
-    }
-    return record;
+  private GroupByExecutor createExecutor(Path path, Set<String> allSensors, TSDataType dataType,
+      QueryContext context, Filter timeFilter, GroupByPlan groupByPlan, List<String> aggregations,
+      boolean useRollups) throws StorageEngineException, QueryProcessException {
+    return useRollups
+        ? new RollupGroupByExecutor(path, allSensors, dataType, context, timeFilter, groupByPlan,
+        aggregations)
+        : getGroupByExecutor(path, allSensors, dataType, context, timeFilter, null);
   }
 
   protected GroupByExecutor getGroupByExecutor(Path path, Set<String> allSensors, TSDataType dataType,
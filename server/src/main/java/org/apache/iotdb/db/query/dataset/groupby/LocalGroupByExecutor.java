@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.query.dataset.groupby;
 
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.sketch.SeriesSketch;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.aggregation.AggregateResult;
@@ -37,6 +38,7 @@ import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -48,12 +50,24 @@ public class LocalGroupByExecutor implements GroupByExecutor {
   // Aggregate result buffer of this path
   private List<AggregateResult> results = new ArrayList<>();
   private TimeRange timeRange;
+  // the results updated by the statistics of the file, chunk and page being read, which skip
+  // their data. Only statistics contained by the current interval are used, so they are cleared
+  // for each interval.
+  private boolean[] fileAggregated;
+  private boolean[] chunkAggregated;
+  private boolean[] pageAggregated;
 
   public LocalGroupByExecutor(Path path, Set<String> allSensors, TSDataType dataType, QueryContext context, Filter timeFilter,
                               TsFileFilter fileFilter)
       throws StorageEngineException, QueryProcessException {
-    QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-        .getQueryDataSource(path, context, timeFilter);
+    this(path, allSensors, dataType, context,
+        QueryResourceManager.getInstance().getQueryDataSource(path, context, timeFilter),
+        timeFilter, fileFilter);
+  }
+
+  public LocalGroupByExecutor(Path path, Set<String> allSensors, TSDataType dataType,
+      QueryContext context, QueryDataSource queryDataSource, Filter timeFilter,
+      TsFileFilter fileFilter) {
     // update filter by TTL
     timeFilter = queryDataSource.updateFilterUsingTTL(timeFilter);
     this.reader = new SeriesAggregateReader(path, allSensors, dataType, context, queryDataSource, timeFilter,
@@ -77,13 +91,14 @@ public class LocalGroupByExecutor implements GroupByExecutor {
   }
 
   private boolean calcFromCacheData(long curStartTime, long curEndTime) throws IOException {
-    calcFromBatch(preCachedData, curStartTime, curEndTime);
+    calcFromBatch(preCachedData, curStartTime, curEndTime, pageAggregated);
     // The result is calculated from the cache
     return (preCachedData != null && preCachedData.getMaxTimestamp() >= curEndTime)
         || isEndCalc();
   }
 
-  private void calcFromBatch(BatchData batchData, long curStartTime, long curEndTime) throws IOException {
+  private void calcFromBatch(BatchData batchData, long curStartTime, long curEndTime,
+      boolean[] aggregated) throws IOException {
     // is error data
     if (batchData == null
         || !batchData.hasCurrent()
@@ -92,9 +107,10 @@ public class LocalGroupByExecutor implements GroupByExecutor {
       return;
     }
 
-    for (AggregateResult result : results) {
+    for (int i = 0; i < results.size(); i++) {
+      AggregateResult result = results.get(i);
       //current agg method has been calculated
-      if (result.isCalculatedAggregationResult()) {
+      if (result.isCalculatedAggregationResult() || aggregated[i]) {
         continue;
       }
       //lazy reset batch data for calculation
@@ -113,15 +129,47 @@ public class LocalGroupByExecutor implements GroupByExecutor {
     }
   }
 
-  private void calcFromStatistics(Statistics pageStatistics)
+  /**
+   * Update the results that can use statistics with the statistics and mark them in aggregated.
+   *
+   * @return true if all the results are aggregated, so the data of the statistics are skipped
+   */
+  private boolean calcFromStatistics(Statistics statistics, boolean[] aggregated)
       throws QueryProcessException {
-    for (AggregateResult result : results) {
+    boolean allAggregated = true;
+    for (int i = 0; i < results.size(); i++) {
+      AggregateResult result = results.get(i);
       //cacl is compile
-      if (result.isCalculatedAggregationResult()) {
+      if (result.isCalculatedAggregationResult() || aggregated[i]) {
         continue;
       }
-      result.updateResultFromStatistics(pageStatistics);
+      if (result.canUseStatistics()) {
+        result.updateResultFromStatistics(statistics);
+        aggregated[i] = true;
+      } else {
+        allAggregated = false;
+      }
+    }
+    return allAggregated;
+  }
+
+  /**
+   * Merge the sketch of a file into the results that cannot use statistics and mark them in
+   * aggregated.
+   *
+   * @return true if all the results are aggregated, so the data of the file are skipped
+   */
+  private boolean calcFromSketch(SeriesSketch sketch, boolean[] aggregated) {
+    if (sketch == null) {
+      return false;
+    }
+    sketch.mergeInto(results, aggregated);
+    for (int i = 0; i < results.size(); i++) {
+      if (!aggregated[i] && !results.get(i).isCalculatedAggregationResult()) {
+        return false;
+      }
     }
+    return true;
   }
 
   @Override
@@ -134,6 +182,9 @@ public class LocalGroupByExecutor implements GroupByExecutor {
     }
 
     timeRange.set(curStartTime, curEndTime - 1);
+    fileAggregated = new boolean[results.size()];
+    chunkAggregated = new boolean[results.size()];
+    pageAggregated = new boolean[results.size()];
     if (calcFromCacheData(curStartTime, curEndTime)) {
       return results;
     }
@@ -150,9 +201,11 @@ public class LocalGroupByExecutor implements GroupByExecutor {
         return results;
       }
       // calc from fileMetaData
+      Arrays.fill(fileAggregated, false);
       if (reader.canUseCurrentFileStatistics()
-          && timeRange.contains(fileStatistics.getStartTime(), fileStatistics.getEndTime())) {
-        calcFromStatistics(fileStatistics);
+          && timeRange.contains(fileStatistics.getStartTime(), fileStatistics.getEndTime())
+          && (calcFromStatistics(fileStatistics, fileAggregated)
+          || calcFromSketch(reader.currentFileSketch(), fileAggregated))) {
         reader.skipCurrentFile();
         continue;
       }
@@ -164,9 +217,10 @@ public class LocalGroupByExecutor implements GroupByExecutor {
           return results;
         }
         //calc from chunkMetaData
+        System.arraycopy(fileAggregated, 0, chunkAggregated, 0, chunkAggregated.length);
         if (reader.canUseCurrentChunkStatistics()
-                && timeRange.contains(chunkStatistics.getStartTime(), chunkStatistics.getEndTime())) {
-          calcFromStatistics(chunkStatistics);
+            && timeRange.contains(chunkStatistics.getStartTime(), chunkStatistics.getEndTime())
+            && calcFromStatistics(chunkStatistics, chunkAggregated)) {
           reader.skipCurrentChunk();
           continue;
         }
@@ -182,6 +236,7 @@ public class LocalGroupByExecutor implements GroupByExecutor {
   private boolean readAndCalcFromPage(long curStartTime, long curEndTime) throws IOException,
       QueryProcessException {
     while (reader.hasNextPage()) {
+      System.arraycopy(chunkAggregated, 0, pageAggregated, 0, pageAggregated.length);
       Statistics pageStatistics = reader.currentPageStatistics();
       //must be non overlapped page
       if (pageStatistics != null) {
@@ -191,8 +246,8 @@ public class LocalGroupByExecutor implements GroupByExecutor {
         }
         //can use pageHeader
         if (reader.canUseCurrentPageStatistics()
-            && timeRange.contains(pageStatistics.getStartTime(), pageStatistics.getEndTime())) {
-          calcFromStatistics(pageStatistics);
+            && timeRange.contains(pageStatistics.getStartTime(), pageStatistics.getEndTime())
+            && calcFromStatistics(pageStatistics, pageAggregated)) {
           reader.skipCurrentPage();
           if (isEndCalc()) {
             return true;
@@ -211,8 +266,10 @@ public class LocalGroupByExecutor implements GroupByExecutor {
         return true;
       }
 
-      calcFromBatch(batchData, curStartTime, curEndTime);
-      if (isEndCalc() || batchData.currentTime() >= curEndTime) {
+      calcFromBatch(batchData, curStartTime, curEndTime, pageAggregated);
+      // the position of the batch depends on the last result updated, so its max time is used
+      // to tell if it is cached for the next interval
+      if (isEndCalc() || batchData.getMaxTimestamp() >= curEndTime) {
         return true;
       }
     }
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset.groupby;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
+import org.apache.iotdb.db.engine.rollup.SeriesRollup;
+import org.apache.iotdb.db.engine.rollup.TsFileRollup;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.factory.AggregateResultFactory;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+/**
+ * RollupGroupByExecutor answers the GROUP BY of a series partly from the rollups of sealed
+ * sequence TsFiles. A file is answered by its rollup if the rollup has all the aggregations, its
+ * windows fit the GROUP BY intervals, the series has no deletion in the file and no unsequence
+ * file overlaps the file. Such a file shares no timestamp with the other files, so the windows of
+ * its rollup are merged with the results of the other files, which are read by a
+ * LocalGroupByExecutor skipping the rolled up files.
+ */
+public class RollupGroupByExecutor implements GroupByExecutor {
+
+  private final Path path;
+  private final TSDataType dataType;
+  private final List<String> aggregations;
+  private final List<AggregateResult> results = new ArrayList<>();
+
+  private final List<SeriesRollup> rollups = new ArrayList<>();
+  /**
+   * the windows of the rollups cover [startTime, rollupEndTime), the data of the rolled up files in
+   * [rollupEndTime, endTime) are read by tailExecutor
+   */
+  private long rollupEndTime;
+
+  private GroupByExecutor rawExecutor;
+  private GroupByExecutor tailExecutor;
+
+  /**
+   * @param aggregations the aggregations of the AggregateResults that will be added, in order
+   */
+  public RollupGroupByExecutor(Path path, Set<String> allSensors, TSDataType dataType,
+      QueryContext context, Filter timeFilter, GroupByPlan groupByPlan, List<String> aggregations)
+      throws StorageEngineException, QueryProcessException {
+    this.path = path;
+    this.dataType = dataType;
+    this.aggregations = aggregations;
+
+    QueryDataSource queryDataSource = QueryResourceManager.getInstance()
+        .getQueryDataSource(path, context, timeFilter);
+    // files with expired data are read so the data are filtered by TTL
+    Set<TsFileResource> rolledUpFiles = Collections.newSetFromMap(new IdentityHashMap<>());
+    long commonInterval = 1;
+    if (queryDataSource.getDataTTL() == Long.MAX_VALUE) {
+      for (TsFileResource seqResource : queryDataSource.getSeqResources()) {
+        SeriesRollup rollup = getRollup(seqResource, queryDataSource.getUnseqResources(),
+            context, groupByPlan);
+        if (rollup != null) {
+          rollups.add(rollup);
+          rolledUpFiles.add(seqResource);
+          commonInterval = lcm(commonInterval, rollup.getInterval());
+        }
+      }
+    }
+    // the start and end of each interval are aligned to commonInterval except the end of the
+    // last one, which is the end of the query
+    long endTime = groupByPlan.getEndTime();
+    rollupEndTime = rollups.isEmpty() ? endTime : endTime - Math.floorMod(endTime, commonInterval);
+
+    rawExecutor = new LocalGroupByExecutor(path, allSensors, dataType, context,
+        copyOf(queryDataSource), timeFilter, rolledUpFiles::contains);
+    if (rollupEndTime < endTime) {
+      tailExecutor = new LocalGroupByExecutor(path, allSensors, dataType, context,
+          copyOf(queryDataSource), timeFilter, resource -> !rolledUpFiles.contains(resource));
+    }
+  }
+
+  /**
+   * Rollups are used if they are defined and the time filter contains the whole query, so no
+   * window of a rollup is partly filtered.
+   */
+  public static boolean isApplicable(GroupByPlan groupByPlan, Filter timeFilter) {
+    return !RollupManager.getInstance().getDefinitions().isEmpty() && (timeFilter == null
+        || timeFilter.containStartEndTime(groupByPlan.getStartTime(),
+        groupByPlan.getEndTime() - 1));
+  }
+
+  /**
+   * @return the rollup that can be used for the series in the TsFile, or null
+   */
+  private SeriesRollup getRollup(TsFileResource seqResource, List<TsFileResource> unseqResources,
+      QueryContext context, GroupByPlan groupByPlan) {
+    if (!seqResource.isClosed() || !context
+        .getPathModifications(seqResource.getModFile(), path.getFullPath()).isEmpty()) {
+      return null;
+    }
+    TsFileRollup tsFileRollup = RollupManager.getInstance().getRollup(seqResource.getFile());
+    SeriesRollup rollup = tsFileRollup == null ? null : tsFileRollup.get(path.getFullPath());
+    if (rollup == null || rollup.getDataType() != dataType
+        || !rollup.getAggregations().containsAll(aggregations)) {
+      return null;
+    }
+    long rollupInterval = rollup.getInterval();
+    if (Math.floorMod(groupByPlan.getStartTime(), rollupInterval) != 0
+        || groupByPlan.getInterval() % rollupInterval != 0
+        || groupByPlan.getSlidingStep() % rollupInterval != 0) {
+      return null;
+    }
+
+    String device = path.getDevice();
+    long startTime = seqResource.getStartTimeMap().get(device);
+    long endTime = seqResource.getEndTimeMap().get(device);
+    for (TsFileResource unseqResource : unseqResources) {
+      Long unseqStartTime = unseqResource.getStartTimeMap().get(device);
+      if (unseqStartTime != null && unseqStartTime <= endTime
+          && unseqResource.getEndTimeMap().getOrDefault(device, Long.MAX_VALUE) >= startTime) {
+        return null;
+      }
+    }
+    return rollup;
+  }
+
+  private static QueryDataSource copyOf(QueryDataSource queryDataSource) {
+    // the file lists are filtered by each executor
+    QueryDataSource copy = new QueryDataSource(queryDataSource.getSeriesPath(),
+        new ArrayList<>(queryDataSource.getSeqResources()),
+        new ArrayList<>(queryDataSource.getUnseqResources()));
+    copy.setDataTTL(queryDataSource.getDataTTL());
+    return copy;
+  }
+
+  private static long lcm(long a, long b) {
+    long x = a;
+    long y = b;
+    while (y != 0) {
+      long t = x % y;
+      x = y;
+      y = t;
+    }
+    return a / x * b;
+  }
+
+  @Override
+  public void addAggregateResult(AggregateResult aggrResult) {
+    String aggregation = aggregations.get(results.size());
+    results.add(aggrResult);
+    rawExecutor.addAggregateResult(
+        AggregateResultFactory.getAggrResultByName(aggregation, dataType));
+    if (tailExecutor != null) {
+      tailExecutor.addAggregateResult(
+          AggregateResultFactory.getAggrResultByName(aggregation, dataType));
+    }
+  }
+
+  /**
+   * @return the number of TsFiles answered by rollups
+   */
+  public int getRolledUpFileNum() {
+    return rollups.size();
+  }
+
+  @Override
+  public List<AggregateResult> calcResult(long curStartTime, long curEndTime)
+      throws IOException, QueryProcessException {
+    for (AggregateResult result : results) {
+      result.reset();
+    }
+
+    long windowEndTime = Math.min(curEndTime, rollupEndTime);
+    if (curStartTime < windowEndTime) {
+      for (SeriesRollup rollup : rollups) {
+        rollup.mergeInto(aggregations, results, curStartTime, windowEndTime);
+      }
+    }
+    if (tailExecutor != null && rollupEndTime < curEndTime) {
+      merge(tailExecutor.calcResult(Math.max(curStartTime, rollupEndTime), curEndTime));
+    }
+    merge(rawExecutor.calcResult(curStartTime, curEndTime));
+    return results;
+  }
+
+  private void merge(List<AggregateResult> partialResults) {
+    for (int i = 0; i < results.size(); i++) {
+      if (partialResults.get(i).hasResult()) {
+        results.get(i).merge(partialResults.get(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset.groupby;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+
+/**
+ * Calculates overlapped windows, whose sliding step is smaller than the interval, from panes. The
+ * query is split into non-overlapped panes of gcd(interval, slidingStep), each pane is aggregated
+ * only once and a window is the merge of the panes in it, so each point is read once instead of
+ * interval / slidingStep times.
+ * <p>
+ * When the window slides, the panes before its start are evicted and the panes before its end are
+ * calculated. Invertible results (e.g., count, sum and avg) are updated by subtracting the evicted
+ * panes and merging the new ones, and the others are merged from all panes in the window.
+ */
+public class SlidingWindowAggregator {
+
+  /**
+   * Calculates the results of a pane, the returned results are kept by the aggregator so they
+   * should not be reused.
+   */
+  @FunctionalInterface
+  public interface PaneCalculator {
+
+    List<AggregateResult> calcPane(long paneStartTime, long paneEndTime)
+        throws IOException, QueryProcessException;
+  }
+
+  private long endTime;
+  private long paneSize;
+  private PaneCalculator paneCalculator;
+  private List<AggregateResult> windowResults;
+
+  // panes in the current window ordered by time
+  private Deque<Pane> panes = new ArrayDeque<>();
+  private long nextPaneStartTime;
+  // the number of panes in the window that have a result, for each invertible result
+  private int[] nonEmptyPaneNums;
+
+  public SlidingWindowAggregator(long startTime, long endTime, long interval, long slidingStep,
+      List<AggregateResult> windowResults, PaneCalculator paneCalculator) {
+    this.endTime = endTime;
+    this.paneSize = getPaneSize(interval, slidingStep);
+    this.windowResults = windowResults;
+    this.paneCalculator = paneCalculator;
+    this.nextPaneStartTime = startTime;
+  }
+
+  /**
+   * @return true if the windows overlap, so they can be calculated from panes
+   */
+  public static boolean isSliding(long interval, long slidingStep) {
+    return slidingStep < interval;
+  }
+
+  static long getPaneSize(long interval, long slidingStep) {
+    long x = interval;
+    long y = slidingStep;
+    while (y != 0) {
+      long t = x % y;
+      x = y;
+      y = t;
+    }
+    return x;
+  }
+
+  /**
+   * Calculate the window [curStartTime, curEndTime), windows must be calculated in time order.
+   *
+   * @return the window results given in the constructor
+   */
+  public List<AggregateResult> calcWindow(long curStartTime, long curEndTime)
+      throws IOException, QueryProcessException {
+    if (nonEmptyPaneNums == null) {
+      // the window results may be added after the construction
+      nonEmptyPaneNums = new int[windowResults.size()];
+    }
+    while (!panes.isEmpty() && panes.peekFirst().startTime < curStartTime) {
+      evict(panes.pollFirst());
+    }
+    nextPaneStartTime = Math.max(nextPaneStartTime, curStartTime);
+    while (nextPaneStartTime < curEndTime) {
+      long paneEndTime = Math.min(nextPaneStartTime + paneSize, endTime);
+      Pane pane = new Pane(nextPaneStartTime,
+          paneCalculator.calcPane(nextPaneStartTime, paneEndTime));
+      panes.addLast(pane);
+      add(pane);
+      nextPaneStartTime = paneEndTime;
+    }
+
+    for (int i = 0; i < windowResults.size(); i++) {
+      AggregateResult windowResult = windowResults.get(i);
+      if (windowResult.isInvertible()) {
+        continue;
+      }
+      windowResult.reset();
+      for (Pane pane : panes) {
+        AggregateResult paneResult = pane.results.get(i);
+        if (paneResult.hasResult()) {
+          windowResult.merge(paneResult);
+        }
+      }
+    }
+    return windowResults;
+  }
+
+  private void add(Pane pane) {
+    for (int i = 0; i < windowResults.size(); i++) {
+      AggregateResult windowResult = windowResults.get(i);
+      AggregateResult paneResult = pane.results.get(i);
+      if (windowResult.isInvertible() && paneResult.hasResult()) {
+        windowResult.merge(paneResult);
+        nonEmptyPaneNums[i]++;
+      }
+    }
+  }
+
+  private void evict(Pane pane) {
+    for (int i = 0; i < windowResults.size(); i++) {
+      AggregateResult windowResult = windowResults.get(i);
+      AggregateResult paneResult = pane.results.get(i);
+      if (windowResult.isInvertible() && paneResult.hasResult()) {
+        nonEmptyPaneNums[i]--;
+        if (nonEmptyPaneNums[i] == 0) {
+          // start over from an empty result so no rounding error is left
+          windowResult.reset();
+        } else {
+          windowResult.subtract(paneResult);
+        }
+      }
+    }
+  }
+
+  private static class Pane {
+
+    private long startTime;
+    private List<AggregateResult> results;
+
+    private Pane(long startTime, List<AggregateResult> results) {
+      this.startTime = startTime;
+      this.results = results;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset.groupby;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.factory.AggregateResultFactory;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+/**
+ * Calculates overlapped windows of a series from the panes calculated by another executor, see
+ * {@link SlidingWindowAggregator}.
+ */
+public class SlidingWindowGroupByExecutor implements GroupByExecutor {
+
+  private GroupByExecutor paneExecutor;
+  private TSDataType dataType;
+  private List<AggregateResult> results = new ArrayList<>();
+  private SlidingWindowAggregator aggregator;
+
+  public SlidingWindowGroupByExecutor(GroupByExecutor paneExecutor, TSDataType dataType,
+      GroupByPlan groupByPlan) {
+    this.paneExecutor = paneExecutor;
+    this.dataType = dataType;
+    this.aggregator = new SlidingWindowAggregator(groupByPlan.getStartTime(),
+        groupByPlan.getEndTime(), groupByPlan.getInterval(), groupByPlan.getSlidingStep(),
+        results, this::calcPane);
+  }
+
+  @Override
+  public void addAggregateResult(AggregateResult aggrResult) {
+    results.add(aggrResult);
+    paneExecutor.addAggregateResult(AggregateResultFactory
+        .getAggrResultByType(aggrResult.getAggregationType(), dataType));
+  }
+
+  @Override
+  public List<AggregateResult> calcResult(long curStartTime, long curEndTime)
+      throws IOException, QueryProcessException {
+    return aggregator.calcWindow(curStartTime, curEndTime);
+  }
+
+  private List<AggregateResult> calcPane(long paneStartTime, long paneEndTime)
+      throws IOException, QueryProcessException {
+    // the results of the pane executor are reused, so they are copied
+    List<AggregateResult> paneResults = new ArrayList<>();
+    for (AggregateResult result : paneExecutor.calcResult(paneStartTime, paneEndTime)) {
+      AggregateResult paneResult = AggregateResultFactory
+          .getAggrResultByType(result.getAggregationType(), dataType);
+      if (result.hasResult()) {
+        paneResult.merge(result);
+      }
+      paneResults.add(paneResult);
+    }
+    return paneResults;
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.iotdb.db.query.executor;
 
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.sketch.SeriesSketch;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.physical.crud.AggregationPlan;
@@ -56,6 +57,7 @@ public class AggregationExecutor {
   private List<Path> selectedSeries;
   protected List<TSDataType> dataTypes;
   protected List<String> aggregations;
+  protected List<Double> aggregationParameters;
   protected IExpression expression;
 
   /**
@@ -67,6 +69,7 @@ public class AggregationExecutor {
     this.selectedSeries = aggregationPlan.getDeduplicatedPaths();
     this.dataTypes = aggregationPlan.getDeduplicatedDataTypes();
     this.aggregations = aggregationPlan.getDeduplicatedAggregations();
+    this.aggregationParameters = aggregationPlan.getDeduplicatedAggregationParameters();
     this.expression = aggregationPlan.getExpression();
     this.aggregateFetchSize = IoTDBDescriptor.getInstance().getConfig().getBatchSize();
   }
@@ -120,7 +123,7 @@ public class AggregationExecutor {
     for (int i : pathToAggrIndexes.getValue()) {
       // construct AggregateResult
       AggregateResult aggregateResult = AggregateResultFactory
-          .getAggrResultByName(aggregations.get(i), tsDataType);
+          .getAggrResultByName(aggregations.get(i), tsDataType, aggregationParameters.get(i));
       aggregateResultList.add(aggregateResult);
     }
     aggregateOneSeries(seriesPath, measurements, context, timeFilter, tsDataType, aggregateResultList, null);
@@ -151,54 +154,87 @@ public class AggregationExecutor {
     boolean[] isCalculatedArray = new boolean[aggregateResultList.size()];
 
     while (seriesReader.hasNextFile()) {
+      // the results updated by the statistics of the current file, the others read its chunks
+      boolean[] fileAggregatedArray = isCalculatedArray.clone();
       // cal by file statistics
       if (seriesReader.canUseCurrentFileStatistics()) {
         Statistics fileStatistics = seriesReader.currentFileStatistics();
         remainingToCalculate = aggregateStatistics(aggregateResultList, isCalculatedArray,
-                remainingToCalculate, fileStatistics);
+                fileAggregatedArray, remainingToCalculate, fileStatistics);
         if (remainingToCalculate == 0) {
           return;
         }
-        seriesReader.skipCurrentFile();
-        continue;
+        if (!allAggregated(fileAggregatedArray)) {
+          // the results that cannot use statistics may use the sketches of the file
+          SeriesSketch fileSketch = seriesReader.currentFileSketch();
+          if (fileSketch != null) {
+            fileSketch.mergeInto(aggregateResultList, fileAggregatedArray);
+          }
+        }
+        if (allAggregated(fileAggregatedArray)) {
+          seriesReader.skipCurrentFile();
+          continue;
+        }
       }
 
       while (seriesReader.hasNextChunk()) {
+        boolean[] chunkAggregatedArray = new boolean[aggregateResultList.size()];
+        for (int i = 0; i < chunkAggregatedArray.length; i++) {
+          chunkAggregatedArray[i] = fileAggregatedArray[i] || isCalculatedArray[i];
+        }
         // cal by chunk statistics
         if (seriesReader.canUseCurrentChunkStatistics()) {
           Statistics chunkStatistics = seriesReader.currentChunkStatistics();
           remainingToCalculate = aggregateStatistics(aggregateResultList, isCalculatedArray,
-                  remainingToCalculate, chunkStatistics);
+                  chunkAggregatedArray, remainingToCalculate, chunkStatistics);
           if (remainingToCalculate == 0) {
             return;
           }
-          seriesReader.skipCurrentChunk();
-          continue;
+          if (allAggregated(chunkAggregatedArray)) {
+            seriesReader.skipCurrentChunk();
+            continue;
+          }
         }
         remainingToCalculate = aggregateOverlappedPages(seriesReader, aggregateResultList,
-                isCalculatedArray, remainingToCalculate);
+                isCalculatedArray, chunkAggregatedArray, remainingToCalculate);
+        if (remainingToCalculate == 0) {
+          return;
+        }
       }
     }
 
   }
 
+  private static boolean allAggregated(boolean[] aggregatedArray) {
+    for (boolean aggregated : aggregatedArray) {
+      if (!aggregated) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
-   * Aggregate each result in the list with the statistics
+   * Aggregate each result in the list that can use statistics with the statistics, the other
+   * results read the data of the statistics later.
    * @param aggregateResultList
    * @param isCalculatedArray
+   * @param aggregatedArray marks the results that have been updated by the statistics or the
+   * statistics containing them, which is updated
    * @param remainingToCalculate
    * @param statistics
    * @return new remainingToCalculate
    * @throws QueryProcessException
    */
   private static int aggregateStatistics(List<AggregateResult> aggregateResultList,
-      boolean[] isCalculatedArray, int remainingToCalculate, Statistics statistics)
-      throws QueryProcessException {
+      boolean[] isCalculatedArray, boolean[] aggregatedArray, int remainingToCalculate,
+      Statistics statistics) throws QueryProcessException {
     int newRemainingToCalculate = remainingToCalculate;
     for (int i = 0; i < aggregateResultList.size(); i++) {
-      if (!isCalculatedArray[i]) {
-        AggregateResult aggregateResult = aggregateResultList.get(i);
+      AggregateResult aggregateResult = aggregateResultList.get(i);
+      if (!isCalculatedArray[i] && !aggregatedArray[i] && aggregateResult.canUseStatistics()) {
         aggregateResult.updateResultFromStatistics(statistics);
+        aggregatedArray[i] = true;
         if (aggregateResult.isCalculatedAggregationResult()) {
           isCalculatedArray[i] = true;
           newRemainingToCalculate--;
@@ -211,15 +247,19 @@ public class AggregationExecutor {
     return newRemainingToCalculate;
   }
 
+  /**
+   * @param aggregatedArray marks the results that have been updated by the statistics of the
+   * chunk or file of the pages, which skip the data
+   */
   private static int aggregateOverlappedPages(IAggregateReader seriesReader,
-      List<AggregateResult> aggregateResultList, boolean[] isCalculatedArray, int remainingToCalculate)
-      throws IOException {
+      List<AggregateResult> aggregateResultList, boolean[] isCalculatedArray,
+      boolean[] aggregatedArray, int remainingToCalculate) throws IOException {
     // cal by page data
     int newRemainingToCalculate = remainingToCalculate;
     while (seriesReader.hasNextPage()) {
       BatchData nextOverlappedPageData = seriesReader.nextPage();
       for (int i = 0; i < aggregateResultList.size(); i++) {
-        if (!isCalculatedArray[i]) {
+        if (!isCalculatedArray[i] && !aggregatedArray[i]) {
           AggregateResult aggregateResult = aggregateResultList.get(i);
           aggregateResult.updateResultFromPageData(nextOverlappedPageData);
           nextOverlappedPageData.resetBatchData();
@@ -256,7 +296,8 @@ public class AggregationExecutor {
     List<AggregateResult> aggregateResults = new ArrayList<>();
     for (int i = 0; i < selectedSeries.size(); i++) {
       TSDataType type = dataTypes.get(i);
-      AggregateResult result = AggregateResultFactory.getAggrResultByName(aggregations.get(i), type);
+      AggregateResult result = AggregateResultFactory
+          .getAggrResultByName(aggregations.get(i), type, aggregationParameters.get(i));
       aggregateResults.add(result);
     }
     aggregateWithValueFilter(aggregateResults, timestampGenerator, readersOfSelectedSeries);
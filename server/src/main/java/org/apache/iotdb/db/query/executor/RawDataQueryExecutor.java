@@ -70,7 +70,7 @@ public class RawDataQueryExecutor {
     List<ManagedSeriesReader> readersOfSelectedSeries = initManagedSeriesReader(context, queryPlan);
     try {
       return new RawQueryDataSetWithoutValueFilter(deduplicatedPaths, deduplicatedDataTypes,
-          readersOfSelectedSeries);
+          readersOfSelectedSeries, context);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       throw new StorageEngineException(e.getMessage());
@@ -83,7 +83,7 @@ public class RawDataQueryExecutor {
       throws StorageEngineException, QueryProcessException {
     List<ManagedSeriesReader> readersOfSelectedSeries = initManagedSeriesReader(context, queryPlan);
     return new NonAlignEngineDataSet(deduplicatedPaths, deduplicatedDataTypes,
-        readersOfSelectedSeries);
+        readersOfSelectedSeries, context);
   }
 
   protected List<ManagedSeriesReader> initManagedSeriesReader(QueryContext context, RawDataQueryPlan queryPlan)
@@ -53,4 +53,13 @@ public interface ExternalSortJobEngine {
   ExternalSortJob createJob(long queryId, List<ChunkReaderWrap> timeValuePairReaderList)
       throws IOException;
 
+  /**
+   * Write the points of a sorted reader to a temporary file, which is deleted when the query ends,
+   * so that they do not take the memory of the query.
+   *
+   * @param queryId query job id
+   * @return a reader of the temporary file
+   */
+  IPointReader spill(long queryId, IPointReader pointReader) throws IOException;
+
 }
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -115,6 +116,12 @@ public class SimpleExternalSortEngine implements ExternalSortJobEngine {
     return new ExternalSortJob(ret);
   }
 
+  @Override
+  public IPointReader spill(long queryId, IPointReader pointReader) throws IOException {
+    String tmpFilePath = queryDir + scheduler.genJobId() + "_spill";
+    return new LineMerger(queryId, tmpFilePath).merge(Collections.singletonList(pointReader));
+  }
+
   String getQueryDir() {
     return queryDir;
   }
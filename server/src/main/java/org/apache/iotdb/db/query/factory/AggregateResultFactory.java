@@ -22,6 +22,7 @@ package org.apache.iotdb.db.query.factory;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.query.aggregation.AggregateResult;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.db.query.aggregation.impl.ApproxCountDistinctAggrResult;
 import org.apache.iotdb.db.query.aggregation.impl.AvgAggrResult;
 import org.apache.iotdb.db.query.aggregation.impl.CountAggrResult;
 import org.apache.iotdb.db.query.aggregation.impl.FirstValueAggrResult;
@@ -30,6 +31,7 @@ import org.apache.iotdb.db.query.aggregation.impl.MaxTimeAggrResult;
 import org.apache.iotdb.db.query.aggregation.impl.MaxValueAggrResult;
 import org.apache.iotdb.db.query.aggregation.impl.MinTimeAggrResult;
 import org.apache.iotdb.db.query.aggregation.impl.MinValueAggrResult;
+import org.apache.iotdb.db.query.aggregation.impl.PercentileAggrResult;
 import org.apache.iotdb.db.query.aggregation.impl.SumAggrResult;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 
@@ -48,6 +50,19 @@ public class AggregateResultFactory {
    * @param dataType data type.
    */
   public static AggregateResult getAggrResultByName(String aggrFuncName, TSDataType dataType) {
+    return getAggrResultByName(aggrFuncName, dataType, null);
+  }
+
+  /**
+   * construct AggregateFunction using factory pattern.
+   *
+   * @param aggrFuncName function name.
+   * @param dataType data type.
+   * @param parameter the parameter of the function, e.g., the quantile of percentile, or null if
+   * the function has no parameter or the default one is used.
+   */
+  public static AggregateResult getAggrResultByName(String aggrFuncName, TSDataType dataType,
+      Double parameter) {
     if (aggrFuncName == null) {
       throw new IllegalArgumentException("AggregateFunction Name must not be null");
     }
@@ -71,6 +86,11 @@ public class AggregateResultFactory {
         return new SumAggrResult(dataType);
       case SQLConstant.LAST_VALUE:
         return new LastValueAggrResult(dataType);
+      case SQLConstant.PERCENTILE:
+        return new PercentileAggrResult(dataType,
+            parameter == null ? PercentileAggrResult.DEFAULT_QUANTILE : parameter);
+      case SQLConstant.APPROX_COUNT_DISTINCT:
+        return new ApproxCountDistinctAggrResult();
       default:
         throw new IllegalArgumentException("Invalid Aggregation function: " + aggrFuncName);
     }
@@ -97,6 +117,11 @@ public class AggregateResultFactory {
         return new MaxValueAggrResult(dataType);
       case MIN_VALUE:
         return new MinValueAggrResult(dataType);
+      case PERCENTILE:
+        // the quantile is deserialized with the sketch
+        return new PercentileAggrResult(dataType, PercentileAggrResult.DEFAULT_QUANTILE);
+      case APPROX_COUNT_DISTINCT:
+        return new ApproxCountDistinctAggrResult();
       default:
         throw new IllegalArgumentException("Invalid Aggregation Type: " + aggregationType.name());
     }
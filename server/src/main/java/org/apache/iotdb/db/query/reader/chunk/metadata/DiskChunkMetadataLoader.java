@@ -48,6 +48,10 @@ public class DiskChunkMetadataLoader implements IChunkMetadataLoader {
     this.filter = filter;
   }
 
+  public TsFileResource getResource() {
+    return resource;
+  }
+
   @Override
   public List<ChunkMetadata> loadChunkMetadataList() throws IOException {
     List<ChunkMetadata> chunkMetadataList = ChunkMetadataCache
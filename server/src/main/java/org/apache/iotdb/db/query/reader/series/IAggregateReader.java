@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.db.query.reader.series;
 
+import org.apache.iotdb.db.engine.sketch.SeriesSketch;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
@@ -31,6 +32,12 @@ public interface IAggregateReader {
 
   Statistics currentFileStatistics() throws IOException;
 
+  /**
+   * @return the sketch of the series in the current file, or null if there is none. Like the file
+   * statistics, it can only be used if canUseCurrentFileStatistics() is true.
+   */
+  SeriesSketch currentFileSketch() throws IOException;
+
   void skipCurrentFile();
 
   boolean hasNextChunk() throws IOException;
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.reader.series;
 
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.sketch.SeriesSketch;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -59,6 +60,11 @@ public class SeriesAggregateReader implements IAggregateReader {
     return seriesReader.currentFileStatistics();
   }
 
+  @Override
+  public SeriesSketch currentFileSketch() throws IOException {
+    return seriesReader.currentFileSketch();
+  }
+
   @Override
   public void skipCurrentFile() {
     seriesReader.skipCurrentFile();
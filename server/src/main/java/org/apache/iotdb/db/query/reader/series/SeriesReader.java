@@ -18,12 +18,23 @@
  */
 package org.apache.iotdb.db.query.reader.series;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.sketch.SeriesSketch;
+import org.apache.iotdb.db.engine.sketch.SketchManager;
+import org.apache.iotdb.db.engine.sketch.TsFileSketch;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.SeriesProfile;
+import org.apache.iotdb.db.query.context.SeriesProfile.Counter;
+import org.apache.iotdb.db.query.reader.chunk.metadata.DiskChunkMetadataLoader;
+import org.apache.iotdb.db.query.externalsort.SimpleExternalSortEngine;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
 import org.apache.iotdb.db.utils.FileLoaderUtils;
+import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.db.utils.TestOnly;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
@@ -33,9 +44,12 @@ import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.controller.IChunkMetadataLoader;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
 import org.apache.iotdb.tsfile.read.reader.IPageReader;
+import org.apache.iotdb.tsfile.read.reader.IPointReader;
+import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 
 import java.io.IOException;
 import java.util.*;
@@ -49,6 +63,8 @@ class SeriesReader {
   private final Set<String> allSensors;
   private final TSDataType dataType;
   private final QueryContext context;
+  // not null only if the query is profiled
+  private final SeriesProfile profile;
 
   /*
    * There is at most one is not null between timeFilter and valueFilter
@@ -114,6 +130,7 @@ class SeriesReader {
     this.allSensors = allSensors;
     this.dataType = dataType;
     this.context = context;
+    this.profile = context.getSeriesProfile(seriesPath);
     QueryUtils.filterQueryDataSource(dataSource, fileFilter);
     this.seqFileResource = new LinkedList<>(dataSource.getSeqResources());
     this.unseqFileResource = sortUnSeqFileResources(dataSource.getUnseqResources());
@@ -135,6 +152,7 @@ class SeriesReader {
     this.allSensors = allSensors;
     this.dataType = dataType;
     this.context = context;
+    this.profile = context.getSeriesProfile(seriesPath);
     this.seqFileResource = new LinkedList<>(seqFileResource);
     this.unseqFileResource = sortUnSeqFileResources(unseqFileResource);
     this.timeFilter = timeFilter;
@@ -142,6 +160,7 @@ class SeriesReader {
   }
 
   boolean hasNextFile() throws IOException {
+    context.checkKilled();
 
     if (!cachedPageReaders.isEmpty()
             || firstPageReader != null
@@ -191,8 +210,32 @@ class SeriesReader {
     return firstTimeSeriesMetadata.isModified();
   }
 
+  /**
+   * @return the sketch of the series in the current file, or null if the file is not sealed or it
+   * has no sketch of the series
+   */
+  SeriesSketch currentFileSketch() throws IOException {
+    if (firstTimeSeriesMetadata == null) {
+      throw new IOException("no first file");
+    }
+    IChunkMetadataLoader chunkMetadataLoader = firstTimeSeriesMetadata.getChunkMetadataLoader();
+    if (!(chunkMetadataLoader instanceof DiskChunkMetadataLoader)) {
+      return null;
+    }
+    TsFileResource resource = ((DiskChunkMetadataLoader) chunkMetadataLoader).getResource();
+    if (!resource.isClosed()) {
+      return null;
+    }
+    TsFileSketch tsFileSketch = SketchManager.getInstance().getSketch(resource.getFile());
+    SeriesSketch sketch = tsFileSketch == null ? null : tsFileSketch.get(seriesPath.getFullPath());
+    return sketch == null || sketch.getDataType() != dataType ? null : sketch;
+  }
+
   void skipCurrentFile() {
     firstTimeSeriesMetadata = null;
+    if (profile != null) {
+      profile.add(Counter.FILES_SKIPPED, 1);
+    }
   }
 
   /**
@@ -200,6 +243,8 @@ class SeriesReader {
    * overlapped chunks are consumed
    */
   boolean hasNextChunk() throws IOException {
+    context.checkKilled();
+
     if (!cachedPageReaders.isEmpty()
         || firstPageReader != null
         || mergeReader.hasNextTimeValuePair()) {
@@ -256,7 +301,11 @@ class SeriesReader {
   }
 
   private void unpackOneTimeSeriesMetadata(TimeseriesMetadata timeSeriesMetadata) throws IOException {
+    long startTime = profile == null ? 0 : System.nanoTime();
     cachedChunkMetadata.addAll(FileLoaderUtils.loadChunkMetadataList(timeSeriesMetadata));
+    if (profile != null) {
+      profile.addTime(Counter.METADATA_LOAD_TIME, startTime);
+    }
   }
 
   boolean isChunkOverlapped() throws IOException {
@@ -282,6 +331,9 @@ class SeriesReader {
 
   void skipCurrentChunk() {
     firstChunkMetadata = null;
+    if (profile != null) {
+      profile.add(Counter.CHUNKS_SKIPPED, 1);
+    }
   }
 
   /**
@@ -289,6 +341,7 @@ class SeriesReader {
    * overlapped pages are consumed
    */
   boolean hasNextPage() throws IOException {
+    context.checkKilled();
 
     /*
      * has overlapped data before
@@ -377,8 +430,14 @@ class SeriesReader {
   }
 
   private void unpackOneChunkMetaData(ChunkMetadata chunkMetaData) throws IOException {
-    FileLoaderUtils.loadPageReaderList(chunkMetaData, timeFilter)
-            .forEach(pageReader -> cachedPageReaders.add(new VersionPageReader(chunkMetaData.getVersion(), pageReader)));
+    for (IPageReader pageReader : FileLoaderUtils
+        .loadPageReaderList(chunkMetaData, timeFilter, profile)) {
+      // the pages of a chunk in memory are in the TVList charged when the memtable is queried
+      long memSize = pageReader instanceof PageReader ? ((PageReader) pageReader).getDataSize() : 0;
+      context.allocateMemory(memSize);
+      cachedPageReaders
+          .add(new VersionPageReader(chunkMetaData.getVersion(), pageReader, memSize));
+    }
   }
 
   /**
@@ -424,7 +483,11 @@ class SeriesReader {
   }
 
   void skipCurrentPage() {
+    context.releaseMemory(firstPageReader.memSize);
     firstPageReader = null;
+    if (profile != null) {
+      profile.add(Counter.PAGES_SKIPPED, 1);
+    }
   }
 
   /** This method should only be used when the method isPageOverlapped() return true. */
@@ -446,6 +509,7 @@ class SeriesReader {
         firstPageReader.setFilter(valueFilter);
       }
       BatchData batchData = firstPageReader.getAllSatisfiedPageData();
+      context.releaseMemory(firstPageReader.memSize);
       firstPageReader = null;
 
       return batchData;
@@ -462,6 +526,18 @@ class SeriesReader {
       return true;
     }
 
+    if (profile == null) {
+      return mergeNextOverlappedPage();
+    }
+    long startTime = System.nanoTime();
+    try {
+      return mergeNextOverlappedPage();
+    } finally {
+      profile.addTime(Counter.MERGE_TIME, startTime);
+    }
+  }
+
+  private boolean mergeNextOverlappedPage() throws IOException {
     tryToPutAllDirectlyOverlappedPageReadersIntoMergeReader();
 
     while (true) {
@@ -554,12 +630,37 @@ class SeriesReader {
   }
 
   private void putPageReaderToMergeReader(VersionPageReader pageReader) throws IOException {
+    BatchData batchData = pageReader.getAllSatisfiedPageData();
+    context.releaseMemory(pageReader.memSize);
     mergeReader.addReader(
-        pageReader.getAllSatisfiedPageData().getBatchDataIterator(),
+        chargeMergedPage(batchData),
         pageReader.version,
         pageReader.getEndTime());
   }
 
+  /**
+   * charge the memory of a decoded page to the query until the page is merged, or write the page
+   * to a temporary file by external sort if the query does not have enough memory
+   */
+  private IPointReader chargeMergedPage(BatchData batchData) throws IOException {
+    long memSize = MemUtils.getBatchDataSize(batchData);
+    if (context.getMemoryTracker() == null || memSize == 0) {
+      return batchData.getBatchDataIterator();
+    }
+    if (!context.tryAllocateMemory(memSize)) {
+      if (IoTDBDescriptor.getInstance().getConfig().isEnableExternalSort()) {
+        if (profile != null) {
+          profile.add(Counter.PAGES_SPILLED, 1);
+        }
+        return SimpleExternalSortEngine.getInstance()
+            .spill(context.getQueryId(), batchData.getBatchDataIterator());
+      }
+      // fails with the reason why the query does not have enough memory
+      context.allocateMemory(memSize);
+    }
+    return new ChargedPointReader(batchData.getBatchDataIterator(), memSize);
+  }
+
   private BatchData nextOverlappedPage() throws IOException {
     if (hasCachedNextOverlappedPage || hasNextOverlappedPage()) {
       hasCachedNextOverlappedPage = false;
@@ -689,10 +790,13 @@ class SeriesReader {
 
     protected long version;
     protected IPageReader data;
+    // the memory of the page data charged to the query
+    protected long memSize;
 
-    VersionPageReader(long version, IPageReader data) {
+    VersionPageReader(long version, IPageReader data, long memSize) {
       this.version = version;
       this.data = data;
+      this.memSize = memSize;
     }
 
     Statistics getStatistics() {
@@ -708,7 +812,16 @@ class SeriesReader {
     }
 
     BatchData getAllSatisfiedPageData() throws IOException {
-      return data.getAllSatisfiedPageData();
+      long startTime = profile == null ? Measurement.INSTANCE.startTimeInNanos()
+          : System.nanoTime();
+      BatchData batchData = data.getAllSatisfiedPageData();
+      Measurement.INSTANCE.addOperationLatencyInNanos(Operation.DECODE_PAGE, startTime);
+      if (profile != null) {
+        profile.addTime(Counter.DECODE_TIME, startTime);
+        profile.add(Counter.PAGES_READ, 1);
+        profile.add(Counter.POINTS_DECODED, batchData.length());
+      }
+      return batchData;
     }
 
     void setFilter(Filter filter) {
@@ -719,4 +832,44 @@ class SeriesReader {
       return data.isModified();
     }
   }
+
+  /**
+   * the reader of a decoded page in the merge reader, which returns the memory of the page to the
+   * query when the merge reader closes it
+   */
+  private class ChargedPointReader implements IPointReader {
+
+    private final IPointReader reader;
+    private final long memSize;
+    private boolean released = false;
+
+    ChargedPointReader(IPointReader reader, long memSize) {
+      this.reader = reader;
+      this.memSize = memSize;
+    }
+
+    @Override
+    public boolean hasNextTimeValuePair() throws IOException {
+      return reader.hasNextTimeValuePair();
+    }
+
+    @Override
+    public TimeValuePair nextTimeValuePair() throws IOException {
+      return reader.nextTimeValuePair();
+    }
+
+    @Override
+    public TimeValuePair currentTimeValuePair() throws IOException {
+      return reader.currentTimeValuePair();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!released) {
+        released = true;
+        context.releaseMemory(memSize);
+      }
+      reader.close();
+    }
+  }
 }
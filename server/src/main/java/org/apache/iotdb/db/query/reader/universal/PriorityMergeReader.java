@@ -82,6 +82,8 @@ public class PriorityMergeReader implements IPointReader {
     if (top.hasNext()) {
       top.next();
       topNext = top.currPair();
+    } else {
+      top.close();
     }
     long topNextTime = topNext == null ? Long.MAX_VALUE : topNext.getTimestamp();
     updateHeap(ret.getTimestamp(), topNextTime);
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+/**
+ * QueryMemoryPool is the memory shared by the data that queries read and hold, its capacity is the
+ * Free Memory Used in Query of filemeta_chunkmeta_chunk_free_memory_proportion. The memory of a
+ * query is allocated from the pool by its QueryMemoryTracker and returned when the query ends.
+ *
+ * A new query is admitted only when the pool is not nearly exhausted, so that the running queries
+ * can finish with the remaining memory instead of all failing.
+ */
+public class QueryMemoryPool {
+
+  /**
+   * a new query waits when more than this ratio of the pool is used
+   */
+  private static final double ADMISSION_THRESHOLD = 0.9;
+
+  /**
+   * the max time (in ms) that a new query waits for the memory released by the running queries
+   */
+  private static final long ADMISSION_WAIT_TIME = 5000;
+
+  private final long capacity;
+
+  private long usedMemory = 0;
+
+  private QueryMemoryPool() {
+    this(IoTDBDescriptor.getInstance().getConfig().getAllocateMemoryForQuery());
+  }
+
+  public QueryMemoryPool(long capacity) {
+    this.capacity = capacity;
+  }
+
+  public static QueryMemoryPool getInstance() {
+    return QueryMemoryPoolHolder.INSTANCE;
+  }
+
+  /**
+   * wait until the used memory falls below the admission threshold, or ADMISSION_WAIT_TIME passes
+   *
+   * @return true if a new query can be admitted
+   */
+  public synchronized boolean admit() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + ADMISSION_WAIT_TIME;
+    long waitTime = ADMISSION_WAIT_TIME;
+    while (usedMemory > capacity * ADMISSION_THRESHOLD) {
+      if (waitTime <= 0) {
+        return false;
+      }
+      wait(waitTime);
+      waitTime = deadline - System.currentTimeMillis();
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the memory is allocated, false if there is not enough free memory
+   */
+  public synchronized boolean tryAllocate(long size) {
+    if (usedMemory + size > capacity) {
+      return false;
+    }
+    usedMemory += size;
+    return true;
+  }
+
+  public synchronized void release(long size) {
+    usedMemory -= size;
+    notifyAll();
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  public synchronized long getUsedMemory() {
+    return usedMemory;
+  }
+
+  private static class QueryMemoryPoolHolder {
+
+    private static final QueryMemoryPool INSTANCE = new QueryMemoryPool();
+
+    private QueryMemoryPoolHolder() {
+    }
+  }
+}
@@ -23,10 +23,17 @@ import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_CHILD_PATHS;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_COLUMN;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_COUNT;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_DEVICES;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_DURATION;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ITEM;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_MEMORY;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_PARAMETER;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_PRIVILEGE;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_QUERY_ID;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_RETURNED_ROWS;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_ROLE;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_START_TIME;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_STATE;
+import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_STATEMENT;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_STORAGE_GROUP;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TIMESERIES_COMPRESSION;
@@ -118,6 +125,18 @@ class StaticResps {
       Collections.singletonList(COLUMN_PRIVILEGE),
       Collections.singletonList(TSDataType.TEXT.toString()));
 
+  static final TSExecuteStatementResp EXPLAIN_ANALYZE_RESP = getNoTimeExecuteResp(
+      Arrays.asList(COLUMN_TIMESERIES, COLUMN_ITEM, COLUMN_VALUE),
+      Arrays.asList(TSDataType.TEXT.toString(), TSDataType.TEXT.toString(),
+          TSDataType.TEXT.toString()));
+
+  static final TSExecuteStatementResp SHOW_QUERIES_RESP = getNoTimeExecuteResp(
+      Arrays.asList(COLUMN_QUERY_ID, COLUMN_USER, COLUMN_START_TIME, COLUMN_DURATION,
+          COLUMN_RETURNED_ROWS, COLUMN_MEMORY, COLUMN_STATE, COLUMN_STATEMENT),
+      Arrays.asList(TSDataType.INT64.toString(), TSDataType.TEXT.toString(),
+          TSDataType.TEXT.toString(), TSDataType.INT64.toString(), TSDataType.INT64.toString(),
+          TSDataType.INT64.toString(), TSDataType.TEXT.toString(), TSDataType.TEXT.toString()));
+
   static final TSExecuteStatementResp LAST_RESP = getExecuteResp(
       Arrays.asList(COLUMN_TIMESERIES, COLUMN_VALUE),
       Arrays.asList(TSDataType.TEXT.toString(), TSDataType.TEXT.toString()), false
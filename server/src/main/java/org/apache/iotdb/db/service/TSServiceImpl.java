@@ -34,9 +34,12 @@ import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.metadata.StorageGroupNotSetException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.runtime.QueryKilledException;
+import org.apache.iotdb.db.exception.runtime.QueryMemoryExceededException;
 import org.apache.iotdb.db.exception.runtime.SQLParserException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.metrics.server.SqlArgument;
+import org.apache.iotdb.db.qp.PlanTemplate;
 import org.apache.iotdb.db.qp.Planner;
 import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.executor.IPlanExecutor;
@@ -48,8 +51,9 @@ import org.apache.iotdb.db.qp.physical.crud.AlignByDevicePlan.MeasurementType;
 import org.apache.iotdb.db.qp.physical.sys.*;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.control.RunningQuery;
+import org.apache.iotdb.db.query.control.RunningQueryManager;
 import org.apache.iotdb.db.query.dataset.NonAlignEngineDataSet;
-import org.apache.iotdb.db.query.dataset.RawQueryDataSetWithoutValueFilter;
 import org.apache.iotdb.db.tools.watermark.GroupedLSBWatermarkEncoder;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
 import org.apache.iotdb.db.utils.QueryDataSetUtils;
@@ -58,6 +62,9 @@ import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.*;
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 import org.apache.iotdb.tsfile.exception.filter.QueryFilterOptimizationException;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
@@ -105,6 +112,8 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   // Record the username for every rpc connection (session).
   private Map<Long, String> sessionIdUsernameMap = new ConcurrentHashMap<>();
   private Map<Long, ZoneId> sessionIdZoneIdMap = new ConcurrentHashMap<>();
+  // (sessionId -> the compression type of its payloads), for the sessions that asked for one
+  private Map<Long, CompressionType> sessionIdPayloadCompressionMap = new ConcurrentHashMap<>();
 
   // The sessionId is unique in one IoTDB instance.
   private AtomicLong sessionIdGenerator = new AtomicLong();
@@ -119,6 +128,12 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   // (queryId -> QueryDataSet)
   private Map<Long, QueryDataSet> queryId2DataSet = new ConcurrentHashMap<>();
 
+  // The preparedStatementId is unique in one IoTDB instance.
+  private AtomicLong preparedStatementIdGenerator = new AtomicLong();
+  // (sessionId -> (preparedStatementId -> PlanTemplate))
+  private Map<Long, Map<Long, PlanTemplate>> sessionId2PreparedStatements =
+      new ConcurrentHashMap<>();
+
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
   // When the client abnormally exits, we can still know who to disconnect
@@ -175,6 +190,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     TSOpenSessionResp resp = new TSOpenSessionResp(tsStatus,
         TSProtocolVersion.IOTDB_SERVICE_PROTOCOL_V2);
     resp.setSessionId(sessionId);
+    if (status) {
+      negotiatePayloadCompression(sessionId, req, resp);
+    }
     logger.info(
         "{}: Login status: {}. User : {}", IoTDBConstant.GLOBAL_DB_NAME, tsStatus.message,
         req.getUsername());
@@ -182,6 +200,40 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     return resp;
   }
 
+  /**
+   * accept the payload compression the client asks for if the server supports its type, and
+   * return the accepted type and the threshold of compression in the configuration of the
+   * response, the payloads of the session are not compressed if the type is not returned.
+   */
+  private void negotiatePayloadCompression(long sessionId, TSOpenSessionReq req,
+      TSOpenSessionResp resp) {
+    Map<String, String> reqConfiguration = req.getConfiguration();
+    String typeName = reqConfiguration == null ? null
+        : reqConfiguration.get(RpcUtils.PAYLOAD_COMPRESSION_TYPE);
+    int threshold = config.getRpcPayloadCompressionThreshold();
+    if (typeName == null || threshold <= 0) {
+      return;
+    }
+    CompressionType compressionType;
+    try {
+      compressionType = CompressionType.findByShortName(typeName);
+      // check whether the server can compress payloads by the type
+      ICompressor.getCompressor(compressionType);
+    } catch (CompressionTypeNotSupportedException e) {
+      logger.info("{}: payload compression {} is not supported, the payloads of session {} are "
+          + "not compressed", IoTDBConstant.GLOBAL_DB_NAME, typeName, sessionId);
+      return;
+    }
+    if (compressionType == CompressionType.UNCOMPRESSED) {
+      return;
+    }
+    sessionIdPayloadCompressionMap.put(sessionId, compressionType);
+    Map<String, String> configuration = new HashMap<>();
+    configuration.put(RpcUtils.PAYLOAD_COMPRESSION_TYPE, compressionType.name());
+    configuration.put(RpcUtils.PAYLOAD_COMPRESSION_THRESHOLD, Integer.toString(threshold));
+    resp.setConfiguration(configuration);
+  }
+
   private boolean checkCompatibility(TSProtocolVersion version) {
     return version.equals(TSProtocolVersion.IOTDB_SERVICE_PROTOCOL_V2);
   }
@@ -198,6 +250,8 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
 
     sessionIdZoneIdMap.remove(sessionId);
+    sessionIdPayloadCompressionMap.remove(sessionId);
+    sessionId2PreparedStatements.remove(sessionId);
     List<Exception> exceptions = new ArrayList<>();
     Set<Long> statementIds = sessionId2StatementId.getOrDefault(sessionId, Collections.emptySet());
     for (long statementId : statementIds) {
@@ -265,6 +319,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   protected void releaseQueryResource(long queryId) throws StorageEngineException {
     // remove the corresponding Physical Plan
     queryId2DataSet.remove(queryId);
+    RunningQueryManager.getInstance().unregister(queryId);
     QueryResourceManager.getInstance().endQuery(queryId);
   }
 
@@ -462,7 +517,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
           processor.parseSQLToPhysicalPlan(statement, sessionIdZoneIdMap.get(req.getSessionId()));
       if (physicalPlan.isQuery()) {
         return internalExecuteQueryStatement(statement, req.statementId, physicalPlan, req.fetchSize,
-                sessionIdUsernameMap.get(req.getSessionId()));
+            req.getSessionId());
       } else {
         return executeUpdateStatement(physicalPlan, req.getSessionId());
       }
@@ -485,6 +540,96 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
   }
 
+  @Override
+  public TSPrepareStatementResp prepareStatement(TSPrepareStatementReq req) {
+    long sessionId = req.getSessionId();
+    if (!checkLogin(sessionId)) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      return new TSPrepareStatementResp(RpcUtils.getStatus(TSStatusCode.NOT_LOGIN_ERROR));
+    }
+
+    PlanTemplate template;
+    try {
+      template = new PlanTemplate(req.getStatement(), sessionIdZoneIdMap.get(sessionId),
+          processor);
+    } catch (ParseCancellationException | QueryProcessException | SQLParserException e) {
+      logger.info(ERROR_PARSING_SQL, e.getMessage());
+      return new TSPrepareStatementResp(
+          RpcUtils.getStatus(TSStatusCode.SQL_PARSE_ERROR, e.getMessage()));
+    }
+    Map<Long, PlanTemplate> templates = sessionId2PreparedStatements
+        .computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>());
+    long preparedStatementId;
+    // the check and the put are atomic so that concurrent requests of a session cannot exceed the
+    // limit, removing a template needs no lock as it only makes room
+    synchronized (templates) {
+      if (templates.size() >= config.getMaxPreparedStatementNumPerSession()) {
+        return new TSPrepareStatementResp(RpcUtils.getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR,
+            String.format("A session can hold at most %d prepared statements",
+                config.getMaxPreparedStatementNumPerSession())));
+      }
+      preparedStatementId = preparedStatementIdGenerator.incrementAndGet();
+      templates.put(preparedStatementId, template);
+    }
+
+    TSPrepareStatementResp resp = new TSPrepareStatementResp(
+        RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS));
+    resp.setPreparedStatementId(preparedStatementId);
+    resp.setParameterCount(template.getParameterCount());
+    return resp;
+  }
+
+  @Override
+  public TSExecuteStatementResp executePreparedStatement(TSExecutePreparedStatementReq req) {
+    long sessionId = req.getSessionId();
+    try {
+      if (!checkLogin(sessionId)) {
+        logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+        return RpcUtils.getTSExecuteStatementResp(TSStatusCode.NOT_LOGIN_ERROR);
+      }
+      PlanTemplate template = sessionId2PreparedStatements
+          .getOrDefault(sessionId, Collections.emptyMap()).get(req.getPreparedStatementId());
+      if (template == null) {
+        return RpcUtils.getTSExecuteStatementResp(TSStatusCode.EXECUTE_STATEMENT_ERROR,
+            "Prepared statement " + req.getPreparedStatementId() + " does not exist");
+      }
+
+      Object[] parameters = template.deserializeParameters(req.getTypes(), req.values);
+      PhysicalPlan physicalPlan = template.bind(parameters);
+      if (physicalPlan.isQuery()) {
+        return internalExecuteQueryStatement(template.getBoundSql(parameters),
+            req.getStatementId(), physicalPlan, req.getFetchSize(), sessionId);
+      } else {
+        return executeUpdateStatement(physicalPlan, sessionId);
+      }
+    } catch (ParseCancellationException e) {
+      logger.debug(e.getMessage());
+      return RpcUtils.getTSExecuteStatementResp(TSStatusCode.SQL_PARSE_ERROR, e.getMessage());
+    } catch (SQLParserException e) {
+      logger.error("check metadata error: ", e);
+      return RpcUtils.getTSExecuteStatementResp(
+          TSStatusCode.METADATA_ERROR, "Check metadata error: " + e.getMessage());
+    } catch (QueryProcessException e) {
+      logger.info(ERROR_PARSING_SQL, e.getMessage());
+      return RpcUtils.getTSExecuteStatementResp(
+          RpcUtils.getStatus(TSStatusCode.QUERY_PROCESS_ERROR,
+              "Meet error in query process: " + e.getMessage()));
+    }
+  }
+
+  @Override
+  public TSStatus closePreparedStatement(long sessionId, long preparedStatementId) {
+    if (!checkLogin(sessionId)) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      return RpcUtils.getStatus(TSStatusCode.NOT_LOGIN_ERROR);
+    }
+    Map<Long, PlanTemplate> templates = sessionId2PreparedStatements.get(sessionId);
+    if (templates != null) {
+      templates.remove(preparedStatementId);
+    }
+    return RpcUtils.getStatus(TSStatusCode.SUCCESS_STATUS);
+  }
+
   @Override
   public TSExecuteStatementResp executeQueryStatement(TSExecuteStatementReq req) {
     try {
@@ -509,7 +654,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       return internalExecuteQueryStatement(statement, req.statementId, physicalPlan, req.fetchSize,
-          sessionIdUsernameMap.get(req.getSessionId()));
+          req.getSessionId());
 
     } catch (ParseCancellationException e) {
       logger.debug(e.getMessage());
@@ -527,9 +672,10 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
    *             AuthorPlan
    */
   private TSExecuteStatementResp internalExecuteQueryStatement(String statement,
-      long statementId, PhysicalPlan plan, int fetchSize, String username) {
+      long statementId, PhysicalPlan plan, int fetchSize, long sessionId) {
     long startTime = System.currentTimeMillis();
     long queryId = -1;
+    String username = sessionIdUsernameMap.get(sessionId);
     try {
       TSExecuteStatementResp resp = getQueryResp(plan, username); // column headers
 
@@ -555,9 +701,10 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       statementId2QueryId.computeIfAbsent(statementId, k -> new HashSet<>()).add(queryId);
 
       // create and cache dataset
-      QueryDataSet newDataSet = createQueryDataSet(queryId, plan);
+      QueryDataSet newDataSet = createQueryDataSet(queryId, plan, statement, username);
       if (plan instanceof QueryPlan && !((QueryPlan) plan).isAlignByTime() && newDataSet instanceof NonAlignEngineDataSet) {
         TSQueryNonAlignDataSet result = fillRpcNonAlignReturnData(fetchSize, newDataSet, username);
+        addReturnedRows(queryId, result);
         resp.setNonAlignQueryDataSet(result);
       } else {
         if (plan instanceof ShowPlan && ((ShowPlan) plan).getShowContentType() == TIMESERIES) {
@@ -565,7 +712,8 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
           resp.setDataTypeList(newDataSet.getDataTypes().stream().map(Enum::toString).collect(Collectors.toList()));
         }
         TSQueryDataSet result = fillRpcReturnData(fetchSize, newDataSet, username);
-        resp.setQueryDataSet(result);
+        addReturnedRows(queryId, result);
+        resp.setQueryDataSet(compressPayload(sessionId, result));
       }
       resp.setQueryId(queryId);
 
@@ -581,6 +729,15 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       }
 
       return resp;
+    } catch (QueryKilledException e) {
+      logger.info(e.getMessage());
+      tryToReleaseQueryResource(queryId);
+      return RpcUtils.getTSExecuteStatementResp(TSStatusCode.QUERY_KILLED_ERROR, e.getMessage());
+    } catch (QueryMemoryExceededException e) {
+      logger.warn(e.getMessage());
+      tryToReleaseQueryResource(queryId);
+      return RpcUtils
+          .getTSExecuteStatementResp(TSStatusCode.QUERY_MEMORY_EXCEEDED_ERROR, e.getMessage());
     } catch (Exception e) {
       logger.error("{}: Internal server error: ", IoTDBConstant.GLOBAL_DB_NAME, e);
       if (queryId != -1) {
@@ -602,6 +759,14 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       return getAuthQueryColumnHeaders(plan);
     } else if (plan instanceof ShowPlan) {
       return getShowQueryColumnHeaders((ShowPlan) plan);
+    } else if (plan instanceof ExplainAnalyzePlan) {
+      // check the permissions and prepare the query plan as the query itself does
+      TSExecuteStatementResp queryResp = getQueryColumnHeaders(
+          ((ExplainAnalyzePlan) plan).getQueryPlan(), username);
+      if (queryResp.getStatus().code != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        return queryResp;
+      }
+      return StaticResps.EXPLAIN_ANALYZE_RESP;
     } else {
       return getQueryColumnHeaders(plan, username);
     }
@@ -618,6 +783,8 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         return StaticResps.DYNAMIC_PARAMETER_RESP;
       case VERSION:
         return StaticResps.SHOW_VERSION_RESP;
+      case QUERIES:
+        return StaticResps.SHOW_QUERIES_RESP;
       case TIMESERIES:
         return StaticResps.SHOW_TIMESERIES_RESP;
       case STORAGE_GROUP:
@@ -713,13 +880,16 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       case GROUPBY:
       case GROUP_BY_FILL:
         List<String> aggregations = plan.getAggregations();
+        List<Double> parameters = ((AggregationPlan) plan).getAggregationParameters();
         if (aggregations.size() != paths.size()) {
           for (int i = 1; i < paths.size(); i++) {
             aggregations.add(aggregations.get(0));
+            parameters.add(parameters.get(0));
           }
         }
         for (int i = 0; i < paths.size(); i++) {
-          respColumns.add(aggregations.get(i) + "(" + paths.get(i).getFullPath() + ")");
+          respColumns.add(AggregationPlan
+              .getColumnName(aggregations.get(i), parameters.get(i), paths.get(i).getFullPath()));
         }
         seriesTypes = getSeriesTypesByPath(paths, aggregations);
         break;
@@ -788,23 +958,31 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
             RpcUtils.getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR, "Has not executed query"));
       }
 
+      RunningQuery runningQuery = RunningQueryManager.getInstance().get(req.queryId);
+      if (runningQuery != null) {
+        // a killed query may be waiting for its client without reading anything
+        runningQuery.getContext().checkKilled();
+      }
+
       QueryDataSet queryDataSet = queryId2DataSet.get(req.queryId);
       if (req.isAlign) {
         TSQueryDataSet result =
             fillRpcReturnData(req.fetchSize, queryDataSet, sessionIdUsernameMap.get(req.sessionId));
+        addReturnedRows(req.queryId, result);
         boolean hasResultSet = result.bufferForTime().limit() != 0;
         if (!hasResultSet) {
           releaseQueryResource(req.queryId);
         }
         TSFetchResultsResp resp = RpcUtils.getTSFetchResultsResp(TSStatusCode.SUCCESS_STATUS);
         resp.setHasResultSet(hasResultSet);
-        resp.setQueryDataSet(result);
+        resp.setQueryDataSet(compressPayload(req.sessionId, result));
         resp.setIsAlign(true);
         return resp;
       } else {
         TSQueryNonAlignDataSet nonAlignResult =
             fillRpcNonAlignReturnData(
                 req.fetchSize, queryDataSet, sessionIdUsernameMap.get(req.sessionId));
+        addReturnedRows(req.queryId, nonAlignResult);
         boolean hasResultSet = false;
         for (ByteBuffer timeBuffer : nonAlignResult.getTimeList()) {
           if (timeBuffer.limit() != 0) {
@@ -821,6 +999,15 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         resp.setIsAlign(false);
         return resp;
       }
+    } catch (QueryKilledException e) {
+      logger.info(e.getMessage());
+      tryToReleaseQueryResource(req.queryId);
+      return RpcUtils.getTSFetchResultsResp(TSStatusCode.QUERY_KILLED_ERROR, e.getMessage());
+    } catch (QueryMemoryExceededException e) {
+      logger.warn(e.getMessage());
+      tryToReleaseQueryResource(req.queryId);
+      return RpcUtils
+          .getTSFetchResultsResp(TSStatusCode.QUERY_MEMORY_EXCEEDED_ERROR, e.getMessage());
     } catch (Exception e) {
       logger.error("{}: Internal server error: ", IoTDBConstant.GLOBAL_DB_NAME, e);
       try {
@@ -832,9 +1019,42 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
   }
 
+  private void tryToReleaseQueryResource(long queryId) {
+    try {
+      releaseQueryResource(queryId);
+    } catch (StorageEngineException e) {
+      logger.error("Error happened while releasing query resource: ", e);
+    }
+  }
+
+  /**
+   * add the rows returned to the client to the progress of the query, each row has a timestamp
+   */
+  private void addReturnedRows(long queryId, TSQueryDataSet result) {
+    RunningQuery runningQuery = RunningQueryManager.getInstance().get(queryId);
+    if (runningQuery != null) {
+      runningQuery.addReturnedRows(result.bufferForTime().limit() / Long.BYTES);
+    }
+  }
+
+  /**
+   * add the rows returned to the client to the progress of the query, the rows of a non-aligned
+   * query are counted by its longest column
+   */
+  private void addReturnedRows(long queryId, TSQueryNonAlignDataSet result) {
+    RunningQuery runningQuery = RunningQueryManager.getInstance().get(queryId);
+    if (runningQuery != null) {
+      int maxTimeBufferSize = 0;
+      for (ByteBuffer timeBuffer : result.getTimeList()) {
+        maxTimeBufferSize = Math.max(maxTimeBufferSize, timeBuffer.limit());
+      }
+      runningQuery.addReturnedRows(maxTimeBufferSize / Long.BYTES);
+    }
+  }
+
   private TSQueryDataSet fillRpcReturnData(
       int fetchSize, QueryDataSet queryDataSet, String userName)
-      throws TException, AuthException, IOException, InterruptedException {
+      throws TException, AuthException, IOException {
     IAuthorizer authorizer;
     try {
       authorizer = LocalFileAuthorizer.getInstance();
@@ -842,6 +1062,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       throw new TException(e);
     }
     TSQueryDataSet result;
+    long startTime = Measurement.INSTANCE.startTimeInNanos();
 
     if (config.isEnableWatermark() && authorizer.isUserUseWaterMark(userName)) {
       WatermarkEncoder encoder;
@@ -852,23 +1073,28 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
             String.format(
                 "Watermark method is not supported yet: %s", config.getWatermarkMethodName()));
       }
-      if (queryDataSet instanceof RawQueryDataSetWithoutValueFilter) {
-        // optimize for query without value filter
-        result = ((RawQueryDataSetWithoutValueFilter) queryDataSet).fillBuffer(fetchSize, encoder);
-      } else {
-        result = QueryDataSetUtils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize, encoder);
-      }
+      result = QueryDataSetUtils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize, encoder);
     } else {
-      if (queryDataSet instanceof RawQueryDataSetWithoutValueFilter) {
-        // optimize for query without value filter
-        result = ((RawQueryDataSetWithoutValueFilter) queryDataSet).fillBuffer(fetchSize, null);
-      } else {
-        result = QueryDataSetUtils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize);
-      }
+      result = QueryDataSetUtils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize);
     }
+    Measurement.INSTANCE.addOperationLatencyInNanos(Operation.SERIALIZE_RPC_RESULT, startTime);
     return result;
   }
 
+  /**
+   * compress the buffers of a result by the payload compression of the session if it has one and
+   * the result is not smaller than the threshold.
+   */
+  private TSQueryDataSet compressPayload(long sessionId, TSQueryDataSet result)
+      throws IOException {
+    CompressionType compressionType = sessionIdPayloadCompressionMap.get(sessionId);
+    if (compressionType == null) {
+      return result;
+    }
+    return QueryDataSetUtils.compressQueryDataSet(result,
+        ICompressor.getCompressor(compressionType), config.getRpcPayloadCompressionThreshold());
+  }
+
   private TSQueryNonAlignDataSet fillRpcNonAlignReturnData(
       int fetchSize, QueryDataSet queryDataSet, String userName)
       throws TException, AuthException, InterruptedException {
@@ -899,11 +1125,13 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
   /**
    * create QueryDataSet and buffer it for fetchResults
    */
-  private QueryDataSet createQueryDataSet(long queryId, PhysicalPlan physicalPlan)
+  private QueryDataSet createQueryDataSet(long queryId, PhysicalPlan physicalPlan,
+      String statement, String username)
       throws QueryProcessException, QueryFilterOptimizationException, StorageEngineException,
       IOException, MetadataException, SQLException {
 
     QueryContext context = genQueryContext(queryId);
+    RunningQueryManager.getInstance().register(context, physicalPlan, statement, username);
     QueryDataSet queryDataSet = executor.processQuery(physicalPlan, context);
     queryId2DataSet.put(queryId, queryDataSet);
     return queryDataSet;
@@ -1138,11 +1366,24 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         return RpcUtils.getTSBatchExecuteStatementResp(TSStatusCode.NOT_LOGIN_ERROR);
       }
 
+      ByteBuffer timestamps = req.timestamps;
+      ByteBuffer values = req.values;
+      if (req.isCompressed()) {
+        CompressionType compressionType = sessionIdPayloadCompressionMap.get(req.getSessionId());
+        if (compressionType == null) {
+          return RpcUtils.getTSBatchExecuteStatementResp(TSStatusCode.EXECUTE_STATEMENT_ERROR,
+              "The payload is compressed but the session has no payload compression");
+        }
+        IUnCompressor unCompressor = IUnCompressor.getUnCompressor(compressionType);
+        timestamps = unCompressor.uncompressHeapBuffer(timestamps);
+        values = unCompressor.uncompressHeapBuffer(values);
+      }
+
       BatchInsertPlan batchInsertPlan = new BatchInsertPlan(req.deviceId, req.measurements);
-      batchInsertPlan.setTimes(QueryDataSetUtils.readTimesFromBuffer(req.timestamps, req.size));
+      batchInsertPlan.setTimes(QueryDataSetUtils.readTimesFromBuffer(timestamps, req.size));
       batchInsertPlan.setColumns(
           QueryDataSetUtils.readValuesFromBuffer(
-              req.values, req.types, req.measurements.size(), req.size));
+              values, req.types, req.measurements.size(), req.size));
       batchInsertPlan.setRowCount(req.size);
       batchInsertPlan.setDataTypes(req.types);
 
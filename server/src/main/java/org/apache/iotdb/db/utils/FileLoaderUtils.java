@@ -18,12 +18,18 @@
  */
 package org.apache.iotdb.db.utils;
 
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.ChunkMetadataCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.TimeSeriesMetadataCacheKey;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.SeriesProfile;
+import org.apache.iotdb.db.query.context.SeriesProfile.Counter;
 import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.reader.chunk.DiskChunkLoader;
 import org.apache.iotdb.db.query.reader.chunk.MemChunkLoader;
@@ -93,10 +99,27 @@ public class FileLoaderUtils {
   public static TimeseriesMetadata loadTimeSeriesMetadata(TsFileResource resource, Path seriesPath,
       QueryContext context, Filter filter, Set<String> allSensors) throws IOException {
     TimeseriesMetadata timeSeriesMetadata;
+    SeriesProfile profile = context.getSeriesProfile(seriesPath);
     if (resource.isClosed()) {
-      timeSeriesMetadata = TimeSeriesMetadataCache.getInstance()
-          .get(new TimeSeriesMetadataCache.TimeSeriesMetadataCacheKey(resource.getPath(),
-              seriesPath.getDevice(), seriesPath.getMeasurement()), allSensors);
+      TimeSeriesMetadataCacheKey key = new TimeSeriesMetadataCacheKey(resource.getPath(),
+          seriesPath.getDevice(), seriesPath.getMeasurement());
+      long startTime;
+      if (profile != null) {
+        if (TimeSeriesMetadataCache.getInstance().isCached(key)) {
+          profile.add(Counter.CACHE_HITS, 1);
+        }
+        startTime = System.nanoTime();
+      } else {
+        startTime = Measurement.INSTANCE.startTimeInNanos();
+      }
+      try {
+        timeSeriesMetadata = TimeSeriesMetadataCache.getInstance().get(key, allSensors);
+      } finally {
+        Measurement.INSTANCE.addOperationLatencyInNanos(Operation.LOAD_METADATA, startTime);
+        if (profile != null) {
+          profile.addTime(Counter.METADATA_LOAD_TIME, startTime);
+        }
+      }
       if (timeSeriesMetadata != null) {
         timeSeriesMetadata.setChunkMetadataLoader(
             new DiskChunkMetadataLoader(resource, seriesPath, context, filter));
@@ -114,15 +137,16 @@ public class FileLoaderUtils {
           context.getPathModifications(resource.getModFile(), seriesPath.getFullPath());
       timeSeriesMetadata.setModified(!pathModifications.isEmpty());
       if (timeSeriesMetadata.getStatistics().getStartTime() > timeSeriesMetadata.getStatistics()
-          .getEndTime()) {
-        return null;
-      }
-      if (filter != null && !filter
+          .getEndTime()
+          || filter != null && !filter
           .satisfyStartEndTime(timeSeriesMetadata.getStatistics().getStartTime(),
               timeSeriesMetadata.getStatistics().getEndTime())) {
-        return null;
+        timeSeriesMetadata = null;
       }
     }
+    if (timeSeriesMetadata == null && profile != null) {
+      profile.add(Counter.FILES_SKIPPED, 1);
+    }
     return timeSeriesMetadata;
   }
 
@@ -132,7 +156,10 @@ public class FileLoaderUtils {
    */
   public static List<ChunkMetadata> loadChunkMetadataList(TimeseriesMetadata timeSeriesMetadata)
       throws IOException {
-    return timeSeriesMetadata.loadChunkMetadataList();
+    long startTime = Measurement.INSTANCE.startTimeInNanos();
+    List<ChunkMetadata> chunkMetadataList = timeSeriesMetadata.loadChunkMetadataList();
+    Measurement.INSTANCE.addOperationLatencyInNanos(Operation.LOAD_METADATA, startTime);
+    return chunkMetadataList;
   }
 
 
@@ -143,6 +170,17 @@ public class FileLoaderUtils {
    */
   public static List<IPageReader> loadPageReaderList(ChunkMetadata chunkMetaData, Filter timeFilter)
       throws IOException {
+    return loadPageReaderList(chunkMetaData, timeFilter, null);
+  }
+
+  /**
+   * load all page readers in one chunk that satisfying the timeFilter
+   * @param chunkMetaData the corresponding chunk metadata
+   * @param timeFilter it should be a TimeFilter instead of a ValueFilter
+   * @param profile the profile of the series in a profiled query, or null
+   */
+  public static List<IPageReader> loadPageReaderList(ChunkMetadata chunkMetaData, Filter timeFilter,
+      SeriesProfile profile) throws IOException {
     if (chunkMetaData == null) {
       throw new IOException("Can't init null chunkMeta");
     }
@@ -152,10 +190,28 @@ public class FileLoaderUtils {
       MemChunkLoader memChunkLoader = (MemChunkLoader) chunkLoader;
       chunkReader = new MemChunkReader(memChunkLoader.getChunk(), timeFilter);
     } else {
+      long startTime;
+      if (profile != null) {
+        if (ChunkCache.getInstance().isCached(chunkMetaData)) {
+          profile.add(Counter.CACHE_HITS, 1);
+        }
+        startTime = System.nanoTime();
+      } else {
+        startTime = Measurement.INSTANCE.startTimeInNanos();
+      }
       Chunk chunk = chunkLoader.loadChunk(chunkMetaData);
+      Measurement.INSTANCE.addOperationLatencyInNanos(Operation.READ_CHUNK, startTime);
+      if (profile != null) {
+        profile.addTime(Counter.CHUNK_READ_TIME, startTime);
+        profile.add(Counter.BYTES_READ,
+            chunk.getHeader().getSerializedSize() + (long) chunk.getHeader().getDataSize());
+      }
       chunkReader = new ChunkReader(chunk, timeFilter);
       chunkReader.hasNextSatisfiedPage();
     }
+    if (profile != null) {
+      profile.add(Counter.CHUNKS_READ, 1);
+    }
     return chunkReader.loadPageReaderList();
   }
 
@@ -22,6 +22,7 @@ import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.engine.cache.RamUsageEstimator;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.BooleanDataPoint;
@@ -65,6 +66,38 @@ public class MemUtils {
     }
   }
 
+  /**
+   * function for getting the memory of a time and a value in a BatchData or a TVList, a TEXT value
+   * is counted as the reference to its Binary.
+   */
+  public static long getPointSize(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+      case FLOAT:
+        return 8L + 4L;
+      case BOOLEAN:
+        return 8L + 1L;
+      default:
+        return 8L + 8L;
+    }
+  }
+
+  /**
+   * function for getting the memory of the points in a BatchData.
+   */
+  public static long getBatchDataSize(BatchData batchData) {
+    if (batchData.length() == 0) {
+      return 0L;
+    }
+    long memSize = batchData.length() * getPointSize(batchData.getDataType());
+    if (batchData.getDataType() == TSDataType.TEXT) {
+      for (int i = 0; i < batchData.length(); i++) {
+        memSize += getBinarySize(batchData.getBinaryByIndex(i));
+      }
+    }
+    return memSize;
+  }
+
   public static long getBinarySize(Binary value) {
     return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator
         .sizeOf(value.getValues());
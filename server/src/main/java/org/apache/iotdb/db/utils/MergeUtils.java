@@ -25,9 +25,11 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
+import org.apache.iotdb.db.engine.merge.manage.MergeRateLimiter;
 import org.apache.iotdb.db.engine.merge.manage.MergeResource;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetadata;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
@@ -212,7 +214,7 @@ public class MergeUtils {
     while (!chunkMetaHeap.isEmpty()) {
       MetaListEntry metaListEntry = chunkMetaHeap.poll();
       ChunkMetadata currMeta = metaListEntry.current();
-      Chunk chunk = tsFileReader.readMemChunk(currMeta);
+      Chunk chunk = readMemChunk(tsFileReader, currMeta);
       ret[metaListEntry.pathId].add(chunk);
       if (metaListEntry.hasNext()) {
         metaListEntry.next();
@@ -221,6 +223,21 @@ public class MergeUtils {
     }
   }
 
+  /**
+   * read a chunk for a merge, the bytes of the chunk are acquired from the MergeRateLimiter after
+   * its small header is read and before its data is read.
+   */
+  public static Chunk readMemChunk(TsFileSequenceReader reader, ChunkMetadata metaData)
+      throws IOException {
+    ChunkHeader header = reader.readChunkHeader(metaData);
+    MergeRateLimiter.getInstance().acquire(getChunkSize(header));
+    return reader.readMemChunk(metaData, header);
+  }
+
+  public static long getChunkSize(ChunkHeader header) {
+    return (long) header.getSerializedSize() + header.getDataSize();
+  }
+
   public static boolean isChunkOverflowed(TimeValuePair timeValuePair, ChunkMetadata metaData) {
     return timeValuePair != null
         && timeValuePair.getTimestamp() < metaData.getEndTime();
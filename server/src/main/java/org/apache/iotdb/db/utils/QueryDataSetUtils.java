@@ -18,21 +18,20 @@
  */
 package org.apache.iotdb.db.utils;
 
+import org.apache.iotdb.db.query.dataset.DirectAlignByTimeDataSet;
+import org.apache.iotdb.db.query.dataset.TSQueryDataSetBuilder;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.compress.ICompressor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
-import org.apache.iotdb.tsfile.read.common.Field;
-import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -40,8 +39,6 @@ import java.util.List;
  */
 public class QueryDataSetUtils {
 
-  private static final int flag = 0x01;
-
   private QueryDataSetUtils() {
   }
 
@@ -57,121 +54,54 @@ public class QueryDataSetUtils {
     return convertQueryDataSetByFetchSize(queryDataSet, fetchSize, null);
   }
 
+  /**
+   * convert at most fetchSize rows of the query data set into the columns of a TSQueryDataSet,
+   * a DirectAlignByTimeDataSet writes its rows into the columns without creating RowRecords.
+   *
+   * @param watermarkEncoder the watermark encoder of the user, null if the values are not encoded
+   */
   public static TSQueryDataSet convertQueryDataSetByFetchSize(QueryDataSet queryDataSet,
       int fetchSize, WatermarkEncoder watermarkEncoder) throws IOException {
-    List<TSDataType> dataTypes = queryDataSet.getDataTypes();
-    int columnNum = dataTypes.size();
-    TSQueryDataSet tsQueryDataSet = new TSQueryDataSet();
-    // one time column and each value column has a actual value buffer and a bitmap value to indicate whether it is a null
-    int columnNumWithTime = columnNum * 2 + 1;
-    DataOutputStream[] dataOutputStreams = new DataOutputStream[columnNumWithTime];
-    ByteArrayOutputStream[] byteArrayOutputStreams = new ByteArrayOutputStream[columnNumWithTime];
-    for (int i = 0; i < columnNumWithTime; i++) {
-      byteArrayOutputStreams[i] = new ByteArrayOutputStream();
-      dataOutputStreams[i] = new DataOutputStream(byteArrayOutputStreams[i]);
-    }
-
-    int rowCount = 0;
-    int[] valueOccupation = new int[columnNum];
-    // used to record a bitmap for every 8 row record
-    int[] bitmap = new int[columnNum];
-    for (int i = 0; i < fetchSize; i++) {
-      if (queryDataSet.hasNext()) {
-        RowRecord rowRecord = queryDataSet.next();
-        if (watermarkEncoder != null) {
-          rowRecord = watermarkEncoder.encodeRecord(rowRecord);
-        }
-        // use columnOutput to write byte array
-        dataOutputStreams[0].writeLong(rowRecord.getTimestamp());
-        List<Field> fields = rowRecord.getFields();
-        for (int k = 0; k < fields.size(); k++) {
-          Field field = fields.get(k);
-          DataOutputStream dataOutputStream = dataOutputStreams[2 * k + 1]; // DO NOT FORGET +1
-          if (field == null || field.getDataType() == null) {
-            bitmap[k] = (bitmap[k] << 1);
-          } else {
-            bitmap[k] = (bitmap[k] << 1) | flag;
-            TSDataType type = field.getDataType();
-            switch (type) {
-              case INT32:
-                dataOutputStream.writeInt(field.getIntV());
-                valueOccupation[k] += 4;
-                break;
-              case INT64:
-                dataOutputStream.writeLong(field.getLongV());
-                valueOccupation[k] += 8;
-                break;
-              case FLOAT:
-                dataOutputStream.writeFloat(field.getFloatV());
-                valueOccupation[k] += 4;
-                break;
-              case DOUBLE:
-                dataOutputStream.writeDouble(field.getDoubleV());
-                valueOccupation[k] += 8;
-                break;
-              case BOOLEAN:
-                dataOutputStream.writeBoolean(field.getBoolV());
-                valueOccupation[k] += 1;
-                break;
-              case TEXT:
-                dataOutputStream.writeInt(field.getBinaryV().getLength());
-                dataOutputStream.write(field.getBinaryV().getValues());
-                valueOccupation[k] = valueOccupation[k] + 4 + field.getBinaryV().getLength();
-                break;
-              default:
-                throw new UnSupportedDataTypeException(
-                    String.format("Data type %s is not supported.", type));
-            }
-          }
-        }
-        rowCount++;
-        if (rowCount % 8 == 0) {
-          for (int j = 0; j < bitmap.length; j++) {
-            DataOutputStream dataBitmapOutputStream = dataOutputStreams[2 * (j + 1)];
-            dataBitmapOutputStream.writeByte(bitmap[j]);
-            // we should clear the bitmap every 8 row record
-            bitmap[j] = 0;
-          }
-        }
-      } else {
-        break;
+    TSQueryDataSetBuilder builder = new TSQueryDataSetBuilder(queryDataSet.getDataTypes(),
+        fetchSize, watermarkEncoder);
+    if (queryDataSet instanceof DirectAlignByTimeDataSet) {
+      DirectAlignByTimeDataSet directDataSet = (DirectAlignByTimeDataSet) queryDataSet;
+      while (builder.getRowCount() < fetchSize && queryDataSet.hasNext()) {
+        directDataSet.writeNext(builder);
       }
-    }
-
-    // feed the remaining bitmap
-    int remaining = rowCount % 8;
-    if (remaining != 0) {
-      for (int j = 0; j < bitmap.length; j++) {
-        DataOutputStream dataBitmapOutputStream = dataOutputStreams[2 * (j + 1)];
-        dataBitmapOutputStream.writeByte(bitmap[j] << (8 - remaining));
+    } else {
+      while (builder.getRowCount() < fetchSize && queryDataSet.hasNext()) {
+        builder.putRecord(queryDataSet.next());
       }
     }
+    return builder.build();
+  }
 
-    // calculate the time buffer size
-    int timeOccupation = rowCount * 8;
-    ByteBuffer timeBuffer = ByteBuffer.allocate(timeOccupation);
-    timeBuffer.put(byteArrayOutputStreams[0].toByteArray());
-    timeBuffer.flip();
-    tsQueryDataSet.setTime(timeBuffer);
-
-    // calculate the bitmap buffer size
-    int bitmapOccupation = rowCount / 8 + (rowCount % 8 == 0 ? 0 : 1);
-
-    List<ByteBuffer> bitmapList = new LinkedList<>();
-    List<ByteBuffer> valueList = new LinkedList<>();
-    for (int i = 1; i < byteArrayOutputStreams.length; i += 2) {
-      ByteBuffer valueBuffer = ByteBuffer.allocate(valueOccupation[(i - 1) / 2]);
-      valueBuffer.put(byteArrayOutputStreams[i].toByteArray());
-      valueBuffer.flip();
-      valueList.add(valueBuffer);
+  /**
+   * compress the buffers of a TSQueryDataSet if their total size is not smaller than the
+   * threshold, otherwise the data set is returned as it is.
+   */
+  public static TSQueryDataSet compressQueryDataSet(TSQueryDataSet tsQueryDataSet,
+      ICompressor compressor, int threshold) throws IOException {
+    int size = tsQueryDataSet.time.remaining();
+    for (int i = 0; i < tsQueryDataSet.valueList.size(); i++) {
+      size += tsQueryDataSet.valueList.get(i).remaining()
+          + tsQueryDataSet.bitmapList.get(i).remaining();
+    }
+    if (size < threshold) {
+      return tsQueryDataSet;
+    }
 
-      ByteBuffer bitmapBuffer = ByteBuffer.allocate(bitmapOccupation);
-      bitmapBuffer.put(byteArrayOutputStreams[i + 1].toByteArray());
-      bitmapBuffer.flip();
-      bitmapList.add(bitmapBuffer);
+    tsQueryDataSet.setTime(compressor.compressHeapBuffer(tsQueryDataSet.time));
+    List<ByteBuffer> valueList = new ArrayList<>(tsQueryDataSet.valueList.size());
+    List<ByteBuffer> bitmapList = new ArrayList<>(tsQueryDataSet.bitmapList.size());
+    for (int i = 0; i < tsQueryDataSet.valueList.size(); i++) {
+      valueList.add(compressor.compressHeapBuffer(tsQueryDataSet.valueList.get(i)));
+      bitmapList.add(compressor.compressHeapBuffer(tsQueryDataSet.bitmapList.get(i)));
     }
-    tsQueryDataSet.setBitmapList(bitmapList);
     tsQueryDataSet.setValueList(valueList);
+    tsQueryDataSet.setBitmapList(bitmapList);
+    tsQueryDataSet.setCompressed(true);
     return tsQueryDataSet;
   }
 
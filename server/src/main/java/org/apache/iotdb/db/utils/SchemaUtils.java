@@ -126,6 +126,7 @@ public class SchemaUtils {
       case SQLConstant.MIN_TIME:
       case SQLConstant.MAX_TIME:
       case SQLConstant.COUNT:
+      case SQLConstant.APPROX_COUNT_DISTINCT:
         return TSDataType.INT64;
       case SQLConstant.LAST_VALUE:
       case SQLConstant.FIRST_VALUE:
@@ -134,6 +135,7 @@ public class SchemaUtils {
         return null;
       case SQLConstant.AVG:
       case SQLConstant.SUM:
+      case SQLConstant.PERCENTILE:
         return TSDataType.DOUBLE;
       default:
         throw new MetadataException(
@@ -26,6 +26,8 @@ import java.nio.channels.FileChannel;
 import java.util.zip.CRC32;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.cost.statistic.Measurement;
+import org.apache.iotdb.db.cost.statistic.Operation;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 
 /**
@@ -78,14 +80,16 @@ public class LogWriter implements ILogWriter {
     channel.write(checkSumBuffer);
 
     if (config.getForceWalPeriodInMs() == 0) {
-      channel.force(true);
+      force();
     }
   }
 
   @Override
   public void force() throws IOException {
     if (channel != null) {
+      long startTime = Measurement.INSTANCE.startTimeInNanos();
       channel.force(true);
+      Measurement.INSTANCE.addOperationLatencyInNanos(Operation.SYNC_WAL, startTime);
     }
   }
 
@@ -142,12 +142,16 @@ public class LogReplayer {
       }
     }
     MeasurementSchema[] schemas;
+    int[] seriesIds;
     try {
       schemas = MManager.getInstance().getSchemas(batchInsertPlan.getDeviceId(), batchInsertPlan.getMeasurements());
+      seriesIds = MManager.getInstance()
+          .getSeriesIds(batchInsertPlan.getDeviceId(), batchInsertPlan.getMeasurements());
     } catch (MetadataException e) {
       throw new QueryProcessException(e);
     }
     batchInsertPlan.setSchemas(schemas);
+    batchInsertPlan.setSeriesIds(seriesIds);
     recoverMemTable.insertBatch(batchInsertPlan, 0, batchInsertPlan.getRowCount());
   }
 
@@ -172,6 +176,8 @@ public class LogReplayer {
       MeasurementSchema[] schemas =
           MManager.getInstance().getSchemas(insertPlan.getDeviceId(), insertPlan.getMeasurements());
       insertPlan.setSchemas(schemas);
+      insertPlan.setSeriesIds(MManager.getInstance()
+          .getSeriesIds(insertPlan.getDeviceId(), insertPlan.getMeasurements()));
       recoverMemTable.insert(insertPlan);
     } catch (Exception e) {
       logger.error(
@@ -32,6 +32,9 @@ import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.flush.MemTableFlushTask;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
 import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
+import org.apache.iotdb.db.engine.sketch.SketchManager;
+import org.apache.iotdb.db.engine.storagegroup.ResourceSummaryManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.engine.version.VersionController;
 import org.apache.iotdb.db.exception.StorageGroupProcessorException;
@@ -116,6 +119,7 @@ public class TsFileRecoverPerformer {
               Long.parseLong(resource.getFile().getName().split(IoTDBConstant.TSFILE_NAME_SEPARATOR)[1]);
           resource.setHistoricalVersions(Collections.singleton(fileVersion));
           resource.serialize();
+          ResourceSummaryManager.getInstance().append(resource);
         }
         return restorableTsFileIOWriter;
       } catch (IOException e) {
@@ -124,6 +128,13 @@ public class TsFileRecoverPerformer {
                 + RESOURCE_SUFFIX + e);
       }
     } else {
+      // the rollups and the sketches of an incomplete file may lack the data in the WALs
+      try {
+        RollupManager.getInstance().removeRollup(file);
+        SketchManager.getInstance().removeSketch(file);
+      } catch (IOException e) {
+        throw new StorageGroupProcessorException(e);
+      }
       // due to failure, the last ChunkGroup may contain the same data as the WALs, so the time
       // map must be updated first to avoid duplicated insertion
       recoverResourceFromWriter(restorableTsFileIOWriter);
@@ -204,7 +215,8 @@ public class TsFileRecoverPerformer {
         tableFlushTask.syncFlushMemTable();
       }
 
-      if (!isLastFile || resource.isCloseFlagSet()) {
+      boolean fileEnded = !isLastFile || resource.isCloseFlagSet();
+      if (fileEnded) {
         // end the file if it is not the last file or it is closed before crush
         restorableTsFileIOWriter.endFile();
         resource.cleanCloseFlag();
@@ -213,6 +225,9 @@ public class TsFileRecoverPerformer {
       // into it
 
       resource.serialize();
+      if (fileEnded) {
+        ResourceSummaryManager.getInstance().append(resource);
+      }
     } catch (IOException | InterruptedException | ExecutionException e) {
       throw new StorageGroupProcessorException(e);
     }
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.cost.statistic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testIndex() {
+    long[] latencies = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789, LatencyHistogram.MAX_LATENCY};
+    for (long latency : latencies) {
+      int index = LatencyHistogram.getIndex(latency);
+      assertTrue(latency <= LatencyHistogram.getHighestLatency(index));
+      if (index > 0) {
+        assertTrue(latency > LatencyHistogram.getHighestLatency(index - 1));
+      }
+    }
+    for (int index = 1; index <= LatencyHistogram.getIndex(LatencyHistogram.MAX_LATENCY); index++) {
+      assertEquals(index, LatencyHistogram.getIndex(LatencyHistogram.getHighestLatency(index)));
+      assertEquals(index,
+          LatencyHistogram.getIndex(LatencyHistogram.getHighestLatency(index - 1) + 1));
+    }
+  }
+
+  @Test
+  public void testPercentile() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentileInNanos(99));
+
+    Random random = new Random(7);
+    long[] latencies = new long[10000];
+    long sum = 0;
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = (long) (Math.exp(random.nextDouble() * 20));
+      sum += latencies[i];
+      histogram.record(latencies[i]);
+    }
+    Arrays.sort(latencies);
+
+    assertEquals(latencies.length, histogram.getCount());
+    assertEquals(sum, histogram.getSumInNanos());
+    assertEquals(latencies[latencies.length - 1], histogram.getMaxInNanos());
+    assertEquals(latencies[latencies.length - 1], histogram.getPercentileInNanos(100));
+    for (double percentile : new double[]{1, 10, 50, 90, 99, 99.9}) {
+      long expected = latencies[(int) Math.ceil(percentile / 100 * latencies.length) - 1];
+      long actual = histogram.getPercentileInNanos(percentile);
+      assertTrue(actual >= expected);
+      // the relative error of a bucket is less than 1 / 32
+      assertTrue(actual - expected <= expected / 32);
+    }
+
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMaxInNanos());
+    assertEquals(0, histogram.getPercentileInNanos(50));
+  }
+}
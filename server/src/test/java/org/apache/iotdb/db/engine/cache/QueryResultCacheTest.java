@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryResultCacheTest {
+
+  private static final String GROUP_BY = "select count(s0), sum(s0), max_value(s0), "
+      + "first_value(s0) from root.vehicle.d0 group by ([0, 130), 10ms)";
+
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+  private int prevCacheSize;
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public QueryResultCacheTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    prevCacheSize = IoTDBDescriptor.getInstance().getConfig().getQueryResultCacheSize();
+    IoTDBDescriptor.getInstance().getConfig().setQueryResultCacheSize(1000);
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE");
+    for (int i = 1; i <= 120; i++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i,
+          i * 7 % 31));
+      if (i % 50 == 0) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    IoTDBDescriptor.getInstance().getConfig().setQueryResultCacheSize(prevCacheSize);
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  @Test
+  public void testSealedWindowsCached() throws Exception {
+    List<String> expected = queryWithoutCache(GROUP_BY);
+    assertEquals(expected, query(GROUP_BY));
+    // [100, 110) and later windows overlap the unsealed file
+    assertEquals(10, QueryResultCache.getInstance().size());
+
+    assertEquals(expected, query(GROUP_BY));
+    assertEquals(10, QueryResultCache.getInstance().size());
+    assertTrue(QueryResultCache.getInstance().calculateQueryResultHitRatio() > 0);
+
+    // a window starting in the middle of a cached one is cached separately
+    String shifted = "select count(s0), sum(s0), max_value(s0), first_value(s0) "
+        + "from root.vehicle.d0 group by ([5, 95), 10ms)";
+    assertEquals(queryWithoutCache(shifted), query(shifted));
+    assertEquals(19, QueryResultCache.getInstance().size());
+
+    // the unsealed file becomes sealed
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    assertEquals(expected, query(GROUP_BY));
+    assertEquals(expected, query(GROUP_BY));
+    assertEquals(22, QueryResultCache.getInstance().size());
+  }
+
+  @Test
+  public void testTimeFilter() throws Exception {
+    String sql = "select count(s0), sum(s0) from root.vehicle.d0 where time > 25 "
+        + "group by ([0, 100), 10ms)";
+    List<String> expected = queryWithoutCache(sql);
+    assertEquals(expected, query(sql));
+    assertEquals(expected, query(sql));
+    // [0, 10), [10, 20) and [20, 30) are not covered by the filter
+    assertEquals(7, QueryResultCache.getInstance().size());
+  }
+
+  @Test
+  public void testNewSealedFile() throws Exception {
+    List<String> before = query(GROUP_BY);
+    execute("insert into root.vehicle.d0(timestamp,s0) values(55,1000)");
+    // the windows not overlapping the unsealed unsequence file are still cached
+    List<String> expected = queryWithoutCache(GROUP_BY);
+    assertEquals(expected, query(GROUP_BY));
+
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    assertEquals(expected, query(GROUP_BY));
+    assertEquals(expected, query(GROUP_BY));
+    assertNotEquals(before, expected);
+  }
+
+  @Test
+  public void testDeletion() throws Exception {
+    List<String> before = query(GROUP_BY);
+    execute("DELETE FROM root.vehicle.d0.s0 WHERE time <= 33");
+    assertEquals(0, QueryResultCache.getInstance().size());
+
+    List<String> expected = queryWithoutCache(GROUP_BY);
+    assertEquals(expected, query(GROUP_BY));
+    assertEquals(expected, query(GROUP_BY));
+    assertNotEquals(before, expected);
+  }
+
+  private List<String> queryWithoutCache(String sql) throws Exception {
+    int cacheSize = IoTDBDescriptor.getInstance().getConfig().getQueryResultCacheSize();
+    IoTDBDescriptor.getInstance().getConfig().setQueryResultCacheSize(0);
+    try {
+      return query(sql);
+    } finally {
+      IoTDBDescriptor.getInstance().getConfig().setQueryResultCacheSize(cacheSize);
+    }
+  }
+
+  private List<String> query(String sql) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(sql);
+    // a new context for each query, as the modifications are cached in the context
+    QueryDataSet dataSet = queryExecutor.processQuery(queryPlan,
+        new QueryContext(QueryResourceManager.getInstance().assignQueryId(true)));
+    List<String> records = new ArrayList<>();
+    while (dataSet.hasNext()) {
+      records.add(dataSet.next().toString());
+    }
+    return records;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A timeseries deleted and created again before the memtable is flushed gets a new series id, the
+ * chunk of the deleted one must not hide the data written after it is created again.
+ */
+public class MemTableRecreatedSeriesTest {
+
+  private IPlanExecutor executor;
+  private Planner planner = new Planner();
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    executor = new PlanExecutor();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private void execute(String sql) throws Exception {
+    executor.processNonQuery(planner.parseSQLToPhysicalPlan(sql));
+  }
+
+  private void checkQuery(long... expectedTimes) throws Exception {
+    QueryContext context = new QueryContext(
+        QueryResourceManager.getInstance().assignQueryId(true));
+    try {
+      QueryDataSet dataSet = executor.processQuery(
+          planner.parseSQLToPhysicalPlan("select s0 from root.vehicle.d0"), context);
+      for (long expectedTime : expectedTimes) {
+        assertTrue(dataSet.hasNext());
+        RowRecord record = dataSet.next();
+        assertEquals(expectedTime, record.getTimestamp());
+        assertEquals(expectedTime * 10, record.getFields().get(0).getLongV());
+      }
+      assertFalse(dataSet.hasNext());
+    } finally {
+      QueryResourceManager.getInstance().endQuery(context.getQueryId());
+    }
+  }
+
+  @Test
+  public void testDeleteAndCreateAgain() throws Exception {
+    execute("SET STORAGE GROUP TO root.vehicle");
+    // a series before s0 so that s0 is not the only chunk of the device
+    execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=INT64, ENCODING=RLE");
+    for (int round = 0; round < 5; round++) {
+      execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+      for (int i = 1; i <= 3; i++) {
+        execute(String.format("insert into root.vehicle.d0(timestamp,s0,s1) values(%d,%d,%d)",
+            i, i, i));
+      }
+      execute("DELETE TIMESERIES root.vehicle.d0.s0");
+    }
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    execute("insert into root.vehicle.d0(timestamp,s0) values(4,40)");
+    execute("insert into root.vehicle.d0(timestamp,s0) values(5,50)");
+
+    checkQuery(4, 5);
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    checkQuery(4, 5);
+  }
+}
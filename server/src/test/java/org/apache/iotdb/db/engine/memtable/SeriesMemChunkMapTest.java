@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.memtable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.junit.Test;
+
+public class SeriesMemChunkMapTest {
+
+  private static IWritableMemChunk newChunk(int seriesId) {
+    return new WritableMemChunk(new MeasurementSchema("s" + seriesId, TSDataType.INT64,
+        TSEncoding.PLAIN), TVList.newList(TSDataType.INT64));
+  }
+
+  @Test
+  public void testPutAndGet() {
+    SeriesMemChunkMap map = new SeriesMemChunkMap();
+    Map<Integer, IWritableMemChunk> expected = new HashMap<>();
+    // both the ids of the MTree and the negative ids of unregistered series, enough to resize
+    for (int seriesId = -100; seriesId < 1000; seriesId += 3) {
+      int id = seriesId;
+      IWritableMemChunk chunk = map.computeIfAbsent(id, "d" + id % 10, () -> newChunk(id));
+      expected.put(id, chunk);
+    }
+    assertEquals(expected.size(), map.size());
+    for (Map.Entry<Integer, IWritableMemChunk> entry : expected.entrySet()) {
+      assertSame(entry.getValue(), map.get(entry.getKey()));
+      // an existing chunk is never replaced
+      assertSame(entry.getValue(), map.computeIfAbsent(entry.getKey(), "d", () -> {
+        fail();
+        return null;
+      }));
+    }
+    assertNull(map.get(1));
+    assertNull(map.get(1000));
+
+    Map<Integer, IWritableMemChunk> iterated = new HashMap<>();
+    map.forEach((seriesId, deviceId, chunk) -> {
+      assertEquals("d" + seriesId % 10, deviceId);
+      iterated.put(seriesId, chunk);
+    });
+    assertEquals(expected, iterated);
+
+    SeriesMemChunkMap copy = map.copy();
+    map.clear();
+    assertEquals(0, map.size());
+    assertNull(map.get(0));
+    assertEquals(expected.size(), copy.size());
+    assertSame(expected.get(0), copy.get(0));
+  }
+
+  @Test
+  public void testRemove() {
+    SeriesMemChunkMap map = new SeriesMemChunkMap();
+    Map<Integer, IWritableMemChunk> expected = new HashMap<>();
+    for (int seriesId = 0; seriesId < 100; seriesId++) {
+      int id = seriesId;
+      expected.put(id, map.computeIfAbsent(id, "d", () -> newChunk(id)));
+    }
+    for (int seriesId = 0; seriesId < 100; seriesId += 2) {
+      map.remove(seriesId);
+      expected.remove(seriesId);
+    }
+    // removing an absent series changes nothing
+    map.remove(0);
+    map.remove(1000);
+    assertEquals(expected.size(), map.size());
+    for (int seriesId = 0; seriesId < 100; seriesId++) {
+      assertSame(expected.get(seriesId), map.get(seriesId));
+    }
+
+    IWritableMemChunk chunk = newChunk(0);
+    assertSame(chunk, map.computeIfAbsent(0, "d", () -> chunk));
+    assertEquals(expected.size() + 1, map.size());
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.merge.manage.MergeResource;
+import org.apache.iotdb.db.engine.merge.task.MergeTask;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.reader.series.SeriesRawDataBatchReader;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Chunks of the seq file contain several pages and the unseq file only overlaps some of them,
+ * so the merge copies the untouched pages and rewrites the overlapped ones.
+ */
+public class MergePageCopyTest extends MergeTest {
+
+  private File tempSGDir;
+  private int prevMaxNumberOfPointsInPage;
+
+  @Before
+  public void setUp()
+      throws IOException, WriteProcessException, MetadataException {
+    prevMaxNumberOfPointsInPage = TSFileDescriptor.getInstance().getConfig()
+        .getMaxNumberOfPointsInPage();
+    TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(5);
+    super.setUp();
+    tempSGDir = new File(TestConstant.BASE_OUTPUT_PATH.concat("tempSG"));
+    tempSGDir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    super.tearDown();
+    FileUtils.deleteDirectory(tempSGDir);
+    TSFileDescriptor.getInstance().getConfig()
+        .setMaxNumberOfPointsInPage(prevMaxNumberOfPointsInPage);
+  }
+
+  @Override
+  void prepareFiles(int seqFileNum, int unseqFileNum) throws IOException, WriteProcessException {
+    File file = new File(TestConstant.BASE_OUTPUT_PATH.concat(
+        0 + "seq" + IoTDBConstant.TSFILE_NAME_SEPARATOR + 0 + IoTDBConstant.TSFILE_NAME_SEPARATOR
+            + 0 + IoTDBConstant.TSFILE_NAME_SEPARATOR + 0 + ".tsfile"));
+    TsFileResource tsFileResource = new TsFileResource(file);
+    tsFileResource.setClosed(true);
+    tsFileResource.setHistoricalVersions(Collections.singleton(0L));
+    seqResources.add(tsFileResource);
+    prepareFile(tsFileResource, 0, ptNum, 0);
+
+    // only overlaps the second page of the second chunk
+    file = new File(TestConstant.BASE_OUTPUT_PATH.concat(
+        0 + "unseq" + IoTDBConstant.TSFILE_NAME_SEPARATOR + 1 + IoTDBConstant.TSFILE_NAME_SEPARATOR
+            + 1 + IoTDBConstant.TSFILE_NAME_SEPARATOR + 0 + ".tsfile"));
+    tsFileResource = new TsFileResource(file);
+    tsFileResource.setClosed(true);
+    tsFileResource.setHistoricalVersions(Collections.singleton(1L));
+    unseqResources.add(tsFileResource);
+    prepareFile(tsFileResource, 26, 2, 10000);
+  }
+
+  @Test
+  public void testFullMerge() throws Exception {
+    MergeTask mergeTask =
+        new MergeTask(new MergeResource(seqResources, unseqResources), tempSGDir.getPath(),
+            (k, v, l) -> {
+            }, "test", true, 1, MERGE_TEST_SG);
+    mergeTask.call();
+
+    int count = 0;
+    for (BatchData batchData : querySeries()) {
+      for (int i = 0; i < batchData.length(); i++) {
+        long time = batchData.getTimeByIndex(i);
+        double expected = time == 26 || time == 27 ? time + 10000.0 : time;
+        assertEquals(expected, batchData.getDoubleByIndex(i), 0.001);
+        assertEquals(count, time);
+        count++;
+      }
+    }
+    assertEquals(ptNum, count);
+  }
+
+  @Test
+  public void testMergeWithDeletion() throws Exception {
+    try {
+      seqResources.get(0).getModFile().write(new Deletion(new Path(deviceIds[0],
+          measurementSchemas[0].getMeasurementId()), 10000, 47));
+    } finally {
+      seqResources.get(0).getModFile().close();
+    }
+
+    MergeTask mergeTask =
+        new MergeTask(new MergeResource(seqResources, unseqResources), tempSGDir.getPath(),
+            (k, v, l) -> {
+              try {
+                seqResources.get(0).removeModFile();
+              } catch (IOException e) {
+                e.printStackTrace();
+              }
+            }, "test", false, 1, MERGE_TEST_SG);
+    mergeTask.call();
+
+    // the unseq points are not deleted
+    List<Long> times = new ArrayList<>();
+    for (BatchData batchData : querySeries()) {
+      for (int i = 0; i < batchData.length(); i++) {
+        long time = batchData.getTimeByIndex(i);
+        double expected = time == 26 || time == 27 ? time + 10000.0 : time;
+        assertEquals(expected, batchData.getDoubleByIndex(i), 0.001);
+        times.add(time);
+      }
+    }
+    assertEquals(ptNum - 48 + 2, times.size());
+    assertEquals(26L, (long) times.get(0));
+    assertEquals(27L, (long) times.get(1));
+    for (int i = 2; i < times.size(); i++) {
+      assertEquals(48L + i - 2, (long) times.get(i));
+    }
+  }
+
+  private List<BatchData> querySeries() throws IOException {
+    QueryContext context = new QueryContext();
+    Path path = new Path(deviceIds[0], measurementSchemas[0].getMeasurementId());
+    List<TsFileResource> resources = new ArrayList<>();
+    resources.add(seqResources.get(0));
+    IBatchReader tsFilesReader = new SeriesRawDataBatchReader(path,
+        measurementSchemas[0].getType(), context, resources, new ArrayList<>(), null, null);
+    List<BatchData> ret = new ArrayList<>();
+    while (tsFilesReader.hasNextBatch()) {
+      ret.add(tsFilesReader.nextBatch());
+    }
+    tsFilesReader.close();
+    return ret;
+  }
+}
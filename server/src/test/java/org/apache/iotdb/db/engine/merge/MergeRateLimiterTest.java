@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.iotdb.db.engine.merge.manage.MergeRateLimiter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MergeRateLimiterTest {
+
+  private MergeRateLimiter limiter = MergeRateLimiter.getInstance();
+  private int prevThroughput;
+  private long prevMaxYieldTime;
+
+  @Before
+  public void setUp() {
+    prevThroughput = limiter.getThroughputMbPerSec();
+    prevMaxYieldTime = limiter.getMaxYieldTimeMs();
+  }
+
+  @After
+  public void tearDown() {
+    limiter.setThroughputMbPerSec(prevThroughput);
+    limiter.setMaxYieldTimeMs(prevMaxYieldTime);
+  }
+
+  @Test
+  public void testUnlimited() {
+    limiter.setThroughputMbPerSec(0);
+    long prevThrottledTimes = limiter.getThrottledTimes();
+    long prevAcquired = limiter.getAcquiredBytes();
+    long startTime = System.currentTimeMillis();
+    limiter.acquire(1024L * 1024 * 1024);
+    assertTrue(System.currentTimeMillis() - startTime < 500);
+    assertEquals(prevThrottledTimes, limiter.getThrottledTimes());
+    assertEquals(prevAcquired + 1024L * 1024 * 1024, limiter.getAcquiredBytes());
+  }
+
+  @Test
+  public void testThrottle() {
+    limiter.setThroughputMbPerSec(1);
+    // consume the burst
+    limiter.acquire(2 * 1024 * 1024);
+    long startTime = System.currentTimeMillis();
+    limiter.acquire(512 * 1024);
+    assertTrue(System.currentTimeMillis() - startTime >= 400);
+  }
+
+  @Test
+  public void testYieldToForegroundIO() throws InterruptedException {
+    limiter.setThroughputMbPerSec(0);
+    limiter.setMaxYieldTimeMs(10000);
+    limiter.startForegroundIO();
+    Thread foreground = new Thread(() -> {
+      try {
+        Thread.sleep(300);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      limiter.endForegroundIO();
+    });
+    long startTime = System.currentTimeMillis();
+    foreground.start();
+    limiter.acquire(1024);
+    long elapsed = System.currentTimeMillis() - startTime;
+    foreground.join();
+    assertTrue(elapsed >= 250);
+    assertTrue(elapsed < 10000);
+  }
+
+  @Test
+  public void testMaxYieldTime() {
+    limiter.setThroughputMbPerSec(0);
+    limiter.setMaxYieldTimeMs(100);
+    limiter.startForegroundIO();
+    try {
+      long startTime = System.currentTimeMillis();
+      limiter.acquire(1024);
+      assertTrue(System.currentTimeMillis() - startTime < 5000);
+    } finally {
+      limiter.endForegroundIO();
+    }
+  }
+}
@@ -20,13 +20,17 @@
 package org.apache.iotdb.db.engine.modification;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.modification.io.LocalTextModificationAccessor;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -98,4 +102,55 @@ public class ModificationFileTest {
       new File(tempFileName).delete();
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testGetPathModifications() throws IOException {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    Modification[] modifications = new Modification[]{
+        new Deletion(new Path("d1", "s1"), 1, 1),
+        new Deletion(new Path("d1", "s2"), 2, 2),
+        new Deletion(new Path("d1", "s1"), 3, 3),
+    };
+    try (ModificationFile mFile = new ModificationFile(tempFileName)) {
+      mFile.write(modifications[0]);
+      mFile.write(modifications[1]);
+      assertEquals(Collections.singletonList(modifications[0]), mFile.getModifications("d1.s1"));
+      assertTrue(mFile.getModifications("d1.s3").isEmpty());
+
+      // the cached modifications are refreshed by a new write
+      mFile.write(modifications[2]);
+      assertEquals(Arrays.asList(modifications[0], modifications[2]),
+          mFile.getModifications("d1.s1"));
+      mFile.abort();
+      assertEquals(Collections.singletonList(modifications[0]), mFile.getModifications("d1.s1"));
+      assertEquals(Collections.singletonList(modifications[1]), mFile.getModifications("d1.s2"));
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void testReadTextFile() throws IOException {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    Modification[] modifications = new Modification[]{
+        new Deletion(new Path("d1", "s1"), 1, 1),
+        new Deletion(new Path("d1", "s2"), 2, 2),
+    };
+    try {
+      try (LocalTextModificationAccessor accessor = new LocalTextModificationAccessor(
+          tempFileName)) {
+        accessor.write(modifications[0]);
+      }
+      try (ModificationFile mFile = new ModificationFile(tempFileName)) {
+        // new modifications are appended in the format of the existing file
+        mFile.write(modifications[1]);
+      }
+      try (ModificationFile mFile = new ModificationFile(tempFileName)) {
+        assertEquals(Arrays.asList(modifications), mFile.getModifications());
+        assertEquals(Collections.singletonList(modifications[1]), mFile.getModifications("d1.s2"));
+      }
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+}
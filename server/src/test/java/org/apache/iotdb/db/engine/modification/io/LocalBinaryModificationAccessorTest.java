@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.modification.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.modification.Deletion;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.Test;
+
+public class LocalBinaryModificationAccessorTest {
+
+  @Test
+  public void readMyWrite() {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    Modification[] modifications = new Modification[]{
+        new Deletion(new Path("d1", "s1"), 1, 1),
+        new Deletion(new Path("d1", "s2"), 2, 2),
+        new Deletion(new Path("d1", "s3"), 3, 3),
+        new Deletion(new Path("d1", "s4"), 4, 4),
+    };
+    try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(tempFileName)) {
+      for (int i = 0; i < 2; i++) {
+        accessor.write(modifications[i]);
+      }
+      List<Modification> modificationList = (List<Modification>) accessor.read();
+      for (int i = 0; i < 2; i++) {
+        assertEquals(modifications[i], modificationList.get(i));
+      }
+
+      for (int i = 2; i < 4; i++) {
+        accessor.write(modifications[i]);
+      }
+      modificationList = (List<Modification>) accessor.read();
+      for (int i = 0; i < 4; i++) {
+        assertEquals(modifications[i], modificationList.get(i));
+      }
+    } catch (IOException e) {
+      fail(e.getMessage());
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void readNull() throws IOException {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    LocalBinaryModificationAccessor accessor;
+    accessor = new LocalBinaryModificationAccessor(tempFileName);
+    new File(tempFileName).delete();
+    Collection<Modification> modifications = accessor.read();
+    assertEquals(new ArrayList<>(), modifications);
+  }
+
+  @Test
+  public void readAbortedAndIncomplete() throws IOException {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    Modification[] modifications = new Modification[]{
+        new Deletion(new Path("d1", "s1"), 1, 1),
+        new Deletion(new Path("d1", "s2"), 2, 2),
+        new Deletion(new Path("d1", "s3"), 3, 3),
+    };
+    try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+        tempFileName)) {
+      for (Modification modification : modifications) {
+        accessor.write(modification);
+      }
+      accessor.abort();
+      accessor.close();
+
+      // a record broken by a crash is ignored
+      try (FileOutputStream outputStream = new FileOutputStream(tempFileName, true)) {
+        outputStream.write(new byte[]{0, 0, 0});
+      }
+      List<Modification> modificationList = (List<Modification>) accessor.read();
+      assertEquals(2, modificationList.size());
+      for (int i = 0; i < 2; i++) {
+        assertEquals(modifications[i], modificationList.get(i));
+      }
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+
+  @Test
+  public void writeAfterIncomplete() throws IOException {
+    String tempFileName = TestConstant.BASE_OUTPUT_PATH.concat("mod.temp");
+    Modification[] modifications = new Modification[]{
+        new Deletion(new Path("d1", "s1"), 1, 1),
+        new Deletion(new Path("d1", "s2"), 2, 2),
+        new Deletion(new Path("d1", "s3"), 3, 3),
+    };
+    try {
+      try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+          tempFileName)) {
+        accessor.write(modifications[0]);
+        accessor.write(modifications[1]);
+      }
+      // a crash breaks the second record
+      try (FileOutputStream outputStream = new FileOutputStream(tempFileName, true)) {
+        outputStream.getChannel().truncate(new File(tempFileName).length() - 3);
+      }
+
+      try (LocalBinaryModificationAccessor accessor = new LocalBinaryModificationAccessor(
+          tempFileName)) {
+        accessor.write(modifications[2]);
+        List<Modification> modificationList = (List<Modification>) accessor.read();
+        assertEquals(2, modificationList.size());
+        assertEquals(modifications[0], modificationList.get(0));
+        assertEquals(modifications[2], modificationList.get(1));
+      }
+    } finally {
+      new File(tempFileName).delete();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.junit.Test;
+
+public class RollupDefinitionTest {
+
+  @Test
+  public void testParse() throws MetadataException {
+    List<RollupDefinition> definitions = RollupDefinition.parseAll(
+        " root.ln.*.*.temperature:3600000:COUNT, avg,max_value ;root.sg1.d1.s1:60000:sum;");
+    assertEquals(2, definitions.size());
+
+    RollupDefinition definition = definitions.get(0);
+    assertEquals("root.ln.*.*.temperature", definition.getPathPattern());
+    assertEquals(3600000, definition.getInterval());
+    assertEquals(Arrays.asList("count", "avg", "max_value"), definition.getAggregations());
+    assertTrue(definition.containsAll(Arrays.asList("max_value", "count")));
+    assertFalse(definition.containsAll(Arrays.asList("count", "sum")));
+    assertEquals("root.ln.*.*.temperature:3600000:count,avg,max_value",
+        definition.toString());
+    assertEquals(definition, RollupDefinition.parse(definition.toString()));
+  }
+
+  @Test
+  public void testMatch() throws MetadataException {
+    RollupDefinition definition = RollupDefinition.parse("root.ln.*.*.temperature:10:count");
+    assertTrue(definition.matches("root.ln.wf01.wt01.temperature"));
+    assertFalse(definition.matches("root.ln.wf01.wt01.status"));
+    assertFalse(definition.matches("root.ln.wf01.temperature"));
+    assertFalse(definition.matches("root.ln.wf01.wt01.wt02.temperature"));
+  }
+
+  @Test
+  public void testIllegalDefinitions() {
+    String[] illegalDefinitions = {"root.sg.d.s:count", "sg.d.s:10:count", "root.sg.d.s:a:count",
+        "root.sg.d.s:0:count", "root.sg.d.s:10:median"};
+    for (String illegalDefinition : illegalDefinitions) {
+      try {
+        RollupDefinition.parse(illegalDefinition);
+        fail(illegalDefinition);
+      } catch (MetadataException e) {
+        // expected
+      }
+    }
+  }
+}
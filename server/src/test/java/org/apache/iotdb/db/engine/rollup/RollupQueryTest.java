@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.dataset.groupby.RollupGroupByExecutor;
+import org.apache.iotdb.db.query.factory.AggregateResultFactory;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RollupQueryTest {
+
+  private static final String AGGREGATIONS = "count,sum,avg,max_value,min_value,first_value,"
+      + "last_value,max_time,min_time";
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private String prevRollupDefinitions;
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public RollupQueryTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    prevRollupDefinitions = config.getRollupDefinitions();
+    config.setRollupDefinitions("root.vehicle.*.s0:10:" + AGGREGATIONS);
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE");
+    execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=DOUBLE, ENCODING=RLE");
+    // three sealed sequence files and a memtable
+    for (int i = 1; i <= 130; i++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0,s1) values(%d,%d,%d.5)", i,
+          i * 7 % 31, i));
+      if (i % 40 == 0) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    RollupManager.getInstance().clear();
+    config.setRollupDefinitions(prevRollupDefinitions);
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  private List<TsFileResource> getSeqFiles() throws Exception {
+    return StorageEngine.getInstance().getProcessor("root.vehicle").getSequenceFileTreeSet();
+  }
+
+  @Test
+  public void testFlushedRollups() throws Exception {
+    List<TsFileResource> seqFiles = getSeqFiles();
+    assertEquals(4, seqFiles.size());
+    for (TsFileResource seqFile : seqFiles) {
+      if (!seqFile.isClosed()) {
+        assertFalse(TsFileRollup.getRollupFile(seqFile.getFile()).exists());
+        continue;
+      }
+      TsFileRollup flushedRollup = TsFileRollup.deserialize(seqFile.getFile());
+      assertNotNull(flushedRollup);
+      // only s0 matches the definition
+      assertEquals(null, flushedRollup.get("root.vehicle.d0.s1"));
+      SeriesRollup seriesRollup = flushedRollup.get("root.vehicle.d0.s0");
+      assertEquals(TSDataType.INT32, seriesRollup.getDataType());
+      assertEquals(10, seriesRollup.getInterval());
+      // e.g., [1, 40] is in the windows [0, 10), [10, 20), [20, 30), [30, 40) and [40, 50)
+      assertEquals(5, seriesRollup.getWindowNum());
+
+      // the rollups built from the file (as after a merge) are the same as the flushed ones
+      TsFileRollup builtRollup = TsFileRollup
+          .build(seqFile.getFile(), RollupManager.getInstance().getDefinitions());
+      assertEquals(toString(seriesRollup), toString(builtRollup.get("root.vehicle.d0.s0")));
+    }
+  }
+
+  private String toString(SeriesRollup seriesRollup) {
+    List<String> aggregations = Arrays.asList(AGGREGATIONS.split(","));
+    StringBuilder builder = new StringBuilder();
+    for (long startTime = 0; startTime < 200; startTime += 10) {
+      List<AggregateResult> results = new ArrayList<>();
+      for (String aggregation : aggregations) {
+        results.add(AggregateResultFactory.getAggrResultByName(aggregation, TSDataType.INT32));
+      }
+      seriesRollup.mergeInto(aggregations, results, startTime, startTime + 10);
+      for (AggregateResult result : results) {
+        builder.append(result.getResult()).append(',');
+      }
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+
+  @Test
+  public void testGroupBy() throws Exception {
+    assertGroupByUsingRollups("group by ([0, 130), 20ms)", 3);
+    // the end is not aligned to the windows
+    assertGroupByUsingRollups("group by ([10, 125), 30ms)", 3);
+    // the sliding step is not aligned to the windows
+    assertGroupByUsingRollups("group by ([0, 130), 20ms, 25ms)", 0);
+    // a time filter inside the query range
+    String sql = "select count(s0) from root.vehicle.d0 where time > 15 group by ([0, 130), 20ms)";
+    GroupByPlan plan = (GroupByPlan) processor.parseSQLToPhysicalPlan(sql);
+    assertFalse(RollupGroupByExecutor
+        .isApplicable(plan, ((GlobalTimeExpression) plan.getExpression()).getFilter()));
+    assertEquals(Arrays.asList("0\t4", "20\t20", "40\t20", "60\t20", "80\t20", "100\t20",
+        "120\t10"), query(sql));
+  }
+
+  @Test
+  public void testOverlappedFiles() throws Exception {
+    // an unsequence file overlapping the first sequence file, a deletion in the second one and
+    // the last sequence file is sealed
+    execute("insert into root.vehicle.d0(timestamp,s0,s1) values(5,100,100.5)");
+    execute("insert into root.vehicle.d0(timestamp,s0,s1) values(200,100,100.5)");
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    execute("delete from root.vehicle.d0.s0 where time <= 45");
+    assertGroupByUsingRollups("group by ([0, 210), 20ms)", 2);
+  }
+
+  private void assertGroupByUsingRollups(String groupBy, int expectedRolledUpFiles)
+      throws Exception {
+    String sql = "select " + AGGREGATIONS.replace(",", "(s0),") + "(s0), count(s1) "
+        + "from root.vehicle.d0 " + groupBy;
+    GroupByPlan plan = (GroupByPlan) processor.parseSQLToPhysicalPlan(sql);
+    RollupGroupByExecutor executor = new RollupGroupByExecutor(new Path("root.vehicle.d0.s0"),
+        Collections.singleton("s0"), TSDataType.INT32, EnvironmentUtils.TEST_QUERY_CONTEXT, null,
+        plan, Arrays.asList(AGGREGATIONS.split(",")));
+    assertEquals(expectedRolledUpFiles, executor.getRolledUpFileNum());
+
+    List<String> results = query(sql);
+    config.setRollupDefinitions("");
+    assertFalse(RollupGroupByExecutor.isApplicable(plan, null));
+    List<String> expectedResults = query(sql);
+    config.setRollupDefinitions("root.vehicle.*.s0:10:" + AGGREGATIONS);
+    assertEquals(expectedResults, results);
+  }
+
+  private List<String> query(String sql) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(sql);
+    QueryDataSet dataSet = queryExecutor
+        .processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    List<String> results = new ArrayList<>();
+    while (dataSet.hasNext()) {
+      results.add(dataSet.next().toString());
+    }
+    assertTrue(results.size() > 0);
+    return results;
+  }
+}
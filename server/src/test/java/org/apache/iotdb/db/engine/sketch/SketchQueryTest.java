@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.sketch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.aggregation.impl.ApproxCountDistinctAggrResult;
+import org.apache.iotdb.db.query.aggregation.impl.PercentileAggrResult;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.context.SeriesProfile.Counter;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SketchQueryTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private boolean prevEnableFileSketch;
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public SketchQueryTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    prevEnableFileSketch = config.isEnableFileSketch();
+    config.setEnableFileSketch(true);
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE");
+    execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=TEXT, ENCODING=PLAIN");
+    // three sealed sequence files and a memtable
+    for (int i = 1; i <= 130; i++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0,s1) values(%d,%d,'%d')",
+          i, i * 7 % 31, i % 20));
+      if (i % 40 == 0) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    SketchManager.getInstance().clear();
+    config.setEnableFileSketch(prevEnableFileSketch);
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  private List<TsFileResource> getSeqFiles() throws Exception {
+    return StorageEngine.getInstance().getProcessor("root.vehicle").getSequenceFileTreeSet();
+  }
+
+  @Test
+  public void testFlushedSketches() throws Exception {
+    List<TsFileResource> seqFiles = getSeqFiles();
+    assertEquals(4, seqFiles.size());
+    for (TsFileResource seqFile : seqFiles) {
+      if (!seqFile.isClosed()) {
+        assertFalse(TsFileSketch.getSketchFile(seqFile.getFile()).exists());
+        continue;
+      }
+      TsFileSketch flushedSketch = TsFileSketch.deserialize(seqFile.getFile());
+      assertNotNull(flushedSketch);
+      assertEquals(TSDataType.INT32, flushedSketch.get("root.vehicle.d0.s0").getDataType());
+      // a text series has no percentile
+      List<AggregateResult> results = new ArrayList<>();
+      results.add(new ApproxCountDistinctAggrResult());
+      boolean[] aggregated = new boolean[1];
+      flushedSketch.get("root.vehicle.d0.s1").mergeInto(results, aggregated);
+      assertTrue(aggregated[0]);
+      assertEquals(20L, results.get(0).getResult());
+
+      // the sketches built from the file (as after a merge) are the same as the flushed ones
+      TsFileSketch builtSketch = TsFileSketch.build(seqFile.getFile());
+      assertEquals(toString(flushedSketch.get("root.vehicle.d0.s0")),
+          toString(builtSketch.get("root.vehicle.d0.s0")));
+    }
+    assertNull(SketchManager.getInstance().getSketch(seqFiles.get(3).getFile()));
+  }
+
+  private String toString(SeriesSketch seriesSketch) {
+    List<AggregateResult> results = Arrays.asList(
+        new PercentileAggrResult(TSDataType.INT32, 0.5),
+        new PercentileAggrResult(TSDataType.INT32, 0.9),
+        new ApproxCountDistinctAggrResult());
+    seriesSketch.mergeInto(results, new boolean[results.size()]);
+    return results.toString();
+  }
+
+  @Test
+  public void testAggregation() throws Exception {
+    assertQueryUsingSketches("select percentile(s0, 0.5), percentile(s0, 0.9), "
+        + "approx_count_distinct(s0), count(s0) from root.vehicle.d0", 3);
+    // the sealed files are read for first_value, which they cannot answer
+    assertQueryUsingSketches("select percentile(s0, 0.5), first_value(s0) "
+        + "from root.vehicle.d0 where time > 10", 2);
+  }
+
+  @Test
+  public void testGroupBy() throws Exception {
+    // each sealed file is contained in an interval
+    assertQueryUsingSketches("select percentile(s0, 0.5), approx_count_distinct(s0), "
+        + "count(s0) from root.vehicle.d0 group by ([1, 131), 40ms)", 3);
+    // no sealed file is contained in an interval
+    assertQueryUsingSketches("select percentile(s0, 0.5) from root.vehicle.d0 "
+        + "group by ([1, 131), 30ms)", 0);
+  }
+
+  @Test
+  public void testDeletion() throws Exception {
+    // the modified file cannot use its sketches
+    execute("delete from root.vehicle.d0.s0 where time <= 45");
+    assertQueryUsingSketches("select percentile(s0, 0.5), approx_count_distinct(s0) "
+        + "from root.vehicle.d0", 1);
+  }
+
+  private void assertQueryUsingSketches(String sql, int expectedSkippedFiles) throws Exception {
+    QueryContext context = new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID);
+    context.enableProfile();
+    List<String> results = query(sql, context);
+    assertEquals(expectedSkippedFiles, context.getSeriesProfile(new Path("root.vehicle.d0.s0"))
+        .get(Counter.FILES_SKIPPED));
+
+    for (TsFileResource seqFile : getSeqFiles()) {
+      SketchManager.getInstance().removeSketch(seqFile.getFile());
+    }
+    assertEquals(query(sql, EnvironmentUtils.TEST_QUERY_CONTEXT), results);
+    // the sketches are built again as after a merge
+    for (TsFileResource seqFile : getSeqFiles()) {
+      if (seqFile.isClosed()) {
+        SketchManager.getInstance().buildSketch(seqFile.getFile());
+      }
+    }
+  }
+
+  private List<String> query(String sql, QueryContext context) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(sql);
+    QueryDataSet dataSet = queryExecutor.processQuery(queryPlan, context);
+    List<String> results = new ArrayList<>();
+    while (dataSet.hasNext()) {
+      results.add(dataSet.next().toString());
+    }
+    assertTrue(results.size() > 0);
+    return results;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+
+/**
+ * Bench the insertions of one storage group with different numbers of threads, each of which
+ * inserts its own devices, with the insert lock striped or not (one stripe).
+ */
+public class ConcurrentInsertBenchmark {
+
+  private static final int[] THREAD_NUMS = {1, 2, 4, 8};
+  private static final int DEVICE_NUM_PER_THREAD = 4;
+  private static final int MEASUREMENT_NUM = 10;
+  private static final int ROW_NUM_PER_THREAD = 200000;
+
+  private static String[] measurements = new String[MEASUREMENT_NUM];
+
+  static {
+    for (int i = 0; i < MEASUREMENT_NUM; i++) {
+      measurements[i] = "s" + i;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    MManager.getInstance().init();
+    int stripeNum = IoTDBDescriptor.getInstance().getConfig().getInsertLockStripeNum();
+    for (int threadNum : THREAD_NUMS) {
+      long serial = bench(threadNum, 1);
+      long striped = bench(threadNum, stripeNum);
+      System.out.println(String.format(
+          "%d threads: %d points/s with 1 stripe, %d points/s with %d stripes", threadNum,
+          serial, striped, stripeNum));
+    }
+    IoTDBDescriptor.getInstance().getConfig().setInsertLockStripeNum(stripeNum);
+  }
+
+  /**
+   * @return the inserted points per second
+   */
+  private static long bench(int threadNum, int stripeNum) throws Exception {
+    IoTDBDescriptor.getInstance().getConfig().setInsertLockStripeNum(stripeNum);
+    EnvironmentUtils.envSetUp();
+    Planner planner = new Planner();
+    PlanExecutor executor = new PlanExecutor();
+    executor.processNonQuery(planner.parseSQLToPhysicalPlan("SET STORAGE GROUP TO root.bench"));
+    for (int i = 0; i < threadNum * DEVICE_NUM_PER_THREAD; i++) {
+      for (String measurement : measurements) {
+        executor.processNonQuery(planner.parseSQLToPhysicalPlan(String.format(
+            "CREATE TIMESERIES root.bench.d%d.%s WITH DATATYPE=INT64, ENCODING=PLAIN", i,
+            measurement)));
+      }
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    List<Future<?>> futures = new ArrayList<>();
+    long startTime = System.nanoTime();
+    for (int i = 0; i < threadNum; i++) {
+      int firstDevice = i * DEVICE_NUM_PER_THREAD;
+      futures.add(pool.submit(() -> {
+        PlanExecutor workerExecutor = new PlanExecutor();
+        String[] values = new String[MEASUREMENT_NUM];
+        for (int row = 0; row < ROW_NUM_PER_THREAD; row++) {
+          String deviceId = "root.bench.d" + (firstDevice + row % DEVICE_NUM_PER_THREAD);
+          long time = row / DEVICE_NUM_PER_THREAD;
+          for (int j = 0; j < MEASUREMENT_NUM; j++) {
+            values[j] = String.valueOf(time + j);
+          }
+          workerExecutor.insert(new InsertPlan(deviceId, time, measurements, values.clone()));
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    long elapsedTime = System.nanoTime() - startTime;
+    pool.shutdown();
+    EnvironmentUtils.cleanEnv();
+    return (long) threadNum * ROW_NUM_PER_THREAD * MEASUREMENT_NUM * 1_000_000_000L / elapsedTime;
+  }
+}
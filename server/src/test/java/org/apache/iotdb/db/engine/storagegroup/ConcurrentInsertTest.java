@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Insertions of different devices in a storage group run concurrently with each other, with
+ * flushes and with queries.
+ */
+public class ConcurrentInsertTest {
+
+  private static final int DEVICE_NUM = 8;
+  private static final int ROW_NUM = 3000;
+
+  private Planner planner = new Planner();
+  private int prevStripeNum;
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public ConcurrentInsertTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    prevStripeNum = IoTDBDescriptor.getInstance().getConfig().getInsertLockStripeNum();
+    IoTDBDescriptor.getInstance().getConfig().setInsertLockStripeNum(4);
+    EnvironmentUtils.envSetUp();
+    PlanExecutor executor = new PlanExecutor();
+    executor.processNonQuery(planner.parseSQLToPhysicalPlan("SET STORAGE GROUP TO root.vehicle"));
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      executor.processNonQuery(planner.parseSQLToPhysicalPlan(String.format(
+          "CREATE TIMESERIES root.vehicle.d%d.s0 WITH DATATYPE=INT64, ENCODING=RLE", i)));
+      executor.processNonQuery(planner.parseSQLToPhysicalPlan(String.format(
+          "CREATE TIMESERIES root.vehicle.d%d.s1 WITH DATATYPE=INT32, ENCODING=RLE", i)));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    IoTDBDescriptor.getInstance().getConfig().setInsertLockStripeNum(prevStripeNum);
+  }
+
+  @Test
+  public void testConcurrentInsert() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(DEVICE_NUM + 1);
+    AtomicBoolean inserting = new AtomicBoolean(true);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      String deviceId = "root.vehicle.d" + i;
+      boolean batch = i % 2 == 0;
+      futures.add(pool.submit(() -> {
+        insertDevice(deviceId, batch);
+        return null;
+      }));
+    }
+    // flush and query while inserting
+    Future<?> flusher = pool.submit(() -> {
+      while (inserting.get()) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+        query("select count(s0) from root.vehicle.*");
+      }
+      return null;
+    });
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    inserting.set(false);
+    flusher.get();
+    pool.shutdown();
+    pool.awaitTermination(1, TimeUnit.MINUTES);
+
+    StringBuilder expected = new StringBuilder("0");
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      expected.append('\t').append(ROW_NUM).append('\t')
+          .append((double) ROW_NUM * (ROW_NUM + 1) / 2);
+    }
+    List<String> records = query("select count(s0), sum(s1) from root.vehicle.*");
+    assertEquals(Collections.singletonList(expected.toString()), records);
+
+    // the unsequence points overwrote the sequence ones
+    for (int i = 0; i < DEVICE_NUM; i++) {
+      records = query(String.format("select s0 from root.vehicle.d%d where time <= 200", i));
+      assertEquals(200, records.size());
+      for (int j = 0; j < records.size(); j++) {
+        long time = j + 1;
+        long value = time % 100 == 0 ? -time : time;
+        assertEquals(time + "\t" + value, records.get(j));
+      }
+    }
+  }
+
+  /**
+   * insert the rows [1, ROW_NUM] in order, and after each 500 rows overwrite the sequence points
+   * at times of multiples of 100 with unsequence ones
+   */
+  private void insertDevice(String deviceId, boolean batch) throws Exception {
+    PlanExecutor executor = new PlanExecutor();
+    String[] measurements = {"s0", "s1"};
+    for (int start = 1; start <= ROW_NUM; start += 500) {
+      int end = Math.min(start + 500, ROW_NUM + 1);
+      if (batch) {
+        List<Integer> dataTypes = new ArrayList<>();
+        dataTypes.add(TSDataType.INT64.ordinal());
+        dataTypes.add(TSDataType.INT32.ordinal());
+        BatchInsertPlan plan = new BatchInsertPlan(deviceId, measurements, dataTypes);
+        long[] times = new long[end - start];
+        long[] s0 = new long[end - start];
+        int[] s1 = new int[end - start];
+        for (int time = start; time < end; time++) {
+          times[time - start] = time;
+          s0[time - start] = time;
+          s1[time - start] = time;
+        }
+        plan.setTimes(times);
+        plan.setColumns(new Object[]{s0, s1});
+        plan.setRowCount(times.length);
+        executor.insertBatch(plan);
+      } else {
+        for (int time = start; time < end; time++) {
+          executor.insert(new InsertPlan(deviceId, time, measurements,
+              new String[]{String.valueOf(time), String.valueOf(time)}));
+        }
+      }
+      for (int time = 100; time < end; time += 100) {
+        executor.insert(new InsertPlan(deviceId, time, "s0", String.valueOf(-time)));
+      }
+    }
+  }
+
+  private List<String> query(String sql) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) planner.parseSQLToPhysicalPlan(sql);
+    QueryDataSet dataSet = new PlanExecutor().processQuery(queryPlan,
+        new QueryContext(QueryResourceManager.getInstance().assignQueryId(true)));
+    List<String> records = new ArrayList<>();
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      records.add(record.toString());
+    }
+    return records;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Test;
+
+public class DeviceTimeMapTest {
+
+  private File file = new File("target" + File.separator + "1-1-0.tsfile");
+
+  @After
+  public void tearDown() {
+    file.delete();
+    new File(file.getPath() + TsFileResource.RESOURCE_SUFFIX).delete();
+  }
+
+  @Test
+  public void testGetAndPut() {
+    Map<String, Long> expected = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      expected.put("root.sg.d" + (i * 37 % 100), (long) i);
+    }
+    DeviceTimeMap timeMap = new DeviceTimeMap(expected);
+    assertEquals(expected, timeMap);
+    assertEquals(expected, new HashMap<>(timeMap));
+    assertNull(timeMap.get("root.sg.d100"));
+    assertFalse(timeMap.containsKey("root.sg.unknown"));
+    assertEquals(-1L, (long) timeMap.getOrDefault("root.sg.unknown", -1L));
+
+    // update in place and add new devices
+    assertEquals(3L, (long) timeMap.put("root.sg.d11", 1000L));
+    expected.put("root.sg.d11", 1000L);
+    for (int i = 100; i < 120; i++) {
+      assertNull(timeMap.put("root.sg.d" + i, (long) i));
+      expected.put("root.sg.d" + i, (long) i);
+    }
+    assertEquals(expected, timeMap);
+    assertEquals(expected.size(), timeMap.size());
+  }
+
+  @Test
+  public void testSealedResource() throws IOException {
+    TsFileResource resource = new TsFileResource(file);
+    for (int i = 0; i < 10; i++) {
+      resource.updateStartTime("root.sg.d" + i, i);
+      resource.updateEndTime("root.sg.d" + i, i * 10L);
+    }
+    resource.close();
+    assertTrue(resource.getStartTimeMap() instanceof DeviceTimeMap);
+    assertTrue(resource.getEndTimeMap() instanceof DeviceTimeMap);
+    resource.updateEndTime("root.sg.d3", 100);
+    resource.serialize();
+
+    TsFileResource deserialized = new TsFileResource(file);
+    deserialized.deserialize();
+    assertTrue(deserialized.getStartTimeMap() instanceof DeviceTimeMap);
+    assertEquals(resource.getStartTimeMap(), deserialized.getStartTimeMap());
+    assertEquals(resource.getEndTimeMap(), deserialized.getEndTimeMap());
+    assertEquals(100L, (long) deserialized.getEndTimeMap().get("root.sg.d3"));
+  }
+}
@@ -48,10 +48,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertFalse;
@@ -284,6 +288,66 @@ public class StorageGroupProcessorTest {
     }
   }
 
+  @Test
+  public void testRecoverFromResourceSummary()
+      throws WriteProcessException, StorageGroupProcessorException, IOException {
+    for (int j = 21; j <= 30; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      processor.insert(new InsertPlan(record));
+      processor.syncCloseAllWorkingTsFileProcessors();
+    }
+    for (int j = 10; j >= 1; j -= 3) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      processor.insert(new InsertPlan(record));
+      processor.syncCloseAllWorkingTsFileProcessors();
+    }
+    List<TsFileResource> seqFiles = processor.getSequenceFileTreeSet();
+    List<TsFileResource> unseqFiles = processor.getUnSequenceFileList();
+
+    // all the complete files are in the summary of their partition
+    File partitionFolder = seqFiles.get(0).getFile().getParentFile();
+    File[] partitionFiles = seqFiles.stream().map(TsFileResource::getFile).toArray(File[]::new);
+    Map<String, TsFileResource> summarized = ResourceSummaryManager.getInstance()
+        .load(partitionFolder, partitionFiles);
+    Assert.assertEquals(seqFiles.size(), summarized.size());
+    for (TsFileResource seqFile : seqFiles) {
+      TsFileResource resource = summarized.get(seqFile.getFile().getName());
+      Assert.assertTrue(resource.isClosed());
+      Assert.assertEquals(seqFile.getStartTimeMap(), resource.getStartTimeMap());
+      Assert.assertEquals(seqFile.getEndTimeMap(), resource.getEndTimeMap());
+      Assert.assertEquals(seqFile.getHistoricalVersions(), resource.getHistoricalVersions());
+    }
+
+    // an entry is not used once the file is changed after it
+    File changedFile = seqFiles.get(seqFiles.size() - 1).getFile();
+    try (FileOutputStream outputStream = new FileOutputStream(changedFile, true)) {
+      outputStream.write(0);
+    }
+    summarized = ResourceSummaryManager.getInstance().load(partitionFolder, partitionFiles);
+    Assert.assertEquals(seqFiles.size() - 1, summarized.size());
+    Assert.assertFalse(summarized.containsKey(changedFile.getName()));
+    try (FileChannel channel = FileChannel.open(changedFile.toPath(), StandardOpenOption.WRITE)) {
+      channel.truncate(changedFile.length() - 1);
+    }
+
+    StorageGroupProcessor recovered = new DummySGP(systemDir, storageGroup);
+    Assert.assertEquals(seqFiles.size(), recovered.getSequenceFileTreeSet().size());
+    Assert.assertEquals(unseqFiles.size(), recovered.getUnSequenceFileList().size());
+    for (int i = 0; i < seqFiles.size(); i++) {
+      TsFileResource resource = recovered.getSequenceFileTreeSet().get(i);
+      Assert.assertEquals(seqFiles.get(i).getFile().getName(), resource.getFile().getName());
+      Assert.assertTrue(resource.isClosed());
+      Assert.assertEquals(seqFiles.get(i).getEndTimeMap(), resource.getEndTimeMap());
+    }
+    for (int i = 0; i < unseqFiles.size(); i++) {
+      TsFileResource resource = recovered.getUnSequenceFileList().get(i);
+      Assert.assertEquals(unseqFiles.get(i).getFile().getName(), resource.getFile().getName());
+      Assert.assertEquals(unseqFiles.get(i).getStartTimeMap(), resource.getStartTimeMap());
+    }
+  }
+
   class DummySGP extends StorageGroupProcessor {
 
     DummySGP(String systemInfoDir, String storageGroupName) throws StorageGroupProcessorException {
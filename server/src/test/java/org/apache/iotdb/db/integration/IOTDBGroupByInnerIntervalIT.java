@@ -258,17 +258,36 @@ public class IOTDBGroupByInnerIntervalIT {
 
   @Test
   public void slidingStepLessThanTimeInterval() {
+    String[] retArray1 = new String[]{
+            "1,1,4", "3,3,6", "5,4,8", "7,4,10", "9,4,12", "11,4,14", "13,4,16", "15,3,18",
+            "17,1,18", "19,1,22", "21,3,24", "23,4,26", "25,4,28", "27,3,29", "29,1,29"
+    };
 
     try (Connection connection = DriverManager.
             getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
          Statement statement = connection.createStatement()) {
       boolean hasResultSet = statement.execute(
-              "select count(temperature), sum(temperature), avg(temperature) from "
+              "select count(temperature), max_time(temperature) from "
                       + "root.ln.wf01.wt01 where time > 3"
-                      + "GROUP BY ([1, 30), 2ms, 1ms)");
-      fail();
+                      + " GROUP BY ([1, 30), 4ms, 2ms)");
+
+      assertTrue(hasResultSet);
+      int cnt;
+      try (ResultSet resultSet = statement.getResultSet()) {
+        cnt = 0;
+        while (resultSet.next()) {
+          String ans = resultSet.getString(TIMESTAMP_STR) + "," + resultSet
+                  .getString(count("root.ln.wf01.wt01.temperature")) + "," +
+                  resultSet.getString(max_time("root.ln.wf01.wt01.temperature"));
+          assertEquals(retArray1[cnt], ans);
+          cnt++;
+        }
+        assertEquals(retArray1.length, cnt);
+      }
+
     } catch (Exception e) {
-      assertTrue(e instanceof IoTDBSQLException);
+      e.printStackTrace();
+      fail(e.getMessage());
     }
   }
 
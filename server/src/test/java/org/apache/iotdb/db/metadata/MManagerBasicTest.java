@@ -24,18 +24,27 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.metadata.PathAlreadyExistException;
 import org.apache.iotdb.db.exception.query.PathException;
+import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -412,4 +421,84 @@ public class MManagerBasicTest {
       fail(e.getMessage());
     }
   }
+
+  @Test
+  public void testCreateTimeseriesConcurrently() throws Exception {
+    MManager manager = MManager.getInstance();
+    manager.setStorageGroup("root.laptop");
+    manager.setStorageGroup("root.vehicle");
+
+    int threadNum = 4;
+    int seriesNum = 200;
+    AtomicInteger sharedCreated = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < threadNum; i++) {
+      String device = (i % 2 == 0 ? "root.laptop" : "root.vehicle") + ".d0";
+      int threadIndex = i;
+      futures.add(pool.submit(() -> {
+        for (int j = 0; j < seriesNum; j++) {
+          manager.createTimeseries(device + ".t" + threadIndex + "_s" + j, TSDataType.INT32,
+              TSEncoding.RLE, compressionType, Collections.emptyMap());
+          assertTrue(manager.isPathExist(device + ".t" + threadIndex + "_s" + j));
+        }
+        try {
+          manager.createTimeseries("root.laptop.d0.shared", TSDataType.INT32, TSEncoding.RLE,
+              compressionType, Collections.emptyMap());
+          sharedCreated.incrementAndGet();
+        } catch (PathAlreadyExistException e) {
+          // only one thread can create it
+        }
+        return null;
+      }));
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    pool.shutdown();
+
+    assertEquals(1, sharedCreated.get());
+    assertEquals(threadNum * seriesNum + 1, manager.getAllTimeseriesName("root").size());
+    assertEquals(threadNum / 2 * seriesNum + 1,
+        manager.getAllTimeseriesName("root.laptop").size());
+    assertEquals(threadNum / 2 * seriesNum + 1,
+        manager.getMaximalSeriesNumberAmongStorageGroups());
+    // children are iterated in the order they are created
+    List<String> paths = manager.getAllTimeseriesName("root.vehicle.d0");
+    assertEquals(threadNum / 2 * seriesNum, paths.size());
+    int[] nextIndex = new int[threadNum];
+    for (String path : paths) {
+      String measurement = path.substring("root.vehicle.d0.t".length());
+      int threadIndex = Integer.parseInt(measurement.substring(0, measurement.indexOf('_')));
+      int seriesIndex = Integer.parseInt(measurement.substring(measurement.indexOf('_') + 2));
+      assertEquals(nextIndex[threadIndex]++, seriesIndex);
+    }
+  }
+
+  @Test
+  public void testRollbackFailedCreation() throws Exception {
+    MManager manager = MManager.getInstance();
+    manager.setStorageGroup("root.laptop");
+    int prevSeriesNum = IoTDBConfigDynamicAdapter.getInstance().getTotalTimeseries();
+
+    // the tags are too long to be written into the tag file
+    char[] longValue = new char[IoTDBDescriptor.getInstance().getConfig()
+        .getTagAttributeTotalSize()];
+    Arrays.fill(longValue, 'v');
+    CreateTimeSeriesPlan plan = new CreateTimeSeriesPlan(new Path("root.laptop.d0.s0"),
+        TSDataType.INT32, TSEncoding.RLE, compressionType, Collections.emptyMap(),
+        Collections.singletonMap("tag", new String(longValue)), null, null);
+    try {
+      manager.createTimeseries(plan);
+      fail();
+    } catch (MetadataException e) {
+      // expected
+    }
+    assertFalse(manager.isPathExist("root.laptop.d0.s0"));
+    assertEquals(prevSeriesNum, IoTDBConfigDynamicAdapter.getInstance().getTotalTimeseries());
+
+    manager.createTimeseries("root.laptop.d0.s0", TSDataType.INT32, TSEncoding.RLE,
+        compressionType, Collections.emptyMap());
+    assertTrue(manager.isPathExist("root.laptop.d0.s0"));
+  }
 }
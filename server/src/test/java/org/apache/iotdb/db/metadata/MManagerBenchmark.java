@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * MManager benchmark of creating timeseries under different storage groups while the existing
+ * timeseries are looked up, as an insertion with schema auto creation does.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MManagerBenchmark {
+
+  private static final int STORAGE_GROUP_NUM = 8;
+  private static final int DEVICE_NUM = 100;
+  private static final int MEASUREMENT_NUM = 100;
+
+  private MManager manager;
+  private AtomicInteger createdNum = new AtomicInteger();
+
+  @Setup(Level.Trial)
+  public void setUp() throws MetadataException {
+    EnvironmentUtils.envSetUp();
+    manager = MManager.getInstance();
+    for (int i = 0; i < STORAGE_GROUP_NUM; i++) {
+      manager.setStorageGroup("root.sg" + i);
+      for (int j = 0; j < DEVICE_NUM; j++) {
+        for (int k = 0; k < MEASUREMENT_NUM; k++) {
+          manager.createTimeseries(getPath(i, j, "s" + k), TSDataType.INT64, TSEncoding.RLE,
+              CompressionType.SNAPPY, Collections.emptyMap());
+        }
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private static String getPath(int storageGroup, int device, String measurement) {
+    return "root.sg" + storageGroup + ".d" + device + "." + measurement;
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(2)
+  public void create() throws MetadataException {
+    int num = createdNum.getAndIncrement();
+    manager.createTimeseries(getPath(num % STORAGE_GROUP_NUM, num / STORAGE_GROUP_NUM % DEVICE_NUM,
+        "n" + num), TSDataType.DOUBLE, TSEncoding.GORILLA, CompressionType.SNAPPY,
+        Collections.emptyMap());
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(6)
+  public TSDataType lookup() throws MetadataException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int storageGroup = random.nextInt(STORAGE_GROUP_NUM);
+    int device = random.nextInt(DEVICE_NUM);
+    manager.getDeviceNodeWithAutoCreateStorageGroup("root.sg" + storageGroup + ".d" + device);
+    return manager.getSeriesType(getPath(storageGroup, device, "s" + random.nextInt(
+        MEASUREMENT_NUM)));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(MManagerBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
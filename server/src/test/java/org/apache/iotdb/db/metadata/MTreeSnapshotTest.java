@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metadata.mnode.LeafMNode;
+import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
+import org.apache.iotdb.db.query.dataset.ShowTimeSeriesResult;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MTreeSnapshotTest {
+
+  private MManager manager;
+
+  @Before
+  public void setUp() {
+    EnvironmentUtils.envSetUp();
+    manager = MManager.getInstance();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testRecoverFromSnapshotAndLog() throws Exception {
+    manager.setStorageGroup("root.laptop");
+    manager.setStorageGroup("root.vehicle.sg1");
+    manager.setStorageGroup("root.vehicle.sg2");
+    Map<String, String> props = new HashMap<>();
+    props.put("max_point_number", "3");
+    manager.createTimeseries(new CreateTimeSeriesPlan(new Path("root.laptop.d1.s1"),
+        TSDataType.FLOAT, TSEncoding.RLE, CompressionType.SNAPPY, props,
+        Collections.singletonMap("unit", "c"), null, "temperature"));
+    manager.createTimeseries("root.laptop.d1.s2", TSDataType.INT32, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, Collections.emptyMap());
+    manager.createTimeseries("root.laptop.d2.s1", TSDataType.INT64, TSEncoding.TS_2DIFF,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    manager.createTimeseries("root.vehicle.sg1.d1.s1", TSDataType.TEXT, TSEncoding.PLAIN,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    manager.createTimeseries("root.vehicle.sg2.d1.s1", TSDataType.BOOLEAN, TSEncoding.PLAIN,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    manager.setTTL("root.vehicle.sg1", 1000);
+    manager.deleteTimeseries("root.laptop.d1.s2");
+
+    manager.createMTreeSnapshot();
+    File snapshotFile = new File(IoTDBDescriptor.getInstance().getConfig().getSchemaDir(),
+        MetadataConstant.MTREE_SNAPSHOT);
+    assertTrue(snapshotFile.exists());
+
+    // the log tail after the snapshot
+    manager.createTimeseries("root.laptop.d1.s3", TSDataType.DOUBLE, TSEncoding.GORILLA,
+        CompressionType.SNAPPY, Collections.emptyMap());
+    manager.deleteTimeseries("root.laptop.d2.s1");
+    manager.deleteStorageGroups(Collections.singletonList("root.vehicle.sg2"));
+
+    manager.clear();
+    manager.init();
+
+    assertTrue(manager.isPathExist("root.laptop.d1.s1"));
+    assertFalse(manager.isPathExist("root.laptop.d1.s2"));
+    assertTrue(manager.isPathExist("root.laptop.d1.s3"));
+    assertFalse(manager.isPathExist("root.laptop.d2"));
+    assertTrue(manager.isPathExist("root.vehicle.sg1.d1.s1"));
+    assertFalse(manager.isPathExist("root.vehicle.sg2"));
+    assertEquals(1000, manager.getStorageGroupNode("root.vehicle.sg1").getDataTTL());
+
+    LeafMNode leaf = (LeafMNode) manager.getNodeByPath("root.laptop.d1.temperature");
+    assertEquals("s1", leaf.getName());
+    assertEquals(TSDataType.FLOAT, leaf.getSchema().getType());
+    assertEquals(TSEncoding.RLE, leaf.getSchema().getEncodingType());
+    assertEquals(CompressionType.SNAPPY, leaf.getSchema().getCompressor());
+    assertEquals(props, leaf.getSchema().getProps());
+
+    List<ShowTimeSeriesResult> results = manager.getAllTimeseriesSchema(
+        new ShowTimeSeriesPlan(new Path("root"), false, "unit", "c", 0, 0));
+    assertEquals(1, results.size());
+    assertEquals("root.laptop.d1.s1", results.get(0).getName());
+    assertEquals("c", results.get(0).getTagAndAttribute().get("unit"));
+  }
+
+  @Test
+  public void testIncrementalSnapshot() throws Exception {
+    manager.setStorageGroup("root.sg");
+    manager.createTimeseries("root.sg.d1.s1", TSDataType.INT32, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, Collections.emptyMap());
+    manager.createMTreeSnapshot();
+
+    // the second snapshot is built from the first one and the log after it
+    manager.createTimeseries("root.sg.d1.s2", TSDataType.INT32, TSEncoding.PLAIN,
+        CompressionType.UNCOMPRESSED, Collections.emptyMap());
+    manager.createMTreeSnapshot();
+
+    File logFile = new File(IoTDBDescriptor.getInstance().getConfig().getSchemaDir(),
+        MetadataConstant.METADATA_LOG);
+    MTreeSnapshot snapshot = new MTreeSnapshot(
+        IoTDBDescriptor.getInstance().getConfig().getSchemaDir(), MetadataConstant.METADATA_LOG,
+        1);
+    MTree mtree = snapshot.load().left;
+    assertEquals(logFile.length(), (long) snapshot.load().right);
+    assertTrue(mtree.isPathExist("root.sg.d1.s1"));
+    assertTrue(mtree.isPathExist("root.sg.d1.s2"));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.qp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+import java.util.Arrays;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.qp.strategy.ParseDriver;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.junit.Test;
+
+public class PlanTemplateTest {
+
+  private Planner planner = new Planner();
+  private ZoneId zoneId = ZoneId.of("+08:00");
+
+  @Test
+  public void testInsertTemplate() throws QueryProcessException {
+    PlanTemplate template = new PlanTemplate(
+        "insert into root.vehicle.d0(timestamp,s0,s1,s2) values(?, ?, 'a?b', ?)", zoneId, planner);
+    assertEquals(3, template.getParameterCount());
+    assertTrue(template.isInsertTemplate());
+
+    InsertPlan plan = (InsertPlan) template.bind(new Object[]{100L, 1.5, "it's"});
+    assertEquals("root.vehicle.d0", plan.getDeviceId());
+    assertEquals(100L, plan.getTime());
+    assertArrayEquals(new String[]{"s0", "s1", "s2"}, plan.getMeasurements());
+    assertArrayEquals(new String[]{"1.5", "'a?b'", "'it's'"}, plan.getValues());
+
+    // each binding generates a new plan
+    InsertPlan another = (InsertPlan) template.bind(new Object[]{"2020-01-01T00:00:00", 2, "c"});
+    assertEquals(1577808000000L, another.getTime());
+    assertArrayEquals(new String[]{"2", "'a?b'", "'c'"}, another.getValues());
+    assertEquals(100L, plan.getTime());
+  }
+
+  @Test
+  public void testSubstitutedTemplate() throws QueryProcessException {
+    PlanTemplate template = new PlanTemplate(
+        "delete from root.vehicle.d0.s0 where time <= ?", zoneId, planner);
+    assertFalse(template.isInsertTemplate());
+    PhysicalPlan plan = template.bind(new Object[]{10L});
+    assertEquals(10L, ((DeletePlan) plan).getDeleteTime());
+    assertEquals("delete from root.vehicle.d0.s0 where time <= 10",
+        template.getBoundSql(new Object[]{10L}));
+    assertEquals("delete from root.vehicle.d0.s0 where time <= 'a\\'b'",
+        template.getBoundSql(new Object[]{"a'b"}));
+  }
+
+  @Test
+  public void testDeserializeParameters() throws QueryProcessException, IOException {
+    PlanTemplate template = new PlanTemplate(
+        "insert into root.vehicle.d0(timestamp,s0,s1,s2,s3,s4) values(?,?,?,?,?,?)", zoneId,
+        planner);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ReadWriteIOUtils.write(1L, out);
+    ReadWriteIOUtils.write(true, out);
+    ReadWriteIOUtils.write(2, out);
+    ReadWriteIOUtils.write(3.0f, out);
+    ReadWriteIOUtils.write(4.0, out);
+    ReadWriteIOUtils.write("text", out);
+    ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+    Object[] parameters = template.deserializeParameters(Arrays.asList(
+        TSDataType.INT64.ordinal(), TSDataType.BOOLEAN.ordinal(), TSDataType.INT32.ordinal(),
+        TSDataType.FLOAT.ordinal(), TSDataType.DOUBLE.ordinal(), TSDataType.TEXT.ordinal()),
+        buffer);
+    assertArrayEquals(new Object[]{1L, true, 2, 3.0f, 4.0, "text"}, parameters);
+
+    InsertPlan plan = (InsertPlan) template.bind(parameters);
+    assertArrayEquals(new String[]{"true", "2", "3.0", "4.0", "'text'"}, plan.getValues());
+  }
+
+  @Test(expected = QueryProcessException.class)
+  public void testWrongParameterNumber() throws QueryProcessException {
+    PlanTemplate template = new PlanTemplate(
+        "insert into root.vehicle.d0(timestamp,s0) values(?,?)", zoneId, planner);
+    template.bind(new Object[]{1L});
+  }
+
+  @Test(expected = ParseCancellationException.class)
+  public void testSyntaxError() throws QueryProcessException {
+    new PlanTemplate("insert into root.vehicle.d0(timestamp,s0) value(?,?)", zoneId, planner);
+  }
+
+  @Test
+  public void testParseCache() throws QueryProcessException {
+    ParseDriver.clearParseCache();
+    planner.parseSQLToPhysicalPlan("delete from root.vehicle.d0.s0 where time <= 10", zoneId);
+    planner.parseSQLToPhysicalPlan("delete from root.vehicle.d0.s0 where time <= 10", zoneId);
+    assertEquals(1, ParseDriver.getParseCacheSize());
+    DeletePlan plan = (DeletePlan) planner
+        .parseSQLToPhysicalPlan("delete from root.vehicle.d0.s0 where time <= 10", zoneId);
+    assertEquals(10L, plan.getDeleteTime());
+
+    // inserts are not cached, they are prepared instead
+    planner.parseSQLToPhysicalPlan("insert into root.vehicle.d0(timestamp,s0) values(1,1)",
+        zoneId);
+    planner.parseSQLToPhysicalPlan("insert into root.vehicle.d0(timestamp,s0) values(1,1)",
+        zoneId);
+    assertEquals(1, ParseDriver.getParseCacheSize());
+  }
+
+  @Test
+  public void testParseCacheMemory() throws QueryProcessException {
+    ParseDriver.clearParseCache();
+    int statementNum = 20000;
+    for (int i = 0; i < statementNum; i++) {
+      planner.parseSQLToPhysicalPlan("delete from root.vehicle.d0.s0 where time <= " + i, zoneId);
+    }
+    // the trees are evicted by their estimated memory rather than their number
+    assertTrue(ParseDriver.getParseCacheSize() < statementNum);
+    assertTrue(ParseDriver.getParseCacheUsedMemoryProportion() <= 1.01);
+    ParseDriver.clearParseCache();
+    assertEquals(0, ParseDriver.getParseCacheUsedMemoryProportion(), 0);
+  }
+}
@@ -32,6 +32,7 @@ import org.apache.iotdb.db.qp.physical.sys.*;
 import org.apache.iotdb.db.query.fill.LinearFill;
 import org.apache.iotdb.db.query.fill.PreviousFill;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.SchemaUtils;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
@@ -50,6 +51,8 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -127,6 +130,34 @@ public class PhysicalPlanTest {
     assertEquals("sum", mergePlan.getAggregations().get(0));
   }
 
+  @Test
+  public void testApproximateAggregation() throws QueryProcessException, MetadataException {
+    String sqlStr = "select percentile(d1.s1, 0.99), percentile(d1.s1, 1), "
+        + "approx_count_distinct(d1.s1) from root.vehicle";
+    AggregationPlan plan = (AggregationPlan) processor.parseSQLToPhysicalPlan(sqlStr);
+    assertEquals(Arrays.asList("percentile", "percentile", "approx_count_distinct"),
+        plan.getAggregations());
+    assertEquals(Arrays.asList(0.99, 1.0, null), plan.getAggregationParameters());
+    // percentiles of different quantiles are different columns
+    assertEquals(3, plan.getDeduplicatedAggregations().size());
+    assertEquals(Arrays.asList(0.99, 1.0, null), plan.getDeduplicatedAggregationParameters());
+    assertEquals(TSDataType.DOUBLE, SchemaUtils.getAggregationType(plan.getAggregations().get(0)));
+    assertEquals(TSDataType.INT64, SchemaUtils.getAggregationType(plan.getAggregations().get(2)));
+
+    try {
+      processor.parseSQLToPhysicalPlan("select percentile(d1.s1) from root.vehicle");
+      fail();
+    } catch (SQLParserException e) {
+      assertEquals("percentile needs a quantile, e.g. percentile(s1, 0.99)", e.getMessage());
+    }
+    try {
+      processor.parseSQLToPhysicalPlan("select percentile(d1.s1, 1.5) from root.vehicle");
+      fail();
+    } catch (SQLParserException e) {
+      assertEquals("The quantile of percentile should be in [0, 1], but got 1.5", e.getMessage());
+    }
+  }
+
   @Test
   public void testGroupBy1() throws QueryProcessException {
     String sqlStr =
@@ -779,6 +810,36 @@ public class PhysicalPlanTest {
     assertEquals(path2.toString(), plan2.getPaths().get(1).toString());
   }
 
+  @Test
+  public void testExplainAnalyze() throws QueryProcessException {
+    String sqlStr = "explain analyze select s1 from root.vehicle.d1 where time > 10";
+    PhysicalPlan plan = processor.parseSQLToPhysicalPlan(sqlStr);
+    assertEquals(OperatorType.EXPLAIN_ANALYZE, plan.getOperatorType());
+    assertTrue(plan.isQuery());
+    QueryPlan queryPlan = ((ExplainAnalyzePlan) plan).getQueryPlan();
+    assertEquals(OperatorType.QUERY, queryPlan.getOperatorType());
+    assertEquals(Collections.singletonList(new Path("root.vehicle.d1.s1")), plan.getPaths());
+  }
+
+  @Test(expected = SQLParserException.class)
+  public void testExplainAnalyzeNonQuery() throws QueryProcessException {
+    processor.parseSQLToPhysicalPlan("explain analyze set storage group to root.vehicle");
+  }
+
+  @Test
+  public void testShowQueries() throws QueryProcessException {
+    ShowPlan plan = (ShowPlan) processor.parseSQLToPhysicalPlan("show queries");
+    assertEquals("SHOW QUERIES", plan.toString());
+  }
+
+  @Test
+  public void testKillQuery() throws QueryProcessException {
+    KillQueryPlan plan = (KillQueryPlan) processor.parseSQLToPhysicalPlan("kill query 23");
+    assertFalse(plan.isQuery());
+    assertEquals(23, plan.getQueryId());
+    assertEquals("KILL_QUERY 23", plan.toString());
+  }
+
   @Test
   public void testLastPlanDataTypes() throws QueryProcessException {
     String sqlStr1 = "SELECT last s1 FROM root.vehicle.d1";
@@ -28,6 +28,8 @@ import org.apache.iotdb.db.query.aggregation.impl.AvgAggrResult;
 import org.apache.iotdb.db.query.factory.AggregateResultFactory;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -59,6 +61,35 @@ public class AggregateResultTest {
     Assert.assertEquals(1.333d, (double)result.getResult(), 0.01);
   }
 
+  @Test
+  public void subtractAggrResultTest() throws QueryProcessException {
+    Statistics statistics1 = Statistics.getStatsByType(TSDataType.DOUBLE);
+    Statistics statistics2 = Statistics.getStatsByType(TSDataType.DOUBLE);
+    statistics1.update(1L, 1d);
+    statistics1.update(2L, 2d);
+    statistics2.update(3L, 6d);
+
+    for (String aggregation : new String[]{SQLConstant.COUNT, SQLConstant.SUM, SQLConstant.AVG}) {
+      AggregateResult aggrResult1 = AggregateResultFactory
+          .getAggrResultByName(aggregation, TSDataType.DOUBLE);
+      AggregateResult aggrResult2 = AggregateResultFactory
+          .getAggrResultByName(aggregation, TSDataType.DOUBLE);
+      AggregateResult expected = AggregateResultFactory
+          .getAggrResultByName(aggregation, TSDataType.DOUBLE);
+      aggrResult1.updateResultFromStatistics(statistics1);
+      aggrResult2.updateResultFromStatistics(statistics2);
+      expected.updateResultFromStatistics(statistics1);
+      Assert.assertTrue(aggrResult1.isInvertible());
+
+      aggrResult1.merge(aggrResult2);
+      aggrResult1.subtract(aggrResult2);
+      Assert.assertEquals(((Number) expected.getResult()).doubleValue(),
+          ((Number) aggrResult1.getResult()).doubleValue(), 0.0001);
+    }
+    Assert.assertFalse(AggregateResultFactory
+        .getAggrResultByName(SQLConstant.MAX_VALUE, TSDataType.DOUBLE).isInvertible());
+  }
+
   @Test
   public void maxValueAggrResultTest() throws QueryProcessException, IOException {
     AggregateResult maxValueAggrResult1 = AggregateResultFactory
@@ -262,4 +293,74 @@ public class AggregateResultTest {
     Assert.assertEquals(2d, (double)result.getResult(), 0.01);
   }
 
-}
\ No newline at end of file
+
+  @Test
+  public void percentileAggrResultTest() throws IOException {
+    AggregateResult percentileAggrResult1 = AggregateResultFactory
+        .getAggrResultByName(SQLConstant.PERCENTILE, TSDataType.INT32, 0.9);
+    // a merged result keeps its own quantile
+    AggregateResult percentileAggrResult2 = AggregateResultFactory
+        .getAggrResultByName(SQLConstant.PERCENTILE, TSDataType.INT32);
+    Assert.assertFalse(percentileAggrResult1.canUseStatistics());
+    Assert.assertNull(percentileAggrResult1.getResult());
+
+    BatchData batchData1 = new BatchData(TSDataType.INT32);
+    BatchData batchData2 = new BatchData(TSDataType.INT32);
+    for (int i = 1; i <= 50; i++) {
+      batchData1.putInt(i, i);
+      batchData2.putInt(i + 50, i + 50);
+    }
+    percentileAggrResult1.updateResultFromPageData(batchData1);
+    percentileAggrResult2.updateResultFromPageData(batchData2);
+    percentileAggrResult1.merge(percentileAggrResult2);
+
+    // the sketch is exact for a small number of values
+    Assert.assertEquals(90d, (double) percentileAggrResult1.getResult(), 0);
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    percentileAggrResult1.serializeTo(outputStream);
+    ByteBuffer byteBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+    AggregateResult result = AggregateResult.deserializeFrom(byteBuffer);
+    Assert.assertEquals(90d, (double) result.getResult(), 0);
+  }
+
+  @Test
+  public void approxCountDistinctAggrResultTest() throws IOException {
+    AggregateResult distinctAggrResult1 = AggregateResultFactory
+        .getAggrResultByName(SQLConstant.APPROX_COUNT_DISTINCT, TSDataType.TEXT);
+    AggregateResult distinctAggrResult2 = AggregateResultFactory
+        .getAggrResultByName(SQLConstant.APPROX_COUNT_DISTINCT, TSDataType.TEXT);
+    Assert.assertEquals(0L, (long) distinctAggrResult1.getResult());
+
+    BatchData batchData1 = new BatchData(TSDataType.TEXT);
+    BatchData batchData2 = new BatchData(TSDataType.TEXT);
+    for (int i = 0; i < 1000; i++) {
+      batchData1.putBinary(i, Binary.valueOf("v" + i));
+      // half of the values are duplicated
+      batchData2.putBinary(i, Binary.valueOf("v" + (i + 500)));
+    }
+    distinctAggrResult1.updateResultFromPageData(batchData1);
+    distinctAggrResult2.updateResultFromPageData(batchData2);
+    distinctAggrResult1.merge(distinctAggrResult2);
+
+    Assert.assertEquals(1500d, (long) distinctAggrResult1.getResult(), 30);
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    distinctAggrResult1.serializeTo(outputStream);
+    ByteBuffer byteBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+    AggregateResult result = AggregateResult.deserializeFrom(byteBuffer);
+    Assert.assertEquals(distinctAggrResult1.getResult(), result.getResult());
+
+    // most registers are set, so they are all serialized instead of the set ones
+    BatchData batchData3 = new BatchData(TSDataType.TEXT);
+    for (int i = 0; i < 20000; i++) {
+      batchData3.putBinary(i, Binary.valueOf("w" + i));
+    }
+    distinctAggrResult1.updateResultFromPageData(batchData3);
+    outputStream = new ByteArrayOutputStream();
+    distinctAggrResult1.serializeTo(outputStream);
+    byteBuffer = ByteBuffer.wrap(outputStream.toByteArray());
+    result = AggregateResult.deserializeFrom(byteBuffer);
+    Assert.assertEquals(distinctAggrResult1.getResult(), result.getResult());
+  }
+}
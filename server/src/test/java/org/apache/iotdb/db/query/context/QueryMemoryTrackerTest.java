@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.runtime.QueryMemoryExceededException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.query.context.SeriesProfile.Counter;
+import org.apache.iotdb.db.rescon.QueryMemoryPool;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryMemoryTrackerTest {
+
+  private static final String QUERY = "select count(s0), sum(s0) from root.vehicle.d0";
+  private static final String SERIES = "root.vehicle.d0.s0";
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+  private boolean prevEnableExternalSort;
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public QueryMemoryTrackerTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    prevEnableExternalSort = config.isEnableExternalSort();
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    for (int i = 1; i <= 100; i++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, i));
+    }
+    StorageEngine.getInstance().syncCloseAllProcessor();
+    // unsequence data overlapped with the sequence data, which is merged with it
+    for (int i = 40; i <= 60; i++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, -i));
+    }
+    StorageEngine.getInstance().syncCloseAllProcessor();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    config.setEnableExternalSort(prevEnableExternalSort);
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  private RowRecord query(QueryContext context) throws Exception {
+    QueryDataSet dataSet = queryExecutor
+        .processQuery(processor.parseSQLToPhysicalPlan(QUERY), context);
+    return dataSet.next();
+  }
+
+  @Test
+  public void testBudget() {
+    QueryMemoryPool pool = new QueryMemoryPool(1000);
+    QueryMemoryTracker tracker = new QueryMemoryTracker(1, 300, pool);
+    assertTrue(tracker.tryAllocate(200));
+    assertFalse(tracker.tryAllocate(200));
+    try {
+      tracker.allocate(200);
+      fail("the query should exceed its budget");
+    } catch (QueryMemoryExceededException e) {
+      assertEquals("Query 1 needs 200 more bytes of memory, which exceeds its budget of 300 bytes "
+          + "(max_memory_per_query)", e.getMessage());
+    }
+    assertTrue(tracker.isMemoryTight());
+    tracker.release(150);
+    assertEquals(50, tracker.getUsedMemory());
+    assertEquals(200, tracker.getPeakMemory());
+    assertEquals(50, pool.getUsedMemory());
+    assertFalse(tracker.isMemoryTight());
+  }
+
+  @Test
+  public void testPoolExhausted() throws Exception {
+    QueryMemoryPool pool = new QueryMemoryPool(1000);
+    QueryMemoryTracker tracker1 = new QueryMemoryTracker(1, 0, pool);
+    QueryMemoryTracker tracker2 = new QueryMemoryTracker(2, 0, pool);
+    tracker1.allocate(950);
+    try {
+      tracker2.allocate(100);
+      fail("the pool should be exhausted");
+    } catch (QueryMemoryExceededException e) {
+      assertEquals("Query 2 needs 100 more bytes of memory, but the query memory pool is "
+          + "exhausted (950 of 1000 bytes are used)", e.getMessage());
+    }
+    assertTrue(tracker2.isMemoryTight());
+
+    tracker1.releaseAll();
+    assertEquals(0, pool.getUsedMemory());
+    assertTrue(pool.admit());
+    // the memory is not tracked after the query ends
+    tracker1.allocate(100);
+    tracker1.release(100);
+    assertEquals(0, pool.getUsedMemory());
+    tracker2.allocate(100);
+    assertEquals(100, pool.getUsedMemory());
+  }
+
+  @Test
+  public void testSpillOverlappedPages() throws Exception {
+    RowRecord expected = query(new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID));
+
+    config.setEnableExternalSort(true);
+    QueryContext context = new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID);
+    context.enableProfile();
+    QueryMemoryPool pool = new QueryMemoryPool(1 << 20);
+    // enough for the encoded pages but not for the decoded ones
+    context.setMemoryTracker(new QueryMemoryTracker(context.getQueryId(), 1000, pool));
+    RowRecord actual = query(context);
+
+    assertEquals(expected.toString(), actual.toString());
+    assertTrue(context.getSeriesProfiles().get(SERIES).get(Counter.PAGES_SPILLED) > 0);
+    assertTrue(context.getMemoryTracker().getPeakMemory() <= 1000);
+  }
+
+  @Test
+  public void testFailWithoutExternalSort() throws Exception {
+    config.setEnableExternalSort(false);
+    QueryContext context = new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID);
+    QueryMemoryPool pool = new QueryMemoryPool(1 << 20);
+    context.setMemoryTracker(new QueryMemoryTracker(context.getQueryId(), 1000, pool));
+    try {
+      query(context);
+      fail("the query should exceed its budget");
+    } catch (QueryMemoryExceededException e) {
+      assertTrue(e.getMessage().contains("exceeds its budget of 1000 bytes"));
+    }
+  }
+}
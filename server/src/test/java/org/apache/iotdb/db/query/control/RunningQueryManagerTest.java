@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.runtime.QueryKilledException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.dataset.NonAlignEngineDataSet;
+import org.apache.iotdb.db.rescon.QueryMemoryPool;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RunningQueryManagerTest {
+
+  private static final String QUERY = "select count(s0) from root.vehicle.d0";
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+  private long prevSlowQueryThreshold;
+  private boolean prevEnableSlowQueryProfile;
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public RunningQueryManagerTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    prevSlowQueryThreshold = config.getSlowQueryThreshold();
+    prevEnableSlowQueryProfile = config.isEnableSlowQueryProfile();
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    for (int i = 1; i <= 10; i++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, i));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    config.setSlowQueryThreshold(prevSlowQueryThreshold);
+    config.setEnableSlowQueryProfile(prevEnableSlowQueryProfile);
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  private QueryContext registerQuery(String statement) throws Exception {
+    QueryContext context = new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID);
+    RunningQueryManager.getInstance()
+        .register(context, processor.parseSQLToPhysicalPlan(statement), statement, "root");
+    return context;
+  }
+
+  /**
+   * @return the row of the query in the result of SHOW QUERIES, or null if it is not shown
+   */
+  private RowRecord showQuery(long queryId) throws Exception {
+    PhysicalPlan plan = processor.parseSQLToPhysicalPlan("show queries");
+    QueryDataSet dataSet = queryExecutor.processQuery(plan, new QueryContext());
+    RowRecord found = null;
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      if (record.getFields().get(0).getLongV() == queryId) {
+        found = record;
+      }
+    }
+    return found;
+  }
+
+  @Test
+  public void testShowQueries() throws Exception {
+    QueryContext context = registerQuery(QUERY);
+    try {
+      RowRecord record = showQuery(context.getQueryId());
+      assertNotNull(record);
+      assertEquals("root", record.getFields().get(1).getStringValue());
+      assertTrue(record.getFields().get(3).getLongV() >= 0);
+      assertEquals(0, record.getFields().get(4).getLongV());
+      assertEquals(0, record.getFields().get(5).getLongV());
+      assertEquals("running", record.getFields().get(6).getStringValue());
+      assertEquals(QUERY, record.getFields().get(7).getStringValue());
+
+      RunningQueryManager.getInstance().get(context.getQueryId()).addReturnedRows(3);
+      execute("kill query " + context.getQueryId());
+      record = showQuery(context.getQueryId());
+      assertNotNull(record);
+      assertEquals(3, record.getFields().get(4).getLongV());
+      assertEquals("killed", record.getFields().get(6).getStringValue());
+    } finally {
+      RunningQueryManager.getInstance().unregister(context.getQueryId());
+    }
+    assertNull(showQuery(context.getQueryId()));
+  }
+
+  @Test
+  public void testKillQuery() throws Exception {
+    QueryContext context = registerQuery(QUERY);
+    try {
+      execute("kill query " + context.getQueryId());
+      assertTrue(context.isKilled());
+      queryExecutor.processQuery(processor.parseSQLToPhysicalPlan(QUERY), context);
+      fail("a killed query should not read any file");
+    } catch (QueryKilledException e) {
+      assertEquals(String.format("Query %d has been killed", context.getQueryId()),
+          e.getMessage());
+    } finally {
+      RunningQueryManager.getInstance().unregister(context.getQueryId());
+    }
+  }
+
+  @Test
+  public void testKillDisableAlignQuery() throws Exception {
+    String statement = "select s0 from root.vehicle.d0 disable align";
+    QueryContext context = registerQuery(statement);
+    try {
+      NonAlignEngineDataSet dataSet = (NonAlignEngineDataSet) queryExecutor
+          .processQuery(processor.parseSQLToPhysicalPlan(statement), context);
+      execute("kill query " + context.getQueryId());
+      dataSet.fillBuffer(10, null);
+      fail("a killed disable align query should not end normally");
+    } catch (QueryKilledException e) {
+      assertEquals(String.format("Query %d has been killed", context.getQueryId()),
+          e.getMessage());
+    } finally {
+      RunningQueryManager.getInstance().unregister(context.getQueryId());
+    }
+  }
+
+  @Test
+  public void testMemoryReleasedWhenUnregistered() throws Exception {
+    QueryMemoryPool pool = QueryMemoryPool.getInstance();
+    long prevUsedMemory = pool.getUsedMemory();
+    QueryContext context = registerQuery(QUERY);
+    try {
+      context.allocateMemory(100);
+      assertEquals(100, RunningQueryManager.getInstance().get(context.getQueryId()).getMemory());
+      assertEquals(100, showQuery(context.getQueryId()).getFields().get(5).getLongV());
+      assertEquals(prevUsedMemory + 100, pool.getUsedMemory());
+    } finally {
+      RunningQueryManager.getInstance().unregister(context.getQueryId());
+    }
+    assertEquals(prevUsedMemory, pool.getUsedMemory());
+    assertEquals(100, context.getMemoryTracker().getPeakMemory());
+  }
+
+  @Test(expected = QueryProcessException.class)
+  public void testKillNotRunningQuery() throws Exception {
+    execute("kill query " + Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testProfileForSlowQueryLog() throws Exception {
+    config.setSlowQueryThreshold(1);
+    config.setEnableSlowQueryProfile(false);
+    QueryContext context = registerQuery(QUERY);
+    RunningQueryManager.getInstance().unregister(context.getQueryId());
+    assertNull(context.getSeriesProfiles());
+
+    config.setEnableSlowQueryProfile(true);
+    context = registerQuery(QUERY);
+    RunningQueryManager.getInstance().unregister(context.getQueryId());
+    assertNotNull(context.getSeriesProfiles());
+
+    config.setSlowQueryThreshold(0);
+    context = registerQuery(QUERY);
+    RunningQueryManager.getInstance().unregister(context.getQueryId());
+    assertNull(context.getSeriesProfiles());
+    assertFalse(context.isKilled());
+  }
+}
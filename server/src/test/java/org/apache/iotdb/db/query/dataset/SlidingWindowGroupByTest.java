@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.query.aggregation.AggregateResult;
+import org.apache.iotdb.db.query.aggregation.impl.CountAggrResult;
+import org.apache.iotdb.db.query.aggregation.impl.MaxValueAggrResult;
+import org.apache.iotdb.db.query.dataset.groupby.SlidingWindowAggregator;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SlidingWindowGroupByTest {
+
+  private static final String AGGREGATIONS = "count(s0), sum(s0), avg(s0), max_value(s0), "
+      + "min_value(s0), first_value(s0), last_value(s0), max_time(s0), min_time(s0), count(s1), "
+      + "sum(s1), avg(s1), max_value(s1)";
+
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public SlidingWindowGroupByTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE");
+    execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=DOUBLE, ENCODING=RLE");
+    for (int i = 1; i <= 300; i++) {
+      // leave some gaps so some windows and panes are empty
+      if (i % 50 < 12) {
+        continue;
+      }
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0,s1) values(%d,%d,%d.%d)", i,
+          i * 13 % 97, i % 41, i % 7));
+      if (i % 70 == 0) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+    // unsequence data
+    for (int i = 20; i <= 120; i += 9) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, -i));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  @Test
+  public void testWithoutValueFilter() throws Exception {
+    assertSameAsEachWindow("", 0, 310, 30, 10);
+    assertSameAsEachWindow("", 5, 297, 25, 10);
+    assertSameAsEachWindow("", 0, 310, 21, 7);
+    assertSameAsEachWindow("where time > 33 ", 0, 310, 40, 15);
+  }
+
+  @Test
+  public void testWithValueFilter() throws Exception {
+    assertSameAsEachWindow("where s0 > 20 ", 0, 310, 30, 10);
+    assertSameAsEachWindow("where s1 < 30 ", 3, 301, 25, 15);
+  }
+
+  /**
+   * Compare the overlapped windows with the results of querying each window alone.
+   */
+  private void assertSameAsEachWindow(String where, long startTime, long endTime, long interval,
+      long slidingStep) throws Exception {
+    List<RowRecord> windows = query(String.format("select %s from root.vehicle.d0 %s"
+        + "group by ([%d, %d), %dms, %dms)", AGGREGATIONS, where, startTime, endTime, interval,
+        slidingStep));
+    assertEquals((endTime - startTime + slidingStep - 1) / slidingStep, windows.size());
+    for (int i = 0; i < windows.size(); i++) {
+      long windowStartTime = startTime + i * slidingStep;
+      long windowEndTime = Math.min(windowStartTime + interval, endTime);
+      List<RowRecord> expected = query(String.format("select %s from root.vehicle.d0 %s"
+              + "group by ([%d, %d), %dms)", AGGREGATIONS, where, windowStartTime, windowEndTime,
+          interval));
+      assertEquals(1, expected.size());
+      assertSameRecord(expected.get(0), windows.get(i));
+    }
+  }
+
+  private void assertSameRecord(RowRecord expected, RowRecord actual) {
+    assertEquals(expected.getTimestamp(), actual.getTimestamp());
+    for (int j = 0; j < expected.getFields().size(); j++) {
+      Field expectedField = expected.getFields().get(j);
+      Field actualField = actual.getFields().get(j);
+      if (expectedField == null || expectedField.getDataType() == null) {
+        assertTrue(actualField == null || actualField.getDataType() == null);
+      } else if (expectedField.getDataType() == TSDataType.DOUBLE) {
+        // invertible results have rounding errors of subtraction
+        assertEquals(expectedField.getDoubleV(), actualField.getDoubleV(), 1e-6);
+      } else {
+        assertEquals(expectedField.toString(), actualField.toString());
+      }
+    }
+  }
+
+  private List<RowRecord> query(String sql) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(sql);
+    QueryDataSet dataSet = queryExecutor
+        .processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    List<RowRecord> records = new ArrayList<>();
+    while (dataSet.hasNext()) {
+      records.add(dataSet.next());
+    }
+    return records;
+  }
+
+  @Test
+  public void testEachPaneCalculatedOnce() throws Exception {
+    List<AggregateResult> windowResults = new ArrayList<>();
+    windowResults.add(new CountAggrResult());
+    windowResults.add(new MaxValueAggrResult(TSDataType.INT64));
+    List<Long> paneStartTimes = new ArrayList<>();
+    // a point at each time and the value is the time
+    SlidingWindowAggregator aggregator = new SlidingWindowAggregator(0, 100, 20, 15,
+        windowResults, (paneStartTime, paneEndTime) -> {
+      paneStartTimes.add(paneStartTime);
+      assertEquals(5, paneEndTime - paneStartTime);
+      BatchData batchData = new BatchData(TSDataType.INT64);
+      for (long time = paneStartTime; time < paneEndTime; time++) {
+        batchData.putLong(time, time);
+      }
+      List<AggregateResult> paneResults = new ArrayList<>();
+      paneResults.add(new CountAggrResult());
+      paneResults.add(new MaxValueAggrResult(TSDataType.INT64));
+      for (AggregateResult paneResult : paneResults) {
+        batchData.resetBatchData();
+        paneResult.updateResultFromPageData(batchData);
+      }
+      return paneResults;
+    });
+
+    for (long startTime = 0; startTime < 100; startTime += 15) {
+      long endTime = Math.min(startTime + 20, 100);
+      aggregator.calcWindow(startTime, endTime);
+      assertEquals(endTime - startTime, (long) windowResults.get(0).getResult());
+      assertEquals(endTime - 1, (long) windowResults.get(1).getResult());
+    }
+    // [0, 100) is split into 20 panes of gcd(20, 15), each is calculated once
+    List<Long> expectedPaneStartTimes = new ArrayList<>();
+    for (long paneStartTime = 0; paneStartTime < 100; paneStartTime += 5) {
+      expectedPaneStartTimes.add(paneStartTime);
+    }
+    assertEquals(expectedPaneStartTimes, paneStartTimes);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApproximateAggregationTest {
+
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public ApproximateAggregationTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(
+        "SET STORAGE GROUP TO root.vehicle"));
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(
+        "CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE"));
+    // two sealed files and a memtable, the values of the files have chunk statistics which
+    // cannot be used by the sketches
+    for (int i = 1; i <= 100; i++) {
+      queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(String
+          .format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, i % 50 + 1)));
+      if (i % 40 == 0) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testAggregation() throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(
+        "select percentile(s0, 0.5), percentile(s0, 1), approx_count_distinct(s0), count(s0) "
+            + "from root.vehicle.d0");
+    QueryDataSet dataSet = queryExecutor
+        .processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    assertTrue(dataSet.hasNext());
+    RowRecord record = dataSet.next();
+    assertEquals(25.0, record.getFields().get(0).getDoubleV(), 0);
+    assertEquals(50.0, record.getFields().get(1).getDoubleV(), 0);
+    assertEquals(50, record.getFields().get(2).getLongV());
+    assertEquals(100, record.getFields().get(3).getLongV());
+    assertFalse(dataSet.hasNext());
+  }
+
+  @Test
+  public void testGroupBy() throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(
+        "select percentile(s0, 1), approx_count_distinct(s0), count(s0) from root.vehicle.d0 "
+            + "group by ([1, 101), 50ms)");
+    QueryDataSet dataSet = queryExecutor
+        .processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    assertTrue(dataSet.hasNext());
+    RowRecord record = dataSet.next();
+    assertEquals(50.0, record.getFields().get(0).getDoubleV(), 0);
+    assertEquals(50, record.getFields().get(1).getLongV());
+    // count uses the statistics of the file in the interval, which are not counted again
+    assertEquals(50, record.getFields().get(2).getLongV());
+    assertTrue(dataSet.hasNext());
+    record = dataSet.next();
+    assertEquals(50.0, record.getFields().get(0).getDoubleV(), 0);
+    assertEquals(50, record.getFields().get(1).getLongV());
+    assertEquals(50, record.getFields().get(2).getLongV());
+    assertFalse(dataSet.hasNext());
+  }
+
+  @Test
+  public void testAlignByDevice() throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(
+        "select percentile(s0, 1), percentile(s0, 0.5) from root.vehicle.d0 align by device");
+    QueryDataSet dataSet = queryExecutor
+        .processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    assertTrue(dataSet.hasNext());
+    RowRecord record = dataSet.next();
+    // the first field is the device
+    assertEquals(50.0, record.getFields().get(1).getDoubleV(), 0);
+    assertEquals(25.0, record.getFields().get(2).getDoubleV(), 0);
+    assertFalse(dataSet.hasNext());
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExplainAnalyzeTest {
+
+  private static final String SERIES = "root.vehicle.d0.s0";
+
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public ExplainAnalyzeTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+    // two sealed files and a memtable
+    for (int i = 1; i <= 100; i++) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, i));
+      if (i % 40 == 0) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+    // an unsequence point overlapping the second file
+    execute("insert into root.vehicle.d0(timestamp,s0) values(45,-45)");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  /**
+   * @return "timeseries,item" -> value of the result of EXPLAIN ANALYZE
+   */
+  private Map<String, Long> explainAnalyze(String sql) throws Exception {
+    QueryDataSet dataSet = queryExecutor.processQuery(
+        processor.parseSQLToPhysicalPlan("explain analyze " + sql),
+        new QueryContext(EnvironmentUtils.TEST_QUERY_JOB_ID));
+    Map<String, Long> profile = new HashMap<>();
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      profile.put(record.getFields().get(0).getStringValue() + ","
+              + record.getFields().get(1).getStringValue(),
+          Long.parseLong(record.getFields().get(2).getStringValue()));
+    }
+    return profile;
+  }
+
+  @Test
+  public void testRawDataQuery() throws Exception {
+    Map<String, Long> profile = explainAnalyze("select s0 from root.vehicle.d0");
+    assertEquals(100, (long) profile.get("query,result rows"));
+    assertEquals(3, (long) profile.get(SERIES + ",sequence files"));
+    assertEquals(1, (long) profile.get(SERIES + ",unsequence files"));
+    assertTrue(profile.get(SERIES + ",chunks read") >= 4);
+    assertTrue(profile.get(SERIES + ",pages read") >= 4);
+    // all points are decoded, including the overwritten one
+    assertEquals(101, (long) profile.get(SERIES + ",points decoded"));
+    assertTrue(profile.get(SERIES + ",bytes read") > 0);
+    assertTrue(profile.get(SERIES + ",merge time(us)") >= 0);
+  }
+
+  @Test
+  public void testAggregationQuery() throws Exception {
+    Map<String, Long> profile = explainAnalyze("select count(s0) from root.vehicle.d0");
+    assertEquals(1, (long) profile.get("query,result rows"));
+    // the first file does not overlap others, so its statistics are used without reading it
+    assertTrue(profile.get(SERIES + ",files skipped") >= 1);
+    assertTrue(profile.get(SERIES + ",points decoded") < 101);
+  }
+
+  @Test(expected = QueryProcessException.class)
+  public void testDisableAlign() throws Exception {
+    explainAnalyze("select s0 from root.vehicle.d0 disable align");
+  }
+}
@@ -38,6 +38,7 @@ import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.cache.ChunkMetadataCache;
+import org.apache.iotdb.db.engine.cache.QueryResultCache;
 import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.metadata.MManager;
@@ -137,6 +138,7 @@ public class EnvironmentUtils {
       TsFileMetaDataCache.getInstance().clear();
       ChunkMetadataCache.getInstance().clear();
     }
+    QueryResultCache.getInstance().clear();
     // close metadata
     MManager.getInstance().clear();
 
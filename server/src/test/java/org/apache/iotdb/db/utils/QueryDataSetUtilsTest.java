@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.IPlanExecutor;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.AlignByDevicePlan;
+import org.apache.iotdb.db.qp.physical.crud.AlignByDevicePlan.MeasurementType;
+import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
+import org.apache.iotdb.db.query.dataset.DirectAlignByTimeDataSet;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryDataSetUtilsTest {
+
+  private static final int FETCH_SIZE = 7;
+
+  private IPlanExecutor queryExecutor = new PlanExecutor();
+  private Planner processor = new Planner();
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  public QueryDataSetUtilsTest() throws QueryProcessException {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    execute("SET STORAGE GROUP TO root.vehicle");
+    execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE");
+    execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=TEXT, ENCODING=PLAIN");
+    execute("CREATE TIMESERIES root.vehicle.d0.s2 WITH DATATYPE=DOUBLE, ENCODING=GORILLA");
+    execute("CREATE TIMESERIES root.vehicle.d0.s3 WITH DATATYPE=BOOLEAN, ENCODING=PLAIN");
+    execute("CREATE TIMESERIES root.vehicle.d1.s0 WITH DATATYPE=INT32, ENCODING=RLE");
+    for (int i = 1; i <= 100; i++) {
+      // leave some nulls in each series
+      if (i % 3 != 0) {
+        execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, i));
+      }
+      if (i % 4 != 0) {
+        execute(String.format("insert into root.vehicle.d0(timestamp,s1) values(%d,'t%d')", i, i));
+      }
+      if (i % 5 != 0) {
+        execute(String.format("insert into root.vehicle.d0(timestamp,s2,s3) values(%d,%d.5,%s)", i,
+            i, i % 2 == 0));
+      }
+      if (i % 2 == 0) {
+        execute(String.format("insert into root.vehicle.d1(timestamp,s0) values(%d,%d)", i, -i));
+      }
+      if (i == 50) {
+        StorageEngine.getInstance().syncCloseAllProcessor();
+      }
+    }
+    // unsequence data
+    for (int i = 10; i <= 40; i += 7) {
+      execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%d,%d)", i, -i));
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private void execute(String sql) throws Exception {
+    queryExecutor.processNonQuery(processor.parseSQLToPhysicalPlan(sql));
+  }
+
+  @Test
+  public void testRawDataQuery() throws Exception {
+    assertSameAsRowRecords("select * from root.vehicle.d0", true);
+    assertSameAsRowRecords("select s1, s0 from root.vehicle.d0 limit 30 offset 11", true);
+    // the data set with value filter does not write its rows directly
+    assertSameAsRowRecords("select * from root.vehicle.d0 where s0 > 20", false);
+  }
+
+  @Test
+  public void testGroupByQuery() throws Exception {
+    assertSameAsRowRecords("select count(s1), avg(s0), max_value(s2), last_value(s3) "
+        + "from root.vehicle.d0 group by ([0, 110), 9ms)", true);
+    assertSameAsRowRecords("select count(s1), sum(s2) from root.vehicle.d0 where s0 > 30 "
+        + "group by ([0, 110), 10ms, 5ms) limit 9 offset 2", true);
+  }
+
+  @Test
+  public void testAlignByDeviceQuery() throws Exception {
+    assertSameAsRowRecords("select s0, s9, '1', s1 from root.vehicle.* align by device", true);
+    assertSameAsRowRecords("select max_value(s0), sum(s2) from root.vehicle.* "
+        + "group by ([0, 110), 20ms) align by device", true);
+    assertSameAsRowRecords("select * from root.vehicle.* limit 80 offset 70 align by device",
+        true);
+  }
+
+  @Test
+  public void testCompressQueryDataSet() throws Exception {
+    String sql = "select * from root.vehicle.d0";
+    List<TSDataType> dataTypes = query(sql).getDataTypes();
+    List<String> expected = decode(QueryDataSetUtils.convertQueryDataSetByFetchSize(query(sql),
+        1000), dataTypes);
+
+    // smaller than the threshold
+    TSQueryDataSet tsQueryDataSet = QueryDataSetUtils
+        .convertQueryDataSetByFetchSize(query(sql), 1000);
+    ICompressor compressor = ICompressor.getCompressor(CompressionType.SNAPPY);
+    assertSame(tsQueryDataSet,
+        QueryDataSetUtils.compressQueryDataSet(tsQueryDataSet, compressor, 1 << 20));
+    assertFalse(tsQueryDataSet.isCompressed());
+    assertEquals(expected, decode(tsQueryDataSet, dataTypes));
+
+    tsQueryDataSet = QueryDataSetUtils.convertQueryDataSetByFetchSize(query(sql), 1000);
+    int timeSize = tsQueryDataSet.time.remaining();
+    tsQueryDataSet = QueryDataSetUtils.compressQueryDataSet(tsQueryDataSet, compressor, 1024);
+    assertTrue(tsQueryDataSet.isCompressed());
+    assertTrue(tsQueryDataSet.time.remaining() < timeSize);
+
+    IUnCompressor unCompressor = IUnCompressor.getUnCompressor(CompressionType.SNAPPY);
+    tsQueryDataSet.setTime(unCompressor.uncompressHeapBuffer(tsQueryDataSet.time));
+    List<ByteBuffer> valueList = new ArrayList<>();
+    List<ByteBuffer> bitmapList = new ArrayList<>();
+    for (int i = 0; i < dataTypes.size(); i++) {
+      valueList.add(unCompressor.uncompressHeapBuffer(tsQueryDataSet.valueList.get(i)));
+      bitmapList.add(unCompressor.uncompressHeapBuffer(tsQueryDataSet.bitmapList.get(i)));
+    }
+    tsQueryDataSet.setValueList(valueList);
+    tsQueryDataSet.setBitmapList(bitmapList);
+    assertEquals(expected, decode(tsQueryDataSet, dataTypes));
+  }
+
+  /**
+   * compare the rows converted in batches with the RowRecords of another data set of the query.
+   */
+  private void assertSameAsRowRecords(String sql, boolean isDirect) throws Exception {
+    QueryDataSet dataSet = query(sql);
+    // the types of an aggregation are those of its results, not those of the data set
+    List<TSDataType> dataTypes = new ArrayList<>(dataSet.getDataTypes());
+    List<String> expected = new ArrayList<>();
+    while (dataSet.hasNext()) {
+      RowRecord record = dataSet.next();
+      StringBuilder row = new StringBuilder().append(record.getTimestamp());
+      for (int i = 0; i < record.getFields().size(); i++) {
+        Field field = record.getFields().get(i);
+        if (field == null || field.getDataType() == null) {
+          row.append("\tnull");
+        } else {
+          row.append('\t').append(field.getStringValue());
+          dataTypes.set(i, field.getDataType());
+        }
+      }
+      expected.add(row.toString());
+    }
+    assertTrue(expected.size() > FETCH_SIZE);
+
+    dataSet = query(sql);
+    assertEquals(isDirect, dataSet instanceof DirectAlignByTimeDataSet);
+    List<String> actual = new ArrayList<>();
+    while (true) {
+      TSQueryDataSet tsQueryDataSet = QueryDataSetUtils
+          .convertQueryDataSetByFetchSize(dataSet, FETCH_SIZE);
+      List<String> rows = decode(tsQueryDataSet, dataTypes);
+      if (rows.isEmpty()) {
+        break;
+      }
+      assertTrue(rows.size() <= FETCH_SIZE);
+      actual.addAll(rows);
+    }
+    assertEquals(expected, actual);
+  }
+
+  private QueryDataSet query(String sql) throws Exception {
+    QueryPlan queryPlan = (QueryPlan) processor.parseSQLToPhysicalPlan(sql);
+    if (queryPlan instanceof AlignByDevicePlan) {
+      // the types of the device column and the measurement columns, which are set by the service
+      AlignByDevicePlan plan = (AlignByDevicePlan) queryPlan;
+      List<TSDataType> dataTypes = new ArrayList<>();
+      dataTypes.add(TSDataType.TEXT);
+      for (String measurement : plan.getMeasurements()) {
+        dataTypes.add(plan.getMeasurementTypeMap().get(measurement) == MeasurementType.Exist
+            ? plan.getMeasurementDataTypeMap().get(measurement) : TSDataType.TEXT);
+      }
+      plan.setDataTypes(dataTypes);
+    }
+    return queryExecutor.processQuery(queryPlan, EnvironmentUtils.TEST_QUERY_CONTEXT);
+  }
+
+  private List<String> decode(TSQueryDataSet tsQueryDataSet, List<TSDataType> dataTypes) {
+    ByteBuffer timeBuffer = tsQueryDataSet.time;
+    int rowCount = timeBuffer.remaining() / Long.BYTES;
+    List<StringBuilder> rows = new ArrayList<>();
+    for (int i = 0; i < rowCount; i++) {
+      rows.add(new StringBuilder().append(timeBuffer.getLong()));
+    }
+    for (int column = 0; column < dataTypes.size(); column++) {
+      ByteBuffer valueBuffer = tsQueryDataSet.valueList.get(column);
+      ByteBuffer bitmapBuffer = tsQueryDataSet.bitmapList.get(column);
+      assertEquals((rowCount + 7) / 8, bitmapBuffer.remaining());
+      for (int i = 0; i < rowCount; i++) {
+        rows.get(i).append('\t');
+        if ((bitmapBuffer.get(bitmapBuffer.position() + i / 8) & (0x80 >>> (i % 8))) == 0) {
+          rows.get(i).append("null");
+          continue;
+        }
+        Object value = QueryDataSetUtils.readValuesFromBuffer(valueBuffer,
+            new TSDataType[]{dataTypes.get(column)}, 1, 1)[0];
+        switch (dataTypes.get(column)) {
+          case BOOLEAN:
+            rows.get(i).append(((boolean[]) value)[0]);
+            break;
+          case INT32:
+            rows.get(i).append(((int[]) value)[0]);
+            break;
+          case INT64:
+            rows.get(i).append(((long[]) value)[0]);
+            break;
+          case FLOAT:
+            rows.get(i).append(((float[]) value)[0]);
+            break;
+          case DOUBLE:
+            rows.get(i).append(((double[]) value)[0]);
+            break;
+          default:
+            rows.get(i).append(((Binary[]) value)[0]
+                .getStringValue());
+        }
+      }
+      assertEquals(0, valueBuffer.remaining());
+    }
+    List<String> result = new ArrayList<>();
+    for (StringBuilder row : rows) {
+      result.add(row.toString());
+    }
+    return result;
+  }
+}
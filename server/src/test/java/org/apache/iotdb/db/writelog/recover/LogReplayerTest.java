@@ -21,6 +21,7 @@ package org.apache.iotdb.db.writelog.recover;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -119,10 +120,11 @@ public class LogReplayerTest {
       for (int i = 0; i < 5; i++) {
         ReadOnlyMemChunk memChunk = memTable.query("root.sg.device" + i, "sensor" + i, TSDataType.INT64,
             TSEncoding.RLE, Collections.emptyMap(), Long.MIN_VALUE);
-        IPointReader iterator = memChunk.getPointReader();
         if (i == 0) {
-          assertFalse(iterator.hasNextTimeValuePair());
+          // the chunk emptied by the deletion is dropped
+          assertNull(memChunk);
         } else {
+          IPointReader iterator = memChunk.getPointReader();
           assertTrue(iterator.hasNextTimeValuePair());
           TimeValuePair timeValuePair = iterator.nextTimeValuePair();
           assertEquals(i, timeValuePair.getTimestamp());
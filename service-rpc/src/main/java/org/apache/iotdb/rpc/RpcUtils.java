@@ -30,6 +30,19 @@ public class RpcUtils {
 
   public static final TSStatus SUCCESS_STATUS = new TSStatus(TSStatusCode.SUCCESS_STATUS.getStatusCode());
 
+  /**
+   * the key of the compression type of the payloads (query result buffers and batch insertion
+   * values) in the configuration of a session, which the client asks for in TSOpenSessionReq and
+   * the server returns in TSOpenSessionResp if it accepts the type.
+   */
+  public static final String PAYLOAD_COMPRESSION_TYPE = "payload_compression_type";
+
+  /**
+   * the key of the size in bytes below which the payloads are not compressed in the configuration
+   * of TSOpenSessionResp.
+   */
+  public static final String PAYLOAD_COMPRESSION_THRESHOLD = "payload_compression_threshold";
+
   public static TSIService.Iface newSynchronizedClient(TSIService.Iface client) {
     return (TSIService.Iface) Proxy.newProxyInstance(RpcUtils.class.getClassLoader(),
         new Class[]{TSIService.Iface.class}, new SynchronizedHandler(client));
@@ -55,6 +55,8 @@ public enum TSStatusCode {
   PATH_ERROR(410),
   QUERY_PROCESS_ERROR(411),
   WRITE_PROCESS_ERROR(412),
+  QUERY_KILLED_ERROR(413),
+  QUERY_MEMORY_EXCEEDED_ERROR(414),
 
   INTERNAL_SERVER_ERROR(500),
   CLOSE_OPERATION_ERROR(501),
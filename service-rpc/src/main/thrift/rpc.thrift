@@ -91,6 +91,35 @@ struct TSExecuteStatementReq {
   4: optional i32 fetchSize
 }
 
+struct TSPrepareStatementReq {
+  1: required i64 sessionId
+
+  // The statement to be prepared, each '?' out of quotes is a parameter
+  2: required string statement
+}
+
+struct TSPrepareStatementResp {
+  1: required TSStatus status
+  2: optional i64 preparedStatementId
+  3: optional i32 parameterCount
+}
+
+struct TSExecutePreparedStatementReq {
+  1: required i64 sessionId
+
+  2: required i64 statementId
+
+  3: required i64 preparedStatementId
+
+  // the data type of each parameter, the ordinal of TSDataType
+  4: required list<i32> types
+
+  // the parameters serialized one after another by their data types
+  5: required binary values
+
+  6: optional i32 fetchSize
+}
+
 struct TSExecuteBatchStatementResp{
 	1: required list<TSStatus> statusList
 }
@@ -181,6 +210,8 @@ struct TSBatchInsertionReq {
     5: required binary timestamps
     6: required list<i32> types
     7: required i32 size
+    // whether values and timestamps are compressed by the payload compression of the session
+    8: optional bool compressed
 }
 
 struct TSInsertInBatchReq {
@@ -234,6 +265,8 @@ struct TSQueryDataSet{
     2: required list<binary> valueList
     // Bitmap for each column to indicate whether it is a null value
     3: required list<binary> bitmapList
+    // whether the buffers are compressed by the payload compression of the session
+    4: optional bool compressed
 }
 
 struct TSQueryNonAlignDataSet{
@@ -296,4 +329,10 @@ service TSIService {
 	TSStatus deleteData(1:TSDeleteDataReq req);
 
 	i64 requestStatementId(1:i64 sessionId);
+
+	TSPrepareStatementResp prepareStatement(1:TSPrepareStatementReq req);
+
+	TSExecuteStatementResp executePreparedStatement(1:TSExecutePreparedStatementReq req);
+
+	TSStatus closePreparedStatement(1:i64 sessionId, 2:i64 preparedStatementId);
 }
@@ -18,10 +18,13 @@
  */
 package org.apache.iotdb.session;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.iotdb.rpc.BatchExecutionException;
@@ -42,8 +45,11 @@ import org.apache.iotdb.service.rpc.thrift.TSInsertReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
 import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneReq;
 import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -74,6 +80,10 @@ public class Session {
   private ZoneId zoneId;
   private long statementId;
   private int fetchSize;
+  // the payload compression accepted by the server, null if the payloads are not compressed
+  private ICompressor payloadCompressor;
+  private IUnCompressor payloadUnCompressor;
+  private int payloadCompressionThreshold;
 
   public Session(String host, int port) {
     this(host, port, Config.DEFAULT_USER, Config.DEFAULT_PASSWORD);
@@ -100,15 +110,24 @@ public class Session {
   }
 
   public synchronized void open() throws IoTDBConnectionException {
-    open(false, Config.DEFAULT_TIMEOUT_MS);
+    open(false, Config.DEFAULT_TIMEOUT_MS, CompressionType.UNCOMPRESSED);
   }
 
   public synchronized void open(boolean enableRPCCompression) throws IoTDBConnectionException {
-    open(enableRPCCompression, Config.DEFAULT_TIMEOUT_MS);
+    open(enableRPCCompression, Config.DEFAULT_TIMEOUT_MS, CompressionType.UNCOMPRESSED);
   }
 
-  private synchronized void open(boolean enableRPCCompression, int connectionTimeoutInMs)
-      throws IoTDBConnectionException {
+  /**
+   * @param payloadCompressionType the compression of the query results and the batch insertions
+   * asked from the server, which are not compressed if the server does not accept it
+   */
+  public synchronized void open(boolean enableRPCCompression,
+      CompressionType payloadCompressionType) throws IoTDBConnectionException {
+    open(enableRPCCompression, Config.DEFAULT_TIMEOUT_MS, payloadCompressionType);
+  }
+
+  private synchronized void open(boolean enableRPCCompression, int connectionTimeoutInMs,
+      CompressionType payloadCompressionType) throws IoTDBConnectionException {
     if (!isClosed) {
       return;
     }
@@ -130,6 +149,11 @@ public class Session {
     TSOpenSessionReq openReq = new TSOpenSessionReq();
     openReq.setUsername(username);
     openReq.setPassword(password);
+    if (payloadCompressionType != CompressionType.UNCOMPRESSED) {
+      Map<String, String> configuration = new HashMap<>();
+      configuration.put(RpcUtils.PAYLOAD_COMPRESSION_TYPE, payloadCompressionType.name());
+      openReq.setConfiguration(configuration);
+    }
 
     try {
       TSOpenSessionResp openResp = client.openSession(openReq);
@@ -147,6 +171,7 @@ public class Session {
       }
 
       sessionId = openResp.getSessionId();
+      initPayloadCompression(openResp, payloadCompressionType);
 
       statementId = client.requestStatementId(sessionId);
 
@@ -199,6 +224,51 @@ public class Session {
     return true;
   }
 
+  /**
+   * use the payload compression returned by the server, which may differ from the asked one
+   */
+  private void initPayloadCompression(TSOpenSessionResp openResp,
+      CompressionType payloadCompressionType) {
+    payloadCompressor = null;
+    payloadUnCompressor = null;
+    Map<String, String> configuration = openResp.getConfiguration();
+    if (configuration == null || !configuration.containsKey(RpcUtils.PAYLOAD_COMPRESSION_TYPE)) {
+      if (payloadCompressionType != CompressionType.UNCOMPRESSED) {
+        logger.info("The server does not accept the payload compression {}",
+            payloadCompressionType);
+      }
+      return;
+    }
+    CompressionType type = CompressionType
+        .valueOf(configuration.get(RpcUtils.PAYLOAD_COMPRESSION_TYPE));
+    payloadCompressor = ICompressor.getCompressor(type);
+    payloadUnCompressor = IUnCompressor.getUnCompressor(type);
+    payloadCompressionThreshold = Integer
+        .parseInt(configuration.get(RpcUtils.PAYLOAD_COMPRESSION_THRESHOLD));
+  }
+
+  /**
+   * set the timestamps and values of a batch insertion, which are compressed if the session has
+   * payload compression and they are not smaller than the threshold of the server
+   */
+  private void setBatchPayload(TSBatchInsertionReq request, RowBatch rowBatch)
+      throws IoTDBConnectionException {
+    ByteBuffer timeBuffer = SessionUtils.getTimeBuffer(rowBatch);
+    ByteBuffer valueBuffer = SessionUtils.getValueBuffer(rowBatch);
+    if (payloadCompressor != null
+        && timeBuffer.remaining() + valueBuffer.remaining() >= payloadCompressionThreshold) {
+      try {
+        timeBuffer = payloadCompressor.compressHeapBuffer(timeBuffer);
+        valueBuffer = payloadCompressor.compressHeapBuffer(valueBuffer);
+      } catch (IOException e) {
+        throw new IoTDBConnectionException("Cannot compress the batch insertion", e);
+      }
+      request.setCompressed(true);
+    }
+    request.setTimestamps(timeBuffer);
+    request.setValues(valueBuffer);
+  }
+
   /**
    * use batch interface to insert sorted data
    *
@@ -213,8 +283,7 @@ public class Session {
       request.addToMeasurements(measurementSchema.getMeasurementId());
       request.addToTypes(measurementSchema.getType().ordinal());
     }
-    request.setTimestamps(SessionUtils.getTimeBuffer(rowBatch));
-    request.setValues(SessionUtils.getValueBuffer(rowBatch));
+    setBatchPayload(request, rowBatch);
     request.setSize(rowBatch.batchSize);
 
     try {
@@ -441,8 +510,7 @@ public class Session {
       request.addToMeasurements(measurementSchema.getMeasurementId());
       request.addToTypes(measurementSchema.getType().ordinal());
     }
-    request.setTimestamps(SessionUtils.getTimeBuffer(rowBatch));
-    request.setValues(SessionUtils.getValueBuffer(rowBatch));
+    setBatchPayload(request, rowBatch);
     request.setSize(rowBatch.batchSize);
 
     try {
@@ -710,8 +778,14 @@ public class Session {
     }
 
     RpcUtils.verifySuccess(execResp.getStatus());
+    TSQueryDataSet queryDataSet;
+    try {
+      queryDataSet = SessionUtils.uncompress(execResp.queryDataSet, payloadUnCompressor);
+    } catch (IOException e) {
+      throw new IoTDBConnectionException("Cannot uncompress the result from server", e);
+    }
     return new SessionDataSet(sql, execResp.getColumns(), execResp.getDataTypeList(),
-        execResp.getQueryId(), client, sessionId, execResp.queryDataSet);
+        execResp.getQueryId(), client, sessionId, queryDataSet, payloadUnCompressor);
   }
 
   /**
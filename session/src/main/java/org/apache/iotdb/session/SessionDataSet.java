@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.session;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -33,6 +34,7 @@ import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
 import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Field;
@@ -48,8 +50,12 @@ public class SessionDataSet {
   private long queryId;
   private long sessionId;
   private TSIService.Iface client;
+  // uncompress the fetched results, null if the session has no payload compression
+  private IUnCompressor unCompressor;
   private int batchSize = 1024;
   private List<String> columnNameList;
+  private List<String> columnTypeList;
+  private List<String> columnNameDeduplicatedList;
   private List<String> columnTypeDeduplicatedList;
   // duplicated column index -> origin index
   Map<Integer, Integer> duplicateLocation;
@@ -68,15 +74,24 @@ public class SessionDataSet {
 
   public SessionDataSet(String sql, List<String> columnNameList, List<String> columnTypeList,
       long queryId, TSIService.Iface client, long sessionId, TSQueryDataSet queryDataSet) {
+    this(sql, columnNameList, columnTypeList, queryId, client, sessionId, queryDataSet, null);
+  }
+
+  public SessionDataSet(String sql, List<String> columnNameList, List<String> columnTypeList,
+      long queryId, TSIService.Iface client, long sessionId, TSQueryDataSet queryDataSet,
+      IUnCompressor unCompressor) {
+    this.unCompressor = unCompressor;
     this.sessionId = sessionId;
     this.sql = sql;
     this.queryId = queryId;
     this.client = client;
     this.columnNameList = columnNameList;
+    this.columnTypeList = columnTypeList;
     currentBitmap = new byte[columnNameList.size()];
     columnSize = columnNameList.size();
 
     // deduplicate columnTypeList according to columnNameList
+    this.columnNameDeduplicatedList = new ArrayList<>();
     this.columnTypeDeduplicatedList = new ArrayList<>();
     // duplicated column index -> origin index
     duplicateLocation = new HashMap<>();
@@ -88,6 +103,7 @@ public class SessionDataSet {
         duplicateLocation.put(i, columnMap.get(name));
       } else {
         columnMap.put(name, i);
+        columnNameDeduplicatedList.add(name);
         columnTypeDeduplicatedList.add(columnTypeList.get(i));
       }
     }
@@ -107,27 +123,32 @@ public class SessionDataSet {
     return columnNameList;
   }
 
+  public List<String> getColumnTypes() {
+    return columnTypeList;
+  }
+
+  /**
+   * @return the names of the columns in a TSQueryDataSet, where the duplicated columns are
+   * removed.
+   */
+  public List<String> getColumnNamesDeduplicated() {
+    return columnNameDeduplicatedList;
+  }
+
+  public List<String> getColumnTypesDeduplicated() {
+    return columnTypeDeduplicatedList;
+  }
+
   public boolean hasNext() throws IoTDBConnectionException, StatementExecutionException {
     if (hasCachedRecord) {
       return true;
     }
     if (tsQueryDataSet == null || !tsQueryDataSet.time.hasRemaining()) {
-      TSFetchResultsReq req = new TSFetchResultsReq(sessionId, sql, batchSize, queryId, true);
-      try {
-        TSFetchResultsResp resp = client.fetchResults(req);
-        RpcUtils.verifySuccess(resp.getStatus());
-
-        if (!resp.hasResultSet) {
-          return false;
-        } else {
-          tsQueryDataSet = resp.getQueryDataSet();
-          rowsIndex = 0;
-        }
-      } catch (TException e) {
-        throw new IoTDBConnectionException(
-            "Cannot fetch result from server, because of network connection: {} ", e);
+      tsQueryDataSet = fetchResults();
+      if (tsQueryDataSet == null) {
+        return false;
       }
-
+      rowsIndex = 0;
     }
 
     constructOneRow();
@@ -135,6 +156,39 @@ public class SessionDataSet {
     return true;
   }
 
+  /**
+   * Get the next batch of the result in the columnar format it is transferred in, so a caller
+   * can decode the columns by itself instead of building a RowRecord for each row. The columns
+   * are those of getColumnNamesDeduplicated(). This must not be mixed with hasNext() and next().
+   *
+   * @return the next batch, or null if there is no more result
+   */
+  public TSQueryDataSet nextQueryDataSet()
+      throws IoTDBConnectionException, StatementExecutionException {
+    TSQueryDataSet dataSet = tsQueryDataSet;
+    tsQueryDataSet = null;
+    if (dataSet != null && dataSet.time.hasRemaining()) {
+      return dataSet;
+    }
+    return fetchResults();
+  }
+
+  private TSQueryDataSet fetchResults()
+      throws IoTDBConnectionException, StatementExecutionException {
+    TSFetchResultsReq req = new TSFetchResultsReq(sessionId, sql, batchSize, queryId, true);
+    try {
+      TSFetchResultsResp resp = client.fetchResults(req);
+      RpcUtils.verifySuccess(resp.getStatus());
+      return resp.hasResultSet ? SessionUtils.uncompress(resp.getQueryDataSet(), unCompressor)
+          : null;
+    } catch (TException e) {
+      throw new IoTDBConnectionException(
+          "Cannot fetch result from server, because of network connection: {} ", e);
+    } catch (IOException e) {
+      throw new IoTDBConnectionException("Cannot uncompress the result from server", e);
+    }
+  }
+
 
 
   private void constructOneRow() {
@@ -18,13 +18,18 @@
  */
 package org.apache.iotdb.session;
 
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.write.record.RowBatch;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 public class SessionUtils {
 
@@ -87,4 +92,32 @@ public class SessionUtils {
     valueBuffer.flip();
     return valueBuffer;
   }
+
+  /**
+   * uncompress the buffers of a TSQueryDataSet compressed by the server, the data set is returned
+   * as it is if it is not compressed.
+   *
+   * @param unCompressor the uncompressor of the payload compression of the session, null if the
+   * session has no payload compression
+   */
+  public static TSQueryDataSet uncompress(TSQueryDataSet tsQueryDataSet,
+      IUnCompressor unCompressor) throws IOException {
+    if (tsQueryDataSet == null || !tsQueryDataSet.isCompressed()) {
+      return tsQueryDataSet;
+    }
+    if (unCompressor == null) {
+      throw new IOException("The result is compressed but the session has no payload compression");
+    }
+    tsQueryDataSet.setTime(unCompressor.uncompressHeapBuffer(tsQueryDataSet.time));
+    List<ByteBuffer> valueList = new ArrayList<>(tsQueryDataSet.valueList.size());
+    List<ByteBuffer> bitmapList = new ArrayList<>(tsQueryDataSet.bitmapList.size());
+    for (int i = 0; i < tsQueryDataSet.valueList.size(); i++) {
+      valueList.add(unCompressor.uncompressHeapBuffer(tsQueryDataSet.valueList.get(i)));
+      bitmapList.add(unCompressor.uncompressHeapBuffer(tsQueryDataSet.bitmapList.get(i)));
+    }
+    tsQueryDataSet.setValueList(valueList);
+    tsQueryDataSet.setBitmapList(bitmapList);
+    tsQueryDataSet.setCompressed(false);
+    return tsQueryDataSet;
+  }
 }
@@ -37,6 +37,12 @@ class IoTDBOptions(
 
   val upperBound = parameters.getOrElse("upperBound", "0")
 
+  // the number of rows fetched by each RPC of the columnar (v2) reader
+  val fetchSize = parameters.getOrElse("fetchSize", "10000")
+
+  // the columnar (v2) reader plans one partition for about this number of points
+  val pointsPerPartition = parameters.getOrElse("pointsPerPartition", "10000000")
+
   def get(name: String): Unit = {
 
   }
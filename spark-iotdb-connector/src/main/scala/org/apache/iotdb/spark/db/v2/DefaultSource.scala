@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.spark.db.v2
+
+import org.apache.iotdb.spark.db.IoTDBOptions
+import org.apache.spark.sql.catalyst.util.CaseInsensitiveMap
+import org.apache.spark.sql.sources.v2.reader.DataSourceReader
+import org.apache.spark.sql.sources.v2.{DataSourceOptions, DataSourceV2, ReadSupport}
+
+import scala.collection.JavaConverters._
+
+/**
+  * The DataSource V2 entry of IoTDB, which reads query results through Session as columnar
+  * batches. It takes the same options as org.apache.iotdb.spark.db, and only raw data queries
+  * are supported.
+  */
+class DefaultSource extends DataSourceV2 with ReadSupport {
+
+  override def createReader(options: DataSourceOptions): DataSourceReader = {
+    // the keys of DataSourceOptions are lower cased
+    val iotdbOptions = new IoTDBOptions(CaseInsensitiveMap(options.asMap().asScala.toMap))
+    new IoTDBDataSourceReader(iotdbOptions)
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.spark.db.v2
+
+import java.util
+
+import org.apache.iotdb.spark.db.{IoTDBOptions, SQLConstant}
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.sources.Filter
+import org.apache.spark.sql.sources.v2.reader._
+import org.apache.spark.sql.types.StructType
+import org.apache.spark.sql.vectorized.ColumnarBatch
+import org.slf4j.LoggerFactory
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * The columnar reader of IoTDB. Only the required timeseries are queried, and the pushed
+  * filters are translated into the where clause together with the one of options.sql. The
+  * timeseries are selected by their full paths, so the paths in the where clause of options.sql
+  * should be full paths too.
+  *
+  * The query is split into partitions of disjoint time ranges. The number of partitions is given
+  * by numPartition together with lowerBound and upperBound as the row based reader does,
+  * otherwise it is estimated by counting the points of the required timeseries in each storage
+  * group, so that each partition reads about pointsPerPartition points.
+  */
+class IoTDBDataSourceReader(options: IoTDBOptions) extends DataSourceReader
+  with SupportsPushDownRequiredColumns with SupportsPushDownFilters
+  with SupportsScanColumnarBatch {
+
+  private final val logger = LoggerFactory.getLogger(classOf[IoTDBDataSourceReader])
+
+  private lazy val fullSchema: StructType = IoTDBSessions.inferSchema(options)
+  private var requiredSchema: StructType = _
+  private var pushed: Array[Filter] = Array.empty
+
+  override def readSchema(): StructType = {
+    if (requiredSchema == null) fullSchema else requiredSchema
+  }
+
+  override def pruneColumns(requiredSchema: StructType): Unit = {
+    this.requiredSchema = requiredSchema
+  }
+
+  override def pushFilters(filters: Array[Filter]): Array[Filter] = {
+    val (supported, unsupported) =
+      filters.partition(IoTDBFilters.compile(_, fullSchema).isDefined)
+    pushed = supported
+    unsupported
+  }
+
+  override def pushedFilters(): Array[Filter] = pushed
+
+  override def planInputPartitions(): util.List[InputPartition[InternalRow]] = {
+    throw new UnsupportedOperationException("IoTDB v2 source only reads columnar batches")
+  }
+
+  override def planBatchInputPartitions(): util.List[InputPartition[ColumnarBatch]] = {
+    val schema = readSchema()
+    var series = schema.fieldNames.filter(_ != SQLConstant.TIMESTAMP_STR).toSeq
+    if (series.isEmpty) {
+      // no timeseries is required, e.g., count(), query all of them to keep every row
+      series = fullSchema.fieldNames.filter(_ != SQLConstant.TIMESTAMP_STR).toSeq
+    }
+
+    val predicates = new ArrayBuffer[String]()
+    IoTDBDataSourceReader.wherePredicate(options.sql)
+      .foreach(predicate => predicates += s"($predicate)")
+    predicates ++= pushed.flatMap(IoTDBFilters.compile(_, fullSchema))
+    val selectClause = IoTDBDataSourceReader.toSelectClause(series)
+
+    val timeRanges = planTimeRanges(series, predicates)
+    logger.info("The query {} is split into {} partitions", selectClause, timeRanges.size)
+    timeRanges.map { timeRange =>
+      val allPredicates = timeRange.map { case (start, end) =>
+        s"${SQLConstant.RESERVED_TIME} >= $start and ${SQLConstant.RESERVED_TIME} <= $end"
+      }.toSeq ++ predicates
+      val sql = if (allPredicates.isEmpty) selectClause
+      else s"$selectClause ${SQLConstant.WHERE} ${allPredicates.mkString(" and ")}"
+      new IoTDBInputPartition(options, sql, schema): InputPartition[ColumnarBatch]
+    }.asJava
+  }
+
+  /**
+    * @return the time range of each partition, None means the whole time range
+    */
+  private def planTimeRanges(series: Seq[String],
+                             predicates: Seq[String]): Seq[Option[(Long, Long)]] = {
+    val (filterLower, filterUpper) = IoTDBFilters.timeRange(pushed)
+    val lowerBound = options.lowerBound.toLong
+    val upperBound = options.upperBound.toLong
+    val numPartition = options.numPartition.toInt
+    if (numPartition > 1 && lowerBound < upperBound) {
+      return IoTDBDataSourceReader.splitTimeRange(math.max(lowerBound, filterLower),
+        math.min(upperBound, filterUpper), numPartition)
+    }
+
+    try {
+      val storageGroups = IoTDBSessions.getStorageGroups(options)
+      var pointNum = 0L
+      var minTime = Long.MaxValue
+      var maxTime = Long.MinValue
+      // the data volume of each storage group
+      series.groupBy(path => storageGroups.find(sg => path.startsWith(sg + "."))).values
+        .foreach { seriesInGroup =>
+          val (count, min, max) = countPoints(seriesInGroup, predicates)
+          pointNum += count
+          minTime = math.min(minTime, min)
+          maxTime = math.max(maxTime, max)
+        }
+      if (pointNum == 0) {
+        return Seq(None)
+      }
+      val partitionNum = math.max(1L,
+        math.ceil(pointNum.toDouble / options.pointsPerPartition.toLong).toLong)
+      IoTDBDataSourceReader.splitTimeRange(math.max(minTime, filterLower),
+        math.min(maxTime, filterUpper), partitionNum)
+    } catch {
+      case e: Exception =>
+        logger.warn(s"Cannot estimate the data volume of ${options.sql}, use one partition", e)
+        Seq(None)
+    }
+  }
+
+  /**
+    * @return the number of points, the min time and the max time of the timeseries
+    */
+  private def countPoints(series: Seq[String], predicates: Seq[String]): (Long, Long, Long) = {
+    val aggregations = IoTDBDataSourceReader.toSuffixPaths(series).flatMap(path =>
+      Seq(s"count($path)", s"min_time($path)", s"max_time($path)"))
+    var sql = s"select ${aggregations.mkString(", ")} from ${IoTDBDataSourceReader.ROOT}"
+    if (predicates.nonEmpty) {
+      sql += s" ${SQLConstant.WHERE} ${predicates.mkString(" and ")}"
+    }
+    IoTDBSessions.query(options, sql) { dataSet =>
+      var count = 0L
+      var min = Long.MaxValue
+      var max = Long.MinValue
+      if (dataSet.hasNext) {
+        val columns = dataSet.getColumnNames.asScala
+        val fields = dataSet.next().getFields.asScala
+        columns.zip(fields).filter(_._2.getDataType != null).foreach {
+          case (column, field) if column.startsWith("count(") => count += field.getLongV
+          case (column, field) if column.startsWith("min_time(") =>
+            min = math.min(min, field.getLongV)
+          case (column, field) if column.startsWith("max_time(") =>
+            max = math.max(max, field.getLongV)
+          case _ =>
+        }
+      }
+      (count, min, max)
+    }
+  }
+}
+
+object IoTDBDataSourceReader {
+
+  val ROOT = "root"
+
+  /**
+    * The first where keyword separated by whitespaces, paths cannot contain whitespaces so that
+    * a path node named "where" is not taken as the keyword.
+    */
+  private val WHERE_KEYWORD = s"(?i)\\s+${SQLConstant.WHERE}\\s+".r
+
+  /**
+    * @return the predicate after the where keyword of the sql, None if there is no where clause
+    */
+  def wherePredicate(sql: String): Option[String] = {
+    WHERE_KEYWORD.findFirstMatchIn(sql).map(_.after.toString.trim).filter(_.nonEmpty)
+  }
+
+  /**
+    * The paths relative to "root", they are the full paths again after the from clause "root"
+    * is concatenated, so that exactly the given paths are queried.
+    */
+  def toSuffixPaths(paths: Seq[String]): Seq[String] = {
+    paths.map(_.substring(ROOT.length + 1))
+  }
+
+  def toSelectClause(paths: Seq[String]): String = {
+    s"select ${toSuffixPaths(paths).mkString(", ")} from $ROOT"
+  }
+
+  /**
+    * Split [start, end] evenly into at most partitionNum disjoint ranges.
+    */
+  def splitTimeRange(start: Long, end: Long, partitionNum: Long): Seq[Option[(Long, Long)]] = {
+    if (start > end) {
+      // no data can be found, but the query still runs to return an empty result
+      return Seq(Some((start, end)))
+    }
+    val span = BigInt(end) - BigInt(start) + 1
+    val num = math.max(1L, (span min BigInt(partitionNum)).toLong)
+    (0L until num).map { i =>
+      val rangeStart = BigInt(start) + span * i / num
+      val rangeEnd = BigInt(start) + span * (i + 1) / num - 1
+      Some((rangeStart.toLong, rangeEnd.toLong))
+    }
+  }
+}
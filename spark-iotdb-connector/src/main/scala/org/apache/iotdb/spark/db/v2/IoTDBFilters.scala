@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.spark.db.v2
+
+import org.apache.iotdb.spark.db.SQLConstant
+import org.apache.spark.sql.sources._
+import org.apache.spark.sql.types.StructType
+
+/**
+  * Translate Spark filters into the where clause of IoTDB. The time column is translated into
+  * the time predicate and the other columns, whose names are the full paths of timeseries, into
+  * value predicates.
+  */
+object IoTDBFilters {
+
+  /**
+    * @return the predicate of the filter, or None if it cannot be evaluated by IoTDB
+    */
+  def compile(filter: Filter, schema: StructType): Option[String] = filter match {
+    case EqualTo(attr, value) => comparison(attr, "=", value, schema)
+    case GreaterThan(attr, value) => comparison(attr, ">", value, schema)
+    case GreaterThanOrEqual(attr, value) => comparison(attr, ">=", value, schema)
+    case LessThan(attr, value) => comparison(attr, "<", value, schema)
+    case LessThanOrEqual(attr, value) => comparison(attr, "<=", value, schema)
+    case In(attr, values) if values.nonEmpty =>
+      val constants = values.map(toConstant)
+      if (constants.forall(_.isDefined)) {
+        toPath(attr, schema).map(path => s"$path in (${constants.flatten.mkString(", ")})")
+      } else {
+        None
+      }
+    case And(left, right) =>
+      for (l <- compile(left, schema); r <- compile(right, schema)) yield s"($l and $r)"
+    case Or(left, right) =>
+      for (l <- compile(left, schema); r <- compile(right, schema)) yield s"($l or $r)"
+    case _ => None
+  }
+
+  /**
+    * The time range [lower, upper] that the rows satisfying all the filters are in.
+    */
+  def timeRange(filters: Seq[Filter]): (Long, Long) = {
+    var lower = Long.MinValue
+    var upper = Long.MaxValue
+    filters.foreach {
+      case GreaterThan(SQLConstant.TIMESTAMP_STR, v: Long) => lower = math.max(lower, v + 1)
+      case GreaterThanOrEqual(SQLConstant.TIMESTAMP_STR, v: Long) => lower = math.max(lower, v)
+      case LessThan(SQLConstant.TIMESTAMP_STR, v: Long) => upper = math.min(upper, v - 1)
+      case LessThanOrEqual(SQLConstant.TIMESTAMP_STR, v: Long) => upper = math.min(upper, v)
+      case EqualTo(SQLConstant.TIMESTAMP_STR, v: Long) =>
+        lower = math.max(lower, v)
+        upper = math.min(upper, v)
+      case And(left, right) =>
+        val (l, u) = timeRange(Seq(left, right))
+        lower = math.max(lower, l)
+        upper = math.min(upper, u)
+      case _ =>
+    }
+    (lower, upper)
+  }
+
+  private def comparison(attr: String, operator: String, value: Any,
+                         schema: StructType): Option[String] = {
+    for (path <- toPath(attr, schema); constant <- toConstant(value))
+      yield s"$path $operator $constant"
+  }
+
+  private def toPath(attr: String, schema: StructType): Option[String] = {
+    if (attr == SQLConstant.TIMESTAMP_STR) {
+      Some(SQLConstant.RESERVED_TIME)
+    } else if (schema.fieldNames.contains(attr)) {
+      Some(attr)
+    } else {
+      None
+    }
+  }
+
+  private def toConstant(value: Any): Option[String] = value match {
+    case v: Boolean => Some(v.toString)
+    case v@(_: Int | _: Long) => Some(v.toString)
+    case v: Float if !v.isNaN && !v.isInfinite => Some(v.toString)
+    case v: Double if !v.isNaN && !v.isInfinite => Some(v.toString)
+    case v: String if !v.contains("\"") && !v.contains("\\") => Some("\"" + v + "\"")
+    case _ => None
+  }
+}
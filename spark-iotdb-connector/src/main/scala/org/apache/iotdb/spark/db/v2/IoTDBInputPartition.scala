@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.spark.db.v2
+
+import java.nio.ByteBuffer
+
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet
+import org.apache.iotdb.spark.db.{IoTDBOptions, SQLConstant}
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType
+import org.apache.spark.sql.execution.vectorized.{OnHeapColumnVector, WritableColumnVector}
+import org.apache.spark.sql.sources.v2.reader.{InputPartition, InputPartitionReader}
+import org.apache.spark.sql.types.StructType
+import org.apache.spark.sql.vectorized.{ColumnVector, ColumnarBatch}
+
+/**
+  * A partition of the IoTDB columnar reader, which runs one query.
+  */
+class IoTDBInputPartition(options: IoTDBOptions, sql: String, schema: StructType)
+  extends InputPartition[ColumnarBatch] {
+
+  override def createPartitionReader(): InputPartitionReader[ColumnarBatch] =
+    new IoTDBInputPartitionReader(options, sql, schema)
+}
+
+object IoTDBInputPartitionReader {
+  // the column is the time column
+  private val TIME_COLUMN = -2
+  // the column is not in the query result
+  private val ABSENT_COLUMN = -1
+  // used to do `and` operation with the bitmap to judge whether the value is null
+  private val FLAG = 0x80
+
+  /**
+    * Put the values of a column into the vector, the bitmap marks the rows having values and the
+    * values of these rows are stored one by one.
+    */
+  private[v2] def decodeColumn(vector: WritableColumnVector, dataType: TSDataType,
+                               values: ByteBuffer, bitmap: ByteBuffer, rowNum: Int): Unit = {
+    var currentBitmap = 0
+    var row = 0
+    while (row < rowNum) {
+      // every byte of the bitmap is for 8 rows
+      if (row % 8 == 0) {
+        currentBitmap = bitmap.get()
+      }
+      if (((FLAG >>> (row % 8)) & currentBitmap) == 0) {
+        vector.putNull(row)
+      } else {
+        dataType match {
+          case TSDataType.BOOLEAN => vector.putBoolean(row, values.get() == 1)
+          case TSDataType.INT32 => vector.putInt(row, values.getInt)
+          case TSDataType.INT64 => vector.putLong(row, values.getLong)
+          case TSDataType.FLOAT => vector.putFloat(row, values.getFloat)
+          case TSDataType.DOUBLE => vector.putDouble(row, values.getDouble)
+          case TSDataType.TEXT =>
+            val bytes = new Array[Byte](values.getInt)
+            values.get(bytes)
+            vector.putByteArray(row, bytes)
+          case other => throw new UnsupportedOperationException(s"Unsupported type $other")
+        }
+      }
+      row += 1
+    }
+  }
+}
+
+/**
+  * Read the result of a query as ColumnarBatches. Each batch is decoded from a TSQueryDataSet
+  * fetched by Session, where the values of each column are stored in a buffer together with a
+  * bitmap of the non-null rows, so the values are put into the column vectors directly without
+  * building any row.
+  */
+class IoTDBInputPartitionReader(options: IoTDBOptions, sql: String, schema: StructType)
+  extends InputPartitionReader[ColumnarBatch] {
+
+  import IoTDBInputPartitionReader._
+
+  private val session = IoTDBSessions.open(options)
+  private val dataSet = session.executeQueryStatement(sql)
+  dataSet.setBatchSize(options.fetchSize.toInt)
+
+  private val resultColumns = dataSet.getColumnNamesDeduplicated
+  // the index of each column of the schema in TSQueryDataSet
+  private val columnIndexes = schema.fieldNames.map { name =>
+    if (name == SQLConstant.TIMESTAMP_STR) TIME_COLUMN else resultColumns.indexOf(name)
+  }
+  private val dataTypes = columnIndexes.map { index =>
+    if (index >= 0) TSDataType.valueOf(dataSet.getColumnTypesDeduplicated.get(index)) else null
+  }
+
+  private val vectors: Array[WritableColumnVector] =
+    OnHeapColumnVector.allocateColumns(options.fetchSize.toInt, schema)
+      .map(vector => vector: WritableColumnVector)
+  private val batch = new ColumnarBatch(vectors.map(vector => vector: ColumnVector))
+
+  override def next(): Boolean = {
+    val queryDataSet = dataSet.nextQueryDataSet()
+    if (queryDataSet == null) {
+      false
+    } else {
+      decode(queryDataSet)
+      true
+    }
+  }
+
+  override def get(): ColumnarBatch = batch
+
+  override def close(): Unit = {
+    try {
+      batch.close()
+      dataSet.closeOperationHandle()
+    } finally {
+      session.close()
+    }
+  }
+
+  private def decode(queryDataSet: TSQueryDataSet): Unit = {
+    val rowNum = queryDataSet.time.remaining() / java.lang.Long.BYTES
+    var i = 0
+    while (i < vectors.length) {
+      val vector = vectors(i)
+      vector.reset()
+      vector.reserve(rowNum)
+      columnIndexes(i) match {
+        case TIME_COLUMN =>
+          val times = queryDataSet.time.slice()
+          var row = 0
+          while (row < rowNum) {
+            vector.putLong(row, times.getLong)
+            row += 1
+          }
+        case ABSENT_COLUMN => vector.putNulls(0, rowNum)
+        case index =>
+          decodeColumn(vector, dataTypes(i), queryDataSet.valueList.get(index).slice(),
+            queryDataSet.bitmapList.get(index).slice(), rowNum)
+      }
+      i += 1
+    }
+    batch.setNumRows(rowNum)
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.spark.db.v2
+
+import java.net.URI
+
+import org.apache.iotdb.session.{Session, SessionDataSet}
+import org.apache.iotdb.spark.db.{IoTDBOptions, SQLConstant}
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType
+import org.apache.spark.sql.types._
+
+import scala.collection.JavaConverters._
+
+/**
+  * Helpers of the columnar reader to talk to IoTDB through Session.
+  */
+object IoTDBSessions {
+
+  /**
+    * Open a session to the server of the JDBC style url, e.g. jdbc:iotdb://127.0.0.1:6667/
+    */
+  def open(options: IoTDBOptions): Session = {
+    val uri = new URI(options.url.trim.stripPrefix("jdbc:"))
+    val session = new Session(uri.getHost, uri.getPort, options.user, options.password,
+      options.fetchSize.toInt)
+    session.open()
+    session
+  }
+
+  /**
+    * Run a query and consume its result, the session is closed afterwards.
+    */
+  def query[T](options: IoTDBOptions, sql: String)(consumer: SessionDataSet => T): T = {
+    val session = open(options)
+    try {
+      val dataSet = session.executeQueryStatement(sql)
+      try {
+        consumer(dataSet)
+      } finally {
+        dataSet.closeOperationHandle()
+      }
+    } finally {
+      session.close()
+    }
+  }
+
+  def toSparkType(dataType: String): DataType = TSDataType.valueOf(dataType) match {
+    case TSDataType.BOOLEAN => BooleanType
+    case TSDataType.INT32 => IntegerType
+    case TSDataType.INT64 => LongType
+    case TSDataType.FLOAT => FloatType
+    case TSDataType.DOUBLE => DoubleType
+    case TSDataType.TEXT => StringType
+    case other => throw new UnsupportedOperationException(s"Unsupported type $other")
+  }
+
+  /**
+    * The schema of the result of options.sql, which is the time column followed by the
+    * timeseries.
+    */
+  def inferSchema(options: IoTDBOptions): StructType = {
+    query(options, options.sql) { dataSet =>
+      val fields = dataSet.getColumnNamesDeduplicated.asScala
+        .zip(dataSet.getColumnTypesDeduplicated.asScala)
+        .map { case (name, dataType) => StructField(name, toSparkType(dataType), nullable = true) }
+      StructType(StructField(SQLConstant.TIMESTAMP_STR, LongType, nullable = false) +: fields)
+    }
+  }
+
+  def getStorageGroups(options: IoTDBOptions): Seq[String] = {
+    query(options, "show storage group") { dataSet =>
+      val storageGroups = new scala.collection.mutable.ArrayBuffer[String]()
+      while (dataSet.hasNext) {
+        storageGroups += dataSet.next().getFields.get(0).getStringValue
+      }
+      storageGroups
+    }
+  }
+}
@@ -149,5 +149,26 @@ class IoTDBTest extends FunSuite with BeforeAndAfterAll {
 
     Assert.assertArrayEquals(expect.toCharArray, actual.dropRight(2))
   }
-}
 
+  test("test columnar reader") {
+    val df = spark.read.format("org.apache.iotdb.spark.db.v2")
+      .option("url", "jdbc:iotdb://127.0.0.1:6667/")
+      .option("sql", "select * from root where time < 2000 and time > 1000").load
+
+    Assert.assertEquals(499, df.count())
+    Assert.assertEquals(499, df.select("Time", "root.vehicle.d0.s0").collect().length)
+  }
+
+  test("test columnar reader with pushed filters and partitions") {
+    val df = spark.read.format("org.apache.iotdb.spark.db.v2")
+      .option("url", "jdbc:iotdb://127.0.0.1:6667/")
+      .option("sql", "select * from root")
+      .option("pointsPerPartition", 1000).load
+
+    Assert.assertEquals(499, df.filter("Time < 2000 and Time > 1000").count())
+    val rows = df.filter("Time >= 1000 and Time < 1100")
+      .select("Time", "root.vehicle.d0.s0").collect()
+    Assert.assertEquals(rows.map(_.getLong(0)).sorted.toSeq, rows.map(_.getLong(0)).toSeq)
+    Assert.assertEquals(rows.length, rows.map(_.getLong(0)).distinct.length)
+  }
+}
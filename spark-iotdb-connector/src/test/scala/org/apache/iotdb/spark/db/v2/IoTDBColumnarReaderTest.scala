@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.spark.db.v2
+
+import java.nio.ByteBuffer
+
+import org.apache.iotdb.spark.db.SQLConstant
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType
+import org.apache.spark.sql.execution.vectorized.OnHeapColumnVector
+import org.apache.spark.sql.sources._
+import org.apache.spark.sql.types._
+import org.junit.Assert
+import org.scalatest.FunSuite
+
+class IoTDBColumnarReaderTest extends FunSuite {
+
+  private val schema = StructType(Seq(
+    StructField(SQLConstant.TIMESTAMP_STR, LongType, nullable = false),
+    StructField("root.sg.d1.s1", IntegerType),
+    StructField("root.sg.d1.s2", StringType),
+    StructField("root.sg.d2.s1", DoubleType)))
+
+  test("test compile filters") {
+    Assert.assertEquals(Some("time >= 100"),
+      IoTDBFilters.compile(GreaterThanOrEqual(SQLConstant.TIMESTAMP_STR, 100L), schema))
+    Assert.assertEquals(Some("(root.sg.d1.s1 > 1 and root.sg.d1.s2 = \"a\")"),
+      IoTDBFilters.compile(And(GreaterThan("root.sg.d1.s1", 1),
+        EqualTo("root.sg.d1.s2", "a")), schema))
+    Assert.assertEquals(Some("(root.sg.d2.s1 < 1.5 or root.sg.d1.s1 in (1, 2))"),
+      IoTDBFilters.compile(Or(LessThan("root.sg.d2.s1", 1.5),
+        In("root.sg.d1.s1", Array(1, 2))), schema))
+
+    // unknown columns, unsupported filters and constants are not pushed down
+    Assert.assertEquals(None, IoTDBFilters.compile(EqualTo("root.sg.d3.s1", 1), schema))
+    Assert.assertEquals(None, IoTDBFilters.compile(IsNotNull("root.sg.d1.s1"), schema))
+    Assert.assertEquals(None,
+      IoTDBFilters.compile(And(EqualTo("root.sg.d1.s1", 1), Not(EqualTo("root.sg.d1.s1", 2))),
+        schema))
+    Assert.assertEquals(None, IoTDBFilters.compile(EqualTo("root.sg.d2.s1", Double.NaN), schema))
+    Assert.assertEquals(None, IoTDBFilters.compile(EqualTo("root.sg.d1.s2", "a\"b"), schema))
+  }
+
+  test("test time range") {
+    Assert.assertEquals((11L, 19L), IoTDBFilters.timeRange(Seq(
+      GreaterThan(SQLConstant.TIMESTAMP_STR, 10L),
+      And(LessThan(SQLConstant.TIMESTAMP_STR, 20L), GreaterThan("root.sg.d1.s1", 1)))))
+    Assert.assertEquals((Long.MinValue, Long.MaxValue), IoTDBFilters.timeRange(Seq(
+      Or(LessThan(SQLConstant.TIMESTAMP_STR, 20L), GreaterThan(SQLConstant.TIMESTAMP_STR, 30L)))))
+  }
+
+  test("test split time range") {
+    Assert.assertEquals(Seq(Some((0L, 2L)), Some((3L, 6L)), Some((7L, 10L))),
+      IoTDBDataSourceReader.splitTimeRange(0, 10, 3))
+    Assert.assertEquals(Seq(Some((5L, 5L)), Some((6L, 6L))),
+      IoTDBDataSourceReader.splitTimeRange(5, 6, 10))
+    val ranges = IoTDBDataSourceReader.splitTimeRange(Long.MinValue, Long.MaxValue, 4).flatten
+    Assert.assertEquals(4, ranges.size)
+    Assert.assertEquals(Long.MinValue, ranges.head._1)
+    Assert.assertEquals(Long.MaxValue, ranges.last._2)
+    ranges.sliding(2).foreach(pair => Assert.assertEquals(pair.head._2 + 1, pair(1)._1))
+  }
+
+  test("test select clause") {
+    Assert.assertEquals("select sg.d1.s1, sg.d1.s2, sg.d2.s1 from root",
+      IoTDBDataSourceReader.toSelectClause(Seq("root.sg.d1.s1", "root.sg.d1.s2",
+        "root.sg.d2.s1")))
+  }
+
+  test("test where predicate") {
+    Assert.assertEquals(Some("root.sg.d1.s1 > 1"),
+      IoTDBDataSourceReader.wherePredicate("select s1 from root.sg.d1 WHERE root.sg.d1.s1 > 1"))
+    Assert.assertEquals(Some("root.where.d1.s1 > 1 and time < 10"),
+      IoTDBDataSourceReader.wherePredicate(
+        "select s1 from root.where.d1 Where root.where.d1.s1 > 1 and time < 10"))
+    Assert.assertEquals(None,
+      IoTDBDataSourceReader.wherePredicate("select s1 from root.sg.where"))
+  }
+
+  test("test decode column") {
+    // rows 0, 2 and 9 of 10 rows have values
+    val bitmap = ByteBuffer.wrap(Array(0xa0.toByte, 0x40.toByte))
+    val intValues = ByteBuffer.allocate(12).putInt(1).putInt(2).putInt(3)
+    intValues.flip()
+    val intVector = new OnHeapColumnVector(10, IntegerType)
+    IoTDBInputPartitionReader.decodeColumn(intVector, TSDataType.INT32, intValues, bitmap.slice(),
+      10)
+    Assert.assertEquals(1, intVector.getInt(0))
+    Assert.assertTrue(intVector.isNullAt(1))
+    Assert.assertEquals(2, intVector.getInt(2))
+    Assert.assertTrue(intVector.isNullAt(8))
+    Assert.assertEquals(3, intVector.getInt(9))
+    Assert.assertEquals(7, intVector.numNulls())
+
+    val textValues = ByteBuffer.allocate(18)
+    Seq("a", "bc", "def").foreach(v => textValues.putInt(v.length).put(v.getBytes))
+    textValues.flip()
+    val textVector = new OnHeapColumnVector(10, StringType)
+    IoTDBInputPartitionReader.decodeColumn(textVector, TSDataType.TEXT, textValues,
+      bitmap.slice(), 10)
+    Assert.assertEquals("a", textVector.getUTF8String(0).toString)
+    Assert.assertEquals("bc", textVector.getUTF8String(2).toString)
+    Assert.assertEquals("def", textVector.getUTF8String(9).toString)
+    Assert.assertTrue(textVector.isNullAt(3))
+  }
+}
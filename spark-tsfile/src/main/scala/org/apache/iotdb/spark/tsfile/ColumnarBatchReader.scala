@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.spark.tsfile
+
+import java.io.Closeable
+import java.nio.charset.StandardCharsets
+import java.util
+
+import org.apache.iotdb.spark.tsfile.ColumnarBatchReader.{RowGroup, SeriesCursor}
+import org.apache.iotdb.tsfile.common.constant.QueryConstant
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader
+import org.apache.iotdb.tsfile.read.common.{BatchData, Path, TimeRange}
+import org.apache.iotdb.tsfile.read.controller.MetadataQuerierByFileImpl
+import org.apache.iotdb.tsfile.read.filter.basic.{Filter => TsFileFilter}
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory
+import org.apache.iotdb.tsfile.read.filter.{TimeFilter, ValueFilter}
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader
+import org.apache.iotdb.tsfile.utils.Binary
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.execution.vectorized.{ColumnVectorUtils, OnHeapColumnVector, WritableColumnVector}
+import org.apache.spark.sql.sources._
+import org.apache.spark.sql.types._
+import org.apache.spark.sql.vectorized.{ColumnVector, ColumnarBatch}
+
+import scala.collection.JavaConversions._
+import scala.collection.mutable
+
+/**
+  * This class reads the data of one partition of a TsFile into ColumnarBatches.
+  *
+  * The series of a row group are merged by time into rows, and the values are copied from the
+  * decoded pages into the column vectors, so no RowRecord, Field or Row is created for a point.
+  * Chunks and pages whose statistics cannot satisfy the pushed-down filters are neither read nor
+  * decoded. The pushed-down filters are only used to skip data: Spark still evaluates them on the
+  * returned rows.
+  *
+  * @param reader          TsFile reader, closed together with this reader
+  * @param rowGroups       row groups of this partition
+  * @param requiredSchema  the columns to read from the file
+  * @param partitionSchema the partition columns
+  * @param partitionValues the values of the partition columns
+  * @param capacity        the max number of rows in a batch
+  */
+private[tsfile] class ColumnarBatchReader(reader: TsFileSequenceReader,
+                                          rowGroups: Seq[RowGroup],
+                                          requiredSchema: StructType,
+                                          partitionSchema: StructType,
+                                          partitionValues: InternalRow,
+                                          capacity: Int)
+  extends Iterator[ColumnarBatch] with Closeable {
+
+  private val vectors = OnHeapColumnVector.allocateColumns(capacity,
+    StructType(requiredSchema.fields ++ partitionSchema.fields))
+  private val batch = new ColumnarBatch(vectors.toArray[ColumnVector])
+
+  private val timeOrdinal = requiredSchema.fieldNames.indexOf(QueryConstant.RESERVED_TIME)
+  private val deviceOrdinal = requiredSchema.fieldNames.indexOf(NarrowConverter.DEVICE_NAME)
+
+  private val rowGroupIterator = rowGroups.iterator
+  private var cursors: Array[SeriesCursor] = _
+  private var ordinals: Array[Int] = _
+  private var nullOrdinals: Array[Int] = _
+  private var deviceBytes: Array[Byte] = _
+
+  private var batchReady = false
+
+  for (i <- partitionSchema.indices) {
+    ColumnVectorUtils.populate(vectors(requiredSchema.length + i), partitionValues, i)
+    vectors(requiredSchema.length + i).setIsConstant()
+  }
+
+  override def hasNext: Boolean = {
+    if (!batchReady) {
+      batchReady = nextBatch()
+    }
+    batchReady
+  }
+
+  override def next(): ColumnarBatch = {
+    if (!hasNext) {
+      throw new NoSuchElementException("No more batch")
+    }
+    batchReady = false
+    batch
+  }
+
+  override def close(): Unit = {
+    batch.close()
+    reader.close()
+  }
+
+  private def nextBatch(): Boolean = {
+    vectors.foreach(_.reset())
+    var rowId = 0
+    while (rowId < capacity && (cursors != null || openNextRowGroup())) {
+      var minTime = Long.MaxValue
+      var i = 0
+      while (i < cursors.length) {
+        if (cursors(i).hasCurrent && cursors(i).currentTime < minTime) {
+          minTime = cursors(i).currentTime
+        }
+        i += 1
+      }
+
+      if (minTime == Long.MaxValue) {
+        // the current row group is used up
+        cursors = null
+      } else {
+        if (timeOrdinal >= 0) {
+          vectors(timeOrdinal).putLong(rowId, minTime)
+        }
+        if (deviceOrdinal >= 0) {
+          vectors(deviceOrdinal).putByteArray(rowId, deviceBytes)
+        }
+        i = 0
+        while (i < cursors.length) {
+          val cursor = cursors(i)
+          if (cursor.hasCurrent && cursor.currentTime == minTime) {
+            if (ordinals(i) >= 0) {
+              cursor.putCurrent(vectors(ordinals(i)), rowId)
+            }
+            cursor.next()
+          } else if (ordinals(i) >= 0) {
+            vectors(ordinals(i)).putNull(rowId)
+          }
+          i += 1
+        }
+        i = 0
+        while (i < nullOrdinals.length) {
+          vectors(nullOrdinals(i)).putNull(rowId)
+          i += 1
+        }
+        rowId += 1
+      }
+    }
+    batch.setNumRows(rowId)
+    rowId > 0
+  }
+
+  /**
+    * Open the cursors of the next row group that may have data.
+    *
+    * A series with a value filter must have a value in every returned row, so when none of its
+    * chunks satisfies the filter the row group is skipped, and otherwise the other series only
+    * need to be read within the time span of its satisfying chunks.
+    */
+  private def openNextRowGroup(): Boolean = {
+    while (rowGroupIterator.hasNext) {
+      val rowGroup = rowGroupIterator.next()
+      val chunkMetadataLists = rowGroup.paths.map(reader.getChunkMetadataList)
+
+      var timeFilter = rowGroup.timeFilter
+      var satisfied = true
+      for (i <- rowGroup.paths.indices if satisfied && rowGroup.valueFilters(i) != null) {
+        val filter = ColumnarBatchReader.and(timeFilter, rowGroup.valueFilters(i))
+        val candidates = chunkMetadataLists(i).filter(c => filter.satisfy(c.getStatistics))
+        if (candidates.isEmpty) {
+          satisfied = false
+        } else {
+          timeFilter = ColumnarBatchReader.and(timeFilter, FilterFactory.and(
+            TimeFilter.gtEq(candidates.map(_.getStartTime).min),
+            TimeFilter.ltEq(candidates.map(_.getEndTime).max)))
+        }
+      }
+
+      if (satisfied) {
+        cursors = rowGroup.paths.indices.map(i => new SeriesCursor(reader, chunkMetadataLists(i),
+          ColumnarBatchReader.and(timeFilter, rowGroup.valueFilters(i)))).toArray
+        ordinals = rowGroup.ordinals.toArray
+        nullOrdinals = requiredSchema.indices.filter(i => i != timeOrdinal && i != deviceOrdinal
+          && !rowGroup.ordinals.contains(i)).toArray
+        deviceBytes = if (rowGroup.deviceName == null) null
+        else rowGroup.deviceName.getBytes(StandardCharsets.UTF_8)
+        return true
+      }
+    }
+    false
+  }
+}
+
+private[tsfile] object ColumnarBatchReader {
+
+  /**
+    * The series that are aligned by time into rows: those of one device in the narrow form, or
+    * all the queried ones in the wide form.
+    *
+    * @param deviceName   the value of the device_name column, or null in the wide form
+    * @param paths        the series to read
+    * @param ordinals     the column of each series in the batch, -1 if the series is only read for
+    *                     its timestamps
+    * @param valueFilters the pushed-down value filter of each series, or null
+    * @param timeFilter   the time filter of all the series
+    */
+  case class RowGroup(deviceName: String, paths: Seq[Path], ordinals: Seq[Int],
+                      valueFilters: Seq[TsFileFilter], timeFilter: TsFileFilter)
+
+  /**
+    * Plan the row groups of the partition [start, end) of a TsFile.
+    *
+    * A partition reads the time ranges that TsFileExecutor assigns to it, so the rows of a chunk
+    * group are returned by exactly one partition, the same as with the row-based reader.
+    *
+    * @param reader         TsFile reader
+    * @param requiredSchema the columns to read
+    * @param filters        pushed-down filters
+    * @param isNarrowForm   true to read the file in the narrow form
+    * @param start          the start offset of the partition
+    * @param end            the end offset of the partition
+    * @return the row groups, in which the data of the partition are
+    */
+  def planRowGroups(reader: TsFileSequenceReader, requiredSchema: StructType,
+                    filters: Seq[Filter], isNarrowForm: Boolean, start: Long,
+                    end: Long): Seq[RowGroup] = {
+    val querier = new MetadataQuerierByFileImpl(reader)
+    val conjuncts = splitConjuncts(filters)
+
+    // the pushed-down time filter and value filters, by column
+    var timeFilter: TsFileFilter = null
+    val valueFilters = mutable.Map[String, TsFileFilter]()
+    conjuncts.foreach(f => toTsFileFilter(f, requiredSchema).foreach {
+      case (QueryConstant.RESERVED_TIME, filter) => timeFilter = and(timeFilter, filter)
+      case (column, filter) => valueFilters.put(column, and(valueFilters.getOrElse(column, null),
+        filter))
+    })
+
+    if (isNarrowForm) {
+      valueFilters.remove(NarrowConverter.DEVICE_NAME)
+      val measurements = reader.getAllMeasurements.keySet().toSeq
+      if (!valueFilters.keys.forall(measurements.contains)) {
+        // a filtered column is null in every row of this file
+        return Seq.empty
+      }
+      val devices = toDeviceSet(conjuncts) match {
+        case Some(selected) => reader.getDeviceNameInRange(start, end).filter(selected.contains)
+        case None => reader.getDeviceNameInRange(start, end).toSeq
+      }
+      devices.flatMap(device => {
+        val paths = measurements.map(m => new Path(device, m))
+        toRowGroup(querier, device, paths, measurements.map(requiredSchema.fieldNames.indexOf(_)),
+          measurements.map(m =>
+          valueFilters.getOrElse(m, null)), timeFilter, start, end)
+      })
+    } else {
+      val queriedSchema = WideConverter.prepSchema(requiredSchema, reader.readFileMetadata, reader)
+      if (!valueFilters.keys.forall(queriedSchema.fieldNames.contains)) {
+        return Seq.empty
+      }
+      val columns = queriedSchema.fieldNames.toSeq
+      toRowGroup(querier, null, columns.map(new Path(_)),
+        columns.map(requiredSchema.fieldNames.indexOf(_)), columns.map(c =>
+        valueFilters.getOrElse(c, null)), timeFilter, start, end).toSeq
+    }
+  }
+
+  private def toRowGroup(querier: MetadataQuerierByFileImpl, deviceName: String, paths: Seq[Path],
+                         ordinals: Seq[Int], valueFilters: Seq[TsFileFilter],
+                         timeFilter: TsFileFilter, start: Long, end: Long): Option[RowGroup] = {
+    val timeRanges = querier.convertSpace2TimePartition(paths, start, end)
+    if (timeRanges.isEmpty) {
+      return None
+    }
+    val partitionFilter = timeRanges.map(toTimeFilter)
+      .reduce[TsFileFilter]((left, right) => FilterFactory.or(left, right))
+    Some(RowGroup(deviceName, paths, ordinals, valueFilters, and(partitionFilter, timeFilter)))
+  }
+
+  private def toTimeFilter(timeRange: TimeRange): TsFileFilter = {
+    val left = if (timeRange.getLeftClose) TimeFilter.gtEq(timeRange.getMin)
+    else TimeFilter.gt(timeRange.getMin)
+    val right = if (timeRange.getRightClose) TimeFilter.ltEq(timeRange.getMax)
+    else TimeFilter.lt(timeRange.getMax)
+    FilterFactory.and(left, right)
+  }
+
+  private def and(left: TsFileFilter, right: TsFileFilter): TsFileFilter = {
+    if (left == null) right
+    else if (right == null) left
+    else FilterFactory.and(left, right)
+  }
+
+  private def splitConjuncts(filters: Seq[Filter]): Seq[Filter] = {
+    filters.flatMap {
+      case f: And => splitConjuncts(Seq(f.left, f.right))
+      case f => Seq(f)
+    }
+  }
+
+  /**
+    * @return the devices selected by the filters on the device_name column, or None if they do
+    *         not restrict the devices
+    */
+  private def toDeviceSet(conjuncts: Seq[Filter]): Option[Set[String]] = {
+    conjuncts.foldLeft[Option[Set[String]]](None)((selected, filter) => {
+      val devices: Option[Set[String]] = filter match {
+        case EqualTo(NarrowConverter.DEVICE_NAME, v: String) => Some(Set(v))
+        case In(NarrowConverter.DEVICE_NAME, values) => Some(values.map(_.toString).toSet)
+        case _ => None
+      }
+      (selected, devices) match {
+        case (Some(a), Some(b)) => Some(a.intersect(b))
+        case (a, None) => a
+        case (None, b) => b
+      }
+    })
+  }
+
+  /**
+    * Convert a filter on a single column to a TsFile filter. Filters which cannot be converted
+    * are not used for skipping data.
+    *
+    * @return the column and the TsFile filter
+    */
+  private[tsfile] def toTsFileFilter(filter: Filter, schema: StructType)
+  : Option[(String, TsFileFilter)] = {
+    filter match {
+      case f: And => combine(toTsFileFilter(f.left, schema), toTsFileFilter(f.right, schema),
+        FilterFactory.and)
+      case f: Or => combine(toTsFileFilter(f.left, schema), toTsFileFilter(f.right, schema),
+        FilterFactory.or)
+      case EqualTo(column, value) => compare(column, value, FilterTypes.Eq, schema)
+      case GreaterThan(column, value) => compare(column, value, FilterTypes.Gt, schema)
+      case GreaterThanOrEqual(column, value) => compare(column, value, FilterTypes.GtEq, schema)
+      case LessThan(column, value) => compare(column, value, FilterTypes.Lt, schema)
+      case LessThanOrEqual(column, value) => compare(column, value, FilterTypes.LtEq, schema)
+      case _ => None
+    }
+  }
+
+  private def combine(left: Option[(String, TsFileFilter)], right: Option[(String, TsFileFilter)],
+                      op: (TsFileFilter, TsFileFilter) => TsFileFilter)
+  : Option[(String, TsFileFilter)] = {
+    (left, right) match {
+      case (Some((l, lf)), Some((r, rf))) if l == r => Some((l, op(lf, rf)))
+      case _ => None
+    }
+  }
+
+  private def compare(column: String, value: Any, filterType: FilterTypes.Value,
+                      schema: StructType): Option[(String, TsFileFilter)] = {
+    if (QueryConstant.RESERVED_TIME.equals(column.toLowerCase())) {
+      value match {
+        case v: Long => Some((QueryConstant.RESERVED_TIME, filterType match {
+          case FilterTypes.Eq => TimeFilter.eq(v)
+          case FilterTypes.Gt => TimeFilter.gt(v)
+          case FilterTypes.GtEq => TimeFilter.gtEq(v)
+          case FilterTypes.Lt => TimeFilter.lt(v)
+          case FilterTypes.LtEq => TimeFilter.ltEq(v)
+        }))
+        case _ => None
+      }
+    } else {
+      val index = schema.fieldNames.indexOf(column)
+      val dataType = if (index == -1) null else schema(index).dataType
+      val filter = (value, dataType) match {
+        case (v: Int, IntegerType) => Some(valueFilter(Integer.valueOf(v), filterType))
+        case (v: Long, LongType) => Some(valueFilter(java.lang.Long.valueOf(v), filterType))
+        case (v: Float, FloatType) => Some(valueFilter(java.lang.Float.valueOf(v), filterType))
+        case (v: Double, DoubleType) => Some(valueFilter(java.lang.Double.valueOf(v), filterType))
+        // boolean and binary statistics have no min and max values
+        case (v: Boolean, BooleanType) if filterType == FilterTypes.Eq =>
+          Some(ValueFilter.eq(java.lang.Boolean.valueOf(v)))
+        case (v: String, StringType) if filterType == FilterTypes.Eq =>
+          Some(ValueFilter.eq(new Binary(v)))
+        case _ => None
+      }
+      filter.map((column, _))
+    }
+  }
+
+  private def valueFilter[T <: Comparable[T]](value: T, filterType: FilterTypes.Value)
+  : TsFileFilter = {
+    filterType match {
+      case FilterTypes.Eq => ValueFilter.eq(value)
+      case FilterTypes.Gt => ValueFilter.gt(value)
+      case FilterTypes.GtEq => ValueFilter.gtEq(value)
+      case FilterTypes.Lt => ValueFilter.lt(value)
+      case FilterTypes.LtEq => ValueFilter.ltEq(value)
+    }
+  }
+
+  /**
+    * Iterates the points of a series that satisfy the filter. Chunks are skipped by the
+    * statistics in their ChunkMetadata and pages by those in their page headers.
+    */
+  private class SeriesCursor(reader: TsFileSequenceReader,
+                             chunkMetadataList: util.List[ChunkMetadata],
+                             filter: TsFileFilter) {
+
+    private var chunkIndex = 0
+    private var chunkReader: ChunkReader = _
+    private var pageData: BatchData = _
+
+    def hasCurrent: Boolean = {
+      while (pageData == null || !pageData.hasCurrent) {
+        if (chunkReader != null && chunkReader.hasNextSatisfiedPage) {
+          pageData = chunkReader.nextPageData()
+        } else if (!nextChunk()) {
+          return false
+        }
+      }
+      true
+    }
+
+    def currentTime: Long = pageData.currentTime()
+
+    def next(): Unit = pageData.next()
+
+    def putCurrent(vector: WritableColumnVector, rowId: Int): Unit = {
+      pageData.getDataType match {
+        case TSDataType.BOOLEAN => vector.putBoolean(rowId, pageData.getBoolean)
+        case TSDataType.INT32 => vector.putInt(rowId, pageData.getInt)
+        case TSDataType.INT64 => vector.putLong(rowId, pageData.getLong)
+        case TSDataType.FLOAT => vector.putFloat(rowId, pageData.getFloat)
+        case TSDataType.DOUBLE => vector.putDouble(rowId, pageData.getDouble)
+        case TSDataType.TEXT => vector.putByteArray(rowId, pageData.getBinary.getValues)
+        case other => throw new UnsupportedOperationException(s"Unsupported type $other")
+      }
+    }
+
+    private def nextChunk(): Boolean = {
+      chunkReader = null
+      while (chunkIndex < chunkMetadataList.size()) {
+        val chunkMetadata = chunkMetadataList.get(chunkIndex)
+        chunkIndex += 1
+        if (filter == null || filter.satisfy(chunkMetadata.getStatistics)) {
+          chunkReader = new ChunkReader(reader.readMemChunk(chunkMetadata), filter)
+          return true
+        }
+      }
+      false
+    }
+  }
+
+}
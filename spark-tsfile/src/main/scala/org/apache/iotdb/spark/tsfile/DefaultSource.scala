@@ -38,6 +38,8 @@ import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.catalyst.encoders.RowEncoder
 import org.apache.spark.sql.catalyst.expressions.GenericRow
 import org.apache.spark.sql.execution.datasources.{FileFormat, OutputWriterFactory, PartitionedFile}
+import org.apache.spark.sql.execution.vectorized.OnHeapColumnVector
+import org.apache.spark.sql.internal.SQLConf
 import org.apache.spark.sql.sources.{DataSourceRegister, Filter}
 import org.apache.spark.sql.types._
 import org.slf4j.LoggerFactory
@@ -80,6 +82,70 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
     true
   }
 
+  /**
+    * Read batches with ColumnarBatchReader when the vectorized reader is enabled and the whole
+    * stage code generation can consume them.
+    */
+  override def supportBatch(sparkSession: SparkSession, schema: StructType): Boolean = {
+    val conf = sparkSession.sessionState.conf
+    conf.getConfString(DefaultSource.enableVectorizedReader, "false").toBoolean &&
+      conf.wholeStageEnabled && schema.length <= conf.wholeStageMaxNumFields &&
+      schema.forall(f => DefaultSource.vectorizedTypes.contains(f.dataType))
+  }
+
+  override def vectorTypes(
+                            requiredSchema: StructType,
+                            partitionSchema: StructType,
+                            sqlConf: SQLConf): Option[Seq[String]] = {
+    Option(Seq.fill(requiredSchema.length + partitionSchema.length)(
+      classOf[OnHeapColumnVector].getName))
+  }
+
+  override def buildReaderWithPartitionValues(
+                            sparkSession: SparkSession,
+                            dataSchema: StructType,
+                            partitionSchema: StructType,
+                            requiredSchema: StructType,
+                            filters: Seq[Filter],
+                            options: Map[String, String],
+                            hadoopConf: Configuration): (PartitionedFile) => Iterator[InternalRow]
+  = {
+    val resultSchema = StructType(requiredSchema.fields ++ partitionSchema.fields)
+    if (!supportBatch(sparkSession, resultSchema)) {
+      return super.buildReaderWithPartitionValues(sparkSession, dataSchema, partitionSchema,
+        requiredSchema, filters, options, hadoopConf)
+    }
+
+    val broadcastedConf =
+      sparkSession.sparkContext.broadcast(new SerializableConfiguration(hadoopConf))
+    val batchSize = sparkSession.sessionState.conf
+      .getConfString(DefaultSource.columnarReaderBatchSize, "4096").toInt
+    val isNarrowForm = options.getOrElse(DefaultSource.isNarrowForm, "").equals("narrow_form")
+
+    (file: PartitionedFile) => {
+      val log = LoggerFactory.getLogger(classOf[DefaultSource])
+      log.info("This partition starts from " + file.start.asInstanceOf[java.lang.Long]
+        + " and ends at " + (file.start + file.length).asInstanceOf[java.lang.Long])
+
+      val conf = broadcastedConf.value.value
+      val in = new HDFSInput(new Path(new URI(file.filePath)), conf)
+      val reader: TsFileSequenceReader = new TsFileSequenceReader(in)
+
+      val rowGroups = ColumnarBatchReader.planRowGroups(reader, requiredSchema, filters,
+        isNarrowForm, file.start, file.start + file.length)
+      val batchReader = new ColumnarBatchReader(reader, rowGroups, requiredSchema,
+        partitionSchema, file.partitionValues, batchSize)
+
+      Option(TaskContext.get()).foreach { taskContext => {
+        taskContext.addTaskCompletionListener { _ => batchReader.close() }
+      }
+      }
+
+      // FileScanRDD passes the batches through as rows
+      batchReader.asInstanceOf[Iterator[InternalRow]]
+    }
+  }
+
   override def buildReader(
                             sparkSession: SparkSession,
                             dataSchema: StructType,
@@ -267,6 +333,11 @@ private[tsfile] class DefaultSource extends FileFormat with DataSourceRegister {
 private[tsfile] object DefaultSource {
   val path = "path"
   val isNarrowForm = "form"
+  val enableVectorizedReader = "spark.sql.tsfile.enableVectorizedReader"
+  val columnarReaderBatchSize = "spark.sql.tsfile.columnarReaderBatchSize"
+
+  private val vectorizedTypes: Set[DataType] = Set(BooleanType, IntegerType, LongType, FloatType,
+    DoubleType, StringType)
 
   class SerializableConfiguration(@transient var value: Configuration) extends Serializable {
     private def writeObject(out: ObjectOutputStream): Unit = {
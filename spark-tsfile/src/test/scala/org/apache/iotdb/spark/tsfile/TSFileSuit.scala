@@ -30,7 +30,8 @@ import org.apache.iotdb.spark.constant.TestConstant
 import org.apache.iotdb.spark.tool.TsFileWriteTool
 import org.apache.iotdb.tsfile.common.constant.QueryConstant
 import org.apache.iotdb.tsfile.read.{TsFileSequenceReader, common}
-import org.apache.spark.sql.SparkSession
+import org.apache.spark.sql.execution.FileSourceScanExec
+import org.apache.spark.sql.{Row, SparkSession}
 import org.apache.spark.sql.types._
 import org.junit.Assert
 import org.scalatest.{BeforeAndAfterAll, FunSuite}
@@ -638,4 +639,73 @@ device_2: 400000 rows, time range [0,799998], interval 2
     spark.conf.set("spark.sql.files.maxPartitionBytes", tmp)
   }
 
-}
\ No newline at end of file
+  private def queryRows(sql: String, tsfile: String, isNarrowForm: Boolean,
+                        vectorized: Boolean): Seq[String] = {
+    spark.conf.set(DefaultSource.enableVectorizedReader, vectorized)
+    try {
+      val df = spark.read.tsfile(tsfile, isNarrowForm)
+      df.createOrReplaceTempView("tsfile_table")
+      spark.sql(sql).collect().map((row: Row) => row.mkString(",")).sorted
+    } finally {
+      spark.conf.unset(DefaultSource.enableVectorizedReader)
+    }
+  }
+
+  private def assertSameRows(sqls: Seq[String], tsfile: String, isNarrowForm: Boolean): Unit = {
+    sqls.foreach(sql => {
+      val expected = queryRows(sql, tsfile, isNarrowForm, vectorized = false)
+      Assert.assertEquals(sql, expected, queryRows(sql, tsfile, isNarrowForm, vectorized = true))
+    })
+  }
+
+  test("vectorized reader: columnar scan") {
+    spark.conf.set(DefaultSource.enableVectorizedReader, true)
+    try {
+      val df = spark.read.tsfile(tsfile4)
+      val scan = df.queryExecution.executedPlan.collectFirst { case s: FileSourceScanExec => s }
+      Assert.assertTrue(scan.get.supportsBatch)
+      Assert.assertEquals(600000, df.count())
+    } finally {
+      spark.conf.unset(DefaultSource.enableVectorizedReader)
+    }
+  }
+
+  test("vectorized reader: wide table") {
+    assertSameRows(Seq("select * from tsfile_table",
+      "select time from tsfile_table",
+      "select * from tsfile_table where `device_1.sensor_1`>0 and `device_1.sensor_2` < 22",
+      "select * from tsfile_table where (`device_1.sensor_1`>0 or `device_1.sensor_2` < 22) " +
+        "and time < 4"), tsfile1, isNarrowForm = false)
+    assertSameRows(Seq("select * from tsfile_table where `device_1.sensor_2` = \"Monday\"",
+      "select * from tsfile_table where `device_1.sensor_1` = true"), tsfile3,
+      isNarrowForm = false)
+
+    val tmp = spark.conf.get("spark.sql.files.maxPartitionBytes")
+    spark.conf.set("spark.sql.files.maxPartitionBytes", 1024 * 128)
+    assertSameRows(Seq("select * from tsfile_table",
+      "select time,`device_2.sensor_1` from tsfile_table where time > 131040 and time < 131050",
+      "select time,`device_1.sensor_1` from tsfile_table where " +
+        "`device_2.sensor_1` > 262080 and `device_2.sensor_2` <= 600000 and " +
+        "`device_1.sensor_1` < 400000",
+      "select time,`device_2.sensor_1` from tsfile_table where `device_1.sensor_1` < 400000"),
+      tsfile4, isNarrowForm = false)
+    spark.conf.set("spark.sql.files.maxPartitionBytes", tmp)
+  }
+
+  test("vectorized reader: narrow table") {
+    assertSameRows(Seq("select * from tsfile_table",
+      "select * from tsfile_table where `device_name` = 'device_1' and " +
+        "(`sensor_1`>0 or `sensor_2` < 22) and time < 4",
+      "select * from tsfile_table where (`sensor_1`>0 or `sensor_2` < 22) and time < 4"),
+      tsfile1, isNarrowForm = true)
+
+    val tmp = spark.conf.get("spark.sql.files.maxPartitionBytes")
+    spark.conf.set("spark.sql.files.maxPartitionBytes", 1024 * 128)
+    assertSameRows(Seq("select * from tsfile_table",
+      "select * from tsfile_table where time > 131040 and time < 131050",
+      "select time from tsfile_table where `device_name` = 'device_2' and " +
+        "`sensor_1` > 262080 and `sensor_2` <= 600000"), tsfile4, isNarrowForm = true)
+    spark.conf.set("spark.sql.files.maxPartitionBytes", tmp)
+  }
+
+}
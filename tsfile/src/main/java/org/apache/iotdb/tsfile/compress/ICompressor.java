@@ -77,6 +77,18 @@ public interface ICompressor extends Serializable {
 
   int getMaxBytesForCompression(int uncompressedDataSize);
 
+  /**
+   * compress the remaining bytes of a heap buffer, e.g., a payload sent by RPC.
+   *
+   * @return a heap buffer of the compressed bytes
+   */
+  default ByteBuffer compressHeapBuffer(ByteBuffer buffer) throws IOException {
+    byte[] compressed = new byte[getMaxBytesForCompression(buffer.remaining())];
+    int compressedSize = compress(buffer.array(), buffer.arrayOffset() + buffer.position(),
+        buffer.remaining(), compressed);
+    return ByteBuffer.wrap(compressed, 0, compressedSize);
+  }
+
   CompressionType getType();
 
   /**
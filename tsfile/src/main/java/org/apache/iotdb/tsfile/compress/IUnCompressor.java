@@ -92,6 +92,19 @@ public interface IUnCompressor {
    */
   int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException;
 
+  /**
+   * uncompress the remaining bytes of a heap buffer, e.g., a payload received by RPC.
+   *
+   * @return a heap buffer of the uncompressed bytes
+   */
+  default ByteBuffer uncompressHeapBuffer(ByteBuffer buffer) throws IOException {
+    int offset = buffer.arrayOffset() + buffer.position();
+    byte[] uncompressed = new byte[getUncompressedLength(buffer.array(), offset,
+        buffer.remaining())];
+    uncompress(buffer.array(), offset, buffer.remaining(), uncompressed, 0);
+    return ByteBuffer.wrap(uncompressed);
+  }
+
   CompressionType getCodecName();
 
   class NoUnCompressor implements IUnCompressor {
@@ -114,6 +114,10 @@ public class TimeseriesMetadata {
     this.chunkMetadataLoader = chunkMetadataLoader;
   }
 
+  public IChunkMetadataLoader getChunkMetadataLoader() {
+    return chunkMetadataLoader;
+  }
+
   public List<ChunkMetadata> loadChunkMetadataList() throws IOException {
     return chunkMetadataLoader.loadChunkMetadataList();
   }
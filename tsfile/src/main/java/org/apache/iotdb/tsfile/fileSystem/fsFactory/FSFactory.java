@@ -94,6 +94,14 @@ public interface FSFactory {
    */
   BufferedOutputStream getBufferedOutputStream(String filePath);
 
+  /**
+   * get output stream
+   * @param filePath file path
+   * @param append whether is append
+   * @return output stream
+   */
+  BufferedOutputStream getBufferedOutputStream(String filePath, boolean append);
+
   /**
    * move file
    * @param srcFile src file
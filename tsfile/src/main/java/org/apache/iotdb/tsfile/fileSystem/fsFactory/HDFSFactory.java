@@ -43,6 +43,7 @@ public class HDFSFactory implements FSFactory {
   private static Method getBufferedWriter;
   private static Method getBufferedInputStream;
   private static Method getBufferedOutputStream;
+  private static Method getAppendableBufferedOutputStream;
   private static Method listFilesBySuffix;
   private static Method listFilesByPrefix;
 
@@ -57,6 +58,8 @@ public class HDFSFactory implements FSFactory {
       getBufferedWriter = clazz.getMethod("getBufferedWriter", String.class, boolean.class);
       getBufferedInputStream = clazz.getMethod("getBufferedInputStream", String.class);
       getBufferedOutputStream = clazz.getMethod("getBufferedOutputStream", String.class);
+      getAppendableBufferedOutputStream = clazz
+          .getMethod("getBufferedOutputStream", String.class, boolean.class);
       listFilesBySuffix = clazz.getMethod("listFilesBySuffix", String.class, String.class);
       listFilesByPrefix = clazz.getMethod("listFilesByPrefix", String.class, String.class);
     } catch (ClassNotFoundException | NoSuchMethodException e) {
@@ -172,6 +175,18 @@ public class HDFSFactory implements FSFactory {
     }
   }
 
+  public BufferedOutputStream getBufferedOutputStream(String filePath, boolean append) {
+    try {
+      return (BufferedOutputStream) getAppendableBufferedOutputStream
+          .invoke(constructorWithPathname.newInstance(filePath), filePath, append);
+    } catch (InstantiationException | InvocationTargetException | IllegalAccessException e) {
+      logger.error(
+          "Failed to get buffered output stream for {}. Please check your dependency of Hadoop module.",
+          filePath, e);
+      return null;
+    }
+  }
+
   public void moveFile(File srcFile, File destFile) {
     boolean rename = srcFile.renameTo(destFile);
     if (!rename) {
@@ -101,6 +101,15 @@ public class LocalFSFactory implements FSFactory {
     }
   }
 
+  public BufferedOutputStream getBufferedOutputStream(String filePath, boolean append) {
+    try {
+      return new BufferedOutputStream(new FileOutputStream(filePath, append));
+    } catch (IOException e) {
+      logger.error("Failed to get buffered output stream for {}. ", filePath, e);
+      return null;
+    }
+  }
+
   public void moveFile(File srcFile, File destFile) {
     try {
       FileUtils.moveFile(srcFile, destFile);
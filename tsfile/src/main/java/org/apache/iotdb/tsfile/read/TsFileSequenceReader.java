@@ -451,8 +451,28 @@ public class TsFileSequenceReader implements AutoCloseable {
    * @return -chunk
    */
   public Chunk readMemChunk(ChunkMetadata metaData) throws IOException {
+    return readMemChunk(metaData, readChunkHeader(metaData));
+  }
+
+  /**
+   * read the header of a chunk, so the size of the chunk is known before its data is read.
+   *
+   * @param metaData -given chunk meta data
+   * @return -chunk header
+   */
+  public ChunkHeader readChunkHeader(ChunkMetadata metaData) throws IOException {
     int chunkHeadSize = ChunkHeader.getSerializedSize(metaData.getMeasurementUid());
-    ChunkHeader header = readChunkHeader(metaData.getOffsetOfChunkHeader(), chunkHeadSize, false);
+    return readChunkHeader(metaData.getOffsetOfChunkHeader(), chunkHeadSize, false);
+  }
+
+  /**
+   * read memory chunk whose header has been read by readChunkHeader(ChunkMetadata).
+   *
+   * @param metaData -given chunk meta data
+   * @param header -the header of the chunk
+   * @return -chunk
+   */
+  public Chunk readMemChunk(ChunkMetadata metaData, ChunkHeader header) throws IOException {
     ByteBuffer buffer = readChunk(metaData.getOffsetOfChunkHeader() + header.getSerializedSize(),
         header.getDataSize());
     return new Chunk(header, buffer, metaData.getDeletedAt(), endianType);
@@ -154,6 +154,13 @@ public class PageReader implements IPageReader {
     return pageHeader.getStatistics();
   }
 
+  /**
+   * @return the size of the uncompressed page data held by this reader
+   */
+  public int getDataSize() {
+    return valueBuffer.capacity();
+  }
+
   @Override
   public void setFilter(Filter filter) {
     this.filter = filter;
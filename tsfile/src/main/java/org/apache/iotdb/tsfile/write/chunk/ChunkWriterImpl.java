@@ -221,6 +221,7 @@ public class ChunkWriterImpl implements IChunkWriter {
 
     // reinit this chunk writer
     pageBuffer.reset();
+    numOfPages = 0;
     this.statistics = Statistics.getStatsByType(measurementSchema.getType());
   }
 
@@ -258,8 +259,9 @@ public class ChunkWriterImpl implements IChunkWriter {
   /**
    * write the page header and data into the PageWriter's output stream.
    *
-   * NOTE: for upgrading 0.8.0 to 0.9.0
+   * NOTE: used for upgrading 0.8.0 to 0.9.0 and for copying untouched pages during merge
    */
+  @Override
   public void writePageHeaderAndDataIntoBuff(ByteBuffer data, PageHeader header)
       throws PageException {
     numOfPages++;
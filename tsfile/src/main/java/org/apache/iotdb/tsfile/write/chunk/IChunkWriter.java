@@ -20,6 +20,9 @@ package org.apache.iotdb.tsfile.write.chunk;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
@@ -89,6 +92,13 @@ public interface IChunkWriter {
    */
   void write(long[] timestamps, Binary[] values, int batchSize);
 
+  /**
+   * write an already encoded and compressed page together with its header, without decoding it.
+   * The caller must make sure the page is encoded and compressed the same way as this chunk and
+   * that the unsealed page (if any) has been sealed by sealCurrentPage() before.
+   */
+  void writePageHeaderAndDataIntoBuff(ByteBuffer data, PageHeader header) throws PageException;
+
   /**
    * flush data to TsFileIOWriter.
    */
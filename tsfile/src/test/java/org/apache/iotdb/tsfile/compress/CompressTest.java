@@ -21,6 +21,7 @@ package org.apache.iotdb.tsfile.compress;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -72,6 +73,21 @@ public class CompressTest {
     assertEquals(inputString, result);
   }
 
+  @Test
+  public void snappyHeapBufferTest() throws IOException {
+    byte[] bytes = ("prefix" + inputString).getBytes(StandardCharsets.UTF_8);
+    // only the remaining bytes of a slice are compressed
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1).slice();
+    buffer.position(5);
+    ICompressor compressor = new ICompressor.SnappyCompressor();
+    IUnCompressor unCompressor = new IUnCompressor.SnappyUnCompressor();
+    ByteBuffer uncompressed = unCompressor
+        .uncompressHeapBuffer(compressor.compressHeapBuffer(buffer));
+    String result = new String(uncompressed.array(), uncompressed.arrayOffset()
+        + uncompressed.position(), uncompressed.remaining(), StandardCharsets.UTF_8);
+    assertEquals(inputString, result);
+  }
+
   @Test
   public void snappyTest() throws IOException {
     byte[] compressed = Snappy.compress(inputString.getBytes(StandardCharsets.UTF_8));